@@ -0,0 +1,96 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import codec.Decoded;
+import codec.DtoCodec;
+import codec.JsonBodyEncoder;
+import dto.ErrorDTO;
+import dto.OrderDTO;
+import dto.UserDTO;
+
+// Per-request cost of turning DTOs into request bodies and response bodies back into DTOs
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoCodecBenchmark {
+
+	private final ObjectWriter writer = new ObjectMapper().writer();
+
+	private UserDTO user;
+	private OrderDTO order;
+	private ErrorDTO error;
+	private byte[] userBody;
+	private byte[] orderBody;
+	private byte[] errorBody;
+
+	@Setup
+	public void setup() throws IOException {
+		user = new UserDTO(0, "李四", "li.si@example.com", "active");
+		order = new OrderDTO(0, 123, 576.23, "pending");
+		error = new ErrorDTO("Invalid request body: email");
+		userBody = writer.writeValueAsBytes(new UserDTO(1000, user.getName(), user.getEmail(), user.getStatus()));
+		orderBody = writer.writeValueAsBytes(new OrderDTO(1000, 123, 576.23, "pending"));
+		errorBody = writer.writeValueAsBytes(error);
+	}
+
+	@Benchmark
+	public byte[] encodeUser() {
+		return JsonBodyEncoder.user(user);
+	}
+
+	@Benchmark
+	public byte[] encodeOrder() {
+		return JsonBodyEncoder.order(order);
+	}
+
+	// Jackson's generic writer, for comparison with the hand-written encoder
+	@Benchmark
+	public byte[] writeUserWithJackson() throws IOException {
+		return writer.writeValueAsBytes(user);
+	}
+
+	@Benchmark
+	public byte[] writeOrderWithJackson() throws IOException {
+		return writer.writeValueAsBytes(order);
+	}
+
+	@Benchmark
+	public byte[] writeErrorWithJackson() throws IOException {
+		return writer.writeValueAsBytes(error);
+	}
+
+	@Benchmark
+	public Decoded<UserDTO> decodeUser() throws IOException {
+		return DtoCodec.decode(201, userBody, DtoCodec.USER);
+	}
+
+	@Benchmark
+	public Decoded<OrderDTO> decodeOrder() throws IOException {
+		return DtoCodec.decode(201, orderBody, DtoCodec.ORDER);
+	}
+
+	@Benchmark
+	public Decoded<UserDTO> decodeError() throws IOException {
+		return DtoCodec.decode(400, errorBody, DtoCodec.USER);
+	}
+
+}
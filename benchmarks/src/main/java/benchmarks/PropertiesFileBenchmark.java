@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import config.PropertiesFile;
+
+// PropertiesFile is read with a path relative to the working directory, so run the benchmarks from the repository root
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertiesFileBenchmark {
+
+	@Setup
+	public void setup() {
+		if (PropertiesFile.getUsername() == null) {
+			throw new IllegalStateException("application.properties not found, run the benchmarks from the repository root");
+		}
+	}
+
+	@Benchmark
+	public String baseUrl() {
+		return PropertiesFile.getBaseUrl();
+	}
+
+	@Benchmark
+	public String username() {
+		return PropertiesFile.getUsername();
+	}
+
+	@Benchmark
+	public String password() {
+		return PropertiesFile.getPassword();
+	}
+
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import static io.restassured.RestAssured.given;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import codec.JsonBodyEncoder;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+
+// What BaseApiTest pays before a request leaves the client: the Rest Assured specification and the auth header
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestSpecificationBenchmark {
+
+	private final String username = "user1";
+	private final String password = "123456";
+	private final byte[] body = JsonBodyEncoder.user("John Doe", "john.doe@example.com", "active");
+
+	@Benchmark
+	public RequestSpecification basicAuthSpecification() {
+		return given()
+			.auth()
+			.basic(username, password)
+			.contentType(ContentType.JSON)
+			.body(body);
+	}
+
+	@Benchmark
+	public RequestSpecification preemptiveBasicAuthSpecification() {
+		return given()
+			.auth()
+			.preemptive()
+			.basic(username, password)
+			.contentType(ContentType.JSON)
+			.body(body);
+	}
+
+	@Benchmark
+	public String basicAuthHeader() {
+		return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+	}
+
+}
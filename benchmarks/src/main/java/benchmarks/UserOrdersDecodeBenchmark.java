@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import codec.Decoded;
+import codec.DtoCodec;
+import dto.OrderDTO;
+import dto.UserDTO;
+
+// Decoding GET /users/{id}/orders grows with the order count, 100k orders is a body of several MB
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserOrdersDecodeBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	public int orders;
+
+	private byte[] body;
+
+	@Setup
+	public void setup() throws IOException {
+		ArrayList<OrderDTO> list = new ArrayList<>(orders);
+		for (int i = 0; i < orders; i++) {
+			list.add(new OrderDTO(1000 + i, 123, 10 + i % 10000 / 100.0, i % 2 == 0 ? "pending" : "shipped"));
+		}
+		body = new ObjectMapper().writeValueAsBytes(new UserDTO(123, "John Doe", "john.doe@example.com", "active", list));
+	}
+
+	@Benchmark
+	public Decoded<List<OrderDTO>> decodeOrders() throws IOException {
+		return DtoCodec.decodeOrders(200, body);
+	}
+
+}
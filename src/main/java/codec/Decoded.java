@@ -0,0 +1,35 @@
+package codec;
+
+import dto.ErrorDTO;
+
+// A decoded response body: the expected DTO for 200/201, the ErrorDTO for everything else
+public class Decoded<T> {
+
+	private final int statusCode;
+	private final T value;
+	private final ErrorDTO error;
+
+	public Decoded(int statusCode, T value, ErrorDTO error) {
+		super();
+		this.statusCode = statusCode;
+		this.value = value;
+		this.error = error;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public boolean isSuccess() {
+		return DtoCodec.isSuccess(statusCode);
+	}
+
+	public T getValue() {
+		return value;
+	}
+
+	public ErrorDTO getError() {
+		return error;
+	}
+
+}
@@ -0,0 +1,96 @@
+package codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import dto.ErrorDTO;
+import dto.OrderDTO;
+import dto.UserDTO;
+
+// Readers are built once and are immutable, so every thread shares them. Bodies are decoded straight from the
+// response stream, without building an intermediate string or tree.
+public final class DtoCodec {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	public static final ObjectReader USER = MAPPER.readerFor(UserDTO.class);
+	public static final ObjectReader ORDER = MAPPER.readerFor(OrderDTO.class);
+	public static final ObjectReader ERROR = MAPPER.readerFor(ErrorDTO.class);
+	public static final ObjectReader TREE = MAPPER.reader();
+
+	private DtoCodec() {
+	}
+
+	public static boolean isSuccess(int statusCode) {
+		return statusCode == 200 || statusCode == 201;
+	}
+
+	// Success bodies go through the given reader, anything else is read as an ErrorDTO
+	public static <T> Decoded<T> decode(int statusCode, InputStream body, ObjectReader successReader) throws IOException {
+		if (isSuccess(statusCode)) {
+			return new Decoded<>(statusCode, successReader.<T>readValue(body), null);
+		}
+		return new Decoded<>(statusCode, null, ERROR.<ErrorDTO>readValue(body));
+	}
+
+	// For bodies the client already buffered, e.g. Response.asByteArray()
+	public static <T> Decoded<T> decode(int statusCode, byte[] body, ObjectReader successReader) throws IOException {
+		if (isSuccess(statusCode)) {
+			return new Decoded<>(statusCode, successReader.<T>readValue(body), null);
+		}
+		return new Decoded<>(statusCode, null, ERROR.<ErrorDTO>readValue(body));
+	}
+
+	// GET /users/{id}/orders answers with the user and its orders, only the orders are kept
+	public static Decoded<List<OrderDTO>> decodeOrders(int statusCode, InputStream body) throws IOException {
+		return orders(DtoCodec.<UserDTO>decode(statusCode, body, USER));
+	}
+
+	public static Decoded<List<OrderDTO>> decodeOrders(int statusCode, byte[] body) throws IOException {
+		return orders(DtoCodec.<UserDTO>decode(statusCode, body, USER));
+	}
+
+	// The same body without holding the orders: they are pulled from the stream one at a time, see OrderStream.
+	// Anything but 200/201 is read as the ErrorDTO. Close the stream once done with it.
+	public static Decoded<OrderStream> streamOrders(int statusCode, InputStream body) throws IOException {
+		if (isSuccess(statusCode)) {
+			return new Decoded<>(statusCode, OrderStream.of(body), null);
+		}
+		try (InputStream error = body) {
+			return new Decoded<>(statusCode, null, ERROR.<ErrorDTO>readValue(error));
+		}
+	}
+
+	public static ErrorDTO decodeError(InputStream body) throws IOException {
+		return ERROR.readValue(body);
+	}
+
+	public static ErrorDTO decodeError(byte[] body) throws IOException {
+		return ERROR.readValue(body);
+	}
+
+	public static JsonNode readTree(InputStream body) throws IOException {
+		return TREE.readTree(body);
+	}
+
+	public static JsonNode readTree(byte[] body) throws IOException {
+		return TREE.readTree(body);
+	}
+
+	private static Decoded<List<OrderDTO>> orders(Decoded<UserDTO> user) {
+		if (!user.isSuccess()) {
+			return new Decoded<>(user.getStatusCode(), null, user.getError());
+		}
+		List<OrderDTO> orders = user.getValue().getOrders() == null ? new ArrayList<>() : user.getValue().getOrders();
+		return new Decoded<>(user.getStatusCode(), orders, null);
+	}
+
+}
@@ -0,0 +1,213 @@
+package codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import dto.OrderDTO;
+import dto.UserDTO;
+
+// Writes UserDTO/OrderDTO request bodies as UTF-8 JSON straight into a per-thread buffer that is reused from one
+// request to the next. The only allocation per body is the exact-size byte[] handed to the client.
+// Strings are escaped, so quotes or backslashes in names can't break the JSON.
+public final class JsonBodyEncoder {
+
+	// Buffers that grew past this are not kept, so one huge body doesn't pin memory on every thread
+	private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+	private static final ThreadLocal<JsonBodyEncoder> POOL = ThreadLocal.withInitial(JsonBodyEncoder::new);
+
+	private static final byte[] NAME = ascii("{\"name\":");
+	private static final byte[] EMAIL = ascii(",\"email\":");
+	private static final byte[] USER_ID = ascii("{\"userId\":");
+	private static final byte[] TOTAL_AMOUNT = ascii(",\"totalAmount\":");
+	private static final byte[] STATUS = ascii(",\"status\":");
+	private static final byte[] NULL = ascii("null");
+	private static final byte[] HEX = ascii("0123456789abcdef");
+
+	private byte[] buffer = new byte[256];
+	private int length;
+
+	private JsonBodyEncoder() {
+	}
+
+	public static byte[] user(UserDTO user) {
+		return user(user.getName(), user.getEmail(), user.getStatus());
+	}
+
+	// {"name":"...","email":"...","status":"..."}
+	public static byte[] user(String name, String email, String status) {
+		JsonBodyEncoder encoder = POOL.get().reset();
+		encoder.write(NAME);
+		encoder.writeString(name);
+		encoder.write(EMAIL);
+		encoder.writeString(email);
+		encoder.write(STATUS);
+		encoder.writeString(status);
+		encoder.write('}');
+		return encoder.finish();
+	}
+
+	public static byte[] order(OrderDTO order) {
+		return order(order.getUserId(), order.getTotalAmount(), order.getStatus());
+	}
+
+	// {"userId":123,"totalAmount":576.23,"status":"..."}
+	public static byte[] order(int userId, double totalAmount, String status) {
+		JsonBodyEncoder encoder = POOL.get().reset();
+		encoder.write(USER_ID);
+		encoder.writeInt(userId);
+		encoder.write(TOTAL_AMOUNT);
+		encoder.writeDouble(totalAmount);
+		encoder.write(STATUS);
+		encoder.writeString(status);
+		encoder.write('}');
+		return encoder.finish();
+	}
+
+	private JsonBodyEncoder reset() {
+		length = 0;
+		return this;
+	}
+
+	private byte[] finish() {
+		byte[] body = Arrays.copyOf(buffer, length);
+		if (buffer.length > MAX_POOLED_CAPACITY) {
+			POOL.remove();
+		}
+		return body;
+	}
+
+	private void ensure(int extra) {
+		if (length + extra > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+		}
+	}
+
+	private void write(int b) {
+		ensure(1);
+		buffer[length++] = (byte) b;
+	}
+
+	private void write(byte[] bytes) {
+		ensure(bytes.length);
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+	}
+
+	private void writeString(String value) {
+		if (value == null) {
+			write(NULL);
+			return;
+		}
+		// worst case is 6 bytes per char (\\u0000 escapes), plus the quotes
+		ensure(value.length() * 6 + 2);
+		byte[] out = buffer;
+		int pos = length;
+		out[pos++] = '"';
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				if (c == '"' || c == '\\') {
+					out[pos++] = '\\';
+					out[pos++] = (byte) c;
+				} else if (c >= 0x20) {
+					out[pos++] = (byte) c;
+				} else if (c == '\n') {
+					out[pos++] = '\\';
+					out[pos++] = 'n';
+				} else if (c == '\r') {
+					out[pos++] = '\\';
+					out[pos++] = 'r';
+				} else if (c == '\t') {
+					out[pos++] = '\\';
+					out[pos++] = 't';
+				} else {
+					pos = writeUnicodeEscape(out, pos, c);
+				}
+			} else if (c < 0x800) {
+				out[pos++] = (byte) (0xC0 | (c >> 6));
+				out[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+				out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// a lone surrogate has no UTF-8 form, the escape keeps it lossless
+				pos = writeUnicodeEscape(out, pos, c);
+			} else {
+				out[pos++] = (byte) (0xE0 | (c >> 12));
+				out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				out[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		out[pos++] = '"';
+		length = pos;
+	}
+
+	private static int writeUnicodeEscape(byte[] out, int pos, char c) {
+		out[pos++] = '\\';
+		out[pos++] = 'u';
+		out[pos++] = HEX[(c >> 12) & 0xF];
+		out[pos++] = HEX[(c >> 8) & 0xF];
+		out[pos++] = HEX[(c >> 4) & 0xF];
+		out[pos++] = HEX[c & 0xF];
+		return pos;
+	}
+
+	private void writeInt(int value) {
+		writeLong(value);
+	}
+
+	private void writeLong(long value) {
+		ensure(20);
+		if (value == Long.MIN_VALUE) {
+			write(ascii(Long.toString(value)));
+			return;
+		}
+		if (value < 0) {
+			buffer[length++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+		for (int i = length + digits - 1; i >= length; i--) {
+			buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		length += digits;
+	}
+
+	// Amounts are almost always whole cents, those are written without going through Double.toString
+	private void writeDouble(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			write(NULL);
+			return;
+		}
+		long cents = Math.round(value * 100);
+		if (Math.abs(value) < 1e13 && cents / 100.0 == value) {
+			if (cents < 0) {
+				write('-');
+				cents = -cents;
+			}
+			writeLong(cents / 100);
+			int fraction = (int) (cents % 100);
+			if (fraction != 0) {
+				write('.');
+				write('0' + fraction / 10);
+				if (fraction % 10 != 0) {
+					write('0' + fraction % 10);
+				}
+			}
+			return;
+		}
+		write(ascii(Double.toString(value)));
+	}
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+}
@@ -0,0 +1,125 @@
+package codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dto.OrderDTO;
+import dto.UserDTO;
+
+// Pulls the orders of a GET /users/{id}/orders body out of the stream one at a time, so only the order being decoded is
+// in memory however many the user has, and the first orders can be checked while the rest is still downloading.
+// The user's own fields are collected on the way; getUser() has all of them once the stream is used up.
+public final class OrderStream implements Iterator<OrderDTO>, Closeable {
+
+	private final JsonParser parser;
+	private final ObjectNode userFields = JsonNodeFactory.instance.objectNode();
+	private boolean inOrders;
+	private boolean done;
+	private OrderDTO next;
+	private long count;
+
+	OrderStream(JsonParser parser) throws IOException {
+		this.parser = parser;
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new IOException("Expected a user object, found " + parser.currentToken());
+		}
+		readUserFields();
+	}
+
+	// Reads user fields up to the orders array or the end of the user
+	private void readUserFields() throws IOException {
+		for (JsonToken token = parser.nextToken(); token != JsonToken.END_OBJECT; token = parser.nextToken()) {
+			if (token != JsonToken.FIELD_NAME) {
+				throw new IOException("Unexpected " + token + " in the user object");
+			}
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			if (field.equals("orders") && value == JsonToken.START_ARRAY) {
+				inOrders = true;
+				return;
+			}
+			if (field.equals("orders")) {
+				parser.skipChildren();
+			} else {
+				userFields.set(field, DtoCodec.TREE.readTree(parser));
+			}
+		}
+		done = true;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next != null) {
+			return true;
+		}
+		try {
+			while (!done) {
+				if (inOrders) {
+					JsonToken token = parser.nextToken();
+					if (token == JsonToken.START_OBJECT) {
+						next = DtoCodec.ORDER.readValue(parser);
+						count++;
+						return true;
+					}
+					if (token != JsonToken.END_ARRAY) {
+						throw new IOException("Unexpected " + token + " in the orders array");
+					}
+					inOrders = false;
+				}
+				readUserFields();
+			}
+			return false;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public OrderDTO next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		OrderDTO order = next;
+		next = null;
+		return order;
+	}
+
+	// Hands every remaining order to 'each' and returns how many this stream decoded in total
+	public long forEachRemainingOrder(Consumer<OrderDTO> each) {
+		forEachRemaining(each);
+		return count;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	// The user without its orders. Fields the service sends after the orders are only there once the stream is used up.
+	public UserDTO getUser() {
+		try {
+			return DtoCodec.USER.readValue(userFields);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		parser.close();
+	}
+
+	static OrderStream of(InputStream body) throws IOException {
+		return new OrderStream(DtoCodec.TREE.getFactory().createParser(body));
+	}
+
+}
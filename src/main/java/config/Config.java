@@ -0,0 +1,626 @@
+package config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// Immutable, typed snapshot of the test configuration. Each key is looked up in three layers, the later ones winning:
+//   1. the properties file, e.g. baseUrl=embedded
+//   2. environment variables, AXIOM_ plus the key in upper snake case, e.g. AXIOM_BASE_URL
+//   3. system properties, axiom. plus the key, e.g. -Daxiom.baseUrl=http://localhost:8080
+// Values are parsed when the snapshot is built, so a bad number fails the load instead of a test halfway through.
+public final class Config {
+
+	public static final String BASE_URL = "baseUrl";
+	public static final String USERNAME = "username";
+	public static final String PASSWORD = "password";
+	public static final String INCORECT_PASSWORD = "incorectPassword";
+	public static final String STRESS_USERS = "stressUsers";
+	public static final String STRESS_RATE = "stressRate";
+	public static final String STRESS_DURATION_SECONDS = "stressDurationSeconds";
+	public static final String WARMUP_SECONDS = "warmupSeconds";
+	public static final String WARMUP_MAX_SECONDS = "warmupMaxSeconds";
+	public static final String STEADY_STATE_WINDOW_MILLIS = "steadyStateWindowMillis";
+	public static final String STEADY_STATE_WINDOWS = "steadyStateWindows";
+	public static final String STEADY_STATE_TOLERANCE = "steadyStateTolerance";
+	public static final String CAPACITY_SLO_P99_MILLIS = "capacitySloP99Millis";
+	public static final String CAPACITY_MAX_ERROR_RATE = "capacityMaxErrorRate";
+	public static final String CAPACITY_START_RATE = "capacityStartRate";
+	public static final String CAPACITY_MAX_RATE = "capacityMaxRate";
+	public static final String CAPACITY_STEP_SECONDS = "capacityStepSeconds";
+	public static final String CAPACITY_RESOLUTION = "capacityResolution";
+	public static final String RESULTS_FILE = "resultsFile";
+	public static final String BASELINE_RUNS = "baselineRuns";
+	public static final String REGRESSION_ALPHA = "regressionAlpha";
+	public static final String REGRESSION_MIN_CHANGE = "regressionMinChange";
+	public static final String POOL_SIZE = "poolSize";
+	public static final String POOL_IDLE_SECONDS = "poolIdleSeconds";
+	public static final String CONNECTION_PER_REQUEST = "connectionPerRequest";
+	public static final String ASYNC_MAX_IN_FLIGHT = "asyncMaxInFlight";
+	public static final String ASYNC_HTTP2 = "asyncHttp2";
+	public static final String WORKERS = "workers";
+	public static final String WORKER_PORT = "workerPort";
+	public static final String LAUNCH_WORKERS = "launchWorkers";
+	public static final String REPORT_INTERVAL_MILLIS = "reportIntervalMillis";
+	public static final String WORKLOAD_MIX = "workloadMix";
+	public static final String THINK_TIME_MILLIS = "thinkTimeMillis";
+	public static final String CORPUS_DIRECTORY = "corpusDirectory";
+	public static final String CORPUS_SIZE = "corpusSize";
+	public static final String CORPUS_SEED = "corpusSeed";
+	public static final String VALIDATION_RING_SIZE = "validationRingSize";
+	public static final String VALIDATION_CONSUMERS = "validationConsumers";
+	public static final String VALIDATION_SAMPLE_RATE = "validationSampleRate";
+	public static final String INTERVAL_REPORT_SECONDS = "intervalReportSeconds";
+	public static final String HISTOGRAM_LOG_DIRECTORY = "histogramLogDirectory";
+	public static final String SOAK_MINUTES = "soakMinutes";
+	public static final String SOAK_HEAP_BUDGET_MB = "soakHeapBudgetMb";
+	public static final String GENERATOR_MAX_LAG_MILLIS = "generatorMaxLagMillis";
+	public static final String GENERATOR_MAX_QUEUE_DEPTH = "generatorMaxQueueDepth";
+	public static final String GENERATOR_MAX_CPU = "generatorMaxCpu";
+	public static final String GENERATOR_MAX_GC_SHARE = "generatorMaxGcShare";
+	public static final String BACKPRESSURE_MAX_RATE = "backpressureMaxRate";
+	public static final String BACKPRESSURE_MAX_RETRIES = "backpressureMaxRetries";
+	public static final String BACKPRESSURE_MAX_WAIT_MILLIS = "backpressureMaxWaitMillis";
+	public static final String BACKPRESSURE_BREAKER_FAILURES = "backpressureBreakerFailures";
+	public static final String BACKPRESSURE_COOLDOWN_MILLIS = "backpressureCooldownMillis";
+	public static final String REQUEST_EVENTS = "requestEvents";
+	public static final String JFR_FILE = "jfrFile";
+	public static final String WATCH = "watchConfig";
+
+	private static final String[] KEYS = { BASE_URL, USERNAME, PASSWORD, INCORECT_PASSWORD, STRESS_USERS, STRESS_RATE,
+			STRESS_DURATION_SECONDS, WARMUP_SECONDS, WARMUP_MAX_SECONDS, STEADY_STATE_WINDOW_MILLIS, STEADY_STATE_WINDOWS,
+			STEADY_STATE_TOLERANCE, CAPACITY_SLO_P99_MILLIS, CAPACITY_MAX_ERROR_RATE, CAPACITY_START_RATE, CAPACITY_MAX_RATE,
+			CAPACITY_STEP_SECONDS, CAPACITY_RESOLUTION, RESULTS_FILE, BASELINE_RUNS, REGRESSION_ALPHA, REGRESSION_MIN_CHANGE,
+			POOL_SIZE, POOL_IDLE_SECONDS, CONNECTION_PER_REQUEST, ASYNC_MAX_IN_FLIGHT, ASYNC_HTTP2, WORKERS, WORKER_PORT,
+			LAUNCH_WORKERS, REPORT_INTERVAL_MILLIS, WORKLOAD_MIX, THINK_TIME_MILLIS, CORPUS_DIRECTORY, CORPUS_SIZE, CORPUS_SEED,
+			VALIDATION_RING_SIZE, VALIDATION_CONSUMERS, VALIDATION_SAMPLE_RATE,
+			INTERVAL_REPORT_SECONDS, HISTOGRAM_LOG_DIRECTORY, SOAK_MINUTES, SOAK_HEAP_BUDGET_MB, GENERATOR_MAX_LAG_MILLIS,
+			GENERATOR_MAX_QUEUE_DEPTH, GENERATOR_MAX_CPU, GENERATOR_MAX_GC_SHARE, BACKPRESSURE_MAX_RATE,
+			BACKPRESSURE_MAX_RETRIES, BACKPRESSURE_MAX_WAIT_MILLIS, BACKPRESSURE_BREAKER_FAILURES, BACKPRESSURE_COOLDOWN_MILLIS,
+			REQUEST_EVENTS, JFR_FILE, WATCH };
+	// Mostly reads, like production traffic
+	private static final String DEFAULT_WORKLOAD_MIX = "getUserById=40,retrieveOrderById=30,getUserOrders=10,createUser=8,"
+			+ "placeOrder=6,updateUser=3,updateOrder=3";
+
+	private final Map<String, String> values;
+	private final String baseUrl;
+	private final String username;
+	private final String password;
+	private final String incorectPassword;
+	private final int stressUsers;
+	private final double stressRate;
+	private final Duration stressDuration;
+	private final Duration warmup;
+	private final Duration warmupMax;
+	private final Duration steadyStateWindow;
+	private final int steadyStateWindows;
+	private final double steadyStateTolerance;
+	private final double capacitySloP99Millis;
+	private final double capacityMaxErrorRate;
+	private final double capacityStartRate;
+	private final double capacityMaxRate;
+	private final Duration capacityStep;
+	private final double capacityResolution;
+	private final String resultsFile;
+	private final int baselineRuns;
+	private final double regressionAlpha;
+	private final double regressionMinChange;
+	private final int poolSize;
+	private final Duration poolIdleTimeout;
+	private final boolean connectionPerRequest;
+	private final int asyncMaxInFlight;
+	private final boolean asyncHttp2;
+	private final int workers;
+	private final int workerPort;
+	private final boolean launchWorkers;
+	private final Duration reportInterval;
+	private final Map<String, Integer> workloadMix;
+	private final Duration thinkTime;
+	private final String corpusDirectory;
+	private final int corpusSize;
+	private final long corpusSeed;
+	private final int validationRingSize;
+	private final int validationConsumers;
+	private final double validationSampleRate;
+	private final Duration intervalReport;
+	private final String histogramLogDirectory;
+	private final Duration soakDuration;
+	private final long soakHeapBudgetMb;
+	private final Duration generatorMaxLag;
+	private final int generatorMaxQueueDepth;
+	private final double generatorMaxCpu;
+	private final double generatorMaxGcShare;
+	private final double backpressureMaxRate;
+	private final int backpressureMaxRetries;
+	private final Duration backpressureMaxWait;
+	private final int backpressureBreakerFailures;
+	private final Duration backpressureCooldown;
+	private final boolean requestEvents;
+	private final String jfrFile;
+	private final boolean watch;
+
+	private Config(Map<String, String> values) {
+		super();
+		this.values = Collections.unmodifiableMap(values);
+		this.baseUrl = values.get(BASE_URL);
+		this.username = values.get(USERNAME);
+		this.password = values.get(PASSWORD);
+		this.incorectPassword = values.get(INCORECT_PASSWORD);
+		this.stressUsers = parseInt(STRESS_USERS, 20);
+		this.stressRate = parseDouble(STRESS_RATE, 100);
+		this.stressDuration = Duration.ofSeconds(parseInt(STRESS_DURATION_SECONDS, 5));
+		this.warmup = Duration.ofSeconds(parseInt(WARMUP_SECONDS, 1));
+		this.warmupMax = Duration.ofSeconds(parseInt(WARMUP_MAX_SECONDS, 10));
+		this.steadyStateWindow = Duration.ofMillis(parseInt(STEADY_STATE_WINDOW_MILLIS, 500));
+		this.steadyStateWindows = parseInt(STEADY_STATE_WINDOWS, 3);
+		this.steadyStateTolerance = parseDouble(STEADY_STATE_TOLERANCE, 0.2);
+		this.capacitySloP99Millis = parseDouble(CAPACITY_SLO_P99_MILLIS, 200);
+		this.capacityMaxErrorRate = parseDouble(CAPACITY_MAX_ERROR_RATE, 0.01);
+		this.capacityStartRate = parseDouble(CAPACITY_START_RATE, 50);
+		this.capacityMaxRate = parseDouble(CAPACITY_MAX_RATE, 5000);
+		this.capacityStep = Duration.ofSeconds(parseInt(CAPACITY_STEP_SECONDS, 2));
+		this.capacityResolution = parseDouble(CAPACITY_RESOLUTION, 0.05);
+		// Empty turns the results store off, stress runs are then neither stored nor compared
+		this.resultsFile = values.containsKey(RESULTS_FILE) ? values.get(RESULTS_FILE) : "perf-results/results.jsonl";
+		this.baselineRuns = parseInt(BASELINE_RUNS, 5);
+		// Every stress test checks three metrics per run, a low alpha keeps the suite-wide false alarm rate low
+		this.regressionAlpha = parseDouble(REGRESSION_ALPHA, 0.001);
+		this.regressionMinChange = parseDouble(REGRESSION_MIN_CHANGE, 0.1);
+		this.poolSize = parseInt(POOL_SIZE, 64);
+		this.poolIdleTimeout = Duration.ofSeconds(parseInt(POOL_IDLE_SECONDS, 10));
+		this.connectionPerRequest = Boolean.parseBoolean(values.get(CONNECTION_PER_REQUEST));
+		this.asyncMaxInFlight = parseInt(ASYNC_MAX_IN_FLIGHT, 256);
+		// HTTP/2 is asked for unless switched off, the client falls back to HTTP/1.1 when the server doesn't speak it
+		this.asyncHttp2 = values.get(ASYNC_HTTP2) == null || Boolean.parseBoolean(values.get(ASYNC_HTTP2));
+		this.workers = parseInt(WORKERS, 2);
+		// 0 picks a free port, workers started by hand need a fixed one to connect to
+		this.workerPort = parseInt(WORKER_PORT, 0);
+		this.launchWorkers = values.get(LAUNCH_WORKERS) == null || Boolean.parseBoolean(values.get(LAUNCH_WORKERS));
+		this.reportInterval = Duration.ofMillis(parseInt(REPORT_INTERVAL_MILLIS, 1000));
+		this.workloadMix = parseWeights(WORKLOAD_MIX, DEFAULT_WORKLOAD_MIX);
+		this.thinkTime = Duration.ofMillis(parseInt(THINK_TIME_MILLIS, 0));
+		this.corpusDirectory = values.containsKey(CORPUS_DIRECTORY) ? values.get(CORPUS_DIRECTORY) : "target/corpus";
+		this.corpusSize = parseInt(CORPUS_SIZE, 100_000);
+		this.corpusSeed = parseLong(CORPUS_SEED, 42);
+		this.validationRingSize = parseInt(VALIDATION_RING_SIZE, 8192);
+		this.validationConsumers = parseInt(VALIDATION_CONSUMERS, 1);
+		this.validationSampleRate = parseDouble(VALIDATION_SAMPLE_RATE, 1);
+		this.intervalReport = Duration.ofSeconds(parseInt(INTERVAL_REPORT_SECONDS, 10));
+		// Empty leaves the interval reports on the console only
+		this.histogramLogDirectory = values.containsKey(HISTOGRAM_LOG_DIRECTORY) ? values.get(HISTOGRAM_LOG_DIRECTORY)
+				: "target/histogram-logs";
+		// 0 runs the soak test for stressDurationSeconds, so a default build stays short
+		this.soakDuration = Duration.ofMinutes(parseInt(SOAK_MINUTES, 0));
+		this.soakHeapBudgetMb = parseInt(SOAK_HEAP_BUDGET_MB, 64);
+		// Beyond these a stress run measures the harness, e.g. a sender that wakes 50 ms late adds 50 ms to every latency
+		this.generatorMaxLag = Duration.ofMillis(parseInt(GENERATOR_MAX_LAG_MILLIS, 50));
+		this.generatorMaxQueueDepth = parseInt(GENERATOR_MAX_QUEUE_DEPTH, 100);
+		this.generatorMaxCpu = parseDouble(GENERATOR_MAX_CPU, 0.9);
+		this.generatorMaxGcShare = parseDouble(GENERATOR_MAX_GC_SHARE, 0.1);
+		// The throttle starts at the maximum rate and only slows down when the service answers 429 or 503
+		this.backpressureMaxRate = parseDouble(BACKPRESSURE_MAX_RATE, 1000);
+		this.backpressureMaxRetries = parseInt(BACKPRESSURE_MAX_RETRIES, 3);
+		this.backpressureMaxWait = Duration.ofMillis(parseInt(BACKPRESSURE_MAX_WAIT_MILLIS, 1000));
+		this.backpressureBreakerFailures = parseInt(BACKPRESSURE_BREAKER_FAILURES, 10);
+		this.backpressureCooldown = Duration.ofMillis(parseInt(BACKPRESSURE_COOLDOWN_MILLIS, 2000));
+		// Only costs anything while a recording is running, and can be switched off without a restart via watchConfig
+		this.requestEvents = values.get(REQUEST_EVENTS) == null || Boolean.parseBoolean(values.get(REQUEST_EVENTS));
+		// Empty leaves recording to -XX:StartFlightRecording or jcmd
+		this.jfrFile = values.containsKey(JFR_FILE) ? values.get(JFR_FILE) : "";
+		this.watch = Boolean.parseBoolean(values.get(WATCH));
+		if (stressUsers < 1 || stressRate <= 0 || stressDuration.isNegative() || stressDuration.isZero()) {
+			throw new IllegalArgumentException("Stress settings must be positive: " + STRESS_USERS + "=" + stressUsers + ", "
+					+ STRESS_RATE + "=" + stressRate + ", " + STRESS_DURATION_SECONDS + "=" + stressDuration.getSeconds());
+		}
+		// warmupMaxSeconds=0 turns warm-up off, stress runs then measure from their first request
+		if (warmup.isNegative() || warmupMax.compareTo(warmup) < 0 || steadyStateWindow.isNegative()
+				|| steadyStateWindow.isZero() || steadyStateWindows < 2 || steadyStateTolerance <= 0) {
+			throw new IllegalArgumentException("Invalid warm-up settings: " + WARMUP_SECONDS + "=" + warmup.getSeconds() + ", "
+					+ WARMUP_MAX_SECONDS + "=" + warmupMax.getSeconds() + ", " + STEADY_STATE_WINDOW_MILLIS + "="
+					+ steadyStateWindow.toMillis() + ", " + STEADY_STATE_WINDOWS + "=" + steadyStateWindows + ", "
+					+ STEADY_STATE_TOLERANCE + "=" + steadyStateTolerance);
+		}
+		if (capacitySloP99Millis <= 0 || capacityMaxErrorRate < 0 || capacityMaxErrorRate >= 1 || capacityStartRate <= 0
+				|| capacityMaxRate < capacityStartRate || capacityStep.isNegative() || capacityStep.isZero()
+				|| capacityResolution <= 0) {
+			throw new IllegalArgumentException("Invalid capacity search settings: " + CAPACITY_SLO_P99_MILLIS + "="
+					+ capacitySloP99Millis + ", " + CAPACITY_MAX_ERROR_RATE + "=" + capacityMaxErrorRate + ", "
+					+ CAPACITY_START_RATE + "=" + capacityStartRate + ", " + CAPACITY_MAX_RATE + "=" + capacityMaxRate + ", "
+					+ CAPACITY_STEP_SECONDS + "=" + capacityStep.getSeconds() + ", " + CAPACITY_RESOLUTION + "="
+					+ capacityResolution);
+		}
+		if (baselineRuns < 3 || regressionAlpha <= 0 || regressionAlpha >= 1 || regressionMinChange < 0) {
+			throw new IllegalArgumentException("Invalid regression settings: " + BASELINE_RUNS + "=" + baselineRuns + " (at least 3), "
+					+ REGRESSION_ALPHA + "=" + regressionAlpha + ", " + REGRESSION_MIN_CHANGE + "=" + regressionMinChange);
+		}
+		if (poolSize < 1 || poolIdleTimeout.isNegative() || poolIdleTimeout.isZero()) {
+			throw new IllegalArgumentException("Pool settings must be positive: " + POOL_SIZE + "=" + poolSize + ", "
+					+ POOL_IDLE_SECONDS + "=" + poolIdleTimeout.getSeconds());
+		}
+		if (asyncMaxInFlight < 1) {
+			throw new IllegalArgumentException("In-flight cap must be positive: " + ASYNC_MAX_IN_FLIGHT + "=" + asyncMaxInFlight);
+		}
+		if (workers < 1 || workerPort < 0 || workerPort > 65535 || reportInterval.isNegative() || reportInterval.isZero()) {
+			throw new IllegalArgumentException("Invalid worker settings: " + WORKERS + "=" + workers + ", " + WORKER_PORT + "="
+					+ workerPort + ", " + REPORT_INTERVAL_MILLIS + "=" + reportInterval.toMillis());
+		}
+		if (thinkTime.isNegative()) {
+			throw new IllegalArgumentException("Think time can't be negative: " + THINK_TIME_MILLIS + "=" + thinkTime.toMillis());
+		}
+		if (corpusDirectory.trim().isEmpty() || corpusSize < 1) {
+			throw new IllegalArgumentException("Invalid corpus settings: " + CORPUS_DIRECTORY + "=" + corpusDirectory + ", "
+					+ CORPUS_SIZE + "=" + corpusSize);
+		}
+		if (validationRingSize < 2 || validationConsumers < 1 || !(validationSampleRate > 0 && validationSampleRate <= 1)) {
+			throw new IllegalArgumentException("Invalid validation settings: " + VALIDATION_RING_SIZE + "=" + validationRingSize
+					+ " (at least 2), " + VALIDATION_CONSUMERS + "=" + validationConsumers + ", " + VALIDATION_SAMPLE_RATE + "="
+					+ validationSampleRate + " (above 0, at most 1)");
+		}
+		if (intervalReport.isNegative() || intervalReport.isZero()) {
+			throw new IllegalArgumentException("Interval reports need a positive interval: " + INTERVAL_REPORT_SECONDS + "="
+					+ intervalReport.getSeconds());
+		}
+		if (soakDuration.isNegative() || soakHeapBudgetMb < 1) {
+			throw new IllegalArgumentException("Invalid soak settings: " + SOAK_MINUTES + "=" + soakDuration.toMinutes() + ", "
+					+ SOAK_HEAP_BUDGET_MB + "=" + soakHeapBudgetMb);
+		}
+		if (generatorMaxLag.isNegative() || generatorMaxQueueDepth < 0 || !(generatorMaxCpu > 0 && generatorMaxCpu <= 1)
+				|| !(generatorMaxGcShare > 0 && generatorMaxGcShare <= 1)) {
+			throw new IllegalArgumentException("Invalid generator limits: " + GENERATOR_MAX_LAG_MILLIS + "="
+					+ generatorMaxLag.toMillis() + ", " + GENERATOR_MAX_QUEUE_DEPTH + "=" + generatorMaxQueueDepth + ", "
+					+ GENERATOR_MAX_CPU + "=" + generatorMaxCpu + " (above 0, at most 1), " + GENERATOR_MAX_GC_SHARE + "="
+					+ generatorMaxGcShare + " (above 0, at most 1)");
+		}
+		if (backpressureMaxRate < 1 || backpressureMaxRetries < 0 || backpressureMaxWait.isNegative()
+				|| backpressureBreakerFailures < 1 || backpressureCooldown.isNegative()) {
+			throw new IllegalArgumentException("Invalid backpressure settings: " + BACKPRESSURE_MAX_RATE + "="
+					+ backpressureMaxRate + " (at least 1), " + BACKPRESSURE_MAX_RETRIES + "=" + backpressureMaxRetries + ", "
+					+ BACKPRESSURE_MAX_WAIT_MILLIS + "=" + backpressureMaxWait.toMillis() + ", " + BACKPRESSURE_BREAKER_FAILURES
+					+ "=" + backpressureBreakerFailures + ", " + BACKPRESSURE_COOLDOWN_MILLIS + "=" + backpressureCooldown.toMillis());
+		}
+	}
+
+	// A missing file is an empty layer, the overrides alone can still configure a run
+	public static Config load(Path file) throws IOException {
+		return load(file, System.getProperties(), System.getenv());
+	}
+
+	public static Config load(Path file, Properties systemProperties, Map<String, String> environment) throws IOException {
+		Properties fileProperties = new Properties();
+		if (file != null && Files.isRegularFile(file)) {
+			try (InputStream input = Files.newInputStream(file)) {
+				fileProperties.load(input);
+			}
+		}
+		return of(fileProperties, systemProperties, environment);
+	}
+
+	public static Config of(Properties fileProperties, Properties systemProperties, Map<String, String> environment) {
+		Map<String, String> values = new HashMap<>();
+		for (String key : KEYS) {
+			String value = fileProperties.getProperty(key);
+			if (environment.get(environmentName(key)) != null) {
+				value = environment.get(environmentName(key));
+			}
+			if (systemProperties.getProperty("axiom." + key) != null) {
+				value = systemProperties.getProperty("axiom." + key);
+			}
+			if (value != null) {
+				values.put(key, value.trim());
+			}
+		}
+		return new Config(values);
+	}
+
+	// baseUrl -> AXIOM_BASE_URL
+	static String environmentName(String key) {
+		StringBuilder name = new StringBuilder("AXIOM_");
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (Character.isUpperCase(c)) {
+				name.append('_');
+			}
+			name.append(Character.toUpperCase(c));
+		}
+		return name.toString();
+	}
+
+	private int parseInt(String key, int defaultValue) {
+		String value = values.get(key);
+		if (value == null || value.isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+		}
+	}
+
+	private long parseLong(String key, long defaultValue) {
+		String value = values.get(key);
+		if (value == null || value.isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+		}
+	}
+
+	// name=weight pairs separated by commas, in the order given
+	private Map<String, Integer> parseWeights(String key, String defaultValue) {
+		String value = values.get(key);
+		if (value == null || value.trim().isEmpty()) {
+			value = defaultValue;
+		}
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String pair : value.split(",")) {
+			String[] parts = pair.split("=");
+			try {
+				int weight = Integer.parseInt(parts[1].trim());
+				if (parts.length != 2 || parts[0].trim().isEmpty() || weight < 1
+						|| weights.put(parts[0].trim(), weight) != null) {
+					throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+				}
+			} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+			}
+		}
+		return Collections.unmodifiableMap(weights);
+	}
+
+	private double parseDouble(String key, double defaultValue) {
+		String value = values.get(key);
+		if (value == null || value.isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+		}
+	}
+
+	public String get(String key) {
+		return values.get(key);
+	}
+
+	public String getBaseUrl() {
+		return baseUrl;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public String getIncorectPassword() {
+		return incorectPassword;
+	}
+
+	public int getStressUsers() {
+		return stressUsers;
+	}
+
+	public double getStressRate() {
+		return stressRate;
+	}
+
+	public Duration getStressDuration() {
+		return stressDuration;
+	}
+
+	public Duration getWarmup() {
+		return warmup;
+	}
+
+	public Duration getWarmupMax() {
+		return warmupMax;
+	}
+
+	public Duration getSteadyStateWindow() {
+		return steadyStateWindow;
+	}
+
+	public int getSteadyStateWindows() {
+		return steadyStateWindows;
+	}
+
+	public double getSteadyStateTolerance() {
+		return steadyStateTolerance;
+	}
+
+	public double getCapacitySloP99Millis() {
+		return capacitySloP99Millis;
+	}
+
+	public double getCapacityMaxErrorRate() {
+		return capacityMaxErrorRate;
+	}
+
+	public double getCapacityStartRate() {
+		return capacityStartRate;
+	}
+
+	public double getCapacityMaxRate() {
+		return capacityMaxRate;
+	}
+
+	public Duration getCapacityStep() {
+		return capacityStep;
+	}
+
+	public double getCapacityResolution() {
+		return capacityResolution;
+	}
+
+	public String getResultsFile() {
+		return resultsFile;
+	}
+
+	public int getBaselineRuns() {
+		return baselineRuns;
+	}
+
+	public double getRegressionAlpha() {
+		return regressionAlpha;
+	}
+
+	public double getRegressionMinChange() {
+		return regressionMinChange;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	public Duration getPoolIdleTimeout() {
+		return poolIdleTimeout;
+	}
+
+	public boolean isConnectionPerRequest() {
+		return connectionPerRequest;
+	}
+
+	public int getAsyncMaxInFlight() {
+		return asyncMaxInFlight;
+	}
+
+	public boolean isAsyncHttp2() {
+		return asyncHttp2;
+	}
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	public int getWorkerPort() {
+		return workerPort;
+	}
+
+	public boolean isLaunchWorkers() {
+		return launchWorkers;
+	}
+
+	public Duration getReportInterval() {
+		return reportInterval;
+	}
+
+	// Operation name to weight, see BaseApiTest.workloadMix()
+	public Map<String, Integer> getWorkloadMix() {
+		return workloadMix;
+	}
+
+	public Duration getThinkTime() {
+		return thinkTime;
+	}
+
+	public String getCorpusDirectory() {
+		return corpusDirectory;
+	}
+
+	public int getCorpusSize() {
+		return corpusSize;
+	}
+
+	public long getCorpusSeed() {
+		return corpusSeed;
+	}
+
+	public int getValidationRingSize() {
+		return validationRingSize;
+	}
+
+	public int getValidationConsumers() {
+		return validationConsumers;
+	}
+
+	public double getValidationSampleRate() {
+		return validationSampleRate;
+	}
+
+	public Duration getIntervalReport() {
+		return intervalReport;
+	}
+
+	public String getHistogramLogDirectory() {
+		return histogramLogDirectory;
+	}
+
+	public Duration getSoakDuration() {
+		return soakDuration.isZero() ? stressDuration : soakDuration;
+	}
+
+	public long getSoakHeapBudgetMb() {
+		return soakHeapBudgetMb;
+	}
+
+	public Duration getGeneratorMaxLag() {
+		return generatorMaxLag;
+	}
+
+	public int getGeneratorMaxQueueDepth() {
+		return generatorMaxQueueDepth;
+	}
+
+	public double getGeneratorMaxCpu() {
+		return generatorMaxCpu;
+	}
+
+	public double getGeneratorMaxGcShare() {
+		return generatorMaxGcShare;
+	}
+
+	public double getBackpressureMaxRate() {
+		return backpressureMaxRate;
+	}
+
+	public int getBackpressureMaxRetries() {
+		return backpressureMaxRetries;
+	}
+
+	public Duration getBackpressureMaxWait() {
+		return backpressureMaxWait;
+	}
+
+	public int getBackpressureBreakerFailures() {
+		return backpressureBreakerFailures;
+	}
+
+	public Duration getBackpressureCooldown() {
+		return backpressureCooldown;
+	}
+
+	public boolean isRequestEvents() {
+		return requestEvents;
+	}
+
+	public String getJfrFile() {
+		return jfrFile;
+	}
+
+	public boolean isWatch() {
+		return watch;
+	}
+
+	@Override
+	public String toString() {
+		Map<String, String> shown = new HashMap<>(values);
+		shown.computeIfPresent(PASSWORD, (k, v) -> "****");
+		shown.computeIfPresent(INCORECT_PASSWORD, (k, v) -> "****");
+		return "Config" + shown;
+	}
+
+}
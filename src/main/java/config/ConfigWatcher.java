@@ -0,0 +1,78 @@
+package config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Reloads the snapshot when the properties file changes and swaps it in atomically, so readers always see either
+// the old or the new configuration, never a mix. A file that fails to load leaves the previous snapshot in place.
+public class ConfigWatcher implements Closeable {
+
+	// Editors often save in several writes, events arriving within this window cause a single reload
+	private static final long SETTLE_MILLIS = 50;
+
+	private final Path file;
+	private final AtomicReference<Config> target;
+	private final WatchService watchService;
+	private final Thread thread;
+
+	public ConfigWatcher(Path file, AtomicReference<Config> target) throws IOException {
+		super();
+		this.file = file.toAbsolutePath();
+		this.target = target;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+		this.thread = new Thread(this::watch, "config-watcher");
+		this.thread.setDaemon(true);
+	}
+
+	public ConfigWatcher start() {
+		thread.start();
+		return this;
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				boolean changed = false;
+				while (key != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						changed |= file.getFileName().equals(event.context());
+					}
+					key.reset();
+					key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				if (changed) {
+					reload();
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// closed
+		}
+	}
+
+	private void reload() {
+		try {
+			target.set(Config.load(file));
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Keeping the previous configuration, reloading " + file + " failed: " + e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+		thread.interrupt();
+	}
+
+}
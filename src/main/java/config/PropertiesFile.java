@@ -1,42 +1,61 @@
 package config;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.util.Properties;
-
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Facade over the current Config snapshot. The file is read once, getters only read the snapshot, and with
+// watchConfig=true edits to the file are picked up while the tests run. -Daxiom.config points at another file.
 public class PropertiesFile {
 
-	private static String fileLocation = ".\\src\\test\\resources\\application.properties";
-	private static Properties prop;
+	private static final Path fileLocation = Paths
+			.get(System.getProperty("axiom.config", "src/test/resources/application.properties"));
+	private static final AtomicReference<Config> current = new AtomicReference<>();
+	private static ConfigWatcher watcher;
+
+	public static Config current() {
+		Config config = current.get();
+		if (config == null) {
+			synchronized (PropertiesFile.class) {
+				config = current.get();
+				if (config == null) {
+					readPropertiesFile();
+					config = current.get();
+				}
+			}
+		}
+		return config;
+	}
 
-	public static void readPropertiesFile() {
-		prop = new Properties();
+	// Loads the file and overrides again and replaces the snapshot
+	public static synchronized void readPropertiesFile() {
 		try {
-			InputStream input = new FileInputStream(fileLocation);
-			prop.load(input);
-		} catch (Exception e) {
-			e.printStackTrace();
+			Config config = Config.load(fileLocation);
+			current.set(config);
+			if (config.isWatch() && watcher == null) {
+				watcher = new ConfigWatcher(fileLocation, current).start();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read " + fileLocation.toAbsolutePath(), e);
 		}
 	}
 
 	public static String getBaseUrl() {
-		readPropertiesFile();
-		return prop.getProperty("baseUrl");
+		return current().getBaseUrl();
 	}
 
 	public static String getUsername() {
-		readPropertiesFile();
-		return prop.getProperty("username");
+		return current().getUsername();
 	}
 
 	public static String getPassword() {
-		readPropertiesFile();
-		return prop.getProperty("password");
+		return current().getPassword();
 	}
 
 	public static String getIncorectPassword() {
-		readPropertiesFile();
-		return prop.getProperty("incorectPassword");
+		return current().getIncorectPassword();
 	}
 
 }
@@ -0,0 +1,171 @@
+package corpus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import codec.JsonBodyEncoder;
+
+// Writes a PayloadCorpus: millions of unique, realistic UserDTO or OrderDTO request bodies, the same ones for the same
+// seed on every machine (java.util.Random's sequence is part of its contract).
+// Usage: java -cp <classpath> corpus.CorpusGenerator users|orders <file> <count> [seed] [userIds, e.g. 123,124]
+public final class CorpusGenerator {
+
+	public static final long DEFAULT_SEED = 42;
+
+	// Display name and the latin spelling used in the email address
+	private static final String[][] FIRST_NAMES = { { "John", "john" }, { "Jane", "jane" }, { "Michael", "michael" },
+			{ "Emily", "emily" }, { "David", "david" }, { "Sarah", "sarah" }, { "José", "jose" }, { "María", "maria" },
+			{ "João", "joao" }, { "Inés", "ines" }, { "Jürgen", "juergen" }, { "Zoë", "zoe" }, { "Øyvind", "oyvind" },
+			{ "Åsa", "asa" }, { "François", "francois" }, { "Chloé", "chloe" }, { "Łukasz", "lukasz" },
+			{ "Dmitrij", "dmitrij" }, { "Αλέξανδρος", "alexandros" }, { "Дмитрий", "dmitriy" }, { "Ayşe", "ayse" },
+			{ "Priya", "priya" }, { "Amélie", "amelie" }, { "Siobhán", "siobhan" } };
+	private static final String[][] LAST_NAMES = { { "Doe", "doe" }, { "Roe", "roe" }, { "Smith", "smith" },
+			{ "Johnson", "johnson" }, { "García", "garcia" }, { "Núñez", "nunez" }, { "Gonçalves", "goncalves" },
+			{ "Müller", "mueller" }, { "Strauß", "strauss" }, { "Bjørnson", "bjornson" }, { "Lefèvre", "lefevre" },
+			{ "Wałęsa", "walesa" }, { "Παπαδόπουλος", "papadopoulos" }, { "Иванов", "ivanov" },
+			{ "Yılmaz", "yilmaz" }, { "Ó Briain", "obriain" }, { "Patel", "patel" }, { "Nguyễn", "nguyen" } };
+	// Chinese names family name first and without a space, like 李四 in createUserWithInternationalCharacters
+	private static final String[][] CHINESE_FAMILY_NAMES = { { "李", "li" }, { "王", "wang" }, { "张", "zhang" },
+			{ "刘", "liu" }, { "陈", "chen" }, { "杨", "yang" } };
+	private static final String[][] CHINESE_GIVEN_NAMES = { { "四", "si" }, { "伟", "wei" }, { "芳", "fang" },
+			{ "娜", "na" }, { "静", "jing" }, { "明", "ming" }, { "小红", "xiaohong" } };
+	private static final String[] DOMAINS = { "example.com", "example.org", "example.net", "mail.example.com" };
+
+	private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+	private CorpusGenerator() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: CorpusGenerator users|orders <file> <count> [seed] [userIds]");
+			System.exit(2);
+		}
+		Path file = Paths.get(args[1]);
+		int count = Integer.parseInt(args[2]);
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+		long start = System.nanoTime();
+		if (args[0].equals("users")) {
+			users(file, count, seed);
+		} else if (args[0].equals("orders")) {
+			orders(file, count, seed, args.length > 4 ? Arrays.stream(args[4].split(",")).map(String::trim)
+					.mapToInt(Integer::parseInt).toArray() : new int[] { 123 });
+		} else {
+			throw new IllegalArgumentException("Unknown corpus kind " + args[0] + ", expected users or orders");
+		}
+		System.out.println(PayloadCorpus.open(file) + " generated in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+	}
+
+	// Names mostly from the western lists, one in six Chinese; the index in the email makes every address unique.
+	// Nine in ten users are active.
+	public static void users(Path file, int count, long seed) throws IOException {
+		Random random = new Random(seed);
+		write(file, PayloadCorpus.Kind.USERS, count, seed, i -> {
+			String[] first;
+			String[] last;
+			String name;
+			if (random.nextInt(6) == 0) {
+				last = pick(random, CHINESE_FAMILY_NAMES);
+				first = pick(random, CHINESE_GIVEN_NAMES);
+				name = last[0] + first[0];
+			} else {
+				first = pick(random, FIRST_NAMES);
+				last = pick(random, LAST_NAMES);
+				name = first[0] + " " + last[0];
+			}
+			String email = first[1] + "." + last[1] + "." + i + "@" + DOMAINS[random.nextInt(DOMAINS.length)];
+			return JsonBodyEncoder.user(name, email, random.nextInt(10) == 0 ? "inactive" : "active");
+		});
+	}
+
+	// Pending orders for the given existing users, amounts in whole cents from 1.00 to 999.99
+	public static void orders(Path file, int count, long seed, int[] userIds) throws IOException {
+		if (userIds.length == 0) {
+			throw new IllegalArgumentException("Orders need at least one user id");
+		}
+		Random random = new Random(seed);
+		write(file, PayloadCorpus.Kind.ORDERS, count, seed, i -> JsonBodyEncoder
+				.order(userIds[random.nextInt(userIds.length)], (100 + random.nextInt(99_900)) / 100.0, "pending"));
+	}
+
+	private static String[] pick(Random random, String[][] names) {
+		return names[random.nextInt(names.length)];
+	}
+
+	private interface Body {
+		byte[] generate(int index);
+	}
+
+	// Bodies are streamed behind the space left for the index, which is filled in once every offset is known. The file
+	// only appears under its name when complete, so a reader never maps a half-written corpus.
+	private static void write(Path file, PayloadCorpus.Kind kind, int count, long seed, Body body) throws IOException {
+		if (count < 1) {
+			throw new IllegalArgumentException("A corpus needs at least one body, count was " + count);
+		}
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path partial = Files.createTempFile(directory, file.getFileName().toString(), ".partial");
+		try {
+			long dataStart = PayloadCorpus.HEADER_BYTES + (count + 1L) * Integer.BYTES;
+			int[] offsets = new int[count + 1];
+			try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+				channel.position(dataStart);
+				ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+				long length = 0;
+				for (int i = 0; i < count; i++) {
+					byte[] bytes = body.generate(i);
+					length += bytes.length;
+					if (dataStart + length > Integer.MAX_VALUE) {
+						throw new IllegalArgumentException(count + " bodies don't fit in one 2 GB corpus, split them");
+					}
+					offsets[i + 1] = (int) length;
+					if (buffer.remaining() < bytes.length) {
+						flush(channel, buffer);
+					}
+					if (bytes.length > buffer.capacity()) {
+						ByteBuffer large = ByteBuffer.wrap(bytes);
+						while (large.hasRemaining()) {
+							channel.write(large);
+						}
+					} else {
+						buffer.put(bytes);
+					}
+				}
+				flush(channel, buffer);
+
+				ByteBuffer header = ByteBuffer.allocate((int) dataStart);
+				header.putInt(PayloadCorpus.MAGIC).putInt(PayloadCorpus.VERSION).putInt(kind.ordinal()).putInt(count)
+						.putLong(seed);
+				for (int offset : offsets) {
+					header.putInt(offset);
+				}
+				header.flip();
+				channel.position(0);
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+				channel.force(false);
+			}
+			Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(partial);
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
@@ -0,0 +1,116 @@
+package corpus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Request bodies generated once by CorpusGenerator and read back from a memory-mapped file, so a stress loop spends
+// nothing on building names, emails or JSON and every run replays the same data.
+// Layout, big-endian: magic, version, kind, count, seed (24 bytes), then count + 1 int offsets into the bodies, then the
+// UTF-8 JSON bodies back to back. One mapping covers the file, so a corpus stays under 2 GB (~20 million users).
+public final class PayloadCorpus {
+
+	static final int MAGIC = 0x41585043; // "AXPC"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 24;
+
+	public enum Kind {
+		USERS, ORDERS
+	}
+
+	private final Path file;
+	private final Kind kind;
+	private final int count;
+	private final long seed;
+	private final ByteBuffer index;
+	private final ByteBuffer bodies;
+
+	private PayloadCorpus(Path file, Kind kind, int count, long seed, ByteBuffer index, ByteBuffer bodies) {
+		super();
+		this.file = file;
+		this.kind = kind;
+		this.count = count;
+		this.seed = seed;
+		this.index = index;
+		this.bodies = bodies;
+	}
+
+	// The mapping outlives the channel, pages are read in by the OS as bodies are first sent
+	public static PayloadCorpus open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(file + " is not a payload corpus (" + channel.size() + " bytes)");
+			}
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (mapped.getInt(0) != MAGIC) {
+				throw new IOException(file + " is not a payload corpus");
+			}
+			if (mapped.getInt(4) != VERSION) {
+				throw new IOException(file + " has corpus version " + mapped.getInt(4) + ", expected " + VERSION);
+			}
+			int kind = mapped.getInt(8);
+			int count = mapped.getInt(12);
+			long seed = mapped.getLong(16);
+			if (kind < 0 || kind >= Kind.values().length || count < 1) {
+				throw new IOException(file + " has a corrupt header: kind " + kind + ", count " + count);
+			}
+			long dataStart = HEADER_BYTES + (count + 1L) * Integer.BYTES;
+			if (dataStart > mapped.capacity()
+					|| dataStart + mapped.getInt((int) dataStart - Integer.BYTES) != mapped.capacity()) {
+				throw new IOException(file + " is truncated");
+			}
+			ByteBuffer index = slice(mapped, HEADER_BYTES, (int) dataStart);
+			return new PayloadCorpus(file, Kind.values()[kind], count, seed, index,
+					slice(mapped, (int) dataStart, mapped.capacity()));
+		}
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+		ByteBuffer view = buffer.duplicate();
+		view.limit(to).position(from);
+		return view.slice();
+	}
+
+	// The body for an iteration of a load run, wrapping around once every body was sent. The buffer is a read-only view
+	// of the mapped file: nothing is copied, and each call gets its own position and limit, so threads don't interfere.
+	public ByteBuffer body(long iteration) {
+		int i = (int) Math.floorMod(iteration, (long) count);
+		int start = index.getInt(i * Integer.BYTES);
+		int end = index.getInt((i + 1) * Integer.BYTES);
+		return slice(bodies, start, end);
+	}
+
+	// For clients that only take an array, at the cost of one copy per request
+	public byte[] bytes(long iteration) {
+		ByteBuffer body = body(iteration);
+		byte[] bytes = new byte[body.remaining()];
+		body.get(bytes);
+		return bytes;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	@Override
+	public String toString() {
+		return kind.name().toLowerCase() + " corpus " + file + ": " + count + " bodies, " + bodies.capacity()
+				+ " bytes, seed " + seed;
+	}
+
+}
@@ -0,0 +1,91 @@
+package distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+import load.Warmup;
+
+// A worker's share of a distributed run, sent by the coordinator right after the worker connects
+final class Assignment {
+
+	final int worker;
+	final String name;
+	final String scenario;
+	final double ratePerSecond;
+	final long durationNanos;
+	final int maxConcurrency;
+	final int expectedStatus;
+	// The worker's iterations run from firstIteration to firstIteration + iterations - 1
+	final int firstIteration;
+	final int iterations;
+	final long reportEveryNanos;
+	final Warmup warmup;
+	final Map<String, String> parameters;
+
+	Assignment(int worker, String name, String scenario, double ratePerSecond, long durationNanos, int maxConcurrency,
+			int expectedStatus, int firstIteration, int iterations, long reportEveryNanos, Warmup warmup,
+			Map<String, String> parameters) {
+		this.worker = worker;
+		this.name = name;
+		this.scenario = scenario;
+		this.ratePerSecond = ratePerSecond;
+		this.durationNanos = durationNanos;
+		this.maxConcurrency = maxConcurrency;
+		this.expectedStatus = expectedStatus;
+		this.firstIteration = firstIteration;
+		this.iterations = iterations;
+		this.reportEveryNanos = reportEveryNanos;
+		this.warmup = warmup;
+		this.parameters = parameters;
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(worker);
+		out.writeUTF(name);
+		out.writeUTF(scenario);
+		out.writeDouble(ratePerSecond);
+		out.writeLong(durationNanos);
+		out.writeInt(maxConcurrency);
+		out.writeInt(expectedStatus);
+		out.writeInt(firstIteration);
+		out.writeInt(iterations);
+		out.writeLong(reportEveryNanos);
+		out.writeLong(warmup.getMinimum().toNanos());
+		out.writeLong(warmup.getMaximum().toNanos());
+		out.writeLong(warmup.getWindow().toNanos());
+		out.writeInt(warmup.getWindows());
+		out.writeDouble(warmup.getTolerance());
+		out.writeInt(parameters.size());
+		for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+			out.writeUTF(parameter.getKey());
+			out.writeUTF(parameter.getValue());
+		}
+		out.flush();
+	}
+
+	static Assignment read(DataInputStream in) throws IOException {
+		int worker = in.readInt();
+		String name = in.readUTF();
+		String scenario = in.readUTF();
+		double ratePerSecond = in.readDouble();
+		long durationNanos = in.readLong();
+		int maxConcurrency = in.readInt();
+		int expectedStatus = in.readInt();
+		int firstIteration = in.readInt();
+		int iterations = in.readInt();
+		long reportEveryNanos = in.readLong();
+		Warmup warmup = new Warmup(Duration.ofNanos(in.readLong()), Duration.ofNanos(in.readLong()),
+				Duration.ofNanos(in.readLong()), in.readInt(), in.readDouble());
+		Map<String, String> parameters = new TreeMap<>();
+		for (int i = in.readInt(); i > 0; i--) {
+			parameters.put(in.readUTF(), in.readUTF());
+		}
+		return new Assignment(worker, name, scenario, ratePerSecond, durationNanos, maxConcurrency, expectedStatus,
+				firstIteration, iterations, reportEveryNanos, warmup, parameters);
+	}
+
+}
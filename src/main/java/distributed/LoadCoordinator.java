@@ -0,0 +1,299 @@
+package distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import load.GeneratorHealth;
+import load.LoadResult;
+import load.LoadSnapshot;
+import load.Warmup;
+
+// Spreads one open-model run over several worker JVMs, so the load is no longer capped by one generator's CPU, GC and
+// sockets. Each worker gets an equal share of the rate and its own slice of the iteration range, and streams interval
+// snapshots back; the coordinator merges them into one result as if a single generator had sent every request. The
+// result's generator health is the worst any worker reported. Workers start on a common wall-clock time once all of
+// them are ready, and warm up for the same fixed time, so the k-th interval of every worker covers the same period.
+public class LoadCoordinator {
+
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+	// A worker that stays silent this much longer than a report interval is considered lost
+	private static final Duration SILENCE_TIMEOUT = Duration.ofSeconds(60);
+	// Between telling the workers when to start and the start, so the message reaches every one of them in time
+	private static final Duration START_LEAD = Duration.ofMillis(200);
+
+	private final int workers;
+	private final int port;
+	private final boolean launchWorkers;
+	private final Duration reportEvery;
+	private final Warmup warmup;
+
+	// port 0 picks a free one. Without launchWorkers the coordinator waits for workers started elsewhere (LoadWorker)
+	// to connect to 'port'. Every worker warms up for the warm-up's maximum before measuring its share: left to detect
+	// its own steady state, each would start measuring at a different time.
+	public LoadCoordinator(int workers, int port, boolean launchWorkers, Duration reportEvery, Warmup warmup) {
+		if (workers < 1) {
+			throw new IllegalArgumentException("workers must be at least 1, was " + workers);
+		}
+		if (port == 0 && !launchWorkers) {
+			throw new IllegalArgumentException("Workers started by hand need a fixed port to connect to");
+		}
+		this.workers = workers;
+		this.port = port;
+		this.launchWorkers = launchWorkers;
+		this.reportEvery = reportEvery;
+		this.warmup = warmup;
+	}
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	// Parameters reach Scenario.prepare in every worker, axiom.* ones also become system properties there. 'listener'
+	// gets the merged snapshot of each report interval once every worker has sent its part, and may be null.
+	public LoadResult run(String name, Class<? extends Scenario> scenario, Map<String, String> parameters,
+			double ratePerSecond, Duration duration, int maxConcurrencyPerWorker, int expectedStatus,
+			Consumer<LoadSnapshot> listener) {
+		List<Process> processes = new ArrayList<>();
+		List<Socket> sockets = new ArrayList<>();
+		ExecutorService readers = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "coordinator-" + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		try (ServerSocket server = launchWorkers ? new ServerSocket(port, workers, InetAddress.getLoopbackAddress())
+				: new ServerSocket(port, workers)) {
+			if (launchWorkers) {
+				for (int i = 0; i < workers; i++) {
+					processes.add(launch(name, i, server.getLocalPort()));
+				}
+			}
+			server.setSoTimeout((int) CONNECT_TIMEOUT.toMillis());
+			for (int i = 0; i < workers; i++) {
+				try {
+					Socket socket = server.accept();
+					socket.setTcpNoDelay(true);
+					socket.setSoTimeout((int) (reportEvery.toMillis() + SILENCE_TIMEOUT.toMillis()));
+					sockets.add(socket);
+				} catch (SocketTimeoutException e) {
+					throw new IllegalStateException("Only " + i + " of " + workers + " workers connected within "
+							+ CONNECT_TIMEOUT.getSeconds() + " s" + (launchWorkers ? ", see the worker output above" : ""), e);
+				}
+			}
+
+			Merger merger = new Merger(listener);
+			long[] elapsedNanos = new long[workers];
+			long[] warmupNanos = new long[workers];
+			boolean[] steady = new boolean[workers];
+			String[] errors = new String[workers];
+			GeneratorHealth[] generators = new GeneratorHealth[workers];
+			int iterations = Integer.MAX_VALUE / workers;
+			List<DataInputStream> ins = new ArrayList<>();
+			List<DataOutputStream> outs = new ArrayList<>();
+			for (int i = 0; i < workers; i++) {
+				Socket socket = sockets.get(i);
+				ins.add(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+				outs.add(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+				new Assignment(i, name, scenario.getName(), ratePerSecond / workers, duration.toNanos(),
+						maxConcurrencyPerWorker, expectedStatus, i * iterations, iterations, reportEvery.toNanos(),
+						warmup.fixed(), parameters).write(outs.get(i));
+			}
+			// Workers prepare at their own pace, a cold JVM takes a while; nobody starts before the slowest is ready
+			for (int i = 0; i < workers; i++) {
+				awaitReady(i, ins.get(i));
+			}
+			long startAt = System.currentTimeMillis() + START_LEAD.toMillis();
+			for (DataOutputStream out : outs) {
+				out.writeLong(startAt);
+				out.flush();
+			}
+			List<Future<?>> running = new ArrayList<>();
+			for (int i = 0; i < workers; i++) {
+				int worker = i;
+				DataInputStream in = ins.get(i);
+				running.add(readers.submit(() -> {
+					collect(worker, in, merger, elapsedNanos, warmupNanos, steady, errors, generators);
+					return null;
+				}));
+			}
+			for (Future<?> worker : running) {
+				worker.get();
+			}
+
+			LoadSnapshot total = merger.finish();
+			long elapsed = 0;
+			long warm = 0;
+			boolean settled = true;
+			Throwable firstError = null;
+			for (int i = 0; i < workers; i++) {
+				elapsed = Math.max(elapsed, elapsedNanos[i]);
+				warm = Math.max(warm, warmupNanos[i]);
+				settled &= steady[i];
+				if (firstError == null && !errors[i].isEmpty()) {
+					firstError = new IllegalStateException("worker " + i + ": " + errors[i]);
+				}
+			}
+			return new LoadResult(name, workers * maxConcurrencyPerWorker, total.getSuccesses(), total.getFailures(),
+					total.getErrors(), elapsed, total.getStatusCounts(), firstError, total.getResponseTime(),
+					total.getServiceTime(), warm, settled, GeneratorHealth.worst(Arrays.asList(generators)));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Distributed run " + name + " failed", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Distributed run " + name + " failed: " + e.getCause().getMessage(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Distributed run " + name + " interrupted", e);
+		} finally {
+			readers.shutdownNow();
+			for (Socket socket : sockets) {
+				try {
+					socket.close();
+				} catch (IOException e) {
+					// already broken, nothing left to release
+				}
+			}
+			stop(processes);
+		}
+	}
+
+	private static void awaitReady(int worker, DataInputStream in) throws IOException {
+		try {
+			byte type = in.readByte();
+			if (type == Wire.FAILED) {
+				throw new IllegalStateException("worker " + worker + " failed: " + in.readUTF());
+			} else if (type != Wire.READY) {
+				throw new IOException("Unknown message " + type + " from worker " + worker + " before the start");
+			}
+		} catch (EOFException e) {
+			throw new IOException("Worker " + worker + " disconnected before the start", e);
+		}
+	}
+
+	// Reads one worker's messages until it is done
+	private static void collect(int worker, DataInputStream in, Merger merger, long[] elapsedNanos, long[] warmupNanos,
+			boolean[] steady, String[] errors, GeneratorHealth[] generators) throws IOException {
+		try {
+			while (true) {
+				byte type = in.readByte();
+				if (type == Wire.INTERVAL) {
+					merger.add(worker, Wire.readSnapshot(in));
+				} else if (type == Wire.DONE) {
+					elapsedNanos[worker] = in.readLong();
+					warmupNanos[worker] = in.readLong();
+					steady[worker] = in.readBoolean();
+					errors[worker] = in.readUTF();
+					generators[worker] = Wire.readHealth(in);
+					return;
+				} else if (type == Wire.FAILED) {
+					throw new IllegalStateException("worker " + worker + " failed: " + in.readUTF());
+				} else {
+					throw new IOException("Unknown message " + type + " from worker " + worker);
+				}
+			}
+		} catch (EOFException e) {
+			throw new IOException("Worker " + worker + " disconnected before finishing", e);
+		}
+	}
+
+	// Same JVM and class path as this one, output goes to ours prefixed with the worker
+	private static Process launch(String name, int index, int port) throws IOException {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), LoadWorker.class.getName(),
+				InetAddress.getLoopbackAddress().getHostAddress(), Integer.toString(port)).redirectErrorStream(true).start();
+		Thread output = new Thread(() -> {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					System.out.println("[" + name + " worker process " + index + "] " + line);
+				}
+			} catch (IOException e) {
+				// the process is gone
+			}
+		}, "coordinator-" + name + "-output-" + index);
+		output.setDaemon(true);
+		output.start();
+		return process;
+	}
+
+	private static void stop(List<Process> processes) {
+		for (Process process : processes) {
+			try {
+				if (!process.waitFor(10, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+				}
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	// Lines up the workers' interval snapshots by their position and merges each interval once all workers sent it; the
+	// common start and fixed warm-up make the same position the same period on every worker
+	private final class Merger {
+
+		private final Consumer<LoadSnapshot> listener;
+		private final List<List<LoadSnapshot>> intervals = new ArrayList<>();
+		private final int[] received = new int[workers];
+		private int merged;
+
+		Merger(Consumer<LoadSnapshot> listener) {
+			this.listener = listener;
+		}
+
+		synchronized void add(int worker, LoadSnapshot snapshot) {
+			int position = received[worker]++;
+			while (intervals.size() <= position) {
+				intervals.add(new ArrayList<>());
+			}
+			intervals.get(position).add(snapshot);
+			while (merged < intervals.size() && intervals.get(merged).size() == workers) {
+				publish(intervals.get(merged++));
+			}
+		}
+
+		// Publishes the intervals only some workers reached and returns the merge of everything
+		synchronized LoadSnapshot finish() {
+			List<LoadSnapshot> all = new ArrayList<>();
+			for (int i = 0; i < intervals.size(); i++) {
+				if (i >= merged) {
+					publish(intervals.get(i));
+				}
+				all.addAll(intervals.get(i));
+			}
+			merged = intervals.size();
+			return LoadSnapshot.merge(all);
+		}
+
+		private void publish(List<LoadSnapshot> interval) {
+			if (listener != null) {
+				listener.accept(LoadSnapshot.merge(interval));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+package distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Map;
+
+import load.LoadResult;
+import load.LoadSnapshot;
+import load.OpenModelRunner;
+import load.Operation;
+
+// One load generator JVM: connects to the coordinator, prepares its scenario, waits for the common start time, runs its
+// share of the rate in the open model (warm-up first) and streams interval snapshots of the measured window back.
+// LoadCoordinator starts these itself; on other machines start them by hand with
+//   java -cp <test class path> distributed.LoadWorker <coordinator host> <workerPort>
+public class LoadWorker {
+
+	private LoadWorker() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: LoadWorker <coordinator host> <port>");
+			System.exit(2);
+		}
+		try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			Assignment assignment = Assignment.read(in);
+			try {
+				run(assignment, in, out);
+			} catch (Exception e) {
+				synchronized (out) {
+					out.writeByte(Wire.FAILED);
+					out.writeUTF(String.valueOf(e));
+					out.flush();
+				}
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static void run(Assignment assignment, DataInputStream in, DataOutputStream out) throws Exception {
+		// axiom.* parameters configure the worker the way system properties configure the test JVM (see Config)
+		for (Map.Entry<String, String> parameter : assignment.parameters.entrySet()) {
+			if (parameter.getKey().startsWith("axiom.")) {
+				System.setProperty(parameter.getKey(), parameter.getValue());
+			}
+		}
+		Scenario scenario = (Scenario) Class.forName(assignment.scenario).getDeclaredConstructor().newInstance();
+		Operation operation = scenario.prepare(assignment.parameters);
+
+		OpenModelRunner runner = new OpenModelRunner(assignment.ratePerSecond, assignment.maxConcurrency, assignment.warmup);
+		long requests = (long) (assignment.ratePerSecond * assignment.durationNanos / 1e9);
+		if (requests > assignment.iterations) {
+			throw new IllegalArgumentException("Worker " + assignment.worker + " would run " + requests
+					+ " requests but owns only " + assignment.iterations + " iterations");
+		}
+		int first = assignment.firstIteration;
+
+		synchronized (out) {
+			out.writeByte(Wire.READY);
+			out.flush();
+		}
+		long wait = in.readLong() - System.currentTimeMillis();
+		if (wait > 0) {
+			Thread.sleep(wait);
+		}
+		LoadResult result = runner.run(assignment.name + "-" + assignment.worker, Duration.ofNanos(assignment.durationNanos),
+				iteration -> operation.execute(first + iteration), assignment.expectedStatus,
+				Duration.ofNanos(assignment.reportEveryNanos), snapshot -> send(out, snapshot));
+		synchronized (out) {
+			out.writeByte(Wire.DONE);
+			out.writeLong(result.getElapsedNanos());
+			out.writeLong(result.getWarmupMillis() * 1_000_000);
+			out.writeBoolean(result.isSteady());
+			out.writeUTF(result.getFirstError() == null ? "" : String.valueOf(result.getFirstError()));
+			Wire.writeHealth(out, result.getGenerator());
+			out.flush();
+		}
+	}
+
+	private static void send(DataOutputStream out, LoadSnapshot snapshot) {
+		try {
+			synchronized (out) {
+				out.writeByte(Wire.INTERVAL);
+				Wire.writeSnapshot(out, snapshot);
+				out.flush();
+			}
+		} catch (IOException e) {
+			// The coordinator is gone, nobody is left to collect the results
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,15 @@
+package distributed;
+
+import java.util.Map;
+
+import load.Operation;
+
+// What a worker JVM runs. Workers create the scenario by class name, so implementations need a public no-argument
+// constructor and must be on the worker's class path.
+public interface Scenario {
+
+	// Called once per worker before its share of the load starts. The iteration handed to the operation is unique
+	// across workers, so it can be used to make ids, emails etc. that don't collide.
+	Operation prepare(Map<String, String> parameters) throws Exception;
+
+}
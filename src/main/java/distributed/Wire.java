@@ -0,0 +1,94 @@
+package distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+
+import org.HdrHistogram.Histogram;
+
+import load.GeneratorHealth;
+import load.LoadSnapshot;
+
+// Messages from a worker to the coordinator. Histograms travel in HdrHistogram's compressed encoding, which keeps
+// every bucket, so merging them on the coordinator gives the same percentiles as one generator would have recorded.
+final class Wire {
+
+	// Followed by a snapshot of the requests completed since the previous one
+	static final byte INTERVAL = 1;
+	// Followed by the elapsed and warm-up nanoseconds, whether the warm-up settled, the first error ("" for none) and
+	// the worker's generator health; the last message of a successful run
+	static final byte DONE = 2;
+	// Followed by a message; the worker could not run its share
+	static final byte FAILED = 3;
+	// The scenario is prepared. The coordinator answers with the wall-clock time (epoch millis) every worker starts at.
+	static final byte READY = 4;
+
+	private Wire() {
+	}
+
+	static void writeSnapshot(DataOutputStream out, LoadSnapshot snapshot) throws IOException {
+		out.writeLong(snapshot.getStartNanos());
+		out.writeLong(snapshot.getEndNanos());
+		out.writeLong(snapshot.getSuccesses());
+		out.writeLong(snapshot.getFailures());
+		out.writeLong(snapshot.getErrors());
+		out.writeInt(snapshot.getStatusCounts().size());
+		for (Map.Entry<Integer, Long> count : snapshot.getStatusCounts().entrySet()) {
+			out.writeInt(count.getKey());
+			out.writeLong(count.getValue());
+		}
+		writeHistogram(out, snapshot.getResponseTime());
+		writeHistogram(out, snapshot.getServiceTime());
+	}
+
+	static LoadSnapshot readSnapshot(DataInputStream in) throws IOException {
+		long startNanos = in.readLong();
+		long endNanos = in.readLong();
+		long successes = in.readLong();
+		long failures = in.readLong();
+		long errors = in.readLong();
+		Map<Integer, Long> statusCounts = new TreeMap<>();
+		for (int i = in.readInt(); i > 0; i--) {
+			statusCounts.put(in.readInt(), in.readLong());
+		}
+		return new LoadSnapshot(startNanos, endNanos, successes, failures, errors, statusCounts, readHistogram(in),
+				readHistogram(in));
+	}
+
+	static void writeHealth(DataOutputStream out, GeneratorHealth generator) throws IOException {
+		out.writeLong(generator.getElapsedNanos());
+		out.writeLong(Math.round(generator.getScheduleLagP99Millis() * 1e6));
+		out.writeLong(Math.round(generator.getScheduleLagMaxMillis() * 1e6));
+		out.writeInt(generator.getMaxQueueDepth());
+		out.writeDouble(generator.getCpu());
+		out.writeLong(generator.getGcMillis());
+		out.writeLong(generator.getMissed());
+	}
+
+	static GeneratorHealth readHealth(DataInputStream in) throws IOException {
+		return new GeneratorHealth(in.readLong(), in.readLong(), in.readLong(), in.readInt(), in.readDouble(), in.readLong(),
+				in.readLong());
+	}
+
+	private static void writeHistogram(DataOutputStream out, Histogram histogram) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+		int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+		out.writeInt(length);
+		out.write(buffer.array(), 0, length);
+	}
+
+	private static Histogram readHistogram(DataInputStream in) throws IOException {
+		byte[] encoded = new byte[in.readInt()];
+		in.readFully(encoded);
+		try {
+			return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt histogram from worker", e);
+		}
+	}
+
+}
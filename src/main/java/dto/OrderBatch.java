@@ -0,0 +1,276 @@
+package dto;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Orders kept column by column for long runs: an int id, an int userId, a double totalAmount and a one-byte status
+// code per order, 17 bytes instead of an OrderDTO with its String (~80 bytes with headers and references).
+// Columns are buffers that double when full, on the heap or, with offHeap, outside it, where millions of orders
+// add nothing to GC work. Not thread-safe: one collector fills a batch, readers look at it afterwards.
+public class OrderBatch {
+
+	// Status codes 0..2 are fixed, statuses the service adds later get the next free code
+	private static final String[] KNOWN_STATUSES = { "pending", "shipped", "delivered" };
+	private static final byte NO_STATUS = -1;
+	private static final int MAX_STATUSES = Byte.MAX_VALUE + 1;
+
+	private final boolean offHeap;
+	private final List<String> statuses = new ArrayList<>();
+	private final Map<String, Byte> statusCodes = new HashMap<>();
+	private ByteBuffer ids;
+	private ByteBuffer userIds;
+	private ByteBuffer totalAmounts;
+	private ByteBuffer statusColumn;
+	private int size;
+
+	public OrderBatch() {
+		this(1024, false);
+	}
+
+	public OrderBatch(int initialCapacity, boolean offHeap) {
+		super();
+		if (initialCapacity < 1 || initialCapacity > Integer.MAX_VALUE / Double.BYTES) {
+			throw new IllegalArgumentException("initialCapacity must be between 1 and " + Integer.MAX_VALUE / Double.BYTES
+					+ ", was " + initialCapacity);
+		}
+		this.offHeap = offHeap;
+		for (String status : KNOWN_STATUSES) {
+			code(status);
+		}
+		this.ids = allocate(initialCapacity * Integer.BYTES);
+		this.userIds = allocate(initialCapacity * Integer.BYTES);
+		this.totalAmounts = allocate(initialCapacity * Double.BYTES);
+		this.statusColumn = allocate(initialCapacity);
+	}
+
+	public static OrderBatch of(Collection<OrderDTO> orders) {
+		OrderBatch batch = new OrderBatch(Math.max(1, orders.size()), false);
+		batch.addAll(orders);
+		return batch;
+	}
+
+	private ByteBuffer allocate(int bytes) {
+		return (offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes)).order(ByteOrder.nativeOrder());
+	}
+
+	public OrderBatch add(int id, int userId, double totalAmount, String status) {
+		if (size == statusColumn.capacity()) {
+			grow();
+		}
+		ids.putInt(size * Integer.BYTES, id);
+		userIds.putInt(size * Integer.BYTES, userId);
+		totalAmounts.putDouble(size * Double.BYTES, totalAmount);
+		statusColumn.put(size, status == null ? NO_STATUS : code(status));
+		size++;
+		return this;
+	}
+
+	public OrderBatch add(OrderDTO order) {
+		return add(order.getId(), order.getUserId(), order.getTotalAmount(), order.getStatus());
+	}
+
+	public OrderBatch addAll(Collection<OrderDTO> orders) {
+		for (OrderDTO order : orders) {
+			add(order);
+		}
+		return this;
+	}
+
+	private byte code(String status) {
+		Byte code = statusCodes.get(status);
+		if (code == null) {
+			if (statuses.size() == MAX_STATUSES) {
+				throw new IllegalStateException("More than " + MAX_STATUSES + " distinct order statuses, " + status
+						+ " is one too many");
+			}
+			code = (byte) statuses.size();
+			statuses.add(status);
+			statusCodes.put(status, code);
+		}
+		return code;
+	}
+
+	private void grow() {
+		long capacity = (long) statusColumn.capacity() * 2;
+		if (capacity * Double.BYTES > Integer.MAX_VALUE) {
+			capacity = Integer.MAX_VALUE / Double.BYTES;
+			if (capacity == size) {
+				throw new IllegalStateException("An order batch holds at most " + capacity + " orders");
+			}
+		}
+		ids = copy(ids, (int) capacity * Integer.BYTES);
+		userIds = copy(userIds, (int) capacity * Integer.BYTES);
+		totalAmounts = copy(totalAmounts, (int) capacity * Double.BYTES);
+		statusColumn = copy(statusColumn, (int) capacity);
+	}
+
+	private ByteBuffer copy(ByteBuffer column, int bytes) {
+		ByteBuffer grown = allocate(bytes);
+		ByteBuffer used = column.duplicate();
+		used.clear();
+		grown.put(used);
+		grown.clear();
+		return grown;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+
+	// Bytes held by the columns, used or not
+	public long getCapacityBytes() {
+		return (long) ids.capacity() + userIds.capacity() + totalAmounts.capacity() + statusColumn.capacity();
+	}
+
+	public int getId(int index) {
+		return ids.getInt(check(index) * Integer.BYTES);
+	}
+
+	public int getUserId(int index) {
+		return userIds.getInt(check(index) * Integer.BYTES);
+	}
+
+	public double getTotalAmount(int index) {
+		return totalAmounts.getDouble(check(index) * Double.BYTES);
+	}
+
+	public String getStatus(int index) {
+		byte code = statusColumn.get(check(index));
+		return code == NO_STATUS ? null : statuses.get(code);
+	}
+
+	private int check(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Order " + index + " of " + size);
+		}
+		return index;
+	}
+
+	public OrderDTO get(int index) {
+		return new OrderDTO(getId(index), getUserId(index), getTotalAmount(index), getStatus(index));
+	}
+
+	// Back to DTOs, e.g. for a slice of the batch
+	public ArrayList<OrderDTO> toList(int from, int to) {
+		if (from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException("Orders " + from + " to " + to + " of " + size);
+		}
+		ArrayList<OrderDTO> orders = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			orders.add(get(i));
+		}
+		return orders;
+	}
+
+	public ArrayList<OrderDTO> toList() {
+		return toList(0, size);
+	}
+
+	// Status to number of orders, the fixed statuses first even at 0, orders without a status under null
+	public Map<String, Long> countByStatus() {
+		long[] counts = new long[statuses.size()];
+		long missing = 0;
+		for (int i = 0; i < size; i++) {
+			byte code = statusColumn.get(i);
+			if (code == NO_STATUS) {
+				missing++;
+			} else {
+				counts[code]++;
+			}
+		}
+		Map<String, Long> byStatus = new LinkedHashMap<>();
+		for (int code = 0; code < counts.length; code++) {
+			byStatus.put(statuses.get(code), counts[code]);
+		}
+		if (missing > 0) {
+			byStatus.put(null, missing);
+		}
+		return byStatus;
+	}
+
+	public double sumOfAmounts() {
+		return sumOfAmounts(0, size);
+	}
+
+	double sumOfAmounts(int from, int to) {
+		double sum = 0;
+		for (int i = from; i < to; i++) {
+			sum += totalAmounts.getDouble(i * Double.BYTES);
+		}
+		return sum;
+	}
+
+	// userId to the sum of its orders' amounts. Summed in an open-addressing table of primitives, so only the result
+	// boxes, once per user rather than once per order.
+	public Map<Integer, Double> sumOfAmountsByUser() {
+		int[] users = new int[16];
+		double[] sums = new double[16];
+		boolean[] used = new boolean[16];
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			int userId = userIds.getInt(i * Integer.BYTES);
+			int slot = find(users, used, userId);
+			if (!used[slot]) {
+				used[slot] = true;
+				users[slot] = userId;
+				distinct++;
+			}
+			sums[slot] += totalAmounts.getDouble(i * Double.BYTES);
+			// rehashed at half full, so probing stays short
+			if (distinct * 2 > users.length) {
+				int[] oldUsers = users;
+				double[] oldSums = sums;
+				boolean[] oldUsed = used;
+				users = new int[oldUsers.length * 2];
+				sums = new double[users.length];
+				used = new boolean[users.length];
+				for (int j = 0; j < oldUsers.length; j++) {
+					if (oldUsed[j]) {
+						int moved = find(users, used, oldUsers[j]);
+						used[moved] = true;
+						users[moved] = oldUsers[j];
+						sums[moved] = oldSums[j];
+					}
+				}
+			}
+		}
+		Map<Integer, Double> byUser = new HashMap<>(distinct * 2);
+		for (int slot = 0; slot < users.length; slot++) {
+			if (used[slot]) {
+				byUser.put(users[slot], sums[slot]);
+			}
+		}
+		return byUser;
+	}
+
+	// The user's slot, or the free one where it goes
+	private static int find(int[] users, boolean[] used, int userId) {
+		int mask = users.length - 1;
+		int hash = userId * 0x9E3779B9;
+		int slot = (hash ^ hash >>> 16) & mask;
+		while (used[slot] && users[slot] != userId) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "OrderBatch[" + size + " orders, " + getCapacityBytes() + " bytes " + (offHeap ? "off" : "on") + " heap]";
+	}
+
+}
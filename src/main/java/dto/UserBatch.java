@@ -0,0 +1,183 @@
+package dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Users kept column by column, their orders back to back in one OrderBatch instead of an ArrayList<OrderDTO> each.
+// User i owns the orders from orderEnd[i - 1] to orderEnd[i]. Ids, status codes and order offsets are primitive
+// arrays, names and emails stay strings; the orders, which are the bulk of the data, go off-heap with offHeap.
+// Not thread-safe, like OrderBatch.
+public class UserBatch {
+
+	private static final String[] KNOWN_STATUSES = { "active", "inactive" };
+	private static final byte OTHER_STATUS = -1;
+
+	private final OrderBatch orders;
+	// Users whose DTO had no order list at all, as opposed to an empty one
+	private final BitSet withoutOrders = new BitSet();
+	private int[] ids;
+	private String[] names;
+	private String[] emails;
+	private byte[] statusCodes;
+	// Statuses outside KNOWN_STATUSES, e.g. null, are kept as they are
+	private String[] otherStatuses;
+	private int[] orderEnd;
+	private int size;
+
+	public UserBatch() {
+		this(256, 1024, false);
+	}
+
+	public UserBatch(int initialUsers, int initialOrders, boolean offHeap) {
+		super();
+		if (initialUsers < 1) {
+			throw new IllegalArgumentException("initialUsers must be at least 1, was " + initialUsers);
+		}
+		this.orders = new OrderBatch(initialOrders, offHeap);
+		this.ids = new int[initialUsers];
+		this.names = new String[initialUsers];
+		this.emails = new String[initialUsers];
+		this.statusCodes = new byte[initialUsers];
+		this.otherStatuses = new String[0];
+		this.orderEnd = new int[initialUsers];
+	}
+
+	public static UserBatch of(Collection<UserDTO> users) {
+		UserBatch batch = new UserBatch(Math.max(1, users.size()), 1024, false);
+		batch.addAll(users);
+		return batch;
+	}
+
+	public UserBatch add(UserDTO user) {
+		if (size == ids.length) {
+			grow();
+		}
+		ids[size] = user.getId();
+		names[size] = user.getName();
+		emails[size] = user.getEmail();
+		statusCodes[size] = code(user.getStatus());
+		if (statusCodes[size] == OTHER_STATUS) {
+			if (otherStatuses.length < ids.length) {
+				otherStatuses = Arrays.copyOf(otherStatuses, ids.length);
+			}
+			otherStatuses[size] = user.getStatus();
+		}
+		if (user.getOrders() == null) {
+			withoutOrders.set(size);
+		} else {
+			orders.addAll(user.getOrders());
+		}
+		orderEnd[size] = orders.size();
+		size++;
+		return this;
+	}
+
+	public UserBatch addAll(Collection<UserDTO> users) {
+		for (UserDTO user : users) {
+			add(user);
+		}
+		return this;
+	}
+
+	private static byte code(String status) {
+		for (byte code = 0; code < KNOWN_STATUSES.length; code++) {
+			if (KNOWN_STATUSES[code].equals(status)) {
+				return code;
+			}
+		}
+		return OTHER_STATUS;
+	}
+
+	private void grow() {
+		int capacity = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacity);
+		names = Arrays.copyOf(names, capacity);
+		emails = Arrays.copyOf(emails, capacity);
+		statusCodes = Arrays.copyOf(statusCodes, capacity);
+		orderEnd = Arrays.copyOf(orderEnd, capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// Every user's orders, in the order the users were added
+	public OrderBatch getOrderBatch() {
+		return orders;
+	}
+
+	public int getId(int index) {
+		return ids[check(index)];
+	}
+
+	public String getName(int index) {
+		return names[check(index)];
+	}
+
+	public String getEmail(int index) {
+		return emails[check(index)];
+	}
+
+	public String getStatus(int index) {
+		byte code = statusCodes[check(index)];
+		return code == OTHER_STATUS ? otherStatuses[index] : KNOWN_STATUSES[code];
+	}
+
+	private int check(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("User " + index + " of " + size);
+		}
+		return index;
+	}
+
+	private int orderStart(int index) {
+		return index == 0 ? 0 : orderEnd[index - 1];
+	}
+
+	public int getOrderCount(int index) {
+		return orderEnd[check(index)] - orderStart(index);
+	}
+
+	// null when the user was added without an order list
+	public ArrayList<OrderDTO> getOrders(int index) {
+		return withoutOrders.get(check(index)) ? null : orders.toList(orderStart(index), orderEnd[index]);
+	}
+
+	public double sumOfAmounts(int index) {
+		return orders.sumOfAmounts(orderStart(check(index)), orderEnd[index]);
+	}
+
+	public UserDTO get(int index) {
+		return new UserDTO(getId(index), getName(index), getEmail(index), getStatus(index), getOrders(index));
+	}
+
+	public ArrayList<UserDTO> toList() {
+		ArrayList<UserDTO> users = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			users.add(get(i));
+		}
+		return users;
+	}
+
+	// Status to number of users
+	public Map<String, Long> countByStatus() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (String status : KNOWN_STATUSES) {
+			counts.put(status, 0L);
+		}
+		for (int i = 0; i < size; i++) {
+			counts.merge(getStatus(i), 1L, Long::sum);
+		}
+		return counts;
+	}
+
+	@Override
+	public String toString() {
+		return "UserBatch[" + size + " users, " + orders + "]";
+	}
+
+}
@@ -0,0 +1,270 @@
+package load;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Client-side backpressure for one endpoint. Requests are paced by a token bucket whose rate follows AIMD: it grows by
+// a tenth of maxRate per second while the service keeps up and halves when the service answers 429 or 503. A
+// Retry-After pauses the bucket for as long as the service asked. After breakerFailures overload answers or errors in
+// a row the circuit opens: nothing is sent for the cooldown, then a single probe decides whether it closes again.
+// A request that would have to wait longer than maxWait is shed instead of sent. Safe to share between the threads of
+// a run; use one per endpoint, a service usually limits its endpoints separately.
+public class AdaptiveThrottle {
+
+	public static final int TOO_MANY_REQUESTS = 429;
+	public static final int SERVICE_UNAVAILABLE = 503;
+	private static final double DECREASE = 0.5;
+	private static final double MIN_RATE = 1;
+	// Requests already in flight all come back 429 together, that is one signal and halves the rate once
+	private static final long DECREASE_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final String name;
+	private final double maxRate;
+	private final int maxRetries;
+	private final long maxWaitNanos;
+	private final int breakerFailures;
+	private final long cooldownNanos;
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder throttled = new LongAdder();
+	private final LongAdder retried = new LongAdder();
+	private final LongAdder shed = new LongAdder();
+
+	// Guarded by this
+	private double rate;
+	private double lowestRate;
+	private long nextSlotNanos;
+	private long lastIncreaseNanos;
+	private long lastDecreaseNanos;
+	private int failuresInARow;
+	private boolean open;
+	private long openUntilNanos;
+	private Thread probe;
+	private int opened;
+
+	public AdaptiveThrottle(String name, double maxRate, int maxRetries, Duration maxWait, int breakerFailures,
+			Duration cooldown) {
+		super();
+		if (maxRate < MIN_RATE || maxRetries < 0 || maxWait.isNegative() || breakerFailures < 1 || cooldown.isNegative()) {
+			throw new IllegalArgumentException("Invalid throttle " + name + ": maxRate " + maxRate + " (at least " + MIN_RATE
+					+ "), maxRetries " + maxRetries + ", maxWait " + maxWait + ", breakerFailures " + breakerFailures
+					+ ", cooldown " + cooldown);
+		}
+		this.name = name;
+		this.maxRate = maxRate;
+		this.maxRetries = maxRetries;
+		this.maxWaitNanos = maxWait.toNanos();
+		this.breakerFailures = breakerFailures;
+		this.cooldownNanos = cooldown.toNanos();
+		this.rate = maxRate;
+		this.lowestRate = maxRate;
+		long now = System.nanoTime();
+		this.nextSlotNanos = now;
+		this.lastIncreaseNanos = now;
+		this.lastDecreaseNanos = now - DECREASE_WINDOW_NANOS;
+	}
+
+	public static boolean isOverload(int status) {
+		return status == TOO_MANY_REQUESTS || status == SERVICE_UNAVAILABLE;
+	}
+
+	// Retry-After is either seconds or an HTTP date; missing or unreadable is no wait
+	public static Duration parseRetryAfter(String header) {
+		if (header == null || header.trim().isEmpty()) {
+			return Duration.ZERO;
+		}
+		try {
+			return Duration.ofSeconds(Math.max(0, Long.parseLong(header.trim())));
+		} catch (NumberFormatException e) {
+			try {
+				Duration until = Duration.between(ZonedDateTime.now(),
+						ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+				return until.isNegative() ? Duration.ZERO : until;
+			} catch (DateTimeParseException notADate) {
+				return Duration.ZERO;
+			}
+		}
+	}
+
+	// Sends through the throttle and retries 429 and 503 up to maxRetries times, the retries wait their turn in the
+	// bucket like any other request. A request the throttle sheds before its first attempt throws RequestShed, which
+	// the runners don't count. A retry it sheds ends the request with the overload answer the service already gave.
+	public Operation wrap(ThrottledOperation operation) {
+		return iteration -> {
+			int status = -1;
+			for (int attempt = 0;; attempt++) {
+				if (!acquire()) {
+					shed.increment();
+					if (attempt == 0) {
+						throw new RequestShed(name + " shed by the throttle", nextChanceNanos());
+					}
+					return status;
+				}
+				if (attempt > 0) {
+					retried.increment();
+				}
+				Duration[] retryAfter = { Duration.ZERO };
+				status = -1;
+				// Every request that got out is completed, an Error included, or a probe would hold the circuit open
+				try {
+					status = operation.execute(iteration, wait -> retryAfter[0] = wait);
+				} finally {
+					completed(status, retryAfter[0]);
+				}
+				if (!isOverload(status) || attempt >= maxRetries) {
+					return status;
+				}
+			}
+		};
+	}
+
+	// When a shed request is worth trying again: the end of the cooldown, the probe's answer or the bucket's slot
+	private synchronized long nextChanceNanos() {
+		long now = System.nanoTime();
+		if (!open) {
+			return Math.max(now, nextSlotNanos - maxWaitNanos);
+		}
+		if (probe == null) {
+			return openUntilNanos;
+		}
+		return now + Math.max(maxWaitNanos, (long) (1e9 / rate));
+	}
+
+	// Waits for the bucket (or the circuit) to let one request out, false when that would take longer than maxWait
+	private boolean acquire() throws InterruptedException {
+		long deadline = System.nanoTime() + maxWaitNanos;
+		long slot;
+		synchronized (this) {
+			while (true) {
+				long now = System.nanoTime();
+				if (!open) {
+					slot = Math.max(now, nextSlotNanos);
+					if (slot - deadline > 0) {
+						return false;
+					}
+					nextSlotNanos = slot + (long) (1e9 / rate);
+					break;
+				}
+				if (probe == null && now - openUntilNanos >= 0) {
+					// Half-open: this request goes alone and its answer closes or reopens the circuit
+					probe = Thread.currentThread();
+					slot = now;
+					break;
+				}
+				// Waits for the cooldown to end, or for the probe's answer
+				long until = probe == null ? openUntilNanos : deadline;
+				if (until - deadline > 0 || now - deadline >= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, until - now));
+			}
+		}
+		long wait;
+		while ((wait = slot - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(wait);
+		}
+		if (Thread.interrupted()) {
+			synchronized (this) {
+				if (probe == Thread.currentThread()) {
+					probe = null;
+					notifyAll();
+				}
+			}
+			throw new InterruptedException();
+		}
+		sent.increment();
+		return true;
+	}
+
+	// status -1 is a request that threw, it counts toward the breaker but says nothing about the rate
+	private synchronized void completed(int status, Duration retryAfter) {
+		long now = System.nanoTime();
+		boolean overload = isOverload(status);
+		if (overload) {
+			throttled.increment();
+			if (now - lastDecreaseNanos >= DECREASE_WINDOW_NANOS) {
+				rate = Math.max(MIN_RATE, rate * DECREASE);
+				lowestRate = Math.min(lowestRate, rate);
+				lastDecreaseNanos = now;
+			}
+			lastIncreaseNanos = now;
+			if (!retryAfter.isZero()) {
+				nextSlotNanos = Math.max(nextSlotNanos, now + retryAfter.toNanos());
+			}
+		}
+		boolean failed = overload || status < 0;
+		if (!failed) {
+			failuresInARow = 0;
+			rate = Math.min(maxRate, rate + maxRate / 10 * (now - lastIncreaseNanos) / 1e9);
+			lastIncreaseNanos = now;
+		} else {
+			failuresInARow++;
+		}
+		if (probe == Thread.currentThread()) {
+			probe = null;
+			open = failed;
+			if (failed) {
+				openUntilNanos = now + Math.max(cooldownNanos, retryAfter.toNanos());
+				opened++;
+			} else {
+				nextSlotNanos = now;
+			}
+			notifyAll();
+		} else if (failed && !open && failuresInARow >= breakerFailures) {
+			open = true;
+			openUntilNanos = now + Math.max(cooldownNanos, retryAfter.toNanos());
+			opened++;
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	// Requests that went out, retries included
+	public long getSent() {
+		return sent.sum();
+	}
+
+	// 429 and 503 answers, the service protecting itself rather than failing
+	public long getThrottled() {
+		return throttled.sum();
+	}
+
+	public long getRetried() {
+		return retried.sum();
+	}
+
+	// Attempts never sent, retries included: the circuit was open or the bucket was too far behind
+	public long getShed() {
+		return shed.sum();
+	}
+
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	public synchronized double getLowestRate() {
+		return lowestRate;
+	}
+
+	public synchronized int getOpened() {
+		return opened;
+	}
+
+	public synchronized boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%s throttle: %d sent, %d throttled (429/503), %d retried, %d shed, rate %.1f req/s "
+				+ "(lowest %.1f, max %.1f), circuit opened %d times%s", name, getSent(), getThrottled(), getRetried(),
+				getShed(), rate, lowestRate, maxRate, opened, open ? ", open now" : "");
+	}
+
+}
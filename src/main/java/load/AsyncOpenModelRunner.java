@@ -0,0 +1,117 @@
+package load;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Open model over a non-blocking client: the calling thread issues every request on schedule and never waits for a
+// response, so the rate isn't limited by how many threads can sit blocked on a socket the way OpenModelRunner's pool is.
+// Latency is still measured from each request's planned send time (no coordinated omission).
+// The reported concurrency is the most requests that were outstanding at once.
+public class AsyncOpenModelRunner {
+
+	private final double ratePerSecond;
+	private final Warmup warmup;
+
+	public AsyncOpenModelRunner(double ratePerSecond) {
+		this(ratePerSecond, Warmup.NONE);
+	}
+
+	// The schedule runs through the warm-up first, 'duration' below counts from the end of it
+	public AsyncOpenModelRunner(double ratePerSecond, Warmup warmup) {
+		if (ratePerSecond <= 0) {
+			throw new IllegalArgumentException("rate must be positive, was " + ratePerSecond);
+		}
+		this.ratePerSecond = ratePerSecond;
+		this.warmup = warmup;
+	}
+
+	public double getRatePerSecond() {
+		return ratePerSecond;
+	}
+
+	public Warmup getWarmup() {
+		return warmup;
+	}
+
+	public LoadResult run(String name, Duration duration, AsyncOperation operation, int expectedStatus) {
+		long requests = (long) (ratePerSecond * duration.toNanos() / 1e9);
+		double intervalNanos = 1e9 / ratePerSecond;
+		LoadCounters counters = new LoadCounters(expectedStatus);
+		// Warm-up requests are counted here and thrown away
+		LoadCounters discarded = new LoadCounters(expectedStatus);
+		AtomicInteger outstanding = new AtomicInteger();
+		AtomicInteger maxOutstanding = new AtomicInteger();
+		// One extra count held by the issuing loop, so the latch can't open before every request has been sent
+		AtomicLong unfinished = new AtomicLong(1);
+		CountDownLatch finished = new CountDownLatch(1);
+
+		long start = System.nanoTime();
+		WarmupPhase phase = new WarmupPhase(warmup, start);
+		long firstMeasured = phase.isMeasuring() ? 0 : -1;
+		// Requests wait in the client rather than in a queue of ours, and the client's threads aren't ours to count:
+		// lag, the issuing thread's CPU and GC are watched
+		GeneratorMonitor monitor = new GeneratorMonitor(name, null);
+		for (long k = 0; (firstMeasured < 0 || k - firstMeasured < requests) && !Thread.currentThread().isInterrupted(); k++) {
+			long intendedStart = start + (long) (k * intervalNanos);
+			long wait;
+			while ((wait = intendedStart - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			long sent = System.nanoTime();
+			// A request belongs to the measured window when it was planned after the warm-up ended
+			if (firstMeasured < 0 && phase.check(intendedStart)) {
+				firstMeasured = k;
+				monitor.measuring();
+				// Peak concurrency is reported for the measured window only
+				maxOutstanding.set(outstanding.get());
+			}
+			boolean measuring = firstMeasured >= 0;
+			if (measuring) {
+				monitor.sent(intendedStart, sent);
+			}
+			LoadCounters target = measuring ? counters : discarded;
+			unfinished.incrementAndGet();
+			maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+			long actualStart = System.nanoTime();
+			CompletableFuture<Integer> response;
+			try {
+				response = operation.execute((int) k);
+			} catch (RuntimeException e) {
+				response = CompletableFuture.failedFuture(e);
+			}
+			response.whenComplete((status, error) -> {
+				if (error != null) {
+					target.recordError(error);
+				} else {
+					target.recordStatus(status);
+				}
+				long end = System.nanoTime();
+				target.recordTimes(intendedStart, actualStart, end);
+				if (!measuring) {
+					phase.completed(end - intendedStart);
+				}
+				outstanding.decrementAndGet();
+				if (unfinished.decrementAndGet() == 0) {
+					finished.countDown();
+				}
+			});
+		}
+
+		GeneratorHealth generator = monitor.stop();
+		if (unfinished.decrementAndGet() == 0) {
+			finished.countDown();
+		}
+		try {
+			finished.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return counters.toResult(name, maxOutstanding.get(), System.nanoTime() - phase.getMeasureStartNanos(), phase,
+				generator);
+	}
+
+}
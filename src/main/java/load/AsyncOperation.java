@@ -0,0 +1,12 @@
+package load;
+
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking counterpart of Operation, e.g. i -> placeOrderAsync(123, 576.23, "pending").thenApply(Decoded::getStatusCode)
+// It must return without waiting for the response, the future completes with the status code.
+@FunctionalInterface
+public interface AsyncOperation {
+
+	CompletableFuture<Integer> execute(int iteration);
+
+}
@@ -0,0 +1,66 @@
+package load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Outcome of a capacity search: the highest rate that met the SLO and the latency-versus-throughput curve behind it
+public class CapacityResult {
+
+	private final String name;
+	private final double sloP99Millis;
+	private final double maxErrorRate;
+	private final double maxSustainableRate;
+	private final List<CapacityStep> steps;
+
+	public CapacityResult(String name, double sloP99Millis, double maxErrorRate, double maxSustainableRate,
+			List<CapacityStep> steps) {
+		super();
+		this.name = name;
+		this.sloP99Millis = sloP99Millis;
+		this.maxErrorRate = maxErrorRate;
+		this.maxSustainableRate = maxSustainableRate;
+		this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	// Requests per second, 0 when not even the lowest rate tried met the SLO
+	public double getMaxSustainableRate() {
+		return maxSustainableRate;
+	}
+
+	// True when a step the generator couldn't deliver stopped the search, getMaxSustainableRate() is then a lower bound
+	public boolean isGeneratorLimited() {
+		return steps.stream().anyMatch(step -> !step.isValid());
+	}
+
+	// Steps in the order they ran
+	public List<CapacityStep> getSteps() {
+		return steps;
+	}
+
+	// Steps sorted by offered rate, the latency-versus-throughput curve
+	public List<CapacityStep> getCurve() {
+		List<CapacityStep> curve = new ArrayList<>(steps);
+		curve.sort(Comparator.comparingDouble(CapacityStep::getRate));
+		return curve;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(String.format("%s: max sustainable rate %.1f/s (p99 <= %.0fms, errors <= %.1f%%)",
+				name, maxSustainableRate, sloP99Millis, maxErrorRate * 100));
+		if (isGeneratorLimited()) {
+			sb.append(", stopped early: the load generator couldn't keep up");
+		}
+		for (CapacityStep step : getCurve()) {
+			sb.append(System.lineSeparator()).append("  ").append(step);
+		}
+		return sb.toString();
+	}
+
+}
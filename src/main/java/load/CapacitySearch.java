@@ -0,0 +1,119 @@
+package load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Finds the highest arrival rate a service sustains within a latency SLO. Each step is an open-model run at a fixed
+// rate; a step passes when its p99 response time stays under the SLO and its failed plus errored share of requests
+// stays under maxErrorRate. The rate doubles from startRate until a step fails (or maxRate passes), then a binary
+// search between the last passing and first failing rate narrows the answer down to 'resolution' (0.05 = 5%).
+// Response time is measured from the planned send time, so a service falling behind fails its step. Given generator
+// limits, a step over them stops the search: the generator, not the service, set its numbers, and the result keeps the
+// highest rate that passed before it as a lower bound.
+public class CapacitySearch {
+
+	private final double sloP99Millis;
+	private final double maxErrorRate;
+	private final Duration stepDuration;
+	private final double resolution;
+	private final int maxConcurrency;
+	private final Warmup warmup;
+	private final GeneratorLimits generatorLimits;
+
+	// maxConcurrency is the sending thread count of every step, it must be high enough not to cap the rates searched
+	public CapacitySearch(double sloP99Millis, double maxErrorRate, Duration stepDuration, double resolution,
+			int maxConcurrency, Warmup warmup) {
+		this(sloP99Millis, maxErrorRate, stepDuration, resolution, maxConcurrency, warmup, null);
+	}
+
+	// generatorLimits may be null, then every step counts however the generator held up
+	public CapacitySearch(double sloP99Millis, double maxErrorRate, Duration stepDuration, double resolution,
+			int maxConcurrency, Warmup warmup, GeneratorLimits generatorLimits) {
+		if (sloP99Millis <= 0 || maxErrorRate < 0 || maxErrorRate >= 1) {
+			throw new IllegalArgumentException("SLO must be positive and error rate between 0 and 1, was " + sloP99Millis
+					+ "ms, " + maxErrorRate);
+		}
+		if (stepDuration.isNegative() || stepDuration.isZero() || resolution <= 0) {
+			throw new IllegalArgumentException("Step duration and resolution must be positive, was " + stepDuration + ", "
+					+ resolution);
+		}
+		this.sloP99Millis = sloP99Millis;
+		this.maxErrorRate = maxErrorRate;
+		this.stepDuration = stepDuration;
+		this.resolution = resolution;
+		this.maxConcurrency = maxConcurrency;
+		this.warmup = warmup;
+		this.generatorLimits = generatorLimits;
+	}
+
+	public CapacityResult search(String name, double startRate, double maxRate, Operation operation, int expectedStatus) {
+		if (startRate <= 0 || maxRate < startRate) {
+			throw new IllegalArgumentException("Rates must satisfy 0 < startRate <= maxRate, was " + startRate + ", " + maxRate);
+		}
+		List<CapacityStep> steps = new ArrayList<>();
+		double passed = 0;
+		double failed = 0;
+		boolean generatorLimited = false;
+
+		// Ramp: double until a step fails
+		for (double rate = startRate; failed == 0 && passed < maxRate; rate = Math.min(rate * 2, maxRate)) {
+			CapacityStep step = step(name, rate, operation, expectedStatus, steps);
+			if (!step.isValid()) {
+				generatorLimited = true;
+				break;
+			}
+			if (step.isWithinSlo()) {
+				passed = rate;
+			} else {
+				failed = rate;
+			}
+		}
+
+		// Binary search between the last pass and the first failure
+		while (!generatorLimited && failed > 0 && failed - passed > resolution * Math.max(passed, startRate)
+				&& !Thread.currentThread().isInterrupted()) {
+			double rate = passed == 0 ? failed / 2 : (passed + failed) / 2;
+			CapacityStep step = step(name, rate, operation, expectedStatus, steps);
+			if (!step.isValid()) {
+				generatorLimited = true;
+			} else if (step.isWithinSlo()) {
+				passed = rate;
+			} else {
+				failed = rate;
+			}
+		}
+		return new CapacityResult(name, sloP99Millis, maxErrorRate, passed, steps);
+	}
+
+	private CapacityStep step(String name, double rate, Operation operation, int expectedStatus, List<CapacityStep> steps) {
+		LoadResult result = new OpenModelRunner(rate, maxConcurrency, warmup).run(String.format("%s @ %.1f/s", name, rate),
+				stepDuration, operation, expectedStatus);
+		CapacityStep step = new CapacityStep(rate, result, withinSlo(result),
+				generatorLimits == null ? Collections.emptyList() : result.getGenerator().problems(generatorLimits));
+		steps.add(step);
+		return step;
+	}
+
+	private boolean withinSlo(LoadResult result) {
+		if (result.getRequests() == 0) {
+			return false;
+		}
+		double errorRate = (double) (result.getFailures() + result.getErrors()) / result.getRequests();
+		return result.getResponseTimeMillis(99) <= sloP99Millis && errorRate <= maxErrorRate;
+	}
+
+	public double getSloP99Millis() {
+		return sloP99Millis;
+	}
+
+	public double getMaxErrorRate() {
+		return maxErrorRate;
+	}
+
+	public Duration getStepDuration() {
+		return stepDuration;
+	}
+
+}
@@ -0,0 +1,61 @@
+package load;
+
+import java.util.Collections;
+import java.util.List;
+
+// One measured point of a capacity search: the offered rate and what the service did with it
+public class CapacityStep {
+
+	private final double rate;
+	private final LoadResult result;
+	private final boolean withinSlo;
+	private final List<String> generatorProblems;
+
+	public CapacityStep(double rate, LoadResult result, boolean withinSlo) {
+		this(rate, result, withinSlo, Collections.emptyList());
+	}
+
+	public CapacityStep(double rate, LoadResult result, boolean withinSlo, List<String> generatorProblems) {
+		super();
+		this.rate = rate;
+		this.result = result;
+		this.withinSlo = withinSlo;
+		this.generatorProblems = Collections.unmodifiableList(generatorProblems);
+	}
+
+	// Offered arrival rate, requests per second
+	public double getRate() {
+		return rate;
+	}
+
+	public LoadResult getResult() {
+		return result;
+	}
+
+	public boolean isWithinSlo() {
+		return withinSlo;
+	}
+
+	// False when the load generator couldn't deliver the rate, the step then says nothing about the service
+	public boolean isValid() {
+		return generatorProblems.isEmpty();
+	}
+
+	// Why the step is invalid, see GeneratorHealth.problems
+	public List<String> getGeneratorProblems() {
+		return generatorProblems;
+	}
+
+	// Share of requests that failed or errored, 0 to 1
+	public double getErrorRate() {
+		return result.getRequests() == 0 ? 0 : (double) (result.getFailures() + result.getErrors()) / result.getRequests();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%8.1f/s offered %8.1f/s done  p50=%8.2fms p99=%8.2fms errors=%5.1f%%  %s", rate,
+				result.getThroughput(), result.getResponseTimeMillis(50), result.getResponseTimeMillis(99),
+				getErrorRate() * 100, !isValid() ? "generator-limited" : withinSlo ? "ok" : "over SLO");
+	}
+
+}
@@ -0,0 +1,182 @@
+package load;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+// Closed model: a fixed number of simulated users, each one sends its next request as soon as the previous one returns.
+// Throughput is whatever the service lets those users achieve, so raising the user count until throughput stops
+// growing shows where the service saturates.
+public class ClosedModelRunner {
+
+	private final int users;
+	private final Warmup warmup;
+	private final Duration thinkTime;
+
+	public ClosedModelRunner(int users) {
+		this(users, Warmup.NONE);
+	}
+
+	// The users run through the warm-up first, 'requests' and 'duration' below count from the end of it
+	public ClosedModelRunner(int users, Warmup warmup) {
+		this(users, warmup, Duration.ZERO);
+	}
+
+	// Each user pauses for 'thinkTime' after its response before it sends the next request, the way a person reads a
+	// page before clicking on. The pause is part of the user's cycle, not of any request's latency, so throughput
+	// tops out at users / (response time + think time).
+	public ClosedModelRunner(int users, Warmup warmup, Duration thinkTime) {
+		if (users < 1) {
+			throw new IllegalArgumentException("users must be at least 1, was " + users);
+		}
+		if (thinkTime.isNegative()) {
+			throw new IllegalArgumentException("thinkTime can't be negative, was " + thinkTime);
+		}
+		this.users = users;
+		this.warmup = warmup;
+		this.thinkTime = thinkTime;
+	}
+
+	public int getUsers() {
+		return users;
+	}
+
+	public Warmup getWarmup() {
+		return warmup;
+	}
+
+	public Duration getThinkTime() {
+		return thinkTime;
+	}
+
+	// Sends exactly 'requests' measured requests spread over all users
+	public LoadResult run(String name, int requests, Operation operation, int expectedStatus) {
+		return execute(name, requests, Long.MAX_VALUE, operation, expectedStatus, null);
+	}
+
+	// Keeps all users busy until the duration runs out
+	public LoadResult runFor(String name, Duration duration, Operation operation, int expectedStatus) {
+		return execute(name, Integer.MAX_VALUE, duration.toNanos(), operation, expectedStatus, null);
+	}
+
+	// 'split' also counts each measured request in the counters it returns for the request's iteration
+	LoadResult execute(String name, int requests, long durationNanos, Operation operation, int expectedStatus,
+			IntFunction<LoadCounters> split) {
+		long thinkNanos = thinkTime.toNanos();
+		LoadCounters counters = new LoadCounters(expectedStatus);
+		// Warm-up requests are counted here and thrown away
+		LoadCounters discarded = new LoadCounters(expectedStatus);
+		AtomicInteger nextIteration = new AtomicInteger();
+		AtomicInteger measured = new AtomicInteger();
+		CountDownLatch go = new CountDownLatch(1);
+		GeneratorMonitor monitor = new GeneratorMonitor(name, null);
+		ExecutorService pool = Executors.newFixedThreadPool(users, monitor.tracking(new NamedThreadFactory(name)));
+		WarmupPhase phase = new WarmupPhase(warmup, System.nanoTime());
+
+		for (int u = 0; u < users; u++) {
+			pool.execute(() -> {
+				try {
+					go.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				// Iteration numbers keep counting across warm-up, so per-request data stays unique
+				int held = -1;
+				while (!Thread.currentThread().isInterrupted()) {
+					boolean measuring = phase.isMeasuring();
+					// nanoTime arithmetic wraps, so start + Long.MAX_VALUE still compares as "far in the future"
+					boolean timeUp = measuring
+							&& System.nanoTime() - (phase.getMeasureStartNanos() + durationNanos) >= 0;
+					int i;
+					if (held >= 0) {
+						// A shed request keeps the place it took in 'requests'
+						i = held;
+						held = -1;
+						if (timeUp) {
+							break;
+						}
+					} else {
+						if (measuring && (timeUp || measured.getAndIncrement() >= requests)) {
+							break;
+						}
+						i = nextIteration.getAndIncrement();
+						if (i < 0) {
+							break;
+						}
+					}
+					LoadCounters target = measuring ? counters : discarded;
+					LoadCounters detail = measuring && split != null ? split.apply(i) : null;
+					long start = System.nanoTime();
+					try {
+						int status = operation.execute(i);
+						target.recordStatus(status);
+						if (detail != null) {
+							detail.recordStatus(status);
+						}
+					} catch (RequestShed e) {
+						// Nothing went out: wait for the throttle's next chance, don't spin through an open circuit
+						if (measuring) {
+							held = i;
+						}
+						long until = e.getRetryAtNanos();
+						long end = phase.getMeasureStartNanos() + durationNanos;
+						if (measuring && end - until < 0) {
+							until = end;
+						}
+						long wait;
+						while ((wait = until - System.nanoTime()) > 0
+								&& !Thread.currentThread().isInterrupted()) {
+							LockSupport.parkNanos(wait);
+						}
+						continue;
+					} catch (Exception e) {
+						target.recordError(e);
+						if (detail != null) {
+							detail.recordError(e);
+						}
+					}
+					long end = System.nanoTime();
+					target.recordTimes(start, start, end);
+					if (detail != null) {
+						detail.recordTimes(start, start, end);
+					}
+					if (!measuring) {
+						phase.completed(end - start);
+					}
+					if (thinkNanos > 0) {
+						try {
+							TimeUnit.NANOSECONDS.sleep(thinkNanos);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				}
+			});
+		}
+
+		go.countDown();
+		pool.shutdown();
+		try {
+			// This thread watches the warm-up windows until the run settles, then waits for the measured window
+			while (!phase.check(System.nanoTime()) && !pool.isTerminated()) {
+				long wait = phase.untilNextCheck(System.nanoTime());
+				if (wait > 0) {
+					pool.awaitTermination(wait, TimeUnit.NANOSECONDS);
+				}
+			}
+			monitor.measuring();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		return counters.toResult(name, users, System.nanoTime() - phase.getMeasureStartNanos(), phase, monitor.stop());
+	}
+
+}
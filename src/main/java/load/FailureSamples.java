@@ -0,0 +1,85 @@
+package load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Failures of a long run kept in bounded memory: counted per distinct message up to maxKinds messages, the rest
+// together, and the first maxExamples kept in full with their iteration. Safe to add to from any thread.
+public class FailureSamples {
+
+	private static final String OTHER_FAILURES = "(other failures)";
+
+	private final int maxKinds;
+	private final int maxExamples;
+	private final LongAdder total = new LongAdder();
+	private final ConcurrentMap<String, LongAdder> kinds = new ConcurrentHashMap<>();
+	private final List<String> examples = new ArrayList<>();
+
+	public FailureSamples(int maxKinds, int maxExamples) {
+		super();
+		if (maxKinds < 1 || maxExamples < 0) {
+			throw new IllegalArgumentException("maxKinds must be at least 1 and maxExamples at least 0, were " + maxKinds
+					+ " and " + maxExamples);
+		}
+		this.maxKinds = maxKinds;
+		this.maxExamples = maxExamples;
+	}
+
+	public void add(long iteration, String message) {
+		total.increment();
+		String kind = message.split("\\R", 2)[0];
+		LongAdder count = kinds.get(kind);
+		if (count == null) {
+			// New messages are rare, taking the lock for them keeps the cap exact
+			synchronized (kinds) {
+				count = kinds.get(kind);
+				if (count == null) {
+					int distinct = kinds.size() - (kinds.containsKey(OTHER_FAILURES) ? 1 : 0);
+					count = kinds.computeIfAbsent(distinct < maxKinds ? kind : OTHER_FAILURES, k -> new LongAdder());
+				}
+			}
+		}
+		count.increment();
+		synchronized (examples) {
+			if (examples.size() < maxExamples) {
+				examples.add("iteration " + iteration + ": " + kind);
+			}
+		}
+	}
+
+	public void add(long iteration, Throwable failure) {
+		add(iteration, failure.getClass().getSimpleName() + (failure.getMessage() == null ? "" : ": " + failure.getMessage()));
+	}
+
+	public long getTotal() {
+		return total.sum();
+	}
+
+	// Message to count, most frequent first
+	public Map<String, Long> getCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		kinds.entrySet().stream().sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+				.forEach(kind -> counts.put(kind.getKey(), kind.getValue().sum()));
+		return Collections.unmodifiableMap(counts);
+	}
+
+	public List<String> getExamples() {
+		synchronized (examples) {
+			return Collections.unmodifiableList(new ArrayList<>(examples));
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(getTotal() + " failures");
+		getCounts().forEach((message, count) -> sb.append(String.format("%n  %8d  %s", count, message)));
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,143 @@
+package load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// How the load generator itself held up during the measured window of a run. When it fell behind, response times
+// include time the requests spent in the harness, and the run says little about the service.
+public class GeneratorHealth {
+
+	// Runs whose runner doesn't watch itself, e.g. merged from results that didn't
+	public static final GeneratorHealth UNMEASURED = new GeneratorHealth(0, 0, 0, -1, -1, 0, 0);
+
+	private final long elapsedNanos;
+	private final long scheduleLagP99Nanos;
+	private final long scheduleLagMaxNanos;
+	private final int maxQueueDepth;
+	private final double cpu;
+	private final long gcMillis;
+	private final long missed;
+
+	public GeneratorHealth(long elapsedNanos, long scheduleLagP99Nanos, long scheduleLagMaxNanos, int maxQueueDepth,
+			double cpu, long gcMillis, long missed) {
+		super();
+		this.elapsedNanos = elapsedNanos;
+		this.scheduleLagP99Nanos = scheduleLagP99Nanos;
+		this.scheduleLagMaxNanos = scheduleLagMaxNanos;
+		this.maxQueueDepth = maxQueueDepth;
+		this.cpu = cpu;
+		this.gcMillis = gcMillis;
+		this.missed = missed;
+	}
+
+	// Several generators loading the same service, e.g. distributed workers: each figure is the worst any of them saw,
+	// missed requests add up. One struggling generator is enough to distort the merged latencies.
+	public static GeneratorHealth worst(List<GeneratorHealth> generators) {
+		long elapsed = 0;
+		long lagP99 = -1;
+		long lagMax = -1;
+		int queue = -1;
+		double cpu = -1;
+		long gc = 0;
+		long missed = 0;
+		for (GeneratorHealth generator : generators) {
+			if (!generator.isMeasured()) {
+				continue;
+			}
+			elapsed = Math.max(elapsed, generator.elapsedNanos);
+			lagP99 = Math.max(lagP99, generator.scheduleLagP99Nanos);
+			lagMax = Math.max(lagMax, generator.scheduleLagMaxNanos);
+			queue = Math.max(queue, generator.maxQueueDepth);
+			cpu = Math.max(cpu, generator.cpu);
+			gc = Math.max(gc, generator.gcMillis);
+			missed += generator.missed;
+		}
+		return elapsed == 0 ? UNMEASURED : new GeneratorHealth(elapsed, lagP99, lagMax, queue, cpu, gc, missed);
+	}
+
+	public boolean isMeasured() {
+		return elapsedNanos > 0;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	// How late the sending loop got to a planned send; the open model counts that lateness as response time. -1 where
+	// the runner has no schedule, like the closed model.
+	public double getScheduleLagP99Millis() {
+		return scheduleLagP99Nanos < 0 ? -1 : scheduleLagP99Nanos / 1e6;
+	}
+
+	public double getScheduleLagMaxMillis() {
+		return scheduleLagMaxNanos < 0 ? -1 : scheduleLagMaxNanos / 1e6;
+	}
+
+	// Most requests seen waiting for a free user, -1 where the runner has no such queue
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	// The generator threads' average share of all cores, -1 where the JVM doesn't measure thread CPU
+	public double getCpu() {
+		return cpu;
+	}
+
+	public long getGcMillis() {
+		return gcMillis;
+	}
+
+	// Planned requests the generator dropped because its queue was full, they are in no latency or count
+	public long getMissed() {
+		return missed;
+	}
+
+	public double getGcShare() {
+		return elapsedNanos == 0 || gcMillis < 0 ? 0 : gcMillis * 1e6 / elapsedNanos;
+	}
+
+	// Why the run is generator-limited, empty when the generator kept up
+	public List<String> problems(GeneratorLimits limits) {
+		List<String> problems = new ArrayList<>();
+		if (!isMeasured()) {
+			return problems;
+		}
+		if (scheduleLagP99Nanos > limits.getMaxScheduleLag().toNanos()) {
+			problems.add(String.format("requests left %.2f ms late at p99 (limit %d ms), the sending thread didn't get to "
+					+ "run in time", getScheduleLagP99Millis(), limits.getMaxScheduleLag().toMillis()));
+		}
+		if (maxQueueDepth > limits.getMaxQueueDepth()) {
+			problems.add(String.format("up to %d requests waited for a free user (limit %d), more concurrency is needed "
+					+ "for this rate", maxQueueDepth, limits.getMaxQueueDepth()));
+		}
+		if (missed > 0) {
+			problems.add(String.format("%d planned requests were never sent, the queue of requests waiting for a free "
+					+ "user was full", missed));
+		}
+		if (cpu > limits.getMaxCpu()) {
+			problems.add(String.format("client CPU at %.0f%% (limit %.0f%%)", cpu * 100, limits.getMaxCpu() * 100));
+		}
+		if (getGcShare() > limits.getMaxGcShare()) {
+			problems.add(String.format("GC took %d ms, %.1f%% of the run (limit %.1f%%)", gcMillis, getGcShare() * 100,
+					limits.getMaxGcShare() * 100));
+		}
+		return problems;
+	}
+
+	@Override
+	public String toString() {
+		if (!isMeasured()) {
+			return "generator not measured";
+		}
+		StringBuilder sb = new StringBuilder("generator: ");
+		if (scheduleLagP99Nanos >= 0) {
+			sb.append(String.format("schedule lag p99=%.2fms max=%.2fms, ", getScheduleLagP99Millis(),
+					getScheduleLagMaxMillis()));
+		}
+		if (maxQueueDepth >= 0) {
+			sb.append(String.format("queue <= %d, %d missed, ", maxQueueDepth, missed));
+		}
+		return sb.append(String.format("CPU %.0f%%, GC %d ms", cpu * 100, gcMillis)).toString();
+	}
+
+}
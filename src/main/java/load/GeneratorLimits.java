@@ -0,0 +1,44 @@
+package load;
+
+import java.time.Duration;
+
+// How far the load generator may strain before its numbers say more about the harness than about the service
+public class GeneratorLimits {
+
+	private final Duration maxScheduleLag;
+	private final int maxQueueDepth;
+	private final double maxCpu;
+	private final double maxGcShare;
+
+	// maxScheduleLag applies to the p99 of how late requests left, maxCpu is the generator threads' share of all
+	// cores and maxGcShare the share of the run spent collecting
+	public GeneratorLimits(Duration maxScheduleLag, int maxQueueDepth, double maxCpu, double maxGcShare) {
+		super();
+		if (maxScheduleLag.isNegative() || maxQueueDepth < 0 || !(maxCpu > 0 && maxCpu <= 1)
+				|| !(maxGcShare > 0 && maxGcShare <= 1)) {
+			throw new IllegalArgumentException("Invalid generator limits: lag " + maxScheduleLag + ", queue " + maxQueueDepth
+					+ ", CPU " + maxCpu + ", GC " + maxGcShare);
+		}
+		this.maxScheduleLag = maxScheduleLag;
+		this.maxQueueDepth = maxQueueDepth;
+		this.maxCpu = maxCpu;
+		this.maxGcShare = maxGcShare;
+	}
+
+	public Duration getMaxScheduleLag() {
+		return maxScheduleLag;
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	public double getMaxCpu() {
+		return maxCpu;
+	}
+
+	public double getMaxGcShare() {
+		return maxGcShare;
+	}
+
+}
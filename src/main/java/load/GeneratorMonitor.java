@@ -0,0 +1,124 @@
+package load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import org.HdrHistogram.Histogram;
+
+import metrics.LatencyRecorder;
+
+// Watches the load generator while it sends: the sending thread reports how late it got to each planned send, and a
+// sampler thread reads the queue of requests waiting for a user and the CPU time of the generator's own threads.
+// Runners without a schedule (the closed model) report no sends and get no schedule lag, only CPU and GC.
+// CPU is counted per thread rather than for the process, so a service embedded in the same JVM isn't blamed on the
+// generator. GC time is the process's, a pause stops the generator whoever caused it.
+class GeneratorMonitor {
+
+	private static final long SAMPLE_MILLIS = 50;
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final LatencyRecorder lag = new LatencyRecorder();
+	private final IntSupplier queueDepth;
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+	private final LongAdder missed = new LongAdder();
+	// Latest CPU time seen per generator thread; a thread that ends keeps its last sample
+	private final Map<Long, Long> cpuNanos = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService sampler;
+	private volatile long startNanos;
+	private volatile long startCpuNanos;
+	private volatile long startGcMillis;
+
+	// Created on the sending thread; queueDepth is null for runners without a queue
+	GeneratorMonitor(String name, IntSupplier queueDepth) {
+		this.queueDepth = queueDepth;
+		track(Thread.currentThread());
+		measuring();
+		sampler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(name + "-monitor"));
+		sampler.scheduleAtFixedRate(this::sample, SAMPLE_MILLIS, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	// Counts the CPU of every thread 'factory' creates as the generator's
+	ThreadFactory tracking(ThreadFactory factory) {
+		return runnable -> {
+			Thread thread = factory.newThread(runnable);
+			track(thread);
+			return thread;
+		};
+	}
+
+	// Starts over when the measured window begins, class loading and JIT compilation during warm-up don't count
+	void measuring() {
+		lag.intervalHistogram();
+		maxQueueDepth.set(0);
+		missed.reset();
+		startNanos = System.nanoTime();
+		startCpuNanos = sampleCpu();
+		startGcMillis = gcMillis();
+	}
+
+	// Sending thread only
+	void sent(long intendedStartNanos, long sentNanos) {
+		lag.record(sentNanos - intendedStartNanos);
+	}
+
+	// A planned request that was never sent because the queue was full
+	void missed() {
+		missed.increment();
+	}
+
+	// Once the last request is sent; what's still outstanding is the service's to answer
+	GeneratorHealth stop() {
+		sampler.shutdownNow();
+		sample();
+		long elapsed = System.nanoTime() - startNanos;
+		long cpu = sampleCpu();
+		Histogram lags = lag.intervalHistogram();
+		boolean scheduled = lags.getTotalCount() > 0;
+		return new GeneratorHealth(elapsed, scheduled ? lags.getValueAtPercentile(99) : -1, scheduled ? lags.getMaxValue() : -1,
+				queueDepth == null ? -1 : maxQueueDepth.get(),
+				cpu < 0 ? -1 : (cpu - startCpuNanos) / ((double) elapsed * Runtime.getRuntime().availableProcessors()),
+				gcMillis() - startGcMillis, missed.sum());
+	}
+
+	private void track(Thread thread) {
+		cpuNanos.put(thread.getId(), 0L);
+	}
+
+	private void sample() {
+		if (queueDepth != null) {
+			maxQueueDepth.accumulateAndGet(queueDepth.getAsInt(), Math::max);
+		}
+		sampleCpu();
+	}
+
+	// Total CPU of the generator's threads so far, -1 where the JVM doesn't measure thread CPU
+	private long sampleCpu() {
+		if (!THREADS.isThreadCpuTimeSupported() || !THREADS.isThreadCpuTimeEnabled()) {
+			return -1;
+		}
+		long total = 0;
+		for (Long thread : cpuNanos.keySet()) {
+			total += cpuNanos.merge(thread, Math.max(0, THREADS.getThreadCpuTime(thread)), Math::max);
+		}
+		return total;
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, collector.getCollectionTime());
+		}
+		return millis;
+	}
+
+}
@@ -0,0 +1,110 @@
+package load;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+
+import metrics.LatencyRecorder;
+
+// Shared between the worker threads of one run, turned into a LoadResult at the end
+class LoadCounters {
+
+	private final int expectedStatus;
+	private final LongAdder successes = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	// Indexed by status code so counting doesn't box, codes outside 0-599 share the last slot
+	private final AtomicReferenceArray<LongAdder> statusCounts = new AtomicReferenceArray<>(600);
+	private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+	private final LatencyRecorder responseTime = new LatencyRecorder();
+	private final LatencyRecorder serviceTime = new LatencyRecorder();
+	// Everything taken out of the recorders so far, the interval snapshots add up to these
+	private final Histogram responseTotal = LatencyRecorder.newHistogram();
+	private final Histogram serviceTotal = LatencyRecorder.newHistogram();
+	private final long[] reported = new long[3];
+	private final long[] reportedStatus = new long[600];
+	private long intervalStartNanos = -1;
+
+	LoadCounters(int expectedStatus) {
+		this.expectedStatus = expectedStatus;
+	}
+
+	boolean recordStatus(int status) {
+		int slot = status < 0 || status >= statusCounts.length() ? statusCounts.length() - 1 : status;
+		LongAdder count = statusCounts.get(slot);
+		if (count == null) {
+			statusCounts.compareAndSet(slot, null, new LongAdder());
+			count = statusCounts.get(slot);
+		}
+		count.increment();
+		if (status == expectedStatus) {
+			successes.increment();
+			return true;
+		}
+		failures.increment();
+		return false;
+	}
+
+	// Response time is measured from when the request should have been sent, service time from when it actually was.
+	// They only differ in the open model, where a stalled service makes requests queue up behind it.
+	void recordTimes(long intendedStartNanos, long startNanos, long endNanos) {
+		responseTime.record(endNanos - intendedStartNanos);
+		serviceTime.record(endNanos - startNanos);
+	}
+
+	void recordError(Throwable error) {
+		errors.increment();
+		firstError.compareAndSet(null, error);
+	}
+
+	// What was recorded since the previous interval; offsets are relative to measureStartNanos
+	synchronized LoadSnapshot interval(long measureStartNanos, long nowNanos) {
+		Histogram response = responseTime.intervalHistogram();
+		Histogram service = serviceTime.intervalHistogram();
+		responseTotal.add(response);
+		serviceTotal.add(service);
+		long[] totals = { successes.sum(), failures.sum(), errors.sum() };
+		long[] deltas = new long[totals.length];
+		for (int i = 0; i < totals.length; i++) {
+			deltas[i] = totals[i] - reported[i];
+			reported[i] = totals[i];
+		}
+		Map<Integer, Long> counts = new TreeMap<>();
+		for (int status = 0; status < statusCounts.length(); status++) {
+			if (statusCounts.get(status) != null) {
+				long total = statusCounts.get(status).sum();
+				if (total > reportedStatus[status]) {
+					counts.put(status, total - reportedStatus[status]);
+					reportedStatus[status] = total;
+				}
+			}
+		}
+		long start = intervalStartNanos < 0 ? 0 : intervalStartNanos;
+		intervalStartNanos = nowNanos - measureStartNanos;
+		return new LoadSnapshot(start, intervalStartNanos, deltas[0], deltas[1], deltas[2], counts, response, service);
+	}
+
+	LoadResult toResult(String name, int concurrency, long elapsedNanos, WarmupPhase warmup, GeneratorHealth generator) {
+		return toResult(name, concurrency, elapsedNanos, warmup.getWarmupNanos(), warmup.isSteady(), generator);
+	}
+
+	synchronized LoadResult toResult(String name, int concurrency, long elapsedNanos, long warmupNanos, boolean steady,
+			GeneratorHealth generator) {
+		responseTotal.add(responseTime.intervalHistogram());
+		serviceTotal.add(serviceTime.intervalHistogram());
+		Map<Integer, Long> counts = new HashMap<>();
+		for (int status = 0; status < statusCounts.length(); status++) {
+			if (statusCounts.get(status) != null) {
+				counts.put(status, statusCounts.get(status).sum());
+			}
+		}
+		return new LoadResult(name, concurrency, successes.sum(), failures.sum(), errors.sum(), elapsedNanos, counts,
+				firstError.get(), responseTotal.copy(), serviceTotal.copy(), warmupNanos, steady, generator);
+	}
+
+}
@@ -0,0 +1,140 @@
+package load;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+
+public class LoadResult {
+
+	private final String name;
+	private final int concurrency;
+	private final long successes;
+	private final long failures;
+	private final long errors;
+	private final long elapsedNanos;
+	private final Map<Integer, Long> statusCounts;
+	private final Throwable firstError;
+	private final Histogram responseTime;
+	private final Histogram serviceTime;
+	private final long warmupNanos;
+	private final boolean steady;
+	private final GeneratorHealth generator;
+
+	// Everything but warmupNanos and steady covers the measured window only
+	public LoadResult(String name, int concurrency, long successes, long failures, long errors, long elapsedNanos,
+			Map<Integer, Long> statusCounts, Throwable firstError, Histogram responseTime, Histogram serviceTime,
+			long warmupNanos, boolean steady, GeneratorHealth generator) {
+		super();
+		this.name = name;
+		this.concurrency = concurrency;
+		this.successes = successes;
+		this.failures = failures;
+		this.errors = errors;
+		this.elapsedNanos = elapsedNanos;
+		this.statusCounts = Collections.unmodifiableMap(new TreeMap<>(statusCounts));
+		this.firstError = firstError;
+		this.responseTime = responseTime;
+		this.serviceTime = serviceTime;
+		this.warmupNanos = warmupNanos;
+		this.steady = steady;
+		this.generator = generator;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public long getRequests() {
+		return successes + failures + errors;
+	}
+
+	// Requests answered with the expected status code
+	public long getSuccesses() {
+		return successes;
+	}
+
+	// Requests answered with any other status code
+	public long getFailures() {
+		return failures;
+	}
+
+	// Requests that threw before a status code was available (connection refused, timeouts...)
+	public long getErrors() {
+		return errors;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedNanos / 1_000_000;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : getRequests() * 1e9 / elapsedNanos;
+	}
+
+	public Map<Integer, Long> getStatusCounts() {
+		return statusCounts;
+	}
+
+	public Throwable getFirstError() {
+		return firstError;
+	}
+
+	// Latency in nanoseconds as the user sees it, measured from the planned send time
+	public Histogram getResponseTime() {
+		return responseTime;
+	}
+
+	// Latency in nanoseconds from the moment the request actually left the harness
+	public Histogram getServiceTime() {
+		return serviceTime;
+	}
+
+	// How long the run took to settle before measuring started, itself a sign of how fast the service warms up
+	public long getWarmupMillis() {
+		return warmupNanos / 1_000_000;
+	}
+
+	// False when the maximum warm-up ran out before throughput and latency settled, the numbers may still drift
+	public boolean isSteady() {
+		return steady;
+	}
+
+	// How the load generator held up, check it before blaming the service for bad numbers
+	public GeneratorHealth getGenerator() {
+		return generator;
+	}
+
+	public double getResponseTimeMillis(double percentile) {
+		return responseTime.getValueAtPercentile(percentile) / 1e6;
+	}
+
+	public double getServiceTimeMillis(double percentile) {
+		return serviceTime.getValueAtPercentile(percentile) / 1e6;
+	}
+
+	@Override
+	public String toString() {
+		String result = String.format("%s: %d requests, %d concurrent, %d ok, %d failed, %d errors in %d ms (%.1f req/s), "
+				+ "response time p50=%.2fms p99=%.2fms max=%.2fms, status codes %s",
+				name, getRequests(), concurrency, successes, failures, errors, getElapsedMillis(), getThroughput(),
+				getResponseTimeMillis(50), getResponseTimeMillis(99), responseTime.getMaxValue() / 1e6, statusCounts);
+		if (warmupNanos > 0) {
+			result += String.format(", after %d ms warm-up%s", getWarmupMillis(), steady ? "" : " (not steady)");
+		}
+		if (generator.isMeasured()) {
+			result += ", " + generator;
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,112 @@
+package load;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+
+import metrics.LatencyRecorder;
+
+// What happened in one reporting interval of a run: counts and latency histograms of the requests that completed in it.
+// Intervals only ever hold their own requests, so adding them up (merge) loses nothing, across time or generators.
+public class LoadSnapshot {
+
+	private final long startNanos;
+	private final long endNanos;
+	private final long successes;
+	private final long failures;
+	private final long errors;
+	private final Map<Integer, Long> statusCounts;
+	private final Histogram responseTime;
+	private final Histogram serviceTime;
+
+	// startNanos and endNanos are offsets from the start of the run's measured window
+	public LoadSnapshot(long startNanos, long endNanos, long successes, long failures, long errors,
+			Map<Integer, Long> statusCounts, Histogram responseTime, Histogram serviceTime) {
+		super();
+		this.startNanos = startNanos;
+		this.endNanos = endNanos;
+		this.successes = successes;
+		this.failures = failures;
+		this.errors = errors;
+		this.statusCounts = Collections.unmodifiableMap(new TreeMap<>(statusCounts));
+		this.responseTime = responseTime;
+		this.serviceTime = serviceTime;
+	}
+
+	// Sums counts and histograms; the interval spans from the earliest start to the latest end
+	public static LoadSnapshot merge(List<LoadSnapshot> snapshots) {
+		long start = Long.MAX_VALUE;
+		long end = 0;
+		long successes = 0;
+		long failures = 0;
+		long errors = 0;
+		Map<Integer, Long> statusCounts = new TreeMap<>();
+		Histogram responseTime = LatencyRecorder.newHistogram();
+		Histogram serviceTime = LatencyRecorder.newHistogram();
+		for (LoadSnapshot snapshot : snapshots) {
+			start = Math.min(start, snapshot.startNanos);
+			end = Math.max(end, snapshot.endNanos);
+			successes += snapshot.successes;
+			failures += snapshot.failures;
+			errors += snapshot.errors;
+			snapshot.statusCounts.forEach((status, count) -> statusCounts.merge(status, count, Long::sum));
+			responseTime.add(snapshot.responseTime);
+			serviceTime.add(snapshot.serviceTime);
+		}
+		return new LoadSnapshot(snapshots.isEmpty() ? 0 : start, end, successes, failures, errors, statusCounts,
+				responseTime, serviceTime);
+	}
+
+	public long getStartNanos() {
+		return startNanos;
+	}
+
+	public long getEndNanos() {
+		return endNanos;
+	}
+
+	public long getRequests() {
+		return successes + failures + errors;
+	}
+
+	public long getSuccesses() {
+		return successes;
+	}
+
+	public long getFailures() {
+		return failures;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public Map<Integer, Long> getStatusCounts() {
+		return statusCounts;
+	}
+
+	public Histogram getResponseTime() {
+		return responseTime;
+	}
+
+	public Histogram getServiceTime() {
+		return serviceTime;
+	}
+
+	public double getThroughput() {
+		long length = endNanos - startNanos;
+		return length <= 0 ? 0 : getRequests() * 1e9 / length;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%6.1fs-%6.1fs: %d requests (%.1f req/s), %d ok, %d failed, %d errors, response time p50=%.2fms p99=%.2fms max=%.2fms",
+				startNanos / 1e9, endNanos / 1e9, getRequests(), getThroughput(), successes, failures, errors,
+				responseTime.getValueAtPercentile(50) / 1e6, responseTime.getValueAtPercentile(99) / 1e6,
+				responseTime.getMaxValue() / 1e6);
+	}
+
+}
@@ -0,0 +1,23 @@
+package load;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Daemon threads named after the run, so a stuck load run never keeps the test JVM alive
+class NamedThreadFactory implements ThreadFactory {
+
+	private final String prefix;
+	private final AtomicInteger count = new AtomicInteger();
+
+	NamedThreadFactory(String name) {
+		this.prefix = "load-" + name + "-";
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
@@ -0,0 +1,203 @@
+package load;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntFunction;
+
+// Open model: requests are issued on a fixed schedule (e.g. 500 req/s) no matter how fast the service answers.
+// Each request's latency is measured from its planned send time, so when the service stalls the requests that
+// should have been sent meanwhile are counted as waiting too. A closed loop would quietly stop sending instead
+// and report only the one slow request (coordinated omission).
+public class OpenModelRunner {
+
+	// Requests waiting for a free user beyond this are dropped and reported as missed, so a stalled service can't fill
+	// the heap with planned requests
+	public static final int MAX_QUEUED = 1000;
+
+	private final DoubleSupplier rate;
+	// Only a runner given a supplier looks the rate up again while it runs
+	private final boolean retarget;
+	private final int maxConcurrency;
+	private final Warmup warmup;
+
+	// maxConcurrency caps the threads sending requests; when all are busy the next requests wait for one and that
+	// wait is part of their response time
+	public OpenModelRunner(double ratePerSecond, int maxConcurrency) {
+		this(ratePerSecond, maxConcurrency, Warmup.NONE);
+	}
+
+	// The schedule runs through the warm-up first, 'duration' below counts from the end of it. There is no think time:
+	// the schedule alone decides when requests arrive, users pausing between them belong to ClosedModelRunner.
+	public OpenModelRunner(double ratePerSecond, int maxConcurrency, Warmup warmup) {
+		this(() -> ratePerSecond, false, maxConcurrency, warmup);
+	}
+
+	// The rate is asked for before every send and the schedule follows it from there on, e.g.
+	// () -> PropertiesFile.current().getStressRate() lets a reloaded file retarget a soak run. The measured window then
+	// ends after 'duration' of schedule instead of after rate * duration requests. Non-positive rates are ignored.
+	public OpenModelRunner(DoubleSupplier rate, int maxConcurrency, Warmup warmup) {
+		this(rate, true, maxConcurrency, warmup);
+	}
+
+	private OpenModelRunner(DoubleSupplier rate, boolean retarget, int maxConcurrency, Warmup warmup) {
+		double ratePerSecond = rate.getAsDouble();
+		if (ratePerSecond <= 0) {
+			throw new IllegalArgumentException("rate must be positive, was " + ratePerSecond);
+		}
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be at least 1, was " + maxConcurrency);
+		}
+		this.rate = rate;
+		this.retarget = retarget;
+		this.maxConcurrency = maxConcurrency;
+		this.warmup = warmup;
+	}
+
+	public double getRatePerSecond() {
+		return rate.getAsDouble();
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public Warmup getWarmup() {
+		return warmup;
+	}
+
+	public LoadResult run(String name, Duration duration, Operation operation, int expectedStatus) {
+		return run(name, duration, operation, expectedStatus, null, null);
+	}
+
+	// Also hands 'listener' a snapshot of the measured requests that completed in every 'every' of the run, and one
+	// for whatever is left at the end. The snapshots add up exactly to the returned result.
+	public LoadResult run(String name, Duration duration, Operation operation, int expectedStatus, Duration every,
+			Consumer<LoadSnapshot> listener) {
+		return execute(name, duration, operation, expectedStatus, every, listener, null);
+	}
+
+	// 'split' also counts each measured request in the counters it returns for the request's iteration
+	LoadResult execute(String name, Duration duration, Operation operation, int expectedStatus, Duration every,
+			Consumer<LoadSnapshot> listener, IntFunction<LoadCounters> split) {
+		double ratePerSecond = rate.getAsDouble();
+		long requests = (long) (ratePerSecond * duration.toNanos() / 1e9);
+		double intervalNanos = 1e9 / ratePerSecond;
+		LoadCounters counters = new LoadCounters(expectedStatus);
+		// Warm-up requests are counted here and thrown away
+		LoadCounters discarded = new LoadCounters(expectedStatus);
+		LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(MAX_QUEUED);
+		GeneratorMonitor monitor = new GeneratorMonitor(name, queue::size);
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.NANOSECONDS, queue,
+				monitor.tracking(new NamedThreadFactory(name)));
+		pool.prestartAllCoreThreads();
+
+		long start = System.nanoTime();
+		// The schedule runs in segments of one rate, a new one starts where the rate changes
+		long segmentStart = start;
+		long segmentFirst = 0;
+		WarmupPhase phase = new WarmupPhase(warmup, start);
+		ScheduledExecutorService reporter = listener == null ? null
+				: Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(name + "-report"));
+		long firstMeasured = -1;
+		long measuredFrom = 0;
+		for (long k = 0; !Thread.currentThread().isInterrupted(); k++) {
+			if (retarget) {
+				double current = rate.getAsDouble();
+				if (current > 0 && current != ratePerSecond) {
+					segmentStart += (long) ((k - segmentFirst) * intervalNanos);
+					segmentFirst = k;
+					ratePerSecond = current;
+					intervalNanos = 1e9 / current;
+				}
+			}
+			long intendedStart = segmentStart + (long) ((k - segmentFirst) * intervalNanos);
+			if (firstMeasured >= 0
+					&& (retarget ? intendedStart - measuredFrom >= duration.toNanos() : k - firstMeasured >= requests)) {
+				break;
+			}
+			long wait;
+			while ((wait = intendedStart - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			long sent = System.nanoTime();
+			// A request belongs to the measured window when it was planned after the warm-up ended
+			if (firstMeasured < 0 && phase.check(intendedStart)) {
+				firstMeasured = k;
+				measuredFrom = intendedStart;
+				monitor.measuring();
+				if (reporter != null) {
+					// Intervals count from the start of the measured window, nothing is measured before it
+					long measureStart = phase.getMeasureStartNanos();
+					reporter.scheduleAtFixedRate(() -> listener.accept(counters.interval(measureStart, System.nanoTime())),
+							every.toNanos(), every.toNanos(), TimeUnit.NANOSECONDS);
+				}
+			}
+			boolean measuring = firstMeasured >= 0;
+			if (measuring) {
+				monitor.sent(intendedStart, sent);
+			}
+			LoadCounters target = measuring ? counters : discarded;
+			int iteration = (int) k;
+			LoadCounters detail = measuring && split != null ? split.apply(iteration) : null;
+			try {
+				pool.execute(() -> {
+					long actualStart = System.nanoTime();
+					try {
+						int status = operation.execute(iteration);
+						target.recordStatus(status);
+						if (detail != null) {
+							detail.recordStatus(status);
+						}
+					} catch (RequestShed e) {
+						return;
+					} catch (Exception e) {
+						target.recordError(e);
+						if (detail != null) {
+							detail.recordError(e);
+						}
+					}
+					long end = System.nanoTime();
+					target.recordTimes(intendedStart, actualStart, end);
+					if (detail != null) {
+						detail.recordTimes(intendedStart, actualStart, end);
+					}
+					if (!measuring) {
+						phase.completed(end - intendedStart);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				if (measuring) {
+					monitor.missed();
+				}
+			}
+		}
+
+		GeneratorHealth generator = monitor.stop();
+		pool.shutdown();
+		try {
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		if (reporter != null) {
+			reporter.shutdown();
+			try {
+				reporter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			listener.accept(counters.interval(phase.getMeasureStartNanos(), System.nanoTime()));
+		}
+		return counters.toResult(name, maxConcurrency, System.nanoTime() - phase.getMeasureStartNanos(), phase, generator);
+	}
+
+}
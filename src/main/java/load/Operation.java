@@ -0,0 +1,10 @@
+package load;
+
+// One request issued by the load runners, e.g. i -> placeOrder(123, 576.23, "pending").statusCode()
+// The iteration number lets the operation build unique data per request.
+@FunctionalInterface
+public interface Operation {
+
+	int execute(int iteration) throws Exception;
+
+}
@@ -0,0 +1,22 @@
+package load;
+
+// Thrown by an operation that chose not to send its request, e.g. AdaptiveThrottle while the circuit is open. The
+// runners count nothing for it: the service never saw the request, so it is neither a failure nor an error.
+public class RequestShed extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAtNanos;
+
+	// 'retryAtNanos' is the System.nanoTime() at which sending again stands a chance, a closed user parks until then
+	public RequestShed(String message, long retryAtNanos) {
+		// Thrown for every shed request of a long outage, the stack trace would cost more than the request
+		super(message, null, false, false);
+		this.retryAtNanos = retryAtNanos;
+	}
+
+	public long getRetryAtNanos() {
+		return retryAtNanos;
+	}
+
+}
@@ -0,0 +1,80 @@
+package load;
+
+import metrics.ResourceSample;
+
+// One reporting interval of a soak run boiled down to a few numbers, so hours of them fit in a small, fixed budget
+public class SoakInterval {
+
+	private final long startNanos;
+	private final long endNanos;
+	private final long requests;
+	private final long failures;
+	private final long errors;
+	private final double p50Millis;
+	private final double p99Millis;
+	private final double maxMillis;
+	private final ResourceSample resources;
+
+	public SoakInterval(LoadSnapshot snapshot, ResourceSample resources) {
+		super();
+		this.startNanos = snapshot.getStartNanos();
+		this.endNanos = snapshot.getEndNanos();
+		this.requests = snapshot.getRequests();
+		this.failures = snapshot.getFailures();
+		this.errors = snapshot.getErrors();
+		this.p50Millis = snapshot.getResponseTime().getValueAtPercentile(50) / 1e6;
+		this.p99Millis = snapshot.getResponseTime().getValueAtPercentile(99) / 1e6;
+		this.maxMillis = snapshot.getResponseTime().getMaxValue() / 1e6;
+		this.resources = resources;
+	}
+
+	public long getStartNanos() {
+		return startNanos;
+	}
+
+	public long getEndNanos() {
+		return endNanos;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getFailures() {
+		return failures;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public double getThroughput() {
+		long length = endNanos - startNanos;
+		return length <= 0 ? 0 : requests * 1e9 / length;
+	}
+
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	// The client's resources when the interval ended
+	public ResourceSample getResources() {
+		return resources;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%7.1fs-%7.1fs: %d requests (%.1f req/s), %d failed, %d errors, p50=%.2fms p99=%.2fms max=%.2fms | %s",
+				startNanos / 1e9, endNanos / 1e9, requests, getThroughput(), failures, errors, p50Millis, p99Millis, maxMillis,
+				resources);
+	}
+
+}
@@ -0,0 +1,118 @@
+package load;
+
+import java.util.Collections;
+import java.util.List;
+
+import metrics.ResourceSample;
+
+public class SoakResult {
+
+	private final LoadResult total;
+	private final ResourceSample before;
+	private final SoakInterval first;
+	private final List<SoakInterval> intervals;
+	private final long droppedIntervals;
+	private final long maxHeapUsed;
+	private final int maxThreads;
+	private final long maxOpenFileDescriptors;
+	private final FailureSamples failures;
+
+	SoakResult(LoadResult total, ResourceSample before, SoakInterval first, List<SoakInterval> intervals,
+			long droppedIntervals, long maxHeapUsed, int maxThreads, long maxOpenFileDescriptors, FailureSamples failures) {
+		super();
+		this.total = total;
+		this.before = before;
+		this.first = first;
+		this.intervals = Collections.unmodifiableList(intervals);
+		this.droppedIntervals = droppedIntervals;
+		this.maxHeapUsed = maxHeapUsed;
+		this.maxThreads = maxThreads;
+		this.maxOpenFileDescriptors = maxOpenFileDescriptors;
+		this.failures = failures;
+	}
+
+	// The whole measured window, its histograms are fixed-size however long the run was
+	public LoadResult getTotal() {
+		return total;
+	}
+
+	// Resources before the run started, warm-up included
+	public ResourceSample getBefore() {
+		return before;
+	}
+
+	public SoakInterval getFirst() {
+		return first;
+	}
+
+	public SoakInterval getLast() {
+		return intervals.get(intervals.size() - 1);
+	}
+
+	// The latest intervals, at most the runner's maxIntervals
+	public List<SoakInterval> getIntervals() {
+		return intervals;
+	}
+
+	// Older intervals that made room for newer ones; their requests are still in getTotal()
+	public long getDroppedIntervals() {
+		return droppedIntervals;
+	}
+
+	// Peaks over every interval, dropped ones included
+	public long getMaxHeapUsed() {
+		return maxHeapUsed;
+	}
+
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	public long getMaxOpenFileDescriptors() {
+		return maxOpenFileDescriptors;
+	}
+
+	public FailureSamples getFailures() {
+		return failures;
+	}
+
+	// Drift from the end of the first measured interval to the end of the last one. A client that holds on to what it
+	// sends keeps growing here however often the GC runs.
+	public long getHeapGrowthBytes() {
+		return getLast().getResources().getHeapAfterGc() - first.getResources().getHeapAfterGc();
+	}
+
+	public int getThreadGrowth() {
+		return getLast().getResources().getThreads() - first.getResources().getThreads();
+	}
+
+	public long getOpenFileDescriptorGrowth() {
+		return getLast().getResources().getOpenFileDescriptors() - first.getResources().getOpenFileDescriptors();
+	}
+
+	// Collector time during the measured window
+	public long getGcMillis() {
+		return getLast().getResources().getGcMillis() - before.getGcMillis();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(total.toString());
+		sb.append(String.format("%n  client: heap after GC %+d MB, threads %+d, open files %+d, GC %d ms; peaks heap %d MB, %d threads, %d open files",
+				getHeapGrowthBytes() >> 20, getThreadGrowth(), getOpenFileDescriptorGrowth(), getGcMillis(), maxHeapUsed >> 20,
+				maxThreads, maxOpenFileDescriptors));
+		if (droppedIntervals > 0) {
+			sb.append(String.format("%n  first interval, then the last %d (%d in between dropped):", intervals.size(),
+					droppedIntervals));
+			sb.append(String.format("%n  %s", first));
+		}
+		for (SoakInterval interval : intervals) {
+			sb.append(String.format("%n  %s", interval));
+		}
+		if (failures.getTotal() > 0) {
+			sb.append(String.format("%n  %s", failures));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,92 @@
+package load;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import metrics.ResourceSample;
+
+// Endurance runs of hours on the open model, in memory that doesn't grow with the run. Requests go into the runner's
+// fixed-size histograms, each interval is boiled down to a SoakInterval with a sample of the client's heap, GC, threads
+// and open files, and only the first and the latest maxIntervals of those are kept. Failures are counted per message
+// with a few examples. Nothing holds on to responses, so what the samples show is the client as the test runs it.
+public class SoakRunner {
+
+	// Four hours of 10 second intervals
+	public static final int DEFAULT_MAX_INTERVALS = 1440;
+	private static final int MAX_FAILURE_KINDS = 20;
+	private static final int MAX_FAILURE_EXAMPLES = 10;
+
+	private final OpenModelRunner runner;
+	private final Duration every;
+	private final int maxIntervals;
+
+	public SoakRunner(OpenModelRunner runner, Duration every) {
+		this(runner, every, DEFAULT_MAX_INTERVALS);
+	}
+
+	public SoakRunner(OpenModelRunner runner, Duration every, int maxIntervals) {
+		super();
+		if (every.isNegative() || every.isZero()) {
+			throw new IllegalArgumentException("every must be positive, was " + every);
+		}
+		if (maxIntervals < 1) {
+			throw new IllegalArgumentException("maxIntervals must be at least 1, was " + maxIntervals);
+		}
+		this.runner = runner;
+		this.every = every;
+		this.maxIntervals = maxIntervals;
+	}
+
+	// Failures are sampled from the warm-up too, a service failing while the run settles is worth seeing
+	public SoakResult run(String name, Duration duration, Operation operation, int expectedStatus) {
+		FailureSamples failures = new FailureSamples(MAX_FAILURE_KINDS, MAX_FAILURE_EXAMPLES);
+		Intervals intervals = new Intervals();
+		ResourceSample before = ResourceSample.take(0);
+		LoadResult total = runner.run(name, duration, i -> {
+			try {
+				int status = operation.execute(i);
+				if (status != expectedStatus) {
+					failures.add(i, "status " + status);
+				}
+				return status;
+			} catch (Exception e) {
+				failures.add(i, e);
+				throw e;
+			}
+		}, expectedStatus, every, intervals::add);
+		synchronized (intervals) {
+			return new SoakResult(total, before, intervals.first, new ArrayList<>(intervals.latest), intervals.dropped,
+					intervals.maxHeapUsed, intervals.maxThreads, intervals.maxOpenFileDescriptors, failures);
+		}
+	}
+
+	// Called from the runner's report thread, and once more from the run's own thread at the end
+	private class Intervals {
+
+		private final ArrayDeque<SoakInterval> latest = new ArrayDeque<>();
+		private SoakInterval first;
+		private long dropped;
+		private long maxHeapUsed;
+		private int maxThreads;
+		private long maxOpenFileDescriptors = -1;
+
+		synchronized void add(LoadSnapshot snapshot) {
+			ResourceSample resources = ResourceSample.take(snapshot.getEndNanos());
+			SoakInterval interval = new SoakInterval(snapshot, resources);
+			if (first == null) {
+				first = interval;
+			}
+			if (latest.size() == maxIntervals) {
+				latest.removeFirst();
+				dropped++;
+			}
+			latest.addLast(interval);
+			maxHeapUsed = Math.max(maxHeapUsed, resources.getHeapUsed());
+			maxThreads = Math.max(maxThreads, resources.getThreads());
+			maxOpenFileDescriptors = Math.max(maxOpenFileDescriptors, resources.getOpenFileDescriptors());
+		}
+
+	}
+
+}
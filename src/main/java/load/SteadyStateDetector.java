@@ -0,0 +1,51 @@
+package load;
+
+// Decides from rolling windows whether a run has settled: the last N windows must agree on throughput and on median
+// latency, each spread (max - min) staying within the tolerance times their mean.
+// A window without completions never counts as steady, a stalled service isn't a settled one.
+public class SteadyStateDetector {
+
+	private final int windows;
+	private final double tolerance;
+	private final double[] throughputs;
+	private final double[] latencies;
+	private int count;
+
+	public SteadyStateDetector(int windows, double tolerance) {
+		if (windows < 2) {
+			throw new IllegalArgumentException("windows must be at least 2, was " + windows);
+		}
+		this.windows = windows;
+		this.tolerance = tolerance;
+		this.throughputs = new double[windows];
+		this.latencies = new double[windows];
+	}
+
+	// Adds the next window and tells whether the last N windows, this one included, are steady
+	public boolean add(double throughput, double latency) {
+		throughputs[count % windows] = throughput;
+		latencies[count % windows] = latency;
+		count++;
+		return isSteady();
+	}
+
+	public boolean isSteady() {
+		return count >= windows && settled(throughputs) && settled(latencies);
+	}
+
+	private boolean settled(double[] values) {
+		double min = Double.MAX_VALUE;
+		double max = 0;
+		double sum = 0;
+		for (double value : values) {
+			if (value <= 0) {
+				return false;
+			}
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			sum += value;
+		}
+		return max - min <= tolerance * sum / values.length;
+	}
+
+}
@@ -0,0 +1,14 @@
+package load;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+// One request sent through an AdaptiveThrottle, e.g.
+// (i, retryAfter) -> { Response r = placeOrder(...); retryAfter.accept(parseRetryAfter(r.header("Retry-After"))); ... }
+// The operation hands over the service's Retry-After, when it sent one, before returning the status code.
+@FunctionalInterface
+public interface ThrottledOperation {
+
+	int execute(int iteration, Consumer<Duration> retryAfter) throws Exception;
+
+}
@@ -0,0 +1,70 @@
+package load;
+
+import java.time.Duration;
+
+// How a stress run warms up before it starts measuring. Samples taken during warm-up are thrown away.
+// Warm-up lasts at least 'minimum', then ends as soon as the last 'windows' windows of 'window' each agree on
+// throughput and median latency within 'tolerance' (0.2 = 20% of their mean), and never lasts longer than 'maximum'.
+public final class Warmup {
+
+	// Measures from the first request, what the runners did before warm-up existed
+	public static final Warmup NONE = new Warmup(Duration.ZERO, Duration.ZERO, Duration.ofMillis(500), 3, 0.2);
+
+	private final Duration minimum;
+	private final Duration maximum;
+	private final Duration window;
+	private final int windows;
+	private final double tolerance;
+
+	public Warmup(Duration minimum, Duration maximum, Duration window, int windows, double tolerance) {
+		super();
+		if (minimum.isNegative() || maximum.compareTo(minimum) < 0) {
+			throw new IllegalArgumentException("Warm-up must last between 0 and its maximum, was " + minimum + " to " + maximum);
+		}
+		if (window.isNegative() || window.isZero() || windows < 2 || tolerance <= 0) {
+			throw new IllegalArgumentException("Steady state needs a positive window, at least 2 windows and a positive tolerance, was "
+					+ window + ", " + windows + ", " + tolerance);
+		}
+		this.minimum = minimum;
+		this.maximum = maximum;
+		this.window = window;
+		this.windows = windows;
+		this.tolerance = tolerance;
+	}
+
+	// Always warms up for the whole maximum, so generators that start together start measuring together
+	public Warmup fixed() {
+		return new Warmup(maximum, maximum, window, windows, tolerance);
+	}
+
+	public boolean isEnabled() {
+		return !maximum.isZero();
+	}
+
+	public Duration getMinimum() {
+		return minimum;
+	}
+
+	public Duration getMaximum() {
+		return maximum;
+	}
+
+	public Duration getWindow() {
+		return window;
+	}
+
+	public int getWindows() {
+		return windows;
+	}
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	@Override
+	public String toString() {
+		return isEnabled() ? "Warmup[" + minimum.toMillis() + "-" + maximum.toMillis() + "ms, " + windows + " x "
+				+ window.toMillis() + "ms within " + tolerance + "]" : "Warmup[none]";
+	}
+
+}
@@ -0,0 +1,84 @@
+package load;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+
+import metrics.LatencyRecorder;
+
+// Warm-up state of one run. Workers report warm-up completions here, one thread calls check() as time passes and
+// flips the run into its measured window once the windows settle (or the maximum warm-up is over).
+class WarmupPhase {
+
+	private final Warmup warmup;
+	private final long startNanos;
+	private final long windowNanos;
+	private final SteadyStateDetector detector;
+	private final LongAdder completions = new LongAdder();
+	private final LatencyRecorder latency = new LatencyRecorder();
+	private Histogram window;
+	private long windowEnd;
+	private volatile long measureStartNanos;
+	private volatile boolean measuring;
+	private volatile boolean steady;
+
+	WarmupPhase(Warmup warmup, long startNanos) {
+		this.warmup = warmup;
+		this.startNanos = startNanos;
+		this.windowNanos = warmup.getWindow().toNanos();
+		this.detector = new SteadyStateDetector(warmup.getWindows(), warmup.getTolerance());
+		this.windowEnd = startNanos + windowNanos;
+		if (!warmup.isEnabled()) {
+			start(startNanos, true);
+		}
+	}
+
+	boolean isMeasuring() {
+		return measuring;
+	}
+
+	// Only warm-up requests are reported, they decide when the run has settled
+	void completed(long latencyNanos) {
+		completions.increment();
+		latency.record(latencyNanos);
+	}
+
+	// Closes every window that ended by 'now' and starts measuring when the run has settled. Single caller only.
+	boolean check(long now) {
+		while (!measuring && now - windowEnd >= 0) {
+			window = latency.intervalHistogram(window);
+			boolean settled = detector.add(completions.sumThenReset() * 1e9 / windowNanos, window.getValueAtPercentile(50));
+			long warm = windowEnd - startNanos;
+			if ((settled && warm >= warmup.getMinimum().toNanos()) || warm >= warmup.getMaximum().toNanos()) {
+				start(now, settled);
+			}
+			windowEnd += windowNanos;
+		}
+		return measuring;
+	}
+
+	// Nanos until the current window closes, so the checking thread can sleep until then
+	long untilNextCheck(long now) {
+		return windowEnd - now;
+	}
+
+	private void start(long now, boolean settled) {
+		steady = settled;
+		measureStartNanos = now;
+		measuring = true;
+	}
+
+	long getMeasureStartNanos() {
+		return measureStartNanos;
+	}
+
+	long getWarmupNanos() {
+		return measureStartNanos - startNanos;
+	}
+
+	// False when the maximum warm-up ran out before the windows agreed
+	boolean isSteady() {
+		return steady;
+	}
+
+}
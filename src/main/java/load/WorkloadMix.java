@@ -0,0 +1,111 @@
+package load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+// A weighted mix of operations run as one load, e.g. mostly reads with some writes, so the operations compete for the
+// service the way production traffic does. Requests are dealt out in a fixed interleaved order: every cycle of
+// sum(weights) requests holds each operation exactly 'weight' times, so runs are repeatable and shares are exact.
+public class WorkloadMix {
+
+	private final List<String> names = new ArrayList<>();
+	private final List<Integer> weights = new ArrayList<>();
+	private final List<Operation> operations = new ArrayList<>();
+	private final List<Integer> expectedStatuses = new ArrayList<>();
+
+	public WorkloadMix add(String name, int weight, Operation operation, int expectedStatus) {
+		if (weight < 1) {
+			throw new IllegalArgumentException("Weight of " + name + " must be at least 1, was " + weight);
+		}
+		if (names.contains(name)) {
+			throw new IllegalArgumentException(name + " is already part of the mix");
+		}
+		names.add(name);
+		weights.add(weight);
+		operations.add(operation);
+		expectedStatuses.add(expectedStatus);
+		return this;
+	}
+
+	public Map<String, Integer> getWeights() {
+		Map<String, Integer> shares = new LinkedHashMap<>();
+		for (int i = 0; i < names.size(); i++) {
+			shares.put(names.get(i), weights.get(i));
+		}
+		return Collections.unmodifiableMap(shares);
+	}
+
+	// The runner sets the total rate and the users; each operation is counted against its own expected status and
+	// gets its own result next to the total
+	public WorkloadMixResult run(String name, OpenModelRunner runner, Duration duration) {
+		return run(name, runner.getMaxConcurrency(),
+				(operation, split) -> runner.execute(name, duration, operation, -1, null, null, split));
+	}
+
+	// The users and their think time set the pace, the total rate is whatever the service lets them achieve
+	public WorkloadMixResult run(String name, ClosedModelRunner runner, Duration duration) {
+		return run(name, runner.getUsers(),
+				(operation, split) -> runner.execute(name, Integer.MAX_VALUE, duration.toNanos(), operation, -1, split));
+	}
+
+	private WorkloadMixResult run(String name, int concurrency,
+			BiFunction<Operation, IntFunction<LoadCounters>, LoadResult> runner) {
+		if (names.isEmpty()) {
+			throw new IllegalStateException("The mix " + name + " has no operations");
+		}
+		int[] schedule = schedule();
+		LoadCounters[] counters = new LoadCounters[names.size()];
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new LoadCounters(expectedStatuses.get(i));
+		}
+		// The runner's own counters only give the elapsed time and warm-up, their success count means nothing here
+		LoadResult overall = runner.apply(i -> operations.get(schedule[i % schedule.length]).execute(i),
+				i -> counters[schedule[i % schedule.length]]);
+
+		Map<String, LoadResult> results = new LinkedHashMap<>();
+		for (int i = 0; i < counters.length; i++) {
+			results.put(names.get(i), counters[i].toResult(names.get(i), concurrency,
+					overall.getElapsedNanos(), overall.getWarmupMillis() * 1_000_000, overall.isSteady(), overall.getGenerator()));
+		}
+		return new WorkloadMixResult(name, getWeights(), results, overall);
+	}
+
+	// Smooth weighted round robin over the weights divided by their greatest common divisor
+	int[] schedule() {
+		int divisor = 0;
+		for (int weight : weights) {
+			divisor = gcd(divisor, weight);
+		}
+		int total = 0;
+		int[] reduced = new int[weights.size()];
+		for (int i = 0; i < reduced.length; i++) {
+			reduced[i] = weights.get(i) / divisor;
+			total += reduced[i];
+		}
+		int[] current = new int[reduced.length];
+		int[] schedule = new int[total];
+		for (int k = 0; k < total; k++) {
+			int pick = 0;
+			for (int i = 0; i < reduced.length; i++) {
+				current[i] += reduced[i];
+				if (current[i] > current[pick]) {
+					pick = i;
+				}
+			}
+			current[pick] -= total;
+			schedule[k] = pick;
+		}
+		return schedule;
+	}
+
+	private static int gcd(int a, int b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+
+}
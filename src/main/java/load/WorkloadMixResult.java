@@ -0,0 +1,91 @@
+package load;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+
+import metrics.LatencyRecorder;
+
+public class WorkloadMixResult {
+
+	private final String name;
+	private final Map<String, Integer> weights;
+	private final Map<String, LoadResult> operations;
+	private final LoadResult total;
+
+	WorkloadMixResult(String name, Map<String, Integer> weights, Map<String, LoadResult> operations, LoadResult overall) {
+		super();
+		this.name = name;
+		this.weights = weights;
+		this.operations = Collections.unmodifiableMap(operations);
+		this.total = total(name, operations, overall);
+	}
+
+	// All operations together, each request counted as a success when it got its own operation's expected status
+	private static LoadResult total(String name, Map<String, LoadResult> operations, LoadResult overall) {
+		long successes = 0;
+		long failures = 0;
+		long errors = 0;
+		Map<Integer, Long> statusCounts = new TreeMap<>();
+		Throwable firstError = null;
+		Histogram responseTime = LatencyRecorder.newHistogram();
+		Histogram serviceTime = LatencyRecorder.newHistogram();
+		for (LoadResult operation : operations.values()) {
+			successes += operation.getSuccesses();
+			failures += operation.getFailures();
+			errors += operation.getErrors();
+			operation.getStatusCounts().forEach((status, count) -> statusCounts.merge(status, count, Long::sum));
+			firstError = firstError == null ? operation.getFirstError() : firstError;
+			responseTime.add(operation.getResponseTime());
+			serviceTime.add(operation.getServiceTime());
+		}
+		return new LoadResult(name, overall.getConcurrency(), successes, failures, errors, overall.getElapsedNanos(),
+				statusCounts, firstError, responseTime, serviceTime, overall.getWarmupMillis() * 1_000_000, overall.isSteady(),
+				overall.getGenerator());
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Map<String, Integer> getWeights() {
+		return weights;
+	}
+
+	// Per operation, in the order they were added to the mix
+	public Map<String, LoadResult> getOperations() {
+		return operations;
+	}
+
+	public LoadResult getOperation(String operation) {
+		return operations.get(operation);
+	}
+
+	public LoadResult getTotal() {
+		return total;
+	}
+
+	// Share of the measured requests that went to the operation, next to its weight this shows the mix held
+	public double getShare(String operation) {
+		return total.getRequests() == 0 ? 0 : (double) operations.get(operation).getRequests() / total.getRequests();
+	}
+
+	@Override
+	public String toString() {
+		int weightSum = weights.values().stream().mapToInt(Integer::intValue).sum();
+		StringBuilder sb = new StringBuilder(total.toString());
+		sb.append(String.format("%n  %-20s %7s %7s %9s %9s %7s %7s %9s %9s %9s", "operation", "weight", "share", "requests",
+				"req/s", "failed", "errors", "p50 ms", "p99 ms", "max ms"));
+		for (Map.Entry<String, LoadResult> entry : operations.entrySet()) {
+			LoadResult result = entry.getValue();
+			sb.append(String.format("%n  %-20s %6.1f%% %6.1f%% %9d %9.1f %7d %7d %9.2f %9.2f %9.2f", entry.getKey(),
+					100.0 * weights.get(entry.getKey()) / weightSum, 100 * getShare(entry.getKey()), result.getRequests(),
+					result.getThroughput(), result.getFailures(), result.getErrors(), result.getResponseTimeMillis(50),
+					result.getResponseTimeMillis(99), result.getResponseTime().getMaxValue() / 1e6));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,36 @@
+package metrics;
+
+// The calls BaseApiTest makes, used as keys for latency recording
+public enum Endpoint {
+
+	GET_USER("GET", "/users/{id}"),
+	CREATE_USER("POST", "/users"),
+	UPDATE_USER("PUT", "/users/{id}"),
+	GET_USER_ORDERS("GET", "/users/{id}/orders"),
+	GET_ORDER("GET", "/orders/{id}"),
+	CREATE_ORDER("POST", "/orders"),
+	UPDATE_ORDER("PUT", "/orders/{id}"),
+	OTHER("*", "*");
+
+	private final String method;
+	private final String path;
+
+	private Endpoint(String method, String path) {
+		this.method = method;
+		this.path = path;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public String toString() {
+		return method + " " + path;
+	}
+
+}
@@ -0,0 +1,114 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+// One latency histogram per endpoint and status code.
+// Histograms are created the first time an endpoint answers with a given status code, after that recording is a
+// wait-free, allocation-free increment so the measurement doesn't disturb what it measures.
+public class EndpointHistograms {
+
+	private static final int STATUS_SLOTS = 600;
+	private static final EndpointHistograms SHARED = new EndpointHistograms();
+
+	private final List<AtomicReferenceArray<ConcurrentHistogram>> histograms = new ArrayList<>();
+
+	public EndpointHistograms() {
+		for (int i = 0; i < Endpoint.values().length; i++) {
+			histograms.add(new AtomicReferenceArray<>(STATUS_SLOTS));
+		}
+	}
+
+	// Every call made through BaseApiTest is recorded here
+	public static EndpointHistograms shared() {
+		return SHARED;
+	}
+
+	public void record(Endpoint endpoint, int statusCode, long latencyNanos) {
+		AtomicReferenceArray<ConcurrentHistogram> byStatus = histograms.get(endpoint.ordinal());
+		int slot = slot(statusCode);
+		ConcurrentHistogram histogram = byStatus.get(slot);
+		if (histogram == null) {
+			byStatus.compareAndSet(slot, null, new ConcurrentHistogram(LatencyRecorder.LOWEST_DISCERNIBLE_NANOS,
+					LatencyRecorder.HIGHEST_TRACKABLE_NANOS, LatencyRecorder.SIGNIFICANT_DIGITS));
+			histogram = byStatus.get(slot);
+		}
+		histogram.recordValue(LatencyRecorder.clamp(latencyNanos));
+	}
+
+	// Copy of all latencies recorded for the endpoint, whatever the status code
+	public Histogram histogram(Endpoint endpoint) {
+		Histogram merged = LatencyRecorder.newHistogram();
+		AtomicReferenceArray<ConcurrentHistogram> byStatus = histograms.get(endpoint.ordinal());
+		for (int slot = 0; slot < STATUS_SLOTS; slot++) {
+			ConcurrentHistogram histogram = byStatus.get(slot);
+			if (histogram != null) {
+				merged.add(histogram);
+			}
+		}
+		return merged;
+	}
+
+	// Copy of the latencies recorded for one status code, empty if the endpoint never answered with it
+	public Histogram histogram(Endpoint endpoint, int statusCode) {
+		Histogram copy = LatencyRecorder.newHistogram();
+		ConcurrentHistogram histogram = histograms.get(endpoint.ordinal()).get(slot(statusCode));
+		if (histogram != null) {
+			copy.add(histogram);
+		}
+		return copy;
+	}
+
+	public List<Integer> statusCodes(Endpoint endpoint) {
+		List<Integer> codes = new ArrayList<>();
+		AtomicReferenceArray<ConcurrentHistogram> byStatus = histograms.get(endpoint.ordinal());
+		for (int slot = 0; slot < STATUS_SLOTS; slot++) {
+			if (byStatus.get(slot) != null && byStatus.get(slot).getTotalCount() > 0) {
+				codes.add(slot);
+			}
+		}
+		return Collections.unmodifiableList(codes);
+	}
+
+	public LatencySummary summary(Endpoint endpoint) {
+		return new LatencySummary(histogram(endpoint));
+	}
+
+	public LatencySummary summary(Endpoint endpoint, int statusCode) {
+		return new LatencySummary(histogram(endpoint, statusCode));
+	}
+
+	public void reset() {
+		for (AtomicReferenceArray<ConcurrentHistogram> byStatus : histograms) {
+			for (int slot = 0; slot < STATUS_SLOTS; slot++) {
+				ConcurrentHistogram histogram = byStatus.get(slot);
+				if (histogram != null) {
+					histogram.reset();
+				}
+			}
+		}
+	}
+
+	// Per endpoint and status code, one line each
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Endpoint endpoint : Endpoint.values()) {
+			for (int statusCode : statusCodes(endpoint)) {
+				sb.append(endpoint).append(' ').append(statusCode).append(": ").append(summary(endpoint, statusCode))
+						.append(System.lineSeparator());
+			}
+		}
+		return sb.toString();
+	}
+
+	private static int slot(int statusCode) {
+		return statusCode < 0 || statusCode >= STATUS_SLOTS ? STATUS_SLOTS - 1 : statusCode;
+	}
+
+}
@@ -0,0 +1,84 @@
+package metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+
+// The requests one endpoint answered within one interval of an IntervalReporter
+public class EndpointInterval {
+
+	private final Endpoint endpoint;
+	private final long startNanos;
+	private final long endNanos;
+	private final Map<Integer, Long> statusCounts;
+	private final Histogram latency;
+
+	// startNanos and endNanos are offsets from the start of the reporter
+	public EndpointInterval(Endpoint endpoint, long startNanos, long endNanos, Map<Integer, Long> statusCounts,
+			Histogram latency) {
+		super();
+		this.endpoint = endpoint;
+		this.startNanos = startNanos;
+		this.endNanos = endNanos;
+		this.statusCounts = Collections.unmodifiableMap(new TreeMap<>(statusCounts));
+		this.latency = latency;
+	}
+
+	public Endpoint getEndpoint() {
+		return endpoint;
+	}
+
+	public long getStartNanos() {
+		return startNanos;
+	}
+
+	public long getEndNanos() {
+		return endNanos;
+	}
+
+	public Map<Integer, Long> getStatusCounts() {
+		return statusCounts;
+	}
+
+	public Histogram getLatency() {
+		return latency;
+	}
+
+	public long getRequests() {
+		return latency.getTotalCount();
+	}
+
+	// Answers with a 4xx or 5xx status
+	public long getErrors() {
+		long errors = 0;
+		for (Map.Entry<Integer, Long> count : statusCounts.entrySet()) {
+			if (count.getKey() >= 400) {
+				errors += count.getValue();
+			}
+		}
+		return errors;
+	}
+
+	public double getErrorRate() {
+		return getRequests() == 0 ? 0 : (double) getErrors() / getRequests();
+	}
+
+	public double getThroughput() {
+		long length = endNanos - startNanos;
+		return length <= 0 ? 0 : getRequests() * 1e9 / length;
+	}
+
+	public LatencySummary getSummary() {
+		return new LatencySummary(latency);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%7.1fs-%7.1fs %-22s %8d req %9.1f req/s %6.2f%% errors  p50=%.2fms p99=%.2fms max=%.2fms",
+				startNanos / 1e9, endNanos / 1e9, endpoint, getRequests(), getThroughput(), getErrorRate() * 100,
+				latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(99) / 1e6, latency.getMaxValue() / 1e6);
+	}
+
+}
@@ -0,0 +1,162 @@
+package metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+// Reports a long run while it is going: every interval it prints throughput, error rate and p50/p99/max per endpoint,
+// and appends the interval histograms to an HdrHistogram log, one tag per endpoint, which HistogramLogProcessor or
+// HdrHistogram's plotter can read afterwards. A slow drift over hours shows up there where the run's total hides it.
+// The intervals are differences between copies of the cumulative EndpointHistograms, so recording doesn't change.
+public class IntervalReporter implements Closeable {
+
+	private final String name;
+	private final EndpointHistograms histograms;
+	private final PrintStream out;
+	private final HistogramLogWriter log;
+	private final long startNanos;
+	// Cumulative histograms as of the end of the previous interval, per endpoint and status code
+	private final List<Map<Integer, Histogram>> previous = new ArrayList<>();
+	private long intervalStartNanos;
+	private ScheduledExecutorService scheduler;
+	private boolean closed;
+
+	// Only requests recorded from now on are reported. 'histogramLog' may be null for console output only.
+	public IntervalReporter(String name, EndpointHistograms histograms, PrintStream out, Path histogramLog)
+			throws IOException {
+		super();
+		this.name = name;
+		this.histograms = histograms;
+		this.out = out;
+		this.startNanos = System.nanoTime();
+		for (Endpoint endpoint : Endpoint.values()) {
+			Map<Integer, Histogram> byStatus = new HashMap<>();
+			for (int statusCode : histograms.statusCodes(endpoint)) {
+				byStatus.put(statusCode, histograms.histogram(endpoint, statusCode));
+			}
+			previous.add(byStatus);
+		}
+		if (histogramLog == null) {
+			this.log = null;
+		} else {
+			if (histogramLog.toAbsolutePath().getParent() != null) {
+				Files.createDirectories(histogramLog.toAbsolutePath().getParent());
+			}
+			this.log = new HistogramLogWriter(new PrintStream(Files.newOutputStream(histogramLog), false, "UTF-8"));
+			long startMillis = System.currentTimeMillis();
+			log.outputComment("Interval latencies of " + name + " per endpoint (tag), in nanoseconds");
+			log.outputLogFormatVersion();
+			log.outputStartTime(startMillis);
+			log.setBaseTime(startMillis);
+			log.outputBaseTime(startMillis);
+			log.outputLegend();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	// Reports on its own thread every 'every' until closed
+	public synchronized IntervalReporter start(Duration every) {
+		if (scheduler != null || closed) {
+			throw new IllegalStateException("The interval reporter " + name + " is already started or closed");
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, name + "-intervals");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(this::report, every.toNanos(), every.toNanos(), TimeUnit.NANOSECONDS);
+		return this;
+	}
+
+	// Ends the current interval now: prints and logs every endpoint that answered in it and returns them
+	public synchronized List<EndpointInterval> report() {
+		long now = System.nanoTime() - startNanos;
+		List<EndpointInterval> intervals = new ArrayList<>();
+		for (Endpoint endpoint : Endpoint.values()) {
+			Map<Integer, Histogram> before = previous.get(endpoint.ordinal());
+			Histogram latency = LatencyRecorder.newHistogram();
+			Map<Integer, Long> statusCounts = new TreeMap<>();
+			for (int statusCode : histograms.statusCodes(endpoint)) {
+				Histogram cumulative = histograms.histogram(endpoint, statusCode);
+				Histogram interval = difference(cumulative, before.get(statusCode));
+				before.put(statusCode, cumulative);
+				if (interval.getTotalCount() > 0) {
+					latency.add(interval);
+					statusCounts.put(statusCode, interval.getTotalCount());
+				}
+			}
+			if (latency.getTotalCount() > 0) {
+				intervals.add(new EndpointInterval(endpoint, intervalStartNanos, now, statusCounts, latency));
+			}
+		}
+		for (EndpointInterval interval : intervals) {
+			out.println("[" + name + "] " + interval);
+			if (log != null) {
+				Histogram tagged = interval.getLatency().copy();
+				tagged.setTag(interval.getEndpoint().name());
+				log.outputIntervalHistogram(intervalStartNanos / 1e9, now / 1e9, tagged, 1e6);
+			}
+		}
+		intervalStartNanos = now;
+		return intervals;
+	}
+
+	private static Histogram difference(Histogram cumulative, Histogram before) {
+		if (before == null) {
+			return cumulative;
+		}
+		Histogram interval = cumulative.copy();
+		try {
+			interval.subtract(before);
+			return interval;
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			// the histograms were reset since the previous interval, everything in them is new
+			return cumulative;
+		}
+	}
+
+	// Stops the schedule and reports the last, partial interval
+	@Override
+	public void close() throws IOException {
+		ScheduledExecutorService running;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			running = scheduler;
+		}
+		if (running != null) {
+			running.shutdown();
+			try {
+				running.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			report();
+			if (log != null) {
+				log.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+// Latencies in nanoseconds with 3 significant digits, between 1 microsecond and 1 hour.
+// The range is fixed so the histogram never resizes and recording never allocates; values outside are clamped.
+public class LatencyRecorder {
+
+	public static final long LOWEST_DISCERNIBLE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+	public static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+	public static final int SIGNIFICANT_DIGITS = 3;
+
+	private final Recorder recorder = new Recorder(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+	public static Histogram newHistogram() {
+		return new Histogram(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+	}
+
+	// Safe to call from any number of threads at the same time
+	public void record(long nanos) {
+		recorder.recordValue(clamp(nanos));
+	}
+
+	// Everything recorded since the previous call (or since creation on the first call)
+	public Histogram intervalHistogram() {
+		return recorder.getIntervalHistogram();
+	}
+
+	// Same as above, but reuses a histogram previously returned by this recorder
+	public Histogram intervalHistogram(Histogram recycle) {
+		return recorder.getIntervalHistogram(recycle);
+	}
+
+	static long clamp(long nanos) {
+		if (nanos < 0) {
+			return 0;
+		}
+		return nanos > HIGHEST_TRACKABLE_NANOS ? HIGHEST_TRACKABLE_NANOS : nanos;
+	}
+
+}
@@ -0,0 +1,49 @@
+package metrics;
+
+import org.HdrHistogram.Histogram;
+
+// Percentiles of one latency histogram, in milliseconds
+public class LatencySummary {
+
+	private final long count;
+	private final double p50Millis;
+	private final double p99Millis;
+	private final double p999Millis;
+	private final double maxMillis;
+
+	public LatencySummary(Histogram nanos) {
+		super();
+		this.count = nanos.getTotalCount();
+		this.p50Millis = nanos.getValueAtPercentile(50) / 1e6;
+		this.p99Millis = nanos.getValueAtPercentile(99) / 1e6;
+		this.p999Millis = nanos.getValueAtPercentile(99.9) / 1e6;
+		this.maxMillis = nanos.getMaxValue() / 1e6;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	public double getP999Millis() {
+		return p999Millis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms", count, p50Millis, p99Millis,
+				p999Millis, maxMillis);
+	}
+
+}
@@ -0,0 +1,78 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// A Flight Recorder event per request made through BaseApiTest, spanning the call from send to the response being read.
+// In a recording it sits on the same timeline as GC pauses, safepoints and thread states, so a latency spike can be
+// told apart from a pause in the load generator itself. start() returns null unless a recording has the event enabled,
+// which leaves one flag check per request when nothing is recorded.
+@Name(RequestEvent.NAME)
+@Label("API Request")
+@Category({ "Axiom", "HTTP" })
+@Description("A request made through BaseApiTest, from the call until its response was read")
+@StackTrace(false)
+public class RequestEvent extends Event {
+
+	public static final String NAME = "axiom.Request";
+
+	private static final EventType TYPE = EventType.getEventType(RequestEvent.class);
+
+	@Label("Endpoint")
+	private String endpoint;
+
+	@Label("Method")
+	private String method;
+
+	@Label("Status Code")
+	private int statusCode;
+
+	@Label("Request Size")
+	@DataAmount
+	private long requestBytes;
+
+	@Label("Response Size")
+	@DataAmount
+	private long responseBytes;
+
+	@Label("Latency")
+	@Description("Measured as the harness histograms measure it, including time queued for a connection")
+	@Timespan(Timespan.NANOSECONDS)
+	private long latency;
+
+	@Label("Credentials")
+	private String credentials;
+
+	// Begun event when a running recording wants it, null otherwise
+	public static RequestEvent start() {
+		if (!TYPE.isEnabled()) {
+			return null;
+		}
+		RequestEvent event = new RequestEvent();
+		event.begin();
+		return event;
+	}
+
+	public void finish(Endpoint endpoint, String credentials, int statusCode, long requestBytes, long responseBytes,
+			long latencyNanos) {
+		end();
+		if (shouldCommit()) {
+			this.endpoint = endpoint.getPath();
+			this.method = endpoint.getMethod();
+			this.credentials = credentials;
+			this.statusCode = statusCode;
+			this.requestBytes = requestBytes;
+			this.responseBytes = responseBytes;
+			this.latency = latencyNanos;
+			commit();
+		}
+	}
+
+}
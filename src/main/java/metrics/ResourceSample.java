@@ -0,0 +1,110 @@
+package metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+// The load generator's own resources at one point of a run, read from the platform MXBeans. Samples taken through a
+// long run show whether the client drifts: heap left after GC creeping up, GC time growing, threads or sockets leaking.
+public class ResourceSample {
+
+	private final long offsetNanos;
+	private final long heapUsed;
+	private final long heapCommitted;
+	private final long heapAfterGc;
+	private final long nonHeapUsed;
+	private final long gcCount;
+	private final long gcMillis;
+	private final int threads;
+	private final long openFileDescriptors;
+
+	public ResourceSample(long offsetNanos, long heapUsed, long heapCommitted, long heapAfterGc, long nonHeapUsed,
+			long gcCount, long gcMillis, int threads, long openFileDescriptors) {
+		super();
+		this.offsetNanos = offsetNanos;
+		this.heapUsed = heapUsed;
+		this.heapCommitted = heapCommitted;
+		this.heapAfterGc = heapAfterGc;
+		this.nonHeapUsed = nonHeapUsed;
+		this.gcCount = gcCount;
+		this.gcMillis = gcMillis;
+		this.threads = threads;
+		this.openFileDescriptors = openFileDescriptors;
+	}
+
+	// offsetNanos places the sample in the run, e.g. nanos since its start
+	public static ResourceSample take(long offsetNanos) {
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+		// What the heap pools held right after their last collection, the part of the heap that is actually retained
+		long afterGc = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			MemoryUsage collected = pool.getCollectionUsage();
+			if (pool.getType() == MemoryType.HEAP && collected != null) {
+				afterGc += collected.getUsed();
+			}
+		}
+		long gcCount = 0;
+		long gcMillis = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcCount += Math.max(0, collector.getCollectionCount());
+			gcMillis += Math.max(0, collector.getCollectionTime());
+		}
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		long openFiles = os instanceof UnixOperatingSystemMXBean
+				? ((UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount() : -1;
+		return new ResourceSample(offsetNanos, heap.getUsed(), heap.getCommitted(), afterGc, nonHeap.getUsed(), gcCount,
+				gcMillis, ManagementFactory.getThreadMXBean().getThreadCount(), openFiles);
+	}
+
+	public long getOffsetNanos() {
+		return offsetNanos;
+	}
+
+	public long getHeapUsed() {
+		return heapUsed;
+	}
+
+	public long getHeapCommitted() {
+		return heapCommitted;
+	}
+
+	public long getHeapAfterGc() {
+		return heapAfterGc;
+	}
+
+	public long getNonHeapUsed() {
+		return nonHeapUsed;
+	}
+
+	// Collections and time spent in them since the JVM started, summed over all collectors
+	public long getGcCount() {
+		return gcCount;
+	}
+
+	public long getGcMillis() {
+		return gcMillis;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	// -1 where the platform doesn't tell
+	public long getOpenFileDescriptors() {
+		return openFileDescriptors;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%7.1fs heap %d/%d MB (after GC %d MB), non-heap %d MB, %d GCs in %d ms, %d threads, %d open files",
+				offsetNanos / 1e9, heapUsed >> 20, heapCommitted >> 20, heapAfterGc >> 20, nonHeapUsed >> 20, gcCount, gcMillis,
+				threads, openFileDescriptors);
+	}
+
+}
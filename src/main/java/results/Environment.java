@@ -0,0 +1,56 @@
+package results;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Where a run was measured. Runs are only compared against a baseline taken in the same environment, so a faster
+// laptop or a different service URL doesn't show up as a regression.
+public final class Environment {
+
+	private Environment() {
+	}
+
+	public static String fingerprint(String target) {
+		Runtime runtime = Runtime.getRuntime();
+		return "java=" + System.getProperty("java.version")
+				+ ";os=" + System.getProperty("os.name") + " " + System.getProperty("os.arch")
+				+ ";cpus=" + runtime.availableProcessors()
+				+ ";heapMb=" + runtime.maxMemory() / (1024 * 1024)
+				+ ";host=" + hostName()
+				+ ";target=" + target;
+	}
+
+	// GIT_COMMIT from the CI wins, otherwise asks git, "unknown" outside a work tree
+	public static String gitCommit() {
+		String commit = System.getenv("GIT_COMMIT");
+		if (commit != null && !commit.trim().isEmpty()) {
+			return commit.trim();
+		}
+		try {
+			Process git = new ProcessBuilder("git", "rev-parse", "HEAD").redirectErrorStream(true).start();
+			String line;
+			try (BufferedReader output = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+				line = output.readLine();
+			}
+			if (git.waitFor(5, TimeUnit.SECONDS) && git.exitValue() == 0 && line != null) {
+				return line.trim();
+			}
+			git.destroy();
+		} catch (Exception e) {
+			// no git on the machine
+		}
+		return "unknown";
+	}
+
+	private static String hostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (Exception e) {
+			return "unknown";
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+package results;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+// Decides whether a run is significantly worse than its baseline, the latest runs of the same key and environment.
+// Each metric (throughput, p50, p99) is compared on a log scale, where run-to-run noise is roughly symmetric:
+// the new run regresses when it falls outside the one-sided (1 - alpha) prediction interval of the baseline runs,
+// i.e. a Student t test with n - 1 degrees of freedom, t = (new - mean) / (sd * sqrt(1 + 1/n)).
+// A noisy baseline widens the interval by itself, so no fixed percentage decides; minChange only keeps a very steady
+// baseline from flagging changes too small to matter.
+// A latency percentile is only judged when the run and its baseline runs hold enough requests for it, see
+// minRequests; the p99 of 40 requests is just the slowest one, and a single slow request would flag it.
+public class RegressionGate {
+
+	// Fewer runs than this give no usable spread, the run is stored but not judged
+	public static final int MIN_BASELINE_RUNS = 3;
+	// Requests a run needs beyond a percentile before that percentile is judged
+	public static final int MIN_TAIL_SAMPLES = 10;
+
+	private final double alpha;
+	private final double minChange;
+
+	public RegressionGate(double alpha, double minChange) {
+		if (alpha <= 0 || alpha >= 1 || minChange < 0) {
+			throw new IllegalArgumentException("alpha must be between 0 and 1 and minChange not negative, was " + alpha
+					+ ", " + minChange);
+		}
+		this.alpha = alpha;
+		this.minChange = minChange;
+	}
+
+	public RegressionReport compare(RunRecord current, List<RunRecord> baseline) {
+		List<RegressionReport.Finding> findings = new ArrayList<>();
+		if (baseline.size() >= MIN_BASELINE_RUNS) {
+			double[] throughputs = new double[baseline.size()];
+			for (int i = 0; i < baseline.size(); i++) {
+				throughputs[i] = baseline.get(i).getThroughput();
+			}
+			findings.add(finding("throughput req/s", throughputs, current.getThroughput(), false));
+			findings.add(percentile("p50 ms", 50, RunRecord::getP50Millis, current, baseline));
+			findings.add(percentile("p99 ms", 99, RunRecord::getP99Millis, current, baseline));
+		}
+		return new RegressionReport(current.getKey(), current.getEndpoint(), baseline.size(), findings);
+	}
+
+	// p50 needs 20 requests, p99 1000
+	public static long minRequests(double percentile) {
+		return (long) Math.ceil(MIN_TAIL_SAMPLES * 100 / (100 - percentile));
+	}
+
+	// Baseline runs too small for the percentile are left out of its comparison
+	private RegressionReport.Finding percentile(String metric, double percentile, ToDoubleFunction<RunRecord> millis,
+			RunRecord current, List<RunRecord> baseline) {
+		double value = millis.applyAsDouble(current);
+		long needed = minRequests(percentile);
+		if (current.getRequests() < needed) {
+			return RegressionReport.Finding.notJudged(metric, value,
+					"too few samples, " + current.getRequests() + " of " + needed + " requests");
+		}
+		List<Double> values = new ArrayList<>();
+		for (RunRecord run : baseline) {
+			if (run.getRequests() >= needed) {
+				values.add(millis.applyAsDouble(run));
+			}
+		}
+		if (values.size() < MIN_BASELINE_RUNS) {
+			return RegressionReport.Finding.notJudged(metric, value, "too few samples, " + values.size() + " of "
+					+ MIN_BASELINE_RUNS + " baseline runs have " + needed + " requests");
+		}
+		double[] array = new double[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return finding(metric, array, value, true);
+	}
+
+	private RegressionReport.Finding finding(String metric, double[] baseline, double current, boolean higherIsWorse) {
+		double[] logs = new double[baseline.length];
+		for (int i = 0; i < baseline.length; i++) {
+			logs[i] = log(baseline[i]);
+		}
+		double mean = Statistics.mean(logs);
+		double spread = Statistics.standardDeviation(logs) * Math.sqrt(1 + 1.0 / logs.length);
+		// How far the new run sits on the bad side of the baseline, in prediction standard errors
+		double worse = (higherIsWorse ? 1 : -1) * (log(current) - mean);
+		double pValue;
+		if (spread == 0) {
+			pValue = worse > 0 ? 0 : 1;
+		} else {
+			pValue = Statistics.studentTUpperTail(worse / spread, logs.length - 1);
+		}
+		double typical = Math.exp(mean);
+		double change = typical == 0 ? 0 : (current - typical) / typical;
+		boolean regressed = pValue < alpha && Math.expm1(worse) >= minChange;
+		return new RegressionReport.Finding(metric, typical, current, change, pValue, regressed);
+	}
+
+	// Zero latency or throughput would be -infinity, nothing real gets below a nanosecond or a request per hour
+	private static double log(double value) {
+		return Math.log(Math.max(value, 1e-6));
+	}
+
+	public double getAlpha() {
+		return alpha;
+	}
+
+	public double getMinChange() {
+		return minChange;
+	}
+
+}
@@ -0,0 +1,140 @@
+package results;
+
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of comparing one run with its baseline, one finding per metric
+public class RegressionReport {
+
+	private final String key;
+	private final String endpoint;
+	private final int baselineRuns;
+	private final List<Finding> findings;
+
+	public RegressionReport(String key, String endpoint, int baselineRuns, List<Finding> findings) {
+		super();
+		this.key = key;
+		this.endpoint = endpoint;
+		this.baselineRuns = baselineRuns;
+		this.findings = Collections.unmodifiableList(findings);
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public int getBaselineRuns() {
+		return baselineRuns;
+	}
+
+	// Empty when the baseline had too few runs to judge
+	public List<Finding> getFindings() {
+		return findings;
+	}
+
+	public boolean isJudged() {
+		return !findings.isEmpty();
+	}
+
+	public boolean hasRegressions() {
+		for (Finding finding : findings) {
+			if (finding.isRegressed()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(key + " (" + endpoint + ")");
+		if (!isJudged()) {
+			return sb.append(": not compared, baseline has ").append(baselineRuns).append(" of ")
+					.append(RegressionGate.MIN_BASELINE_RUNS).append(" runs needed").toString();
+		}
+		sb.append(hasRegressions() ? ": REGRESSION" : ": ok").append(" against ").append(baselineRuns).append(" runs");
+		for (Finding finding : findings) {
+			sb.append(System.lineSeparator()).append("  ").append(finding);
+		}
+		return sb.toString();
+	}
+
+	public static class Finding {
+
+		private final String metric;
+		private final double baseline;
+		private final double current;
+		private final double change;
+		private final double pValue;
+		private final boolean regressed;
+		// Why the metric wasn't compared, null when it was
+		private final String notJudged;
+
+		public Finding(String metric, double baseline, double current, double change, double pValue, boolean regressed) {
+			this(metric, baseline, current, change, pValue, regressed, null);
+		}
+
+		private Finding(String metric, double baseline, double current, double change, double pValue, boolean regressed,
+				String notJudged) {
+			super();
+			this.metric = metric;
+			this.baseline = baseline;
+			this.current = current;
+			this.change = change;
+			this.pValue = pValue;
+			this.regressed = regressed;
+			this.notJudged = notJudged;
+		}
+
+		// A metric the run reports but the gate can't judge, e.g. a p99 of a few dozen requests
+		public static Finding notJudged(String metric, double current, String reason) {
+			return new Finding(metric, Double.NaN, current, Double.NaN, 1, false, reason);
+		}
+
+		public String getMetric() {
+			return metric;
+		}
+
+		// Geometric mean of the baseline runs
+		public double getBaseline() {
+			return baseline;
+		}
+
+		public double getCurrent() {
+			return current;
+		}
+
+		// Relative to the baseline, +0.3 = 30% higher
+		public double getChange() {
+			return change;
+		}
+
+		// Chance of a run at least this much worse if nothing changed
+		public double getPValue() {
+			return pValue;
+		}
+
+		public boolean isRegressed() {
+			return regressed;
+		}
+
+		public boolean isJudged() {
+			return notJudged == null;
+		}
+
+		@Override
+		public String toString() {
+			if (!isJudged()) {
+				return String.format("%-17s %19s  now %10.2f  not judged, %s", metric, "", current, notJudged);
+			}
+			return String.format("%-17s baseline %10.2f  now %10.2f  %+7.1f%%  p=%.4f%s", metric, baseline, current,
+					change * 100, pValue, regressed ? "  REGRESSED" : "");
+		}
+
+	}
+
+}
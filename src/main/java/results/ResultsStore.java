@@ -0,0 +1,89 @@
+package results;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+// Append-only JSON lines file of performance runs. Records are only ever added, never rewritten, and each append
+// holds a file lock so JVMs running side by side can't interleave their lines.
+public class ResultsStore {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	private static final ObjectReader READER = MAPPER.readerFor(RunRecord.class);
+	private static final ObjectWriter WRITER = MAPPER.writerFor(RunRecord.class);
+
+	private final Path file;
+
+	public ResultsStore(Path file) {
+		super();
+		this.file = file;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public void append(RunRecord record) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		byte[] line = (WRITER.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			FileLock lock = channel.lock();
+			try {
+				ByteBuffer buffer = ByteBuffer.wrap(line);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			} finally {
+				lock.release();
+			}
+		}
+	}
+
+	// Every record in the order it was stored. A line that doesn't parse (e.g. cut short by a crash) is skipped.
+	public List<RunRecord> read() throws IOException {
+		List<RunRecord> records = new ArrayList<>();
+		if (!Files.isRegularFile(file)) {
+			return records;
+		}
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			try {
+				records.add(READER.readValue(line));
+			} catch (IOException e) {
+				System.err.println("Skipping unreadable line in " + file + ": " + e.getMessage());
+			}
+		}
+		return records;
+	}
+
+	// The latest 'runs' records of the same run measured in the same environment, oldest first. Generator-limited runs
+	// measured the harness rather than the service and are left out.
+	public List<RunRecord> baseline(String key, String environment, int runs) throws IOException {
+		List<RunRecord> matching = new ArrayList<>();
+		for (RunRecord record : read()) {
+			if (record.getKey().equals(key) && record.getEnvironment().equals(environment) && !record.isGeneratorLimited()) {
+				matching.add(record);
+			}
+		}
+		return new ArrayList<>(matching.subList(Math.max(0, matching.size() - runs), matching.size()));
+	}
+
+}
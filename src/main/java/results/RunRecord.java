@@ -0,0 +1,182 @@
+package results;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.HdrHistogram.Histogram;
+
+import load.LoadResult;
+
+// One stored performance run, one JSON line in the results store.
+// The response-time histogram is kept whole (compressed, base64) so later tooling can merge or re-slice it.
+public class RunRecord {
+
+	private String timestamp;
+	private String commit;
+	private String key;
+	private String endpoint;
+	private String environment;
+	private long requests;
+	private long failed;
+	private double throughput;
+	private double p50Millis;
+	private double p99Millis;
+	private double maxMillis;
+	private String histogram;
+	private boolean generatorLimited;
+	private String generator;
+
+	public RunRecord() {
+		super();
+	}
+
+	// key names the run (e.g. the test method), endpoint the service call it drove
+	public static RunRecord of(String key, String endpoint, LoadResult result, String commit, String environment) {
+		RunRecord record = new RunRecord();
+		record.setTimestamp(Instant.now().toString());
+		record.setCommit(commit);
+		record.setKey(key);
+		record.setEndpoint(endpoint);
+		record.setEnvironment(environment);
+		record.setRequests(result.getRequests());
+		record.setFailed(result.getFailures() + result.getErrors());
+		record.setThroughput(result.getThroughput());
+		record.setP50Millis(result.getResponseTimeMillis(50));
+		record.setP99Millis(result.getResponseTimeMillis(99));
+		record.setMaxMillis(result.getResponseTime().getMaxValue() / 1e6);
+		record.setHistogram(encode(result.getResponseTime()));
+		record.setGenerator(result.getGenerator().toString());
+		return record;
+	}
+
+	static String encode(Histogram histogram) {
+		ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+		int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+		return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+	}
+
+	// Response time in nanoseconds, as recorded by the run
+	public Histogram decodeHistogram() {
+		try {
+			return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(histogram)), 0);
+		} catch (Exception e) {
+			throw new IllegalStateException("Corrupt histogram in run " + key + " at " + timestamp, e);
+		}
+	}
+
+	public String getTimestamp() {
+		return timestamp;
+	}
+
+	public String getCommit() {
+		return commit;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public String getEnvironment() {
+		return environment;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public double getThroughput() {
+		return throughput;
+	}
+
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	public String getHistogram() {
+		return histogram;
+	}
+
+	// True when the load generator fell behind, its numbers measure the harness and are kept out of baselines
+	public boolean isGeneratorLimited() {
+		return generatorLimited;
+	}
+
+	public String getGenerator() {
+		return generator;
+	}
+
+	public void setTimestamp(String timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	public void setCommit(String commit) {
+		this.commit = commit;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public void setEndpoint(String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	public void setEnvironment(String environment) {
+		this.environment = environment;
+	}
+
+	public void setRequests(long requests) {
+		this.requests = requests;
+	}
+
+	public void setFailed(long failed) {
+		this.failed = failed;
+	}
+
+	public void setThroughput(double throughput) {
+		this.throughput = throughput;
+	}
+
+	public void setP50Millis(double p50Millis) {
+		this.p50Millis = p50Millis;
+	}
+
+	public void setP99Millis(double p99Millis) {
+		this.p99Millis = p99Millis;
+	}
+
+	public void setMaxMillis(double maxMillis) {
+		this.maxMillis = maxMillis;
+	}
+
+	public void setHistogram(String histogram) {
+		this.histogram = histogram;
+	}
+
+	public void setGeneratorLimited(boolean generatorLimited) {
+		this.generatorLimited = generatorLimited;
+	}
+
+	public void setGenerator(String generator) {
+		this.generator = generator;
+	}
+
+}
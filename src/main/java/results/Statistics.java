@@ -0,0 +1,99 @@
+package results;
+
+// Student's t distribution for the regression gate, via the regularized incomplete beta function
+// (continued fraction as in Numerical Recipes, 6.4)
+final class Statistics {
+
+	private static final int MAX_ITERATIONS = 200;
+	private static final double EPSILON = 1e-12;
+	private static final double TINY = 1e-300;
+
+	private Statistics() {
+	}
+
+	// P(T > t) for T with 'df' degrees of freedom
+	static double studentTUpperTail(double t, double df) {
+		double tail = 0.5 * regularizedBeta(df / (df + t * t), df / 2, 0.5);
+		return t >= 0 ? tail : 1 - tail;
+	}
+
+	static double mean(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+		return sum / values.length;
+	}
+
+	// Sample standard deviation (n - 1)
+	static double standardDeviation(double[] values) {
+		double mean = mean(values);
+		double squares = 0;
+		for (double value : values) {
+			squares += (value - mean) * (value - mean);
+		}
+		return Math.sqrt(squares / (values.length - 1));
+	}
+
+	static double regularizedBeta(double x, double a, double b) {
+		if (x <= 0) {
+			return 0;
+		}
+		if (x >= 1) {
+			return 1;
+		}
+		double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+		// The continued fraction converges fast only on this side, the other side goes through the symmetry
+		if (x < (a + 1) / (a + b + 2)) {
+			return front * betaFraction(x, a, b) / a;
+		}
+		return 1 - front * betaFraction(1 - x, b, a) / b;
+	}
+
+	private static double betaFraction(double x, double a, double b) {
+		double c = 1;
+		double d = 1 - (a + b) * x / (a + 1);
+		d = Math.abs(d) < TINY ? TINY : d;
+		d = 1 / d;
+		double h = d;
+		for (int m = 1; m <= MAX_ITERATIONS; m++) {
+			int m2 = 2 * m;
+			double aa = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+			d = 1 + aa * d;
+			d = Math.abs(d) < TINY ? TINY : d;
+			c = 1 + aa / c;
+			c = Math.abs(c) < TINY ? TINY : c;
+			d = 1 / d;
+			h *= d * c;
+			aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+			d = 1 + aa * d;
+			d = Math.abs(d) < TINY ? TINY : d;
+			c = 1 + aa / c;
+			c = Math.abs(c) < TINY ? TINY : c;
+			d = 1 / d;
+			double delta = d * c;
+			h *= delta;
+			if (Math.abs(delta - 1) < EPSILON) {
+				break;
+			}
+		}
+		return h;
+	}
+
+	// Lanczos approximation, accurate to about 15 digits for x > 0
+	static double logGamma(double x) {
+		double[] coefficients = { 57.1562356658629235, -59.5979603554754912, 14.1360979747417471,
+				-0.491913816097620199, 0.339946499848118887e-4, 0.465236289270485756e-4, -0.983744753048795646e-4,
+				0.158088703224912494e-3, -0.210264441724104883e-3, 0.217439618115212643e-3, -0.164318106536763890e-3,
+				0.844182239838527433e-4, -0.261908384015814087e-4, 0.368991826595316234e-5 };
+		double y = x;
+		double tmp = x + 5.24218750000000000;
+		tmp = (x + 0.5) * Math.log(tmp) - tmp;
+		double series = 0.999999999999997092;
+		for (double coefficient : coefficients) {
+			series += coefficient / ++y;
+		}
+		return tmp + Math.log(2.5066282746310005 * series / x);
+	}
+
+}
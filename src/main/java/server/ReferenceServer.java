@@ -0,0 +1,387 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import config.PropertiesFile;
+import dto.ErrorDTO;
+import dto.OrderDTO;
+import dto.UserDTO;
+
+// In-memory implementation of the user and order service contract the tests encode, including the error messages.
+// Runs in the test JVM so the suite works offline, and it answers fast enough that a load run against it shows the
+// harness's own maximum throughput and latency floor.
+public class ReferenceServer {
+
+	private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+	private static final ObjectMapper JSON = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+	private static ReferenceServer shared;
+
+	// The JDK server leaves Nagle's algorithm on, so on a keep-alive connection the response body waits for the ACK of
+	// the headers (up to 40 ms of delayed ACK). Must be set before the first HttpServer is created.
+	static {
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private final String expectedAuthorization;
+	private final int threads;
+	private final ConcurrentHashMap<Integer, UserDTO> users = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Integer, OrderDTO> orders = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Integer, Queue<Integer>> orderIdsByUser = new ConcurrentHashMap<>();
+	// Ids start high so the ids the tests expect to be missing (0, 1, 2, 123 for orders) never get created
+	private final AtomicInteger nextUserId = new AtomicInteger(1000);
+	private final AtomicInteger nextOrderId = new AtomicInteger(1000);
+
+	private HttpServer http;
+	private ExecutorService executor;
+
+	public ReferenceServer(String username, String password) {
+		this(username, password, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	public ReferenceServer(String username, String password, int threads) {
+		super();
+		this.expectedAuthorization = "Basic "
+				+ Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+		this.threads = threads;
+		seed();
+	}
+
+	// One server for the whole test JVM, started on first use with the credentials from application.properties
+	public static synchronized ReferenceServer shared() {
+		if (shared == null) {
+			shared = new ReferenceServer(PropertiesFile.getUsername(), PropertiesFile.getPassword()).start(0);
+		}
+		return shared;
+	}
+
+	// Port 0 picks a free port
+	public ReferenceServer start(int port) {
+		try {
+			http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		} catch (IOException e) {
+			throw new IllegalStateException("Reference server could not bind port " + port, e);
+		}
+		AtomicInteger count = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "reference-server-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		http.setExecutor(executor);
+		http.createContext("/", this::handle);
+		http.start();
+		return this;
+	}
+
+	public void stop() {
+		http.stop(0);
+		executor.shutdownNow();
+	}
+
+	public String getBaseUri() {
+		return "http://" + http.getAddress().getHostString() + ":" + http.getAddress().getPort();
+	}
+
+	// Same data the tests were written against in postman
+	private void seed() {
+		users.put(123, new UserDTO(123, "John Doe", "john.doe@example.com", "active"));
+		addOrder(new OrderDTO(456, 123, 576.23, "pending"));
+	}
+
+	private void addOrder(OrderDTO order) {
+		orders.put(order.getId(), order);
+		orderIdsByUser.computeIfAbsent(order.getUserId(), id -> new ConcurrentLinkedQueue<>()).add(order.getId());
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!expectedAuthorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+				// Rest Assured's basic auth only sends credentials after being challenged. The challenge closes the
+				// connection: a POST retried on a connection the server drops meanwhile would fail instead of retrying.
+				drain(exchange);
+				exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"axiom\"");
+				exchange.getResponseHeaders().set("Connection", "close");
+				send(exchange, 401, new ErrorDTO("Authentication issue"));
+				return;
+			}
+			route(exchange);
+		} catch (Exception e) {
+			send(exchange, 500, new ErrorDTO("Internal server error"));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void route(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+
+		if (path[0].equals("users")) {
+			if (path.length == 1) {
+				if (method.equals("POST")) {
+					createUser(exchange);
+					return;
+				}
+			} else if (path.length == 2) {
+				if (method.equals("GET")) {
+					getUser(exchange, path[1]);
+					return;
+				} else if (method.equals("PUT")) {
+					updateUser(exchange, path[1]);
+					return;
+				}
+			} else if (path.length == 3 && path[2].equals("orders")) {
+				if (method.equals("GET")) {
+					getUserOrders(exchange, path[1]);
+					return;
+				}
+			} else {
+				send(exchange, 404, new ErrorDTO("Endpoint not found"));
+				return;
+			}
+			send(exchange, 405, new ErrorDTO("Method not allowed"));
+		} else if (path[0].equals("orders")) {
+			if (path.length == 1) {
+				if (method.equals("POST")) {
+					createOrder(exchange);
+					return;
+				}
+			} else if (path.length == 2) {
+				if (method.equals("GET")) {
+					getOrder(exchange, path[1]);
+					return;
+				} else if (method.equals("PUT")) {
+					updateOrder(exchange, path[1]);
+					return;
+				}
+			} else {
+				send(exchange, 404, new ErrorDTO("Endpoint not found"));
+				return;
+			}
+			send(exchange, 405, new ErrorDTO("Method not allowed"));
+		} else {
+			send(exchange, 404, new ErrorDTO("Endpoint not found"));
+		}
+	}
+
+	private void getUser(HttpExchange exchange, String id) throws IOException {
+		UserDTO user = users.get(parseId(id));
+		if (user == null) {
+			send(exchange, 404, new ErrorDTO("User Not Found"));
+		} else {
+			send(exchange, 200, user);
+		}
+	}
+
+	private void getUserOrders(HttpExchange exchange, String id) throws IOException {
+		UserDTO user = users.get(parseId(id));
+		if (user == null) {
+			send(exchange, 404, new ErrorDTO("User Not Found"));
+			return;
+		}
+		ArrayList<OrderDTO> userOrders = new ArrayList<>();
+		Queue<Integer> orderIds = orderIdsByUser.get(user.getId());
+		if (orderIds != null) {
+			for (Integer orderId : orderIds) {
+				userOrders.add(orders.get(orderId));
+			}
+		}
+		send(exchange, 200, new UserDTO(user.getId(), user.getName(), user.getEmail(), user.getStatus(), userOrders));
+	}
+
+	private void createUser(HttpExchange exchange) throws IOException {
+		JsonNode body = readBody(exchange);
+		if (body == null) {
+			return;
+		}
+		String invalid = validateUser(body);
+		if (invalid != null) {
+			send(exchange, 400, new ErrorDTO(invalid));
+			return;
+		}
+		UserDTO user = new UserDTO(nextUserId.getAndIncrement(), body.get("name").asText(), body.get("email").asText(),
+				body.get("status").asText());
+		users.put(user.getId(), user);
+		send(exchange, 201, user);
+	}
+
+	private void updateUser(HttpExchange exchange, String id) throws IOException {
+		int userId = parseId(id);
+		if (!users.containsKey(userId)) {
+			send(exchange, 404, new ErrorDTO("User Not Found"));
+			return;
+		}
+		JsonNode body = readBody(exchange);
+		if (body == null) {
+			return;
+		}
+		String invalid = validateUser(body);
+		if (invalid != null) {
+			send(exchange, 400, new ErrorDTO(invalid));
+			return;
+		}
+		UserDTO user = new UserDTO(userId, body.get("name").asText(), body.get("email").asText(),
+				body.get("status").asText());
+		users.put(userId, user);
+		send(exchange, 200, user);
+	}
+
+	private String validateUser(JsonNode body) {
+		if (!body.path("name").isTextual() || body.get("name").asText().trim().isEmpty()) {
+			return "Invalid request body: name";
+		}
+		if (!body.path("email").isTextual() || !EMAIL.matcher(body.get("email").asText()).matches()) {
+			return "Invalid request body: email";
+		}
+		String status = body.path("status").asText();
+		if (!status.equals("active") && !status.equals("inactive")) {
+			return "Invalid request body: status";
+		}
+		return null;
+	}
+
+	private void getOrder(HttpExchange exchange, String id) throws IOException {
+		OrderDTO order = orders.get(parseId(id));
+		if (order == null) {
+			send(exchange, 404, new ErrorDTO("Order Not Found"));
+		} else {
+			send(exchange, 200, order);
+		}
+	}
+
+	private void createOrder(HttpExchange exchange) throws IOException {
+		JsonNode body = readBody(exchange);
+		if (body == null) {
+			return;
+		}
+		String invalid = validateOrder(body, true);
+		if (invalid != null) {
+			send(exchange, 400, new ErrorDTO(invalid));
+			return;
+		}
+		OrderDTO order = new OrderDTO(nextOrderId.getAndIncrement(), body.get("userId").asInt(),
+				body.get("totalAmount").asDouble(), body.get("status").asText());
+		addOrder(order);
+		send(exchange, 201, order);
+	}
+
+	private void updateOrder(HttpExchange exchange, String id) throws IOException {
+		OrderDTO existing = orders.get(parseId(id));
+		if (existing == null) {
+			send(exchange, 404, new ErrorDTO("Order Not Found"));
+			return;
+		}
+		JsonNode body = readBody(exchange);
+		if (body == null) {
+			return;
+		}
+		String invalid = validateOrder(body, false);
+		if (invalid != null) {
+			send(exchange, 400, new ErrorDTO(invalid));
+			return;
+		}
+		if (body.get("userId").asInt() != existing.getUserId()) {
+			send(exchange, 400, new ErrorDTO("User id can not be changed"));
+			return;
+		}
+		OrderDTO order = new OrderDTO(existing.getId(), existing.getUserId(), body.get("totalAmount").asDouble(),
+				body.get("status").asText());
+		orders.put(order.getId(), order);
+		send(exchange, 200, order);
+	}
+
+	// Checks run in the order the tests expect, e.g. an empty status is reported before an unknown user id
+	private String validateOrder(JsonNode body, boolean newOrder) {
+		for (String parameter : new String[] { "userId", "totalAmount", "status" }) {
+			if (!body.has(parameter) || body.get(parameter).isNull()) {
+				return "Missing parameter: " + parameter;
+			}
+		}
+		if (!body.get("userId").canConvertToInt() || !body.get("userId").isIntegralNumber()
+				|| !body.get("totalAmount").isNumber() || !body.get("status").isTextual()) {
+			return "Invalid data type provided";
+		}
+		String status = body.get("status").asText();
+		if (status.isEmpty()) {
+			return "Invalid status of order";
+		}
+		if (!status.equals("pending") && !status.equals("shipped") && !status.equals("delivered")) {
+			return "Unknown status of order";
+		}
+		if (newOrder && !status.equals("pending")) {
+			return "Invalid status of order";
+		}
+		if (body.get("totalAmount").asDouble() <= 0) {
+			return "Invalid total amount value";
+		}
+		if (!users.containsKey(body.get("userId").asInt())) {
+			return "User id does not exist";
+		}
+		return null;
+	}
+
+	// Answers 400 and returns null when the body isn't a JSON object
+	private JsonNode readBody(HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			JsonNode body = JSON.readTree(in);
+			if (body != null && body.isObject()) {
+				return body;
+			}
+		} catch (JsonProcessingException e) {
+			// reported below
+		}
+		send(exchange, 400, new ErrorDTO("Malformed JSON"));
+		return null;
+	}
+
+	private static void drain(HttpExchange exchange) throws IOException {
+		byte[] buffer = new byte[1024];
+		try (InputStream in = exchange.getRequestBody()) {
+			while (in.read(buffer) != -1) {
+				// discard
+			}
+		}
+	}
+
+	// Ids that aren't numbers can't exist
+	private static int parseId(String id) {
+		try {
+			return Integer.parseInt(id);
+		} catch (NumberFormatException e) {
+			return Integer.MIN_VALUE;
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+		byte[] bytes = JSON.writeValueAsBytes(body);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package validation;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import codec.Decoded;
+import codec.DtoCodec;
+
+// A functional check of one response, run by the pipeline's consumers off the request thread. A check fails by
+// throwing: an AssertionError, e.g. from TestNG's Assert, or any exception, a body that doesn't decode included.
+public interface ResponseCheck {
+
+	void check(int statusCode, byte[] body) throws Exception;
+
+	// Decodes the way the BaseApiTest helpers do, the expected DTO for 200/201 and the ErrorDTO otherwise, then checks it
+	static <T> ResponseCheck decoded(ObjectReader successReader, DecodedCheck<T> check) {
+		return (statusCode, body) -> check.check(DtoCodec.<T>decode(statusCode, body, successReader));
+	}
+
+	interface DecodedCheck<T> {
+		void check(Decoded<T> decoded) throws Exception;
+	}
+
+}
@@ -0,0 +1,111 @@
+package validation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded lock-free queue for any number of producers and consumers (Vyukov's sequence-per-slot ring). Every slot
+// carries a sequence number: a producer claims slot 'pos' when its sequence equals pos, fills it and publishes pos + 1;
+// a consumer takes it at pos + 1 and hands it back for the next lap at pos + capacity. A full ring refuses the offer
+// instead of waiting, so a load generator thread never blocks here.
+final class ResponseRing {
+
+	// One consumer's view of a taken slot, reused from one entry to the next
+	static final class Entry {
+		long iteration;
+		int statusCode;
+		long latencyNanos;
+		byte[] body;
+		ResponseCheck check;
+	}
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final long[] iterations;
+	private final int[] statusCodes;
+	private final long[] latencies;
+	private final byte[][] bodies;
+	private final ResponseCheck[] checks;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong head = new AtomicLong();
+
+	// Rounded up to a power of two, so a slot is a mask away from its position
+	ResponseRing(int capacity) {
+		if (capacity < 2 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Ring capacity must be between 2 and 2^30, was " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = size - 1;
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		this.iterations = new long[size];
+		this.statusCodes = new int[size];
+		this.latencies = new long[size];
+		this.bodies = new byte[size][];
+		this.checks = new ResponseCheck[size];
+	}
+
+	int capacity() {
+		return mask + 1;
+	}
+
+	// The plain writes to the slot are published by the volatile write of its sequence
+	boolean offer(long iteration, int statusCode, long latencyNanos, byte[] body, ResponseCheck check) {
+		long pos = tail.get();
+		int slot;
+		while (true) {
+			slot = (int) pos & mask;
+			long difference = sequences.get(slot) - pos;
+			if (difference == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					break;
+				}
+				pos = tail.get();
+			} else if (difference < 0) {
+				// the consumers haven't freed this slot from the previous lap
+				return false;
+			} else {
+				pos = tail.get();
+			}
+		}
+		iterations[slot] = iteration;
+		statusCodes[slot] = statusCode;
+		latencies[slot] = latencyNanos;
+		bodies[slot] = body;
+		checks[slot] = check;
+		sequences.set(slot, pos + 1);
+		return true;
+	}
+
+	// Copies the oldest entry into 'entry' and frees its slot, false when the ring is empty
+	boolean poll(Entry entry) {
+		long pos = head.get();
+		int slot;
+		while (true) {
+			slot = (int) pos & mask;
+			long difference = sequences.get(slot) - (pos + 1);
+			if (difference == 0) {
+				if (head.compareAndSet(pos, pos + 1)) {
+					break;
+				}
+				pos = head.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				pos = head.get();
+			}
+		}
+		entry.iteration = iterations[slot];
+		entry.statusCode = statusCodes[slot];
+		entry.latencyNanos = latencies[slot];
+		entry.body = bodies[slot];
+		entry.check = checks[slot];
+		// the ring shouldn't keep bodies alive once they were taken
+		bodies[slot] = null;
+		checks[slot] = null;
+		sequences.set(slot, pos + mask + 1);
+		return true;
+	}
+
+}
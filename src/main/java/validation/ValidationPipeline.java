@@ -0,0 +1,182 @@
+package validation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Moves response validation off the request thread. During a load run the request thread only hands over the status
+// code, the latency and the body it already has (submit never blocks and allocates nothing); background consumers
+// decode and check the responses, and finish() sums everything up into one verdict for the test to assert on.
+// The decoding and assertions no longer count in the measured latency or slow down the send rate.
+public class ValidationPipeline {
+
+	// Failures are grouped by message, one kind per distinct message up to this many
+	private static final int MAX_FAILURE_KINDS = 20;
+	private static final int MAX_EXAMPLES = 5;
+	private static final String OTHER_FAILURES = "(other failures)";
+	// An idle consumer checks the ring again after this long
+	private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private final String name;
+	private final double sampleRate;
+	private final ResponseRing ring;
+	private final List<Thread> consumers = new ArrayList<>();
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder skipped = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder validated = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final ConcurrentMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+	private final List<String> examples = new ArrayList<>();
+	private volatile boolean closing;
+	// Set when finish() gave up waiting, consumers still running then leave the rest
+	private volatile boolean stopped;
+	private ValidationVerdict verdict;
+
+	// sampleRate is the share of responses checked, spread evenly over the iterations: 0.1 checks every tenth one.
+	// 'capacity' responses can wait for the consumers before new ones are dropped.
+	public ValidationPipeline(String name, int capacity, int consumers, double sampleRate) {
+		super();
+		if (consumers < 1) {
+			throw new IllegalArgumentException("consumers must be at least 1, was " + consumers);
+		}
+		if (!(sampleRate > 0 && sampleRate <= 1)) {
+			throw new IllegalArgumentException("sampleRate must be in (0, 1], was " + sampleRate);
+		}
+		this.name = name;
+		this.sampleRate = sampleRate;
+		this.ring = new ResponseRing(capacity);
+		for (int i = 0; i < consumers; i++) {
+			Thread thread = new Thread(this::consume, "validation-" + name + "-" + (i + 1));
+			thread.setDaemon(true);
+			this.consumers.add(thread);
+			thread.start();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getCapacity() {
+		return ring.capacity();
+	}
+
+	// Called on the request thread: false when the response is left out by sampling or the ring is full
+	public boolean submit(long iteration, int statusCode, long latencyNanos, byte[] body, ResponseCheck check) {
+		if (closing) {
+			throw new IllegalStateException("The validation pipeline " + name + " is finished");
+		}
+		submitted.increment();
+		if (!sampled(iteration)) {
+			skipped.increment();
+			return false;
+		}
+		if (!ring.offer(iteration, statusCode, latencyNanos, body, check)) {
+			dropped.increment();
+			return false;
+		}
+		return true;
+	}
+
+	// Iteration i is checked when the running count of sampleRate * iterations passes a whole number at i, so any
+	// stretch of iterations is checked at the configured share
+	boolean sampled(long iteration) {
+		return sampleRate >= 1 || Math.floor((iteration + 1) * sampleRate) > Math.floor(iteration * sampleRate);
+	}
+
+	// Call once the load run is over. Waits up to 'timeout' for the consumers to check what is still queued.
+	public synchronized ValidationVerdict finish(Duration timeout) {
+		if (verdict != null) {
+			return verdict;
+		}
+		closing = true;
+		long deadline = System.nanoTime() + timeout.toNanos();
+		for (Thread consumer : consumers) {
+			try {
+				TimeUnit.NANOSECONDS.timedJoin(consumer, Math.max(1, deadline - System.nanoTime()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		long submittedCount = submitted.sum();
+		long skippedCount = skipped.sum();
+		long droppedCount = dropped.sum();
+		long validatedCount = validated.sum();
+		Map<String, Long> failureCounts = new LinkedHashMap<>();
+		failures.entrySet().stream().sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+				.forEach(failure -> failureCounts.put(failure.getKey(), failure.getValue().sum()));
+		List<String> firstFailures;
+		synchronized (examples) {
+			firstFailures = new ArrayList<>(examples);
+		}
+		verdict = new ValidationVerdict(name, submittedCount, skippedCount, droppedCount, validatedCount, failed.sum(),
+				Math.max(0, submittedCount - skippedCount - droppedCount - validatedCount), failureCounts, firstFailures);
+		stopped = true;
+		for (Thread consumer : consumers) {
+			consumer.interrupt();
+		}
+		return verdict;
+	}
+
+	private void consume() {
+		ResponseRing.Entry entry = new ResponseRing.Entry();
+		while (!stopped) {
+			// read before polling: once closing is seen every submit happened before, so an empty ring means done
+			boolean last = closing;
+			if (ring.poll(entry)) {
+				validate(entry);
+			} else if (last) {
+				return;
+			} else {
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+			}
+		}
+	}
+
+	private void validate(ResponseRing.Entry entry) {
+		try {
+			entry.check.check(entry.statusCode, entry.body);
+		} catch (Exception | AssertionError e) {
+			failed(entry, e);
+		} finally {
+			entry.body = null;
+			entry.check = null;
+			validated.increment();
+		}
+	}
+
+	private void failed(ResponseRing.Entry entry, Throwable failure) {
+		failed.increment();
+		String message = failure.getMessage() == null ? failure.getClass().getName() : failure.getMessage().trim();
+		if (!(failure instanceof AssertionError)) {
+			message = failure.getClass().getSimpleName() + ": " + message;
+		}
+		message = message.split("\\R", 2)[0];
+		LongAdder count = failures.get(message);
+		if (count == null) {
+			count = failures.size() < MAX_FAILURE_KINDS ? failures.computeIfAbsent(message, m -> new LongAdder())
+					: failures.computeIfAbsent(OTHER_FAILURES, m -> new LongAdder());
+		}
+		count.increment();
+		synchronized (examples) {
+			if (examples.size() < MAX_EXAMPLES) {
+				examples.add(String.format("iteration %d, status %d after %.2f ms: %s", entry.iteration, entry.statusCode,
+						entry.latencyNanos / 1e6, message));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package validation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// What a ValidationPipeline found over a whole run: how many responses it checked, how many it left out and why,
+// and the failures grouped by message with the first few in full
+public class ValidationVerdict {
+
+	private final String name;
+	private final long submitted;
+	private final long skipped;
+	private final long dropped;
+	private final long validated;
+	private final long failed;
+	private final long unchecked;
+	private final Map<String, Long> failures;
+	private final List<String> examples;
+
+	ValidationVerdict(String name, long submitted, long skipped, long dropped, long validated, long failed,
+			long unchecked, Map<String, Long> failures, List<String> examples) {
+		super();
+		this.name = name;
+		this.submitted = submitted;
+		this.skipped = skipped;
+		this.dropped = dropped;
+		this.validated = validated;
+		this.failed = failed;
+		this.unchecked = unchecked;
+		this.failures = Collections.unmodifiableMap(failures);
+		this.examples = Collections.unmodifiableList(examples);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	// Every response handed to the pipeline
+	public long getSubmitted() {
+		return submitted;
+	}
+
+	// Left out by sampling
+	public long getSkipped() {
+		return skipped;
+	}
+
+	// Sampled but the ring was full, the consumers didn't keep up with the load
+	public long getDropped() {
+		return dropped;
+	}
+
+	public long getValidated() {
+		return validated;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	// Still queued when the pipeline stopped waiting for its consumers
+	public long getUnchecked() {
+		return unchecked;
+	}
+
+	// Failure message to number of responses, the most frequent kinds of failure
+	public Map<String, Long> getFailures() {
+		return failures;
+	}
+
+	// The first failures with their iteration, status code and latency
+	public List<String> getExamples() {
+		return examples;
+	}
+
+	// Dropped responses only lower the coverage, but a check that never finished can't be called a pass
+	public boolean isPassed() {
+		return failed == 0 && unchecked == 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(String.format("%s validation: %s, %d submitted, %d validated, %d failed, "
+				+ "%d skipped by sampling, %d dropped, %d unchecked", name, isPassed() ? "passed" : "FAILED", submitted,
+				validated, failed, skipped, dropped, unchecked));
+		failures.forEach((message, count) -> sb.append(String.format("%n  %6d x %s", count, message)));
+		examples.forEach(example -> sb.append(String.format("%n  e.g. %s", example)));
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,61 @@
+package api.tests;
+
+import java.util.function.Supplier;
+
+import codec.Decoded;
+import dto.ErrorDTO;
+import io.restassured.response.Response;
+
+// What a BaseApiTest helper returns: the raw response and its decoded body, owned by the calling test alone,
+// so tests running in parallel no longer overwrite each other's DTOs.
+// The body is decoded the first time it is asked for, so a stress loop that only looks at the status code doesn't pay
+// for JSON decoding on the request thread.
+public class ApiResult<T> {
+
+	private final Response response;
+	private Supplier<Decoded<T>> decoder;
+	private Decoded<T> decoded;
+
+	public ApiResult(Response response, Decoded<T> decoded) {
+		super();
+		this.response = response;
+		this.decoded = decoded;
+	}
+
+	public ApiResult(Response response, Supplier<Decoded<T>> decoder) {
+		super();
+		this.response = response;
+		this.decoder = decoder;
+	}
+
+	private synchronized Decoded<T> decoded() {
+		if (decoded == null) {
+			decoded = decoder.get();
+			decoder = null;
+		}
+		return decoded;
+	}
+
+	public Response getResponse() {
+		return response;
+	}
+
+	public int statusCode() {
+		return response.statusCode();
+	}
+
+	public boolean isSuccess() {
+		return decoded().isSuccess();
+	}
+
+	// The expected DTO for 200/201, null otherwise
+	public T getValue() {
+		return decoded().getValue();
+	}
+
+	// The ErrorDTO for any other status code, null on success
+	public ErrorDTO getError() {
+		return decoded().getError();
+	}
+
+}
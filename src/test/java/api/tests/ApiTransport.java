@@ -0,0 +1,134 @@
+package api.tests;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.pool.PoolStats;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.RequestSpecification;
+
+// The HTTP layer under BaseApiTest: one client with a bounded keep-alive pool shared by every request and thread,
+// and one prebuilt specification per credential profile, so a helper only adds its body and path.
+// Auth is preemptive, the Authorization header goes out with the first request instead of after a 401 challenge.
+// Rest Assured 4 only takes the deprecated HttpClient 4.x client classes, hence the suppressed warnings.
+@SuppressWarnings("deprecation")
+public class ApiTransport implements Closeable {
+
+	public enum Credentials {
+		VALID, WRONG_PASSWORD, NONE
+	}
+
+	// A request waiting longer than this for a pooled connection fails instead of hanging the run
+	private static final long LEASE_TIMEOUT_MILLIS = 30_000;
+
+	private final String baseUri;
+	private final int poolSize;
+	private final boolean connectionPerRequest;
+	private final PoolingClientConnectionManager pool;
+	private final DefaultHttpClient client;
+	private final ScheduledExecutorService evictor;
+	private final Map<Credentials, RequestSpecification> specifications = new EnumMap<>(Credentials.class);
+
+	// connectionPerRequest closes every connection after its response, to measure what connection setup costs
+	public ApiTransport(String baseUri, String username, String password, String incorectPassword, int poolSize,
+			Duration idleTimeout, boolean connectionPerRequest) {
+		super();
+		this.baseUri = baseUri;
+		this.poolSize = poolSize;
+		this.connectionPerRequest = connectionPerRequest;
+		this.pool = new PoolingClientConnectionManager();
+		this.pool.setMaxTotal(poolSize);
+		this.pool.setDefaultMaxPerRoute(poolSize);
+		this.client = new DefaultHttpClient(pool);
+		// Idle connections are evicted below, so the blocking stale check on every lease isn't needed
+		this.client.getParams().setBooleanParameter(CoreConnectionPNames.STALE_CONNECTION_CHECK, false);
+		if (connectionPerRequest) {
+			this.client.setReuseStrategy(new NoConnectionReuseStrategy());
+		}
+
+		// Connections idle for longer than idleTimeout are closed before the server drops them under us
+		this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "connection-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1, idleTimeout.toMillis() / 2);
+		this.evictor.scheduleWithFixedDelay(() -> {
+			pool.closeExpiredConnections();
+			pool.closeIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		}, period, period, TimeUnit.MILLISECONDS);
+
+		// The factory hands out the same client every time, so every request draws from the one pool
+		RestAssuredConfig config = RestAssuredConfig.config()
+				.httpClient(HttpClientConfig.httpClientConfig().reuseHttpClientInstance().httpClientFactory(() -> client)
+						.setParam(ClientPNames.CONN_MANAGER_TIMEOUT, LEASE_TIMEOUT_MILLIS));
+		specifications.put(Credentials.VALID, specification(config).setAuth(RestAssured.preemptive().basic(username, password)).build());
+		specifications.put(Credentials.WRONG_PASSWORD, specification(config).setAuth(RestAssured.preemptive().basic(username, incorectPassword)).build());
+		specifications.put(Credentials.NONE, specification(config).build());
+	}
+
+	private RequestSpecBuilder specification(RestAssuredConfig config) {
+		RequestSpecBuilder builder = new RequestSpecBuilder().setBaseUri(baseUri).setConfig(config)
+				.addFilter(ApiTransport::readFully);
+		if (connectionPerRequest) {
+			builder.addHeader("Connection", "close");
+		}
+		return builder;
+	}
+
+	// Rest Assured reads the body lazily and only a fully read response gives its connection back to the pool,
+	// so a caller that looks at the status code alone would otherwise leak the connection
+	private static Response readFully(FilterableRequestSpecification request, FilterableResponseSpecification response,
+			FilterContext context) {
+		Response received = context.next(request, response);
+		received.asByteArray();
+		return received;
+	}
+
+	// A fresh specification per request, the prebuilt ones are shared between threads and must stay untouched
+	public RequestSpecification given(Credentials credentials) {
+		return RestAssured.given(specifications.get(credentials));
+	}
+
+	public String getBaseUri() {
+		return baseUri;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	public boolean isConnectionPerRequest() {
+		return connectionPerRequest;
+	}
+
+	// Leased connections are in use, available ones are idle in the pool waiting for the next request
+	public PoolStats getPoolStats() {
+		return pool.getTotalStats();
+	}
+
+	@Override
+	public void close() {
+		evictor.shutdownNow();
+		pool.shutdown();
+	}
+
+}
@@ -0,0 +1,74 @@
+package api.tests;
+
+import java.time.Duration;
+
+import org.apache.http.pool.PoolStats;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import api.tests.ApiTransport.Credentials;
+import config.PropertiesFile;
+import server.ReferenceServer;
+
+public class ApiTransportTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+
+	@AfterMethod
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that sequential requests share one keep-alive connection and give it back to the pool.")
+	public void reusesPooledConnection() {
+		try (ApiTransport transport = newTransport(Duration.ofSeconds(10), false)) {
+			for (int i = 0; i < 50; i++) {
+				sa.assertEquals(transport.given(Credentials.VALID).get("/users/123").statusCode(), 200);
+			}
+
+			PoolStats stats = transport.getPoolStats();
+			sa.assertEquals(stats.getLeased(), 0, "Connections were not released: " + stats);
+			sa.assertEquals(stats.getAvailable(), 1, "Connections were not reused: " + stats);
+		}
+	}
+
+	@Test(description = "Verify that every credential profile sends the expected Authorization header.")
+	public void appliesCredentialProfiles() {
+		try (ApiTransport transport = newTransport(Duration.ofSeconds(10), false)) {
+			sa.assertEquals(transport.given(Credentials.VALID).get("/orders/456").statusCode(), 200);
+			sa.assertEquals(transport.given(Credentials.WRONG_PASSWORD).get("/orders/456").statusCode(), 401);
+			sa.assertEquals(transport.given(Credentials.NONE).get("/orders/456").statusCode(), 401);
+		}
+	}
+
+	@Test(description = "Verify that idle connections are evicted from the pool.")
+	public void evictsIdleConnections() throws InterruptedException {
+		try (ApiTransport transport = newTransport(Duration.ofMillis(200), false)) {
+			transport.given(Credentials.VALID).get("/users/123");
+			sa.assertEquals(transport.getPoolStats().getAvailable(), 1);
+
+			Thread.sleep(1000);
+			sa.assertEquals(transport.getPoolStats().getAvailable(), 0, "Idle connection was not evicted");
+		}
+	}
+
+	@Test(description = "Verify that the connection-per-request mode keeps no connection open between requests.")
+	public void opensConnectionPerRequest() {
+		try (ApiTransport transport = newTransport(Duration.ofSeconds(10), true)) {
+			for (int i = 0; i < 10; i++) {
+				sa.assertEquals(transport.given(Credentials.VALID).get("/users/123").statusCode(), 200);
+			}
+
+			PoolStats stats = transport.getPoolStats();
+			sa.assertEquals(stats.getLeased(), 0, "Connections were not released: " + stats);
+			sa.assertEquals(stats.getAvailable(), 0, "Connections were kept alive: " + stats);
+		}
+	}
+
+	private static ApiTransport newTransport(Duration idleTimeout, boolean connectionPerRequest) {
+		return new ApiTransport(ReferenceServer.shared().getBaseUri(), PropertiesFile.getUsername(),
+				PropertiesFile.getPassword(), PropertiesFile.getIncorectPassword(), 4, idleTimeout, connectionPerRequest);
+	}
+
+}
@@ -0,0 +1,193 @@
+package api.tests;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import api.tests.ApiTransport.Credentials;
+
+// Non-blocking counterpart of ApiTransport on java.net.http: a call returns a CompletableFuture right away and no
+// thread waits for the response, so one load generator can keep thousands of requests outstanding.
+// With HTTP/2 every request to the service is a stream on one multiplexed connection; with HTTP/1.1 the client opens
+// one keep-alive connection per outstanding request (java.net.http doesn't pipeline).
+// Either way maxInFlight bounds the requests on the wire, the ones above it queue here until a response comes back.
+public class AsyncApiTransport {
+
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+	// A request without a response after this fails instead of holding its in-flight slot forever
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	private final String baseUri;
+	private final int maxInFlight;
+	private final HttpClient client;
+	private final Map<Credentials, String> authorizations = new EnumMap<>(Credentials.class);
+	private final Semaphore permits;
+	private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	public AsyncApiTransport(String baseUri, String username, String password, String incorectPassword, int maxInFlight,
+			boolean http2) {
+		super();
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be at least 1, was " + maxInFlight);
+		}
+		this.baseUri = baseUri;
+		this.maxInFlight = maxInFlight;
+		this.permits = new Semaphore(maxInFlight);
+		this.client = HttpClient.newBuilder()
+				.version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+				.connectTimeout(CONNECT_TIMEOUT)
+				.build();
+		// Same preemptive basic auth as ApiTransport, encoded once instead of per request
+		authorizations.put(Credentials.VALID, basic(username, password));
+		authorizations.put(Credentials.WRONG_PASSWORD, basic(username, incorectPassword));
+	}
+
+	private static String basic(String username, String password) {
+		return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public CompletableFuture<HttpResponse<byte[]>> get(Credentials credentials, String path) {
+		return send(request(credentials, path).GET());
+	}
+
+	// Completes as soon as the headers are in, the body is read from the stream while it downloads. The in-flight slot
+	// is freed at that point too, so the caller should read and close the stream promptly.
+	public CompletableFuture<HttpResponse<InputStream>> getStream(Credentials credentials, String path) {
+		return send(request(credentials, path).GET(), HttpResponse.BodyHandlers.ofInputStream());
+	}
+
+	public CompletableFuture<HttpResponse<byte[]>> post(Credentials credentials, String path, byte[] body) {
+		return send(request(credentials, path).header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body)));
+	}
+
+	// Sends the buffer's remaining bytes as they are. A slice of a memory-mapped PayloadCorpus goes to the socket from
+	// the mapping, without being copied into a heap array first; the caller's position and limit are left alone.
+	public CompletableFuture<HttpResponse<byte[]>> post(Credentials credentials, String path, ByteBuffer body) {
+		return send(request(credentials, path).header("Content-Type", "application/json").POST(ofByteBuffer(body)));
+	}
+
+	public CompletableFuture<HttpResponse<byte[]>> put(Credentials credentials, String path, byte[] body) {
+		return send(request(credentials, path).header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofByteArray(body)));
+	}
+
+	// One buffer, then done. Each subscription gets its own view, so a resent request sends the whole body again.
+	private static HttpRequest.BodyPublisher ofByteBuffer(ByteBuffer body) {
+		ByteBuffer content = body.duplicate();
+		return HttpRequest.BodyPublishers.fromPublisher(subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+
+			private boolean done;
+
+			@Override
+			public synchronized void request(long n) {
+				if (done) {
+					return;
+				}
+				done = true;
+				if (n <= 0) {
+					subscriber.onError(new IllegalArgumentException("Requested " + n + " buffers"));
+					return;
+				}
+				subscriber.onNext(content.duplicate());
+				subscriber.onComplete();
+			}
+
+			@Override
+			public synchronized void cancel() {
+				done = true;
+			}
+		}), content.remaining());
+	}
+
+	private HttpRequest.Builder request(Credentials credentials, String path) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUri + path)).timeout(REQUEST_TIMEOUT);
+		String authorization = authorizations.get(credentials);
+		if (authorization != null) {
+			builder.header("Authorization", authorization);
+		}
+		return builder;
+	}
+
+	private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest.Builder builder) {
+		return send(builder, HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	// Never blocks the caller: a request over the cap is queued and sent by whichever response frees a slot
+	private <T> CompletableFuture<HttpResponse<T>> send(HttpRequest.Builder builder, HttpResponse.BodyHandler<T> handler) {
+		HttpRequest request = builder.build();
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+		waiting.add(() -> {
+			inFlight.incrementAndGet();
+			CompletableFuture<HttpResponse<T>> sent;
+			try {
+				sent = client.sendAsync(request, handler);
+			} catch (RuntimeException e) {
+				sent = CompletableFuture.failedFuture(e);
+			}
+			sent.whenComplete((response, error) -> {
+				inFlight.decrementAndGet();
+				permits.release();
+				dispatch();
+				if (error != null) {
+					result.completeExceptionally(error);
+				} else {
+					result.complete(response);
+				}
+			});
+		});
+		dispatch();
+		return result;
+	}
+
+	// Queued requests go out while slots are free. Whoever queues a request or frees a slot dispatches afterwards,
+	// so a request can't be stranded in the queue with a slot free.
+	private void dispatch() {
+		while (!waiting.isEmpty() && permits.tryAcquire()) {
+			Runnable next = waiting.poll();
+			if (next == null) {
+				permits.release();
+			} else {
+				next.run();
+			}
+		}
+	}
+
+	public String getBaseUri() {
+		return baseUri;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	// Requests sent and not yet answered, never more than maxInFlight
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	// Requests waiting for a free slot
+	public int getQueued() {
+		return waiting.size();
+	}
+
+	public HttpClient.Version getVersion() {
+		return client.version();
+	}
+
+}
@@ -0,0 +1,69 @@
+package api.tests;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import api.tests.ApiTransport.Credentials;
+import codec.JsonBodyEncoder;
+import config.PropertiesFile;
+import server.ReferenceServer;
+
+public class AsyncApiTransportTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+
+	@AfterMethod
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that requests above the in-flight cap are queued instead of sent, and all of them are answered.")
+	public void capsRequestsInFlight() {
+		AsyncApiTransport transport = newTransport(4, true);
+		List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			responses.add(transport.get(Credentials.VALID, "/users/123"));
+			sa.assertTrue(transport.getInFlight() <= 4, "In flight " + transport.getInFlight());
+		}
+
+		for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+			sa.assertEquals(response.join().statusCode(), 200);
+		}
+		sa.assertEquals(transport.getInFlight(), 0);
+		sa.assertEquals(transport.getQueued(), 0);
+	}
+
+	@Test(description = "Verify that every credential profile sends the expected Authorization header.")
+	public void appliesCredentialProfiles() {
+		AsyncApiTransport transport = newTransport(4, false);
+
+		sa.assertEquals(transport.get(Credentials.VALID, "/orders/456").join().statusCode(), 200);
+		sa.assertEquals(transport.get(Credentials.WRONG_PASSWORD, "/orders/456").join().statusCode(), 401);
+		sa.assertEquals(transport.get(Credentials.NONE, "/orders/456").join().statusCode(), 401);
+	}
+
+	//The reference server only speaks HTTP/1.1, so the h2c upgrade the client offers is declined
+	@Test(description = "Verify that a client preferring HTTP/2 falls back to HTTP/1.1 when the server doesn't offer it.")
+	public void fallsBackToHttp1() {
+		AsyncApiTransport transport = newTransport(4, true);
+		HttpResponse<byte[]> response = transport.post(Credentials.VALID, "/orders",
+				JsonBodyEncoder.order(123, 576.23, "pending")).join();
+
+		sa.assertEquals(transport.getVersion(), HttpClient.Version.HTTP_2);
+		sa.assertEquals(response.statusCode(), 201);
+		sa.assertEquals(response.version(), HttpClient.Version.HTTP_1_1);
+	}
+
+	private static AsyncApiTransport newTransport(int maxInFlight, boolean http2) {
+		return new AsyncApiTransport(ReferenceServer.shared().getBaseUri(), PropertiesFile.getUsername(),
+				PropertiesFile.getPassword(), PropertiesFile.getIncorectPassword(), maxInFlight, http2);
+	}
+
+}
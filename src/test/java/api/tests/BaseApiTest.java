@@ -1,22 +1,74 @@
 package api.tests;
 
-import static io.restassured.RestAssured.given;
-
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import api.tests.ApiTransport.Credentials;
+import codec.Decoded;
+import codec.DtoCodec;
+import codec.JsonBodyEncoder;
+import codec.OrderStream;
+import config.Config;
 import config.PropertiesFile;
-import dto.ErrorDTO;
+import corpus.CorpusGenerator;
+import corpus.PayloadCorpus;
+import distributed.LoadCoordinator;
+import distributed.Scenario;
 import dto.OrderDTO;
 import dto.UserDTO;
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import load.AdaptiveThrottle;
+import load.CapacityResult;
+import load.CapacitySearch;
+import load.GeneratorLimits;
+import load.LoadResult;
+import load.LoadSnapshot;
+import load.OpenModelRunner;
+import load.Operation;
+import load.SoakResult;
+import load.SoakRunner;
+import load.Warmup;
+import load.WorkloadMix;
+import metrics.Endpoint;
+import metrics.EndpointHistograms;
+import metrics.IntervalReporter;
+import metrics.RequestEvent;
+import org.testng.Assert;
+import results.Environment;
+import results.RegressionGate;
+import results.RegressionReport;
+import results.ResultsStore;
+import results.RunRecord;
+import server.ReferenceServer;
+import validation.ResponseCheck;
+import validation.ValidationPipeline;
 
 public class BaseApiTest {
 
@@ -24,52 +76,365 @@ public class BaseApiTest {
 	private static String password = PropertiesFile.getPassword();
 	private static String incorectPassword = PropertiesFile.getIncorectPassword();
 	
-	protected static UserDTO user;
-	protected static OrderDTO order;
-	protected static List<OrderDTO> orders;
-	protected static ErrorDTO error;
+	// Latency of every call made through the helpers below, per endpoint and status code
+	protected static final EndpointHistograms latencies = EndpointHistograms.shared();
+
 
-	private static RequestSpecification request;
+	// One pooled transport per service, shared by every test instance pointing at it
+	private static final ConcurrentMap<String, ApiTransport> transports = new ConcurrentHashMap<>();
+	// Non-blocking client for the *Async helpers, created the first time a test uses them
+	private static final ConcurrentMap<String, AsyncApiTransport> asyncTransports = new ConcurrentHashMap<>();
+	// Mapped once per file and shared, the bodies are read-only
+	private static final ConcurrentMap<Path, PayloadCorpus> corpora = new ConcurrentHashMap<>();
+	// Said once per JVM, so nobody takes a green run against the stub for one against the real services
+	private static final AtomicBoolean embeddedAnnounced = new AtomicBoolean();
+	// With jfrFile set the suite records itself, see startRecording
+	private static final Recording recording = startRecording(PropertiesFile.current().getJfrFile());
+
+	// Each test instance carries its own service, so classes testing different services can run side by side
+	private volatile ApiTransport transport;
 
 	public BaseApiTest() {
 	}
 
-	protected static void startProcess(String baseURI) {
-		RestAssured.baseURI = baseURI;
-		request = RestAssured.given().header("Content-Type", "application/json");
+	// The stress settings are read for every run, so with watchConfig an edited file applies from the next run on
+
+	// Simulated users for the stress tests, each one sends its next request when the previous one returns
+	protected static int stressUsers() {
+		return PropertiesFile.current().getStressUsers();
+	}
+
+	// Fixed-rate stress tests keep sending on schedule even when the service slows down
+	protected static double stressRate() {
+		return PropertiesFile.current().getStressRate();
+	}
+
+	protected static Duration stressDuration() {
+		return PropertiesFile.current().getStressDuration();
+	}
+
+	// Stress runs discard their samples until throughput and latency settle, then measure
+	protected static Warmup stressWarmup() {
+		Config config = PropertiesFile.current();
+		return new Warmup(config.getWarmup(), config.getWarmupMax(), config.getSteadyStateWindow(),
+				config.getSteadyStateWindows(), config.getSteadyStateTolerance());
+	}
+
+	protected void startProcess(String baseURI) {
+		useService(resolveBaseUri(baseURI));
+	}
+
+	// The in-process reference server whatever baseUrl says, for measurements of the harness itself
+	protected void startReferenceServer() {
+		useService(ReferenceServer.shared().getBaseUri());
+	}
+
+	private void useService(String baseURI) {
+		Config config = PropertiesFile.current();
+		transport = transports.computeIfAbsent(baseURI, uri -> new ApiTransport(uri, username, password,
+				incorectPassword, config.getPoolSize(), config.getPoolIdleTimeout(), config.isConnectionPerRequest()));
+	}
+
+	protected String getBaseUri() {
+		return transport.getBaseUri();
+	}
+
+	protected AsyncApiTransport asyncTransport() {
+		Config config = PropertiesFile.current();
+		return asyncTransports.computeIfAbsent(getBaseUri(), uri -> new AsyncApiTransport(uri, username, password,
+				incorectPassword, config.getAsyncMaxInFlight(), config.isAsyncHttp2()));
+	}
+
+	// baseUrl from application.properties wins over the service URL a test class passes in,
+	// "embedded" points the tests at the in-process ReferenceServer so the suite runs offline
+	private static String resolveBaseUri(String baseURI) {
+		String configured = PropertiesFile.getBaseUrl();
+		if (configured == null || configured.trim().isEmpty()) {
+			return baseURI;
+		}
+		if (configured.trim().equals("embedded")) {
+			if (!embeddedAnnounced.getAndSet(true)) {
+				System.out.println("baseUrl=embedded: testing the in-process ReferenceServer at "
+						+ ReferenceServer.shared().getBaseUri() + " instead of " + baseURI + " and the other real services");
+			}
+			return ReferenceServer.shared().getBaseUri();
+		}
+		return configured.trim();
+	}
+
+	// The JDK's default recording settings plus the request events, written to 'file' when the JVM exits, so one file
+	// has the service latency of every request next to the GC pauses, safepoints and threads of this JVM
+	private static Recording startRecording(String file) {
+		if (file.trim().isEmpty()) {
+			return null;
+		}
+		try {
+			Recording recording = new Recording(Configuration.getConfiguration("default"));
+			recording.setName("axiom");
+			recording.enable(RequestEvent.NAME);
+			recording.setToDisk(true);
+			recording.setDestination(Paths.get(file.trim()));
+			recording.setDumpOnExit(true);
+			recording.start();
+			return recording;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not start the flight recording to " + file, e);
+		} catch (ParseException e) {
+			throw new IllegalStateException("The JDK's default recording settings don't parse", e);
+		}
+	}
+
+	// Prints throughput, error rate and latency per endpoint every intervalReportSeconds while a long run is going, and
+	// logs the interval histograms to <histogramLogDirectory>/<name>.hlog. Closing it reports the last partial interval.
+	protected static IntervalReporter reportIntervals(String name) {
+		Config config = PropertiesFile.current();
+		Path log = config.getHistogramLogDirectory().trim().isEmpty() ? null
+				: Paths.get(config.getHistogramLogDirectory().trim(), name.replaceAll("[^A-Za-z0-9._-]+", "-") + ".hlog");
+		try {
+			return new IntervalReporter(name, latencies, System.out, log).start(config.getIntervalReport());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create the histogram log " + log, e);
+		}
+	}
+
+	// The stress rate held for soakMinutes in bounded memory, with the client's heap, GC, threads and open files sampled
+	// every intervalReportSeconds next to the per-endpoint interval reports. With watchConfig a new stressRate in the
+	// file retargets the running soak.
+	protected static SoakResult soak(String name, Operation operation, int expectedStatus) {
+		Config config = PropertiesFile.current();
+		SoakRunner runner = new SoakRunner(new OpenModelRunner(() -> PropertiesFile.current().getStressRate(),
+				stressUsers(), stressWarmup()), config.getIntervalReport());
+		// Reports on its own while it is open, the run never refers to it
+		IntervalReporter intervals = reportIntervals(name);
+		SoakResult result;
+		try {
+			result = runner.run(name, config.getSoakDuration(), operation, expectedStatus);
+		} finally {
+			try {
+				intervals.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not close the histogram log of " + name, e);
+			}
+		}
+		checkGenerator(name, result.getTotal());
+		return result;
 	}
 
-	public static Response getUserById(int id) {
-		Response response = given()
-				.auth()
-				.basic(username, password)
+	// One throttle per endpoint and run, from the backpressure* settings
+	protected static AdaptiveThrottle throttle(String name) {
+		Config config = PropertiesFile.current();
+		return new AdaptiveThrottle(name, config.getBackpressureMaxRate(), config.getBackpressureMaxRetries(),
+				config.getBackpressureMaxWait(), config.getBackpressureBreakerFailures(), config.getBackpressureCooldown());
+	}
+
+	// The call sent through 'throttle': paced, 429 and 503 retried no sooner than their Retry-After, shed while the
+	// circuit is open, e.g. throttled(throttle, i -> placeOrder(123, 576.23, "pending"))
+	protected static Operation throttled(AdaptiveThrottle throttle, IntFunction<ApiResult<?>> call) {
+		return throttle.wrap((i, retryAfter) -> {
+			ApiResult<?> result = call.apply(i);
+			if (AdaptiveThrottle.isOverload(result.statusCode())) {
+				retryAfter.accept(AdaptiveThrottle.parseRetryAfter(result.getResponse().getHeader("Retry-After")));
+			}
+			return result.statusCode();
+		});
+	}
+
+	// Highest rate the operation sustains within the configured p99 SLO and error rate, with the curve measured on the way
+	protected static CapacityResult searchCapacity(String name, Operation operation, int expectedStatus) {
+		Config config = PropertiesFile.current();
+		CapacitySearch search = new CapacitySearch(config.getCapacitySloP99Millis(), config.getCapacityMaxErrorRate(),
+				config.getCapacityStep(), config.getCapacityResolution(), stressUsers(), Warmup.NONE, generatorLimits());
+		// A step the generator couldn't deliver ends the search, the rate found so far is then a lower bound
+		return search.search(name, config.getCapacityStartRate(), config.getCapacityMaxRate(), operation, expectedStatus);
+	}
+
+	// The fixed-rate stress run spread over the configured number of worker JVMs, all loading the service this test
+	// points at; 'listener' gets the merged snapshot of every reportIntervalMillis. Fails when a worker couldn't keep up.
+	protected LoadResult runDistributed(String name, Class<? extends Scenario> scenario, int expectedStatus,
+			Consumer<LoadSnapshot> listener) {
+		LoadResult result = distribute(name, scenario, expectedStatus, listener);
+		checkGenerator(name, result);
+		return result;
+	}
+
+	// runDistributed without judging the workers, for tests of the coordination itself rather than of the service
+	protected LoadResult distribute(String name, Class<? extends Scenario> scenario, int expectedStatus,
+			Consumer<LoadSnapshot> listener) {
+		Config config = PropertiesFile.current();
+		Map<String, String> parameters = new TreeMap<>();
+		parameters.put("axiom.baseUrl", getBaseUri());
+		if (System.getProperty("axiom.config") != null) {
+			parameters.put("axiom.config", System.getProperty("axiom.config"));
+		}
+		LoadCoordinator coordinator = new LoadCoordinator(config.getWorkers(), config.getWorkerPort(),
+				config.isLaunchWorkers(), config.getReportInterval(), stressWarmup());
+		return coordinator.run(name, scenario, parameters, stressRate(), stressDuration(), stressUsers(), expectedStatus,
+				listener);
+	}
+
+	// Pre-generated request bodies at the configured size and seed. The file is generated by the first run that needs it
+	// and replayed by every later one; orders go to user 123, like the other order tests.
+	protected static PayloadCorpus corpus(PayloadCorpus.Kind kind) {
+		Config config = PropertiesFile.current();
+		Path file = Paths.get(config.getCorpusDirectory(), kind.name().toLowerCase() + "-" + config.getCorpusSize() + "-"
+				+ config.getCorpusSeed() + ".corpus");
+		return corpora.computeIfAbsent(file.toAbsolutePath(), path -> {
+			try {
+				if (!Files.exists(path)) {
+					if (kind == PayloadCorpus.Kind.USERS) {
+						CorpusGenerator.users(path, config.getCorpusSize(), config.getCorpusSeed());
+					} else {
+						CorpusGenerator.orders(path, config.getCorpusSize(), config.getCorpusSeed(), new int[] { 123 });
+					}
+				}
+				return PayloadCorpus.open(path);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not prepare the corpus " + path, e);
+			}
+		});
+	}
+
+	// Checks responses of a load run in the background, with the configured ring size, consumers and sample rate
+	protected static ValidationPipeline validationPipeline(String name) {
+		Config config = PropertiesFile.current();
+		return new ValidationPipeline(name, config.getValidationRingSize(), config.getValidationConsumers(),
+				config.getValidationSampleRate());
+	}
+
+	// For a load runner's operation: hands the status code, time and body bytes to the pipeline without decoding
+	// anything on the request thread, and returns the status code
+	protected static int validate(ValidationPipeline pipeline, long iteration, ApiResult<?> result, ResponseCheck check) {
+		Response response = result.getResponse();
+		pipeline.submit(iteration, response.getStatusCode(), response.getTimeIn(TimeUnit.NANOSECONDS),
+				response.asByteArray(), check);
+		return response.getStatusCode();
+	}
+
+	// The helpers a workload mix can name and the endpoint each one calls
+	protected static final Map<String, Endpoint> MIX_OPERATIONS = Map.of("getUserById", Endpoint.GET_USER,
+			"retrieveOrderById", Endpoint.GET_ORDER, "getUserOrders", Endpoint.GET_USER_ORDERS, "createUser",
+			Endpoint.CREATE_USER, "placeOrder", Endpoint.CREATE_ORDER, "updateUser", Endpoint.UPDATE_USER, "updateOrder",
+			Endpoint.UPDATE_ORDER);
+
+	// A mix of the MIX_OPERATIONS helpers, each with its expected status. The updates change a user and an order created
+	// for the mix, so a run never touches the data the functional tests read.
+	protected WorkloadMix workloadMix(Map<String, Integer> weights) {
+		ApiResult<UserDTO> user = createUser("Mix User", "mix.user@example.com", "active");
+		ApiResult<OrderDTO> order = placeOrder(123, 99.99, "pending");
+		if (user.statusCode() != 201 || order.statusCode() != 201) {
+			throw new IllegalStateException("Could not create the user and order the mix updates: " + user.statusCode()
+					+ ", " + order.statusCode());
+		}
+		int userId = user.getValue().getId();
+		int orderId = order.getValue().getId();
+
+		WorkloadMix mix = new WorkloadMix();
+		for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+			int weight = entry.getValue();
+			switch (entry.getKey()) {
+			case "getUserById":
+				mix.add(entry.getKey(), weight, i -> getUserById(123).statusCode(), 200);
+				break;
+			case "retrieveOrderById":
+				mix.add(entry.getKey(), weight, i -> retrieveOrderById(456).statusCode(), 200);
+				break;
+			case "getUserOrders":
+				mix.add(entry.getKey(), weight, i -> getUserOrders(123).statusCode(), 200);
+				break;
+			case "createUser":
+				mix.add(entry.getKey(), weight, i -> createUser("Mix User" + i, "mix.user" + i + "@example.com", "active").statusCode(), 201);
+				break;
+			case "placeOrder":
+				mix.add(entry.getKey(), weight, i -> placeOrder(123, 576.23, "pending").statusCode(), 201);
+				break;
+			case "updateUser":
+				mix.add(entry.getKey(), weight, i -> updateUser(new UserDTO(userId, "Mix User", "mix.user" + i + "@example.com", "active")).statusCode(), 200);
+				break;
+			case "updateOrder":
+				mix.add(entry.getKey(), weight, i -> updateOrder(new OrderDTO(orderId, 123, 99.99, i % 2 == 0 ? "pending" : "shipped")).statusCode(), 200);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown operation in the workload mix: " + entry.getKey());
+			}
+		}
+		return mix;
+	}
+
+	// Stores the run in the results store and compares it with the latest runs of the same key against the same
+	// service, a test fails on hasRegressions(). Fails here already when the load generator couldn't keep up.
+	protected RegressionReport recordRun(String key, Endpoint endpoint, LoadResult result) {
+		return recordRun(key, endpoint.toString(), result);
+	}
+
+	// For runs that cover more than one endpoint, e.g. a workload mix, 'endpoint' just labels them in the store
+	protected RegressionReport recordRun(String key, String endpoint, LoadResult result) {
+		Config config = PropertiesFile.current();
+		// "embedded" rather than the reference server's URL, its port changes with every JVM
+		String target = config.getBaseUrl() == null || config.getBaseUrl().isEmpty() ? getBaseUri() : config.getBaseUrl();
+		RunRecord record = RunRecord.of(key, endpoint, result, Environment.gitCommit(),
+				Environment.fingerprint(target));
+		record.setGeneratorLimited(!result.getGenerator().problems(generatorLimits()).isEmpty());
+		RegressionReport report = new RegressionReport(key, endpoint, 0, new ArrayList<>());
+		if (!config.getResultsFile().isEmpty()) {
+			try {
+				ResultsStore store = new ResultsStore(Paths.get(config.getResultsFile()));
+				List<RunRecord> baseline = store.baseline(key, record.getEnvironment(), config.getBaselineRuns());
+				store.append(record);
+				report = new RegressionGate(config.getRegressionAlpha(), config.getRegressionMinChange()).compare(record,
+						baseline);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not store the run in " + config.getResultsFile(), e);
+			}
+		}
+		// Stored but marked, so the run shows in the history without becoming anyone's baseline
+		checkGenerator(key, result);
+		return report;
+	}
+
+	// From the generator* settings
+	protected static GeneratorLimits generatorLimits() {
+		Config config = PropertiesFile.current();
+		return new GeneratorLimits(config.getGeneratorMaxLag(), config.getGeneratorMaxQueueDepth(),
+				config.getGeneratorMaxCpu(), config.getGeneratorMaxGcShare());
+	}
+
+	// Fails the test when the load generator couldn't keep up, the run measured the harness rather than the service
+	protected static void checkGenerator(String name, LoadResult result) {
+		List<String> problems = result.getGenerator().problems(generatorLimits());
+		if (!problems.isEmpty()) {
+			Assert.fail("Generator-limited run, " + name + " measured the harness rather than the service: "
+					+ String.join("; ", problems) + " (" + result.getGenerator() + ")");
+		}
+	}
+
+	public ApiResult<UserDTO> getUserById(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.VALID)
 				.when()
 				.get("/users/" + Integer.toString(id));
-		populateDto(response, "user");
-		return response;
+		record(Endpoint.GET_USER, Credentials.VALID, 0, response, start, event);
+		return result(response, DtoCodec.USER);
 	}
 
-	public static Response updateUser(UserDTO user) {
-		String requestBody = "{\r\n" 
-				+ "    \"name\": \"" + user.getName() + "\",\r\n" 
-				+ "    \"email\": \"" + user.getEmail() + "\",\r\n"
-				+ "    \"status\": \"" + user.getStatus() + "\"\r\n" + "}";
+	public ApiResult<UserDTO> updateUser(UserDTO user) {
+		byte[] requestBody = JsonBodyEncoder.user(user);
 
-		Response response = given()
-			.auth()
-			.basic(username, password)
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.VALID)
 			.contentType(ContentType.JSON)
 			.body(requestBody)
 			.when()
 			.put("/users/" + Integer.toString(user.getId()));
-		return response;
+		record(Endpoint.UPDATE_USER, Credentials.VALID, requestBody.length, response, start, event);
+		return result(response, DtoCodec.USER);
 	}
 	
 	public static String newEmailFromResponse(Response response) {
-		ObjectMapper obj = new ObjectMapper();
 		String email = "";
 		try {
-			JsonNode root = obj.readTree(response.asPrettyString());
+			JsonNode root = DtoCodec.readTree(response.asByteArray());
 			email = root.get("email").toString();
 		} catch (Exception e) { e.printStackTrace();}
 		
@@ -77,10 +442,9 @@ public class BaseApiTest {
 	}
 
 	public static String newStatusFromResponse(Response response) {
-		ObjectMapper obj = new ObjectMapper();
 		String status = "";
 		try {
-			JsonNode root = obj.readTree(response.asPrettyString());
+			JsonNode root = DtoCodec.readTree(response.asByteArray());
 			status = root.get("status").toString();
 		} catch (Exception e) { e.printStackTrace();}
 		
@@ -88,322 +452,476 @@ public class BaseApiTest {
 	}
 
 
-	public static Response updateOrder(OrderDTO order) {
-		String requestBody = "{\r\n" 
-				+ "    \"userId\": \"" + order.getUserId() + "\",\r\n" 
-				+ "    \"totalAmount\": \"" + order.getTotalAmount() + "\",\r\n"
-				+ "    \"status\": \"" + order.getStatus() + "\"\r\n" + "}";
+	public ApiResult<OrderDTO> updateOrder(OrderDTO order) {
+		byte[] requestBody = JsonBodyEncoder.order(order);
 
-	Response response = given()
-			.auth()
-			.basic(username, password)
+	RequestEvent event = requestEvent();
+	long start = System.nanoTime();
+	Response response = transport.given(Credentials.VALID)
 			.contentType(ContentType.JSON)
 			.body(requestBody)
 			.when()
-			.post("/orders" + Integer.toString(order.getId()));
+			.put("/orders/" + Integer.toString(order.getId()));
+	record(Endpoint.UPDATE_ORDER, Credentials.VALID, requestBody.length, response, start, event);
 	
-	return response;
+	return result(response, DtoCodec.ORDER);
 	}
 
 	
-	public static Response getUserByIdWithWrongCredentials(int id) {
-		Response response = given()
-				.auth()
-				.basic(username, incorectPassword)
+	public ApiResult<UserDTO> getUserByIdWithWrongCredentials(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.WRONG_PASSWORD)
 				.when()
 				.get("/users/" + Integer.toString(id));
-		populateDto(response, "");
-		return response;
+		record(Endpoint.GET_USER, Credentials.WRONG_PASSWORD, 0, response, start, event);
+		return result(response, DtoCodec.USER);
 	}
 
-	public static Response getUserByIdWithoutAuth(int id) {
-		Response response = given()
+	public ApiResult<UserDTO> getUserByIdWithoutAuth(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.NONE)
 				.when()
 				.get("/users/" + Integer.toString(id));
-		populateDto(response, "");
-		return response;
+		record(Endpoint.GET_USER, Credentials.NONE, 0, response, start, event);
+		return result(response, DtoCodec.USER);
 	}
 	
 
-	public static Response invalidEndpointCall(String name, String email, String status) {
-		String requestBody = "{\r\n" 
-					+ "    \"name\": \"" + name + "\",\r\n" 
-					+ "    \"email\": \"" + email + "\",\r\n"
-					+ "    \"status\": \"" + status + "\"\r\n" + "}";
+	public ApiResult<UserDTO> invalidEndpointCall(String name, String email, String status) {
+		byte[] requestBody = JsonBodyEncoder.user(name, email, status);
 
-		Response response = given()
-				.auth()
-				.basic(username, password)
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.VALID)
 				.contentType(ContentType.JSON)
 				.body(requestBody)
 				.when()
 				.post("/us"); //us(ers) is missing from url
+		record(Endpoint.OTHER, Credentials.VALID, requestBody.length, response, start, event);
 		
-		populateDto(response, name, email, status);
-		return response;
+		return createdUser(response, name, email, status);
 	}
 	
 
-	public static Response createUserMalformedJson(String name, String email, String status) {
+	public ApiResult<UserDTO> createUserMalformedJson(String name, String email, String status) {
+		// deliberately broken body, so it stays hand-built instead of going through JsonBodyEncoder
 		String requestBody = "{\r\n" 
 					+ "    \"name\": \"" + name + "}";
 
-		Response response = given()
-				.auth()
-				.basic(username, password)
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.VALID)
 				.contentType(ContentType.JSON)
 				.body(requestBody)
 				.when()
 				.post("/users");
+		record(Endpoint.CREATE_USER, Credentials.VALID, requestBody.getBytes(StandardCharsets.UTF_8).length, response, start,
+				event);
 		
-		populateDto(response, name, email, status);
-		return response;
+		return createdUser(response, name, email, status);
 	}
 
-	public static Response createUser(String name, String email, String status) {
-		String requestBody = "{\r\n" 
-					+ "    \"name\": \"" + name + "\",\r\n" 
-					+ "    \"email\": \"" + email + "\",\r\n"
-					+ "    \"status\": \"" + status + "\"\r\n" + "}";
+	public ApiResult<UserDTO> createUser(String name, String email, String status) {
+		byte[] requestBody = JsonBodyEncoder.user(name, email, status);
 
-		Response response = given()
-				.auth()
-				.basic(username, password)
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.VALID)
 				.contentType(ContentType.JSON)
 				.body(requestBody)
 				.when()
 				.post("/users");
+		record(Endpoint.CREATE_USER, Credentials.VALID, requestBody.length, response, start, event);
 		
-		populateDto(response, name, email, status);
-		return response;
+		return createdUser(response, name, email, status);
 	}
 
-	public static Response createUserWithWrongPassword(String name, String email, String status) {
-		String requestBody = "{\r\n" 
-					+ "    \"name\": \"" + name + "\",\r\n" 
-					+ "    \"email\": \"" + email + "\",\r\n"
-					+ "    \"status\": \"" + status + "\"\r\n" + "}";
+	public ApiResult<UserDTO> createUserWithWrongPassword(String name, String email, String status) {
+		byte[] requestBody = JsonBodyEncoder.user(name, email, status);
 
-		Response response = given()
-				.auth()
-				.basic(username, incorectPassword)
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.WRONG_PASSWORD)
 				.contentType(ContentType.JSON)
 				.body(requestBody)
 				.when()
 				.post("/users");
+		record(Endpoint.CREATE_USER, Credentials.WRONG_PASSWORD, requestBody.length, response, start, event);
 		
-		populateDto(response, name, email, status);
-		return response;
+		return createdUser(response, name, email, status);
 	}
 
-	public static Response getUserOrders(int id) {
-		Response response = given()
-				.auth()
-				.basic(username, password)
+	public ApiResult<List<OrderDTO>> getUserOrders(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.VALID)
 				.when()
 				.get("/users/" + Integer.toString(id) + "/orders");
-		populateDto(response, "order");
-		return response;
+		record(Endpoint.GET_USER_ORDERS, Credentials.VALID, 0, response, start, event);
+		return ordersResult(response);
 	}	
 	
-	public static Response retrieveOrderById(int id) {
-		Response response = given()
-				.auth()
-				.basic(username, password)
+	// GET /users/{id}/orders streamed: each order goes to 'each' as soon as it is decoded from the download, so memory
+	// stays flat however many orders the user has. Gives the user without its orders, or the ErrorDTO.
+	public Decoded<UserDTO> streamUserOrders(int id, Consumer<OrderDTO> each) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		HttpResponse<InputStream> response = asyncTransport()
+				.getStream(Credentials.VALID, "/users/" + Integer.toString(id) + "/orders").join();
+		try (CountingInputStream body = new CountingInputStream(response.body())) {
+			try {
+				Decoded<OrderStream> decoded = DtoCodec.streamOrders(response.statusCode(), body);
+				if (!decoded.isSuccess()) {
+					return new Decoded<>(response.statusCode(), null, decoded.getError());
+				}
+				try (OrderStream orders = decoded.getValue()) {
+					orders.forEachRemaining(each);
+					return new Decoded<>(response.statusCode(), orders.getUser(), null);
+				}
+			} finally {
+				// Recorded when decoding or 'each' throws too, and timed to the last read of the download, so the time
+				// 'each' takes after the last bytes arrived isn't counted as GET_USER_ORDERS latency
+				record(Endpoint.GET_USER_ORDERS, Credentials.VALID, 0, response.statusCode(), body.getCount(), start,
+						body.getLastReadNanos(), event);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public ApiResult<OrderDTO> retrieveOrderById(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.VALID)
 				.when()
 				.get("/orders/" + Integer.toString(id));
-		populateDto(response, "orderById");
-		return response;
+		record(Endpoint.GET_ORDER, Credentials.VALID, 0, response, start, event);
+		return result(response, DtoCodec.ORDER);
 	}
 	
-	public static Response retrieveOrderByIdWithWrongCredentials(int id) {
-		Response response = given()
-				.auth()
-				.basic(username, incorectPassword)
+	public ApiResult<OrderDTO> retrieveOrderByIdWithWrongCredentials(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.WRONG_PASSWORD)
 				.when()
 				.get("/orders/" + Integer.toString(id));
-		populateDto(response, "orderById");
-		return response;
+		record(Endpoint.GET_ORDER, Credentials.WRONG_PASSWORD, 0, response, start, event);
+		return result(response, DtoCodec.ORDER);
 	}
 	
-	public static Response retrieveOrderByIdWithoutAuth(int id) {
-		Response response = given()
+	public ApiResult<OrderDTO> retrieveOrderByIdWithoutAuth(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		Response response = transport.given(Credentials.NONE)
 				.when()
 				.get("/orders/" + Integer.toString(id));
-		populateDto(response, "orderById");
-		return response;
+		record(Endpoint.GET_ORDER, Credentials.NONE, 0, response, start, event);
+		return result(response, DtoCodec.ORDER);
 	}
 
-	public static Response placeOrder(int userId, double totalAmount, String status) {
-		String requestBody = "{\r\n" 
-				+ "    \"userId\": \"" + userId + "\",\r\n" 
-				+ "    \"totalAmount\": \"" + totalAmount + "\",\r\n"
-				+ "    \"status\": \"" + status + "\"\r\n" + "}";
+	public ApiResult<OrderDTO> placeOrder(int userId, double totalAmount, String status) {
+		byte[] requestBody = JsonBodyEncoder.order(userId, totalAmount, status);
 
-	Response response = given()
-			.auth()
-			.basic(username, password)
+	RequestEvent event = requestEvent();
+	long start = System.nanoTime();
+	Response response = transport.given(Credentials.VALID)
 			.contentType(ContentType.JSON)
 			.body(requestBody)
 			.when()
 			.post("/orders");
+	record(Endpoint.CREATE_ORDER, Credentials.VALID, requestBody.length, response, start, event);
 	
-	populateDto(response, totalAmount, status);
-	return response;
+	return placedOrder(response, totalAmount, status);
 	}
 	
-	public static Response placeOrderWithWrongPassword(int userId, double totalAmount, String status) {
-		String requestBody = "{\r\n" 
-				+ "    \"userId\": \"" + userId + "\",\r\n" 
-				+ "    \"totalAmount\": \"" + totalAmount + "\",\r\n"
-				+ "    \"status\": \"" + status + "\"\r\n" + "}";
+	public ApiResult<OrderDTO> placeOrderWithWrongPassword(int userId, double totalAmount, String status) {
+		byte[] requestBody = JsonBodyEncoder.order(userId, totalAmount, status);
 
-	Response response = given()
-			.auth()
-			.basic(username, incorectPassword)
+	RequestEvent event = requestEvent();
+	long start = System.nanoTime();
+	Response response = transport.given(Credentials.WRONG_PASSWORD)
 			.contentType(ContentType.JSON)
 			.body(requestBody)
 			.when()
 			.post("/orders");
+	record(Endpoint.CREATE_ORDER, Credentials.WRONG_PASSWORD, requestBody.length, response, start, event);
 	
-	populateDto(response, totalAmount, status);
-	return response;
+	return placedOrder(response, totalAmount, status);
 	}
 	
-	public static Response placeOrderWithNoAuthentification(int userId, double totalAmount, String status) {
-		String requestBody = "{\r\n" 
-				+ "    \"userId\": \"" + userId + "\",\r\n" 
-				+ "    \"totalAmount\": \"" + totalAmount + "\",\r\n"
-				+ "    \"status\": \"" + status + "\"\r\n" + "}";
+	public ApiResult<OrderDTO> placeOrderWithNoAuthentification(int userId, double totalAmount, String status) {
+		byte[] requestBody = JsonBodyEncoder.order(userId, totalAmount, status);
 
-	Response response = given()
+	RequestEvent event = requestEvent();
+	long start = System.nanoTime();
+	Response response = transport.given(Credentials.NONE)
 			.contentType(ContentType.JSON)
 			.body(requestBody)
 			.when()
 			.post("/orders");
+	record(Endpoint.CREATE_ORDER, Credentials.NONE, requestBody.length, response, start, event);
 	
-	populateDto(response, totalAmount, status);
-	return response;
+	return placedOrder(response, totalAmount, status);
 	}
 	
-	public static Response placeOrderMalformedJson(int userId, String status) {
+	public ApiResult<OrderDTO> placeOrderMalformedJson(int userId, String status) {
+		// deliberately broken body, so it stays hand-built instead of going through JsonBodyEncoder
 		String requestBody = "{\r\n" 
 				+ "    \"userId\": \"" + userId + "\",\r\n" 
 				
 				+ "    \"status\": \"" + status + "\"\r\n" + "}";
 
-	Response response = given()
-			.auth()
-			.basic(username, password)
+	RequestEvent event = requestEvent();
+	long start = System.nanoTime();
+	Response response = transport.given(Credentials.VALID)
 			.contentType(ContentType.JSON)
 			.body(requestBody)
 			.when()
 			.post("/orders");
+	record(Endpoint.CREATE_ORDER, Credentials.VALID, requestBody.getBytes(StandardCharsets.UTF_8).length, response, start,
+			event);
 	
-//	populateDto(response, status);
-	return response;
+	return result(response, DtoCodec.ORDER);
 	}
 
-	public static Response placeOrderInvalidDataType(int userId, double totalAmount, String status) {
+	public ApiResult<OrderDTO> placeOrderInvalidDataType(int userId, double totalAmount, String status) {
 		String requestBody = "{\r\n"
 				+ "    \"userId\": \"" + userId + "\",\r\n" //here in requestBody I am sending it as a string
 				+ "    \"totalAmount\": \"" + totalAmount + "\",\r\n"
 				+ "    \"status\": \"" + status + "\"\r\n" + "}";
 
-	Response response = given()
-			.auth()
-			.basic(username, password)
+	RequestEvent event = requestEvent();
+	long start = System.nanoTime();
+	Response response = transport.given(Credentials.VALID)
 			.contentType(ContentType.JSON)
 			.body(requestBody)
 			.when()
 			.post("/orders");
+	record(Endpoint.CREATE_ORDER, Credentials.VALID, requestBody.getBytes(StandardCharsets.UTF_8).length, response, start,
+			event);
 	
-	populateDto(response, totalAmount, status);
-	return response;
+	return placedOrder(response, totalAmount, status);
 	}
 	
 	
 	
 	
 	
-	private static void populateDto(Response response, String type) {
-		ObjectMapper obj = new ObjectMapper();
-
-		if (type.equals("user")) {
-			if (response.getStatusCode() == 200 || response.getStatusCode() == 201) {
-				try {
-					user = obj.readValue(response.asPrettyString(), UserDTO.class);
-				} catch (Exception e) { e.printStackTrace(); }
-			} else {
-				try {
-					error = obj.readValue(response.asPrettyString(), ErrorDTO.class);
-				} catch (Exception e) { e.printStackTrace(); }
+	// Async versions of the helpers the load tests use. They return at once, the future completes with the decoded body
+	// when the response arrives, and latency is recorded from the call, so time queued behind the in-flight cap counts.
+	public CompletableFuture<Decoded<UserDTO>> createUserAsync(String name, String email, String status) {
+		byte[] requestBody = JsonBodyEncoder.user(name, email, status);
+
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		return asyncTransport().post(Credentials.VALID, "/users", requestBody).thenApply(response -> {
+			record(Endpoint.CREATE_USER, Credentials.VALID, requestBody.length, response, start, event);
+			Decoded<UserDTO> decoded = decode(response, DtoCodec.USER);
+			if (decoded.isSuccess() && decoded.getValue() != null) {
+				decoded.getValue().setName(name);
+				decoded.getValue().setEmail(email);
+				decoded.getValue().setStatus(status);
 			}
-		} else if (type.equals("order")){
-			if (response.getStatusCode() == 200 || response.getStatusCode() == 201) {
-				try {
-					JsonNode root = obj.readTree(response.asPrettyString());
-					String order = root.get("orders").toString();
-					
-					orders = obj.readValue(order, new TypeReference<List<OrderDTO>>() {});
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+			return decoded;
+		});
+	}
 
-			} else {
-				try {
-					error = obj.readValue(response.asPrettyString(), ErrorDTO.class);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+	// Sends a body from a PayloadCorpus as it is, the returned user carries what the service answered
+	public CompletableFuture<Decoded<UserDTO>> createUserAsync(ByteBuffer requestBody) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		return asyncTransport().post(Credentials.VALID, "/users", requestBody).thenApply(response -> {
+			record(Endpoint.CREATE_USER, Credentials.VALID, requestBody.remaining(), response, start, event);
+			return decode(response, DtoCodec.USER);
+		});
+	}
+
+	public CompletableFuture<Decoded<OrderDTO>> placeOrderAsync(int userId, double totalAmount, String status) {
+		byte[] requestBody = JsonBodyEncoder.order(userId, totalAmount, status);
+
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		return asyncTransport().post(Credentials.VALID, "/orders", requestBody).thenApply(response -> {
+			record(Endpoint.CREATE_ORDER, Credentials.VALID, requestBody.length, response, start, event);
+			Decoded<OrderDTO> decoded = decode(response, DtoCodec.ORDER);
+			if (decoded.isSuccess() && decoded.getValue() != null) {
+				decoded.getValue().setTotalAmount(totalAmount);
+				decoded.getValue().setStatus(status);
 			}
-		} else if (type.equals("orderById")){
-			if (response.getStatusCode() == 200 || response.getStatusCode() == 201) {
-				try {
-					
-					order = obj.readValue(response.asPrettyString(), OrderDTO.class);
-					
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+			return decoded;
+		});
+	}
 
-			} else {
-				try {
-					error = obj.readValue(response.asPrettyString(), ErrorDTO.class);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+	public CompletableFuture<Decoded<OrderDTO>> placeOrderAsync(ByteBuffer requestBody) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		return asyncTransport().post(Credentials.VALID, "/orders", requestBody).thenApply(response -> {
+			record(Endpoint.CREATE_ORDER, Credentials.VALID, requestBody.remaining(), response, start, event);
+			return decode(response, DtoCodec.ORDER);
+		});
+	}
+
+	public CompletableFuture<Decoded<OrderDTO>> retrieveOrderByIdAsync(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		return asyncTransport().get(Credentials.VALID, "/orders/" + Integer.toString(id)).thenApply(response -> {
+			record(Endpoint.GET_ORDER, Credentials.VALID, 0, response, start, event);
+			return decode(response, DtoCodec.ORDER);
+		});
+	}
+
+	public CompletableFuture<Decoded<List<OrderDTO>>> getUserOrdersAsync(int id) {
+		RequestEvent event = requestEvent();
+		long start = System.nanoTime();
+		return asyncTransport().get(Credentials.VALID, "/users/" + Integer.toString(id) + "/orders").thenApply(response -> {
+			record(Endpoint.GET_USER_ORDERS, Credentials.VALID, 0, response, start, event);
+			try {
+				return DtoCodec.decodeOrders(response.statusCode(), response.body());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
 			}
+		});
+	}
+
+	// Started before each request, null unless a running recording has the event enabled and requestEvents is on
+	private static RequestEvent requestEvent() {
+		return PropertiesFile.current().isRequestEvents() ? RequestEvent.start() : null;
+	}
+
+	private static void record(Endpoint endpoint, Credentials credentials, long requestBytes, Response response,
+			long startNanos, RequestEvent event) {
+		// the body is already read, its size is only looked up when there is an event to put it in
+		record(endpoint, credentials, requestBytes, response.statusCode(),
+				event == null ? 0 : response.asByteArray().length, startNanos, event);
+	}
+
+	private static void record(Endpoint endpoint, Credentials credentials, long requestBytes,
+			HttpResponse<byte[]> response, long startNanos, RequestEvent event) {
+		record(endpoint, credentials, requestBytes, response.statusCode(), response.body().length, startNanos, event);
+	}
+
+	private static void record(Endpoint endpoint, Credentials credentials, long requestBytes, int statusCode,
+			long responseBytes, long startNanos, RequestEvent event) {
+		record(endpoint, credentials, requestBytes, statusCode, responseBytes, startNanos, System.nanoTime(), event);
+	}
+
+	private static void record(Endpoint endpoint, Credentials credentials, long requestBytes, int statusCode,
+			long responseBytes, long startNanos, long endNanos, RequestEvent event) {
+		long latencyNanos = endNanos - startNanos;
+		latencies.record(endpoint, statusCode, latencyNanos);
+		if (event != null) {
+			event.finish(endpoint, credentials.name(), statusCode, requestBytes, responseBytes, latencyNanos);
 		}
-		
-		
+	}
+
+	// Counts the bytes of a streamed body as the decoder pulls them, and when it last got any or hit the end
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long count;
+		// Until the decoder reads anything, when the body arrived
+		private long lastReadNanos = System.nanoTime();
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			lastReadNanos = System.nanoTime();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			lastReadNanos = System.nanoTime();
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		// The end of the download once the decoder is through it
+		long getLastReadNanos() {
+			return lastReadNanos;
+		}
+
+	}
+
+	// A body that doesn't decode fails the future, the caller sees it as an error rather than a null DTO
+	private static <T> Decoded<T> decode(HttpResponse<byte[]> response, ObjectReader reader) {
+		try {
+			return DtoCodec.decode(response.statusCode(), response.body(), reader);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Decodes straight from the response bytes with the shared readers in DtoCodec,
+	// 200/201 give the DTO for the given reader and anything else gives the ErrorDTO.
+	// Rest Assured keeps the bytes, so tests can still read the body afterwards.
+	// Nothing is decoded until the test asks for the body.
+	private static <T> ApiResult<T> result(Response response, ObjectReader reader) {
+		return new ApiResult<>(response, () -> decoded(response, reader));
+	}
+
+	private static <T> Decoded<T> decoded(Response response, ObjectReader reader) {
+		int statusCode = response.getStatusCode();
+		try {
+			return DtoCodec.<T>decode(statusCode, response.asByteArray(), reader);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return new Decoded<>(statusCode, null, null);
+		}
+	}
+
+	private static ApiResult<List<OrderDTO>> ordersResult(Response response) {
+		return new ApiResult<>(response, () -> {
+			int statusCode = response.getStatusCode();
+			try {
+				return DtoCodec.decodeOrders(statusCode, response.asByteArray());
+			} catch (Exception e) {
+				e.printStackTrace();
+				return new Decoded<>(statusCode, null, null);
+			}
+		});
 	}
 	
-	// Response in assignment example is returning only new ID and userID, from that response I will populate my DTO > populateDto(response, "orderById");
+	// Response in assignment example is returning only new ID and userID, from that response I will populate my DTO
 	// Manualy using setters I will populate rest of the values
-	private static void populateDto(Response response, double totalAmount, String status) {
-		if(response.getStatusCode() == 200 || response.getStatusCode() == 201) {
-			populateDto(response, "orderById");
-			order.setTotalAmount(totalAmount);
-			order.setStatus(status);
-		} else {
-			populateDto(response, "error");
-		}
+	private static ApiResult<OrderDTO> placedOrder(Response response, double totalAmount, String status) {
+		return new ApiResult<>(response, () -> {
+			Decoded<OrderDTO> decoded = decoded(response, DtoCodec.ORDER);
+			if (decoded.isSuccess() && decoded.getValue() != null) {
+				decoded.getValue().setTotalAmount(totalAmount);
+				decoded.getValue().setStatus(status);
+			}
+			return decoded;
+		});
 	}
 	
-	// Assignment example is returning only ID of new user, from response I will populate my DTO with ID > populateDto(response, "user");
+	// Assignment example is returning only ID of new user, from response I will populate my DTO with ID
 	// Manualy using setters I will populate rest of the values
-	private static void populateDto(Response response, String name, String email, String status) {
-		
-		if(response.getStatusCode() == 200 || response.getStatusCode() == 201) {
-			populateDto(response, "user");
-			user.setName(name);
-			user.setEmail(email);
-			user.setStatus(status);
-		} else {
-			populateDto(response, "error");
-		}
-		
+	private static ApiResult<UserDTO> createdUser(Response response, String name, String email, String status) {
+		return new ApiResult<>(response, () -> {
+			Decoded<UserDTO> decoded = decoded(response, DtoCodec.USER);
+			if (decoded.isSuccess() && decoded.getValue() != null) {
+				decoded.getValue().setName(name);
+				decoded.getValue().setEmail(email);
+				decoded.getValue().setStatus(status);
+			}
+			return decoded;
+		});
 	}
 	
 	private void createMockData() {
@@ -0,0 +1,173 @@
+package api.tests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import config.Config;
+import config.ConfigWatcher;
+
+public class ConfigTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+	private final ThreadLocal<Path> directory = new ThreadLocal<>();
+
+	@BeforeMethod
+	public void setup() throws IOException {
+		directory.set(Files.createTempDirectory("axiom-config"));
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.list(directory.get())) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory.get());
+		directory.remove();
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that environment variables override the file and system properties override both.")
+	public void overridesAreLayered() {
+		Properties file = properties("baseUrl=http://file", "username=fileUser", "password=filePassword");
+		Properties system = properties("axiom.baseUrl=http://system");
+		Map<String, String> environment = new HashMap<>();
+		environment.put("AXIOM_BASE_URL", "http://environment");
+		environment.put("AXIOM_USERNAME", "environmentUser");
+
+		Config config = Config.of(file, system, environment);
+
+		sa.assertEquals(config.getBaseUrl(), "http://system");
+		sa.assertEquals(config.getUsername(), "environmentUser");
+		sa.assertEquals(config.getPassword(), "filePassword");
+		sa.assertNull(config.getIncorectPassword());
+		sa.assertFalse(config.toString().contains("filePassword"), "Passwords must not be printed");
+	}
+
+	@Test(description = "Verify that stress settings are typed, default when missing and fail the load when invalid.")
+	public void stressSettingsAreTyped() {
+		Config defaults = Config.of(new Properties(), new Properties(), Collections.emptyMap());
+		sa.assertEquals(defaults.getStressUsers(), 20);
+		sa.assertEquals(defaults.getStressRate(), 100.0);
+		sa.assertEquals(defaults.getStressDuration(), Duration.ofSeconds(5));
+		sa.assertEquals(defaults.getWorkers(), 2);
+		sa.assertTrue(defaults.isLaunchWorkers());
+		sa.assertEquals(defaults.getReportInterval(), Duration.ofSeconds(1));
+		sa.assertEquals(defaults.getWorkloadMix().get("getUserById"), Integer.valueOf(40));
+		sa.assertEquals(defaults.getThinkTime(), Duration.ZERO);
+		sa.assertEquals(defaults.getCorpusSize(), 100_000);
+		sa.assertEquals(defaults.getCorpusSeed(), 42L);
+		sa.assertEquals(defaults.getValidationSampleRate(), 1.0);
+		sa.assertEquals(defaults.getIntervalReport(), Duration.ofSeconds(10));
+		sa.assertEquals(defaults.getHistogramLogDirectory(), "target/histogram-logs");
+		sa.assertEquals(defaults.getSoakDuration(), defaults.getStressDuration());
+		sa.assertEquals(defaults.getSoakHeapBudgetMb(), 64L);
+		sa.assertEquals(Config.of(properties("soakMinutes=240"), new Properties(), Collections.emptyMap()).getSoakDuration(),
+				Duration.ofHours(4));
+		sa.assertEquals(defaults.getGeneratorMaxLag(), Duration.ofMillis(50));
+		sa.assertEquals(defaults.getGeneratorMaxQueueDepth(), 100);
+		sa.assertEquals(defaults.getGeneratorMaxCpu(), 0.9);
+		sa.assertEquals(defaults.getGeneratorMaxGcShare(), 0.1);
+		sa.assertEquals(defaults.getBackpressureMaxRate(), 1000.0);
+		sa.assertEquals(defaults.getBackpressureMaxRetries(), 3);
+		sa.assertEquals(defaults.getBackpressureMaxWait(), Duration.ofSeconds(1));
+		sa.assertEquals(defaults.getBackpressureBreakerFailures(), 10);
+		sa.assertEquals(defaults.getBackpressureCooldown(), Duration.ofSeconds(2));
+		sa.assertTrue(defaults.isRequestEvents());
+		sa.assertEquals(defaults.getJfrFile(), "");
+		sa.assertFalse(Config.of(properties("requestEvents=false"), new Properties(), Collections.emptyMap()).isRequestEvents());
+		sa.assertEquals(Config.of(properties("workloadMix=updateOrder=1, getUserById=9"), new Properties(), Collections.emptyMap())
+				.getWorkloadMix().keySet().toString(), "[updateOrder, getUserById]");
+
+		Config configured = Config.of(properties("stressUsers=50", "stressRate=12.5", "stressDurationSeconds=600"),
+				new Properties(), Collections.emptyMap());
+		sa.assertEquals(configured.getStressUsers(), 50);
+		sa.assertEquals(configured.getStressRate(), 12.5);
+		sa.assertEquals(configured.getStressDuration(), Duration.ofMinutes(10));
+
+		sa.assertTrue(failsToLoad(properties("stressRate=fast")), "A rate that isn't a number must fail the load");
+		sa.assertTrue(failsToLoad(properties("stressUsers=0")), "Zero users must fail the load");
+		sa.assertTrue(failsToLoad(properties("warmupSeconds=20", "warmupMaxSeconds=10")), "Warm-up longer than its maximum must fail the load");
+		sa.assertTrue(failsToLoad(properties("steadyStateWindows=1")), "Steady state needs at least two windows to compare");
+		sa.assertTrue(failsToLoad(properties("capacityStartRate=100", "capacityMaxRate=50")), "Capacity search can't start above its maximum");
+		sa.assertTrue(failsToLoad(properties("workers=0")), "A distributed run needs at least one worker");
+		sa.assertTrue(failsToLoad(properties("workloadMix=getUserById=40,placeOrder")), "Every operation in the mix needs a weight");
+		sa.assertTrue(failsToLoad(properties("workloadMix=getUserById=0")), "Weights must be positive");
+		sa.assertTrue(failsToLoad(properties("corpusSize=0")), "A corpus needs at least one body");
+		sa.assertTrue(failsToLoad(properties("validationSampleRate=0")), "Validation must check some responses");
+		sa.assertTrue(failsToLoad(properties("intervalReportSeconds=0")), "Interval reports need an interval");
+		sa.assertTrue(failsToLoad(properties("soakHeapBudgetMb=0")), "A soak run needs a heap budget");
+		sa.assertTrue(failsToLoad(properties("generatorMaxCpu=1.5")), "CPU is a share of all cores");
+		sa.assertTrue(failsToLoad(properties("backpressureBreakerFailures=0")), "The circuit needs a failure to open on");
+	}
+
+	@Test(description = "Verify that editing the file swaps in a new snapshot and a broken edit keeps the previous one.")
+	public void watcherReloadsFile() throws Exception {
+		Path file = directory.get().resolve("application.properties");
+		write(file, "username=before\nstressRate=10\n");
+		AtomicReference<Config> current = new AtomicReference<>(Config.load(file, new Properties(), Collections.emptyMap()));
+
+		ConfigWatcher watcher = new ConfigWatcher(file, current).start();
+		try {
+			write(file, "username=after\nstressRate=20\n");
+			sa.assertTrue(awaitRate(current, 20), "Reload was not picked up");
+			sa.assertEquals(current.get().getUsername(), "after");
+
+			Config beforeBrokenEdit = current.get();
+			write(file, "username=broken\nstressRate=fast\n");
+			Thread.sleep(1000);
+			sa.assertSame(current.get(), beforeBrokenEdit);
+		} finally {
+			watcher.close();
+		}
+	}
+
+	private static boolean failsToLoad(Properties file) {
+		try {
+			Config.of(file, new Properties(), Collections.emptyMap());
+			return false;
+		} catch (IllegalArgumentException e) {
+			return true;
+		}
+	}
+
+	private static boolean awaitRate(AtomicReference<Config> current, double rate) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (System.nanoTime() - deadline < 0) {
+			if (current.get().getStressRate() == rate) {
+				return true;
+			}
+			Thread.sleep(20);
+		}
+		return false;
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	private static Properties properties(String... entries) {
+		Properties properties = new Properties();
+		for (String entry : entries) {
+			int separator = entry.indexOf('=');
+			properties.setProperty(entry.substring(0, separator), entry.substring(separator + 1));
+		}
+		return properties;
+	}
+
+}
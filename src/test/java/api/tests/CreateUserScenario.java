@@ -0,0 +1,18 @@
+package api.tests;
+
+import java.util.Map;
+
+import distributed.Scenario;
+import load.Operation;
+
+// User creation as run by each worker JVM of a distributed stress test. The coordinator passes its baseUrl along
+// (axiom.baseUrl), so all workers load the same service, and the iteration keeps the emails unique across workers.
+public class CreateUserScenario extends BaseApiTest implements Scenario {
+
+	@Override
+	public Operation prepare(Map<String, String> parameters) {
+		startProcess("https://user-service");
+		return i -> createUser("Jane Roe" + i, "jane.roe" + i + "@example.com", "active").statusCode();
+	}
+
+}
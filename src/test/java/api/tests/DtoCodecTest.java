@@ -0,0 +1,188 @@
+package api.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import codec.Decoded;
+import codec.DtoCodec;
+import codec.OrderStream;
+import dto.OrderDTO;
+import dto.UserDTO;
+
+public class DtoCodecTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+
+	@AfterMethod
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that a 200/201 body is decoded into the expected DTO.")
+	public void decodesSuccessBody() throws IOException {
+		Decoded<UserDTO> decoded = DtoCodec.decode(200,
+				body("{\"id\":123,\"name\":\"李四\",\"email\":\"li.si@example.com\",\"status\":\"active\"}"), DtoCodec.USER);
+
+		sa.assertTrue(decoded.isSuccess());
+		sa.assertNull(decoded.getError());
+		sa.assertEquals(decoded.getValue().getId(), 123);
+		sa.assertEquals(decoded.getValue().getName(), "李四");
+	}
+
+	@Test(description = "Verify that any other status code is decoded into an ErrorDTO.")
+	public void decodesErrorBody() throws IOException {
+		Decoded<OrderDTO> decoded = DtoCodec.decode(404, body("{\"errorMessage\":\"Order Not Found\"}"), DtoCodec.ORDER);
+
+		sa.assertFalse(decoded.isSuccess());
+		sa.assertNull(decoded.getValue());
+		sa.assertEquals(decoded.getError().getErrorMessage(), "Order Not Found");
+	}
+
+	@Test(description = "Verify that only the orders are kept from a GET /users/{id}/orders body.")
+	public void decodesUserOrders() throws IOException {
+		Decoded<List<OrderDTO>> decoded = DtoCodec.decodeOrders(200, body("{\"id\":123,\"orders\":["
+				+ "{\"id\":456,\"userId\":123,\"totalAmount\":576.23,\"status\":\"pending\"},"
+				+ "{\"id\":457,\"userId\":123,\"totalAmount\":10,\"status\":\"shipped\"}]}"));
+
+		sa.assertEquals(decoded.getValue().size(), 2);
+		sa.assertEquals(decoded.getValue().get(0).getTotalAmount(), 576.23);
+		sa.assertEquals(decoded.getValue().get(1).getStatus(), "shipped");
+	}
+
+	@Test(description = "Verify that fields the DTOs don't know about are ignored instead of failing the decode.")
+	public void ignoresUnknownFields() throws IOException {
+		Decoded<OrderDTO> decoded = DtoCodec.decode(201,
+				body("{\"id\":1000,\"userId\":123,\"createdAt\":\"2024-05-14\",\"totalAmount\":1.5,\"status\":\"pending\"}"),
+				DtoCodec.ORDER);
+
+		sa.assertEquals(decoded.getValue().getId(), 1000);
+		sa.assertEquals(decoded.getValue().getTotalAmount(), 1.5);
+	}
+
+	@Test(description = "Verify that streamed orders come one at a time, before the body is fully read, with the user fields on either side of them.")
+	public void streamsUserOrders() throws IOException {
+		int count = 200_000;
+		GeneratedOrders body = new GeneratedOrders(count);
+		long[] readWhenFirstDecoded = { -1 };
+		long[] ids = { 0 };
+		long[] cents = { 0 };
+
+		Decoded<OrderStream> decoded = DtoCodec.streamOrders(200, body);
+		try (OrderStream orders = decoded.getValue()) {
+			sa.assertEquals(orders.getUser().getName(), "李四", "Fields before the orders are there right away");
+			long streamed = orders.forEachRemainingOrder(order -> {
+				if (readWhenFirstDecoded[0] < 0) {
+					readWhenFirstDecoded[0] = body.served;
+				}
+				ids[0] += order.getId();
+				cents[0] += Math.round(order.getTotalAmount() * 100);
+			});
+			sa.assertEquals(streamed, count);
+			sa.assertEquals(orders.getUser().getId(), 123);
+			sa.assertEquals(orders.getUser().getEmail(), "li.si@example.com", "Fields after the orders are there at the end");
+			sa.assertNull(orders.getUser().getOrders());
+		}
+		sa.assertEquals(ids[0], (long) count * (count - 1) / 2);
+		sa.assertEquals(cents[0], (long) count * 1999);
+		sa.assertTrue(readWhenFirstDecoded[0] < 64 * 1024, "First order decoded after reading " + readWhenFirstDecoded[0]
+				+ " of " + body.served + " bytes");
+		sa.assertTrue(body.closed, "Closing the stream closes the body");
+	}
+
+	@Test(description = "Verify that streaming gives the same orders as decoding the whole body, and the ErrorDTO for other status codes.")
+	public void streamMatchesFullDecode() throws IOException {
+		String json = "{\"id\":123,\"orders\":[{\"id\":456,\"userId\":123,\"totalAmount\":576.23,\"status\":\"pending\"},"
+				+ "{\"id\":457,\"userId\":123,\"totalAmount\":10,\"status\":\"shipped\",\"items\":[1,{\"a\":[]}]}]}";
+		List<OrderDTO> full = DtoCodec.decodeOrders(200, body(json)).getValue();
+		List<OrderDTO> streamed = new ArrayList<>();
+		try (OrderStream orders = DtoCodec.streamOrders(200, body(json)).getValue()) {
+			orders.forEachRemaining(streamed::add);
+		}
+		sa.assertEquals(streamed.size(), full.size());
+		for (int i = 0; i < full.size(); i++) {
+			sa.assertEquals(streamed.get(i).getId(), full.get(i).getId());
+			sa.assertEquals(streamed.get(i).getTotalAmount(), full.get(i).getTotalAmount());
+			sa.assertEquals(streamed.get(i).getStatus(), full.get(i).getStatus());
+		}
+
+		try (OrderStream orders = DtoCodec.streamOrders(200, body("{\"id\":5,\"orders\":null}")).getValue()) {
+			sa.assertFalse(orders.hasNext(), "A user without orders streams none");
+			sa.assertEquals(orders.getUser().getId(), 5);
+		}
+		Decoded<OrderStream> error = DtoCodec.streamOrders(404, body("{\"errorMessage\":\"User Not Found\"}"));
+		sa.assertNull(error.getValue());
+		sa.assertEquals(error.getError().getErrorMessage(), "User Not Found");
+	}
+
+	@Test(description = "Verify that a body cut off in the middle of the orders fails the stream instead of ending it quietly.")
+	public void truncatedStreamFails() throws IOException {
+		try (OrderStream orders = DtoCodec.streamOrders(200,
+				body("{\"id\":123,\"orders\":[{\"id\":456,\"userId\":123,\"totalAmount\":1,\"status\":\"pending\"},{\"id\":4")).getValue()) {
+			sa.assertEquals(orders.next().getId(), 456);
+			orders.next();
+			sa.fail("A truncated order must not decode");
+		} catch (UncheckedIOException e) {
+			sa.assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	private static InputStream body(String json) {
+		return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// A user with 'count' orders, written as it is read so the whole body never exists in memory
+	private static final class GeneratedOrders extends InputStream {
+
+		private final int count;
+		private byte[] chunk = "{\"name\":\"李四\",\"id\":123,\"orders\":[".getBytes(StandardCharsets.UTF_8);
+		private int position;
+		private int next;
+		private long served;
+		private boolean closed;
+
+		GeneratedOrders(int count) {
+			this.count = count;
+		}
+
+		@Override
+		public int read() {
+			byte[] one = new byte[1];
+			return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) {
+			if (position == chunk.length) {
+				if (next > count) {
+					return -1;
+				}
+				String json = next == count ? "],\"email\":\"li.si@example.com\",\"status\":\"active\"}"
+						: (next == 0 ? "" : ",") + "{\"id\":" + next + ",\"userId\":123,\"totalAmount\":19.99,\"status\":\"pending\"}";
+				chunk = json.getBytes(StandardCharsets.UTF_8);
+				position = 0;
+				next++;
+			}
+			int n = Math.min(length, chunk.length - position);
+			System.arraycopy(chunk, position, buffer, offset, n);
+			position += n;
+			served += n;
+			return n;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+	}
+
+}
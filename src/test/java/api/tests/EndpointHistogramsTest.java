@@ -0,0 +1,70 @@
+package api.tests;
+
+import java.lang.management.ManagementFactory;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import metrics.Endpoint;
+import metrics.EndpointHistograms;
+import metrics.LatencySummary;
+
+public class EndpointHistogramsTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+
+	@AfterMethod
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that latencies are kept apart per endpoint and status code and that percentiles are reported in milliseconds.")
+	public void recordsPerEndpointAndStatus() {
+		EndpointHistograms histograms = new EndpointHistograms();
+		for (int i = 1; i <= 1000; i++) {
+			histograms.record(Endpoint.CREATE_ORDER, 201, i * 1_000_000L);
+		}
+		histograms.record(Endpoint.CREATE_ORDER, 400, 5_000_000L);
+		histograms.record(Endpoint.GET_USER, 200, 2_000_000L);
+
+		LatencySummary created = histograms.summary(Endpoint.CREATE_ORDER, 201);
+		sa.assertEquals(created.getCount(), 1000);
+		sa.assertEquals(created.getP50Millis(), 500, 1);
+		sa.assertEquals(created.getP99Millis(), 990, 1);
+		sa.assertEquals(created.getP999Millis(), 999, 1);
+		sa.assertEquals(created.getMaxMillis(), 1000, 1);
+
+		sa.assertEquals(histograms.summary(Endpoint.CREATE_ORDER).getCount(), 1001);
+		sa.assertEquals(histograms.statusCodes(Endpoint.CREATE_ORDER).toString(), "[201, 400]");
+		sa.assertEquals(histograms.summary(Endpoint.GET_USER, 404).getCount(), 0);
+		sa.assertEquals(histograms.summary(Endpoint.UPDATE_ORDER).getCount(), 0);
+	}
+
+	@Test(description = "Verify that recording a latency doesn't allocate once the endpoint and status code have been seen.")
+	public void recordingIsAllocationFree() {
+		EndpointHistograms histograms = new EndpointHistograms();
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		for (int i = 0; i < 100_000; i++) {
+			histograms.record(Endpoint.GET_ORDER, 200, i * 1000L);
+		}
+
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 100_000; i++) {
+			histograms.record(Endpoint.GET_ORDER, 200, i * 1000L);
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		sa.assertTrue(allocated < 1024, "Recording allocated " + allocated + " bytes");
+	}
+
+	@Test(description = "Verify that latencies outside the trackable range are clamped instead of failing the request.")
+	public void clampsOutOfRangeValues() {
+		EndpointHistograms histograms = new EndpointHistograms();
+		histograms.record(Endpoint.GET_USER, 200, -5);
+		histograms.record(Endpoint.GET_USER, 200, Long.MAX_VALUE);
+		sa.assertEquals(histograms.summary(Endpoint.GET_USER, 200).getCount(), 2);
+	}
+
+}
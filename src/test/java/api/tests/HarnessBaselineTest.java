@@ -0,0 +1,99 @@
+package api.tests;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import api.tests.ApiTransport.Credentials;
+import config.Config;
+import config.PropertiesFile;
+import load.ClosedModelRunner;
+import load.LoadResult;
+
+//Load runs against the in-process reference server. It answers in microseconds, so whatever throughput and latency
+//we measure here is the ceiling and floor of the harness itself, to be kept in mind when reading real service numbers.
+//Measurements, run serially after the parallel functional tests so they don't compete for the CPU
+@Test(groups = "performance")
+public class HarnessBaselineTest extends BaseApiTest {
+
+	private SoftAssert sa;
+	private String baseUri;
+
+	@BeforeMethod(alwaysRun = true)
+	public void setup() {
+		startReferenceServer();
+		baseUri = getBaseUri();
+		sa = new SoftAssert();
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	@Test(description = "Measure the maximum throughput and latency floor of the BaseApiTest helpers against the reference server.")
+	public void harnessBaseline() {
+		LoadResult result = new ClosedModelRunner(stressUsers(), stressWarmup()).run("GET /users/{id} via BaseApiTest", 2000,
+				i -> getUserById(123).statusCode(), 200);
+
+		sa.assertEquals(result.getSuccesses(), 2000, "Some requests failed: " + result.getStatusCounts());
+		System.out.println(result);
+	}
+
+	//Order lookups through a pooled keep-alive transport and through one that opens a new connection for every request,
+	//the difference is what connection setup costs the order service under load
+	@Test(description = "Measure how much opening a new connection per request costs order lookups against the reference server.")
+	public void connectionSetupCost() {
+		Config config = PropertiesFile.current();
+		try (ApiTransport pooled = newTransport(config, false); ApiTransport perRequest = newTransport(config, true)) {
+			// both modes are warmed up before either is measured, otherwise the first one also pays for JIT compilation
+			for (int round = 0; round < 2; round++) {
+				for (ApiTransport transport : new ApiTransport[] { pooled, perRequest }) {
+					String name = "GET /orders/{id} " + (transport.isConnectionPerRequest() ? "new connection per request" : "pooled keep-alive");
+					LoadResult result = new ClosedModelRunner(stressUsers()).run(name, round == 0 ? 1000 : 2000,
+							i -> transport.given(Credentials.VALID).get("/orders/456").statusCode(), 200);
+					if (round == 1) {
+						sa.assertEquals(result.getSuccesses(), 2000, "Some requests failed: " + result.getStatusCounts());
+						System.out.println(result);
+					}
+				}
+			}
+		}
+	}
+
+	private ApiTransport newTransport(Config config, boolean connectionPerRequest) {
+		return new ApiTransport(baseUri, config.getUsername(), config.getPassword(), config.getIncorectPassword(),
+				config.getPoolSize(), config.getPoolIdleTimeout(), connectionPerRequest);
+	}
+
+	//Same load with a bare HttpURLConnection, the difference to harnessBaseline() is what Rest Assured and DTO decoding cost
+	@Test(description = "Measure the throughput and latency floor of a bare JDK client against the reference server.")
+	public void rawClientBaseline() {
+		String authorization = "Basic " + Base64.getEncoder().encodeToString(
+				(PropertiesFile.getUsername() + ":" + PropertiesFile.getPassword()).getBytes(StandardCharsets.UTF_8));
+
+		LoadResult result = new ClosedModelRunner(stressUsers(), stressWarmup()).run("GET /users/{id} via HttpURLConnection", 2000, i -> {
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUri + "/users/123").openConnection();
+			connection.setRequestProperty("Authorization", authorization);
+			int status = connection.getResponseCode();
+			byte[] drain = new byte[8192];
+			try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+				while (in.read(drain) != -1) {
+					// keep-alive needs the body fully read
+				}
+			}
+			return status;
+		}, 200);
+
+		sa.assertEquals(result.getSuccesses(), 2000, "Some requests failed: " + result.getStatusCounts());
+		System.out.println(result);
+	}
+
+}
@@ -0,0 +1,120 @@
+package api.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import metrics.Endpoint;
+import metrics.EndpointHistograms;
+import metrics.EndpointInterval;
+import metrics.IntervalReporter;
+
+public class IntervalReporterTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+	private final ThreadLocal<Path> directory = new ThreadLocal<>();
+
+	@BeforeMethod
+	public void setup() throws IOException {
+		directory.set(Files.createTempDirectory("axiom-intervals"));
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.list(directory.get())) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory.get());
+		directory.remove();
+		sa.assertAll();
+	}
+
+	private static void record(EndpointHistograms histograms, Endpoint endpoint, int statusCode, int count, long nanos) {
+		for (int i = 0; i < count; i++) {
+			histograms.record(endpoint, statusCode, nanos);
+		}
+	}
+
+	@Test(description = "Verify that each interval reports only the requests answered in it, per endpoint, with their error rate and percentiles.")
+	public void reportsEachIntervalPerEndpoint() throws IOException {
+		EndpointHistograms histograms = new EndpointHistograms();
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		record(histograms, Endpoint.GET_USER, 200, 50, 1_000_000);
+		try (IntervalReporter reporter = new IntervalReporter("mix", histograms,
+				new PrintStream(console, true, "UTF-8"), null)) {
+			record(histograms, Endpoint.GET_USER, 200, 90, 2_000_000);
+			record(histograms, Endpoint.GET_USER, 503, 10, 40_000_000);
+			record(histograms, Endpoint.CREATE_ORDER, 201, 20, 5_000_000);
+			List<EndpointInterval> first = reporter.report();
+
+			sa.assertEquals(first.size(), 2, first.toString());
+			EndpointInterval users = first.get(0);
+			sa.assertEquals(users.getEndpoint(), Endpoint.GET_USER);
+			sa.assertEquals(users.getRequests(), 100, "Requests before the reporter started don't count");
+			sa.assertEquals(users.getErrors(), 10);
+			sa.assertEquals(users.getErrorRate(), 0.1);
+			sa.assertEquals(users.getSummary().getP50Millis(), 2, 0.01);
+			sa.assertEquals(users.getSummary().getMaxMillis(), 40, 0.05);
+			sa.assertEquals(users.getStatusCounts().toString(), "{200=90, 503=10}");
+			sa.assertEquals(first.get(1).getEndpoint(), Endpoint.CREATE_ORDER);
+			sa.assertEquals(first.get(1).getErrorRate(), 0.0);
+
+			record(histograms, Endpoint.GET_USER, 200, 5, 3_000_000);
+			List<EndpointInterval> second = reporter.report();
+			sa.assertEquals(second.size(), 1, "Endpoints without requests in the interval are left out");
+			sa.assertEquals(second.get(0).getRequests(), 5);
+			sa.assertEquals(second.get(0).getSummary().getMaxMillis(), 3, 0.01);
+			sa.assertEquals(second.get(0).getStartNanos(), users.getEndNanos(), "Intervals follow each other");
+		}
+		String printed = console.toString("UTF-8");
+		sa.assertTrue(printed.contains("[mix]") && printed.contains("GET /users/{id}") && printed.contains("10.00% errors"),
+				printed);
+	}
+
+	@Test(description = "Verify that the histogram log holds one tagged interval histogram per endpoint that add up to what was recorded.")
+	public void writesHistogramLog() throws IOException {
+		EndpointHistograms histograms = new EndpointHistograms();
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		Path log = directory.get().resolve("run.hlog");
+		try (IntervalReporter reporter = new IntervalReporter("logged", histograms,
+				new PrintStream(console, true, "UTF-8"), log).start(Duration.ofHours(1))) {
+			record(histograms, Endpoint.GET_ORDER, 200, 30, 1_000_000);
+			reporter.report();
+			record(histograms, Endpoint.GET_ORDER, 404, 7, 1_000_000);
+			record(histograms, Endpoint.UPDATE_USER, 200, 3, 8_000_000);
+		}
+
+		Map<String, Long> counts = new HashMap<>();
+		int intervals = 0;
+		HistogramLogReader reader = new HistogramLogReader(log.toFile());
+		for (EncodableHistogram histogram = reader.nextIntervalHistogram(); histogram != null; histogram = reader
+				.nextIntervalHistogram()) {
+			intervals++;
+			counts.merge(histogram.getTag(), ((Histogram) histogram).getTotalCount(), Long::sum);
+		}
+		reader.close();
+		sa.assertEquals(intervals, 3, "One per endpoint and interval, the last one written on close");
+		sa.assertEquals(counts.get("GET_ORDER"), Long.valueOf(37));
+		sa.assertEquals(counts.get("UPDATE_USER"), Long.valueOf(3));
+		sa.assertTrue(new String(Files.readAllBytes(log), StandardCharsets.UTF_8).startsWith("#Interval latencies of logged"));
+	}
+
+}
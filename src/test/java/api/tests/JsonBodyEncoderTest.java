@@ -0,0 +1,76 @@
+package api.tests;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import codec.DtoCodec;
+import codec.JsonBodyEncoder;
+import dto.OrderDTO;
+import dto.UserDTO;
+
+public class JsonBodyEncoderTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+
+	@AfterMethod
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that user bodies are compact UTF-8 JSON with the same fields the hand-built bodies had.")
+	public void encodesUser() {
+		byte[] body = JsonBodyEncoder.user("李四", "li.si@example.com", "active");
+
+		sa.assertEquals(new String(body, StandardCharsets.UTF_8),
+				"{\"name\":\"李四\",\"email\":\"li.si@example.com\",\"status\":\"active\"}");
+	}
+
+	@Test(description = "Verify that quotes, backslashes, control characters and surrogates survive a round trip through Jackson.")
+	public void escapesStrings() throws IOException {
+		String name = "Jane \"JD\" Doe \\ \n\t\u0001 😀 \uD800";
+		UserDTO decoded = DtoCodec.USER.readValue(JsonBodyEncoder.user(name, null, "inactive"));
+
+		sa.assertEquals(decoded.getName(), name);
+		sa.assertNull(decoded.getEmail());
+		sa.assertEquals(decoded.getStatus(), "inactive");
+	}
+
+	@Test(description = "Verify that order amounts are written as JSON numbers that read back to the same double.")
+	public void encodesOrderAmounts() throws IOException {
+		sa.assertEquals(new String(JsonBodyEncoder.order(123, 576.23, "pending"), StandardCharsets.UTF_8),
+				"{\"userId\":123,\"totalAmount\":576.23,\"status\":\"pending\"}");
+		sa.assertEquals(new String(JsonBodyEncoder.order(-1, -0.5, "pending"), StandardCharsets.UTF_8),
+				"{\"userId\":-1,\"totalAmount\":-0.5,\"status\":\"pending\"}");
+
+		for (double amount : new double[] { 0, 100, 0.05, 19.99, 1e-7, 1234567.891, 1e20, Double.MAX_VALUE }) {
+			OrderDTO decoded = DtoCodec.ORDER.readValue(JsonBodyEncoder.order(Integer.MIN_VALUE, amount, "shipped"));
+			sa.assertEquals(decoded.getTotalAmount(), amount, "Amount " + amount);
+			sa.assertEquals(decoded.getUserId(), Integer.MIN_VALUE);
+		}
+	}
+
+	@Test(description = "Verify that once the thread's buffer is warm, the only allocation per body is the body itself.")
+	public void reusesThreadBuffer() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		int bodySize = 0;
+		for (int i = 0; i < 100_000; i++) {
+			bodySize = JsonBodyEncoder.order(123, 576.23, "pending").length;
+		}
+
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 100_000; i++) {
+			JsonBodyEncoder.order(123, 576.23, "pending");
+		}
+		long perBody = (threads.getThreadAllocatedBytes(threadId) - before) / 100_000;
+
+		// array header plus padding on top of the payload
+		sa.assertTrue(perBody <= bodySize + 24, "Encoding allocated " + perBody + " bytes per " + bodySize + " byte body");
+	}
+
+}
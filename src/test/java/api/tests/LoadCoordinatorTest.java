@@ -0,0 +1,114 @@
+package api.tests;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import distributed.LoadCoordinator;
+import distributed.Scenario;
+import load.LoadResult;
+import load.LoadSnapshot;
+import load.Operation;
+import load.Warmup;
+
+//Starts real worker JVMs on this machine, the operation is simulated so no service is needed
+@Test(groups = "performance")
+public class LoadCoordinatorTest {
+
+	private SoftAssert sa;
+
+	@BeforeMethod(alwaysRun = true)
+	public void setup() {
+		sa = new SoftAssert();
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	//Answers with 200 + the slice of the iteration range the request came from, so each worker shows up as its own status code
+	public static class SliceScenario implements Scenario {
+
+		@Override
+		public Operation prepare(Map<String, String> parameters) {
+			int slice = Integer.MAX_VALUE / Integer.parseInt(parameters.get("workers"));
+			return i -> {
+				Thread.sleep(1);
+				return 200 + i / slice;
+			};
+		}
+
+	}
+
+	@Test(description = "Verify that the coordinator splits the rate and iteration range over worker processes and merges their histograms and counters without losing a request.")
+	public void mergesWorkerProcesses() {
+		List<LoadSnapshot> intervals = new CopyOnWriteArrayList<>();
+		LoadResult result = new LoadCoordinator(3, 0, true, Duration.ofMillis(500), Warmup.NONE).run("simulated", SliceScenario.class,
+				Collections.singletonMap("workers", "3"), 300, Duration.ofSeconds(2), 4, 200, intervals::add);
+		System.out.println(result);
+
+		sa.assertEquals(result.getRequests(), 600);
+		sa.assertEquals(result.getStatusCounts().get(200), Long.valueOf(200));
+		sa.assertEquals(result.getStatusCounts().get(201), Long.valueOf(200));
+		sa.assertEquals(result.getStatusCounts().get(202), Long.valueOf(200));
+		sa.assertEquals(result.getSuccesses(), 200);
+		sa.assertEquals(result.getResponseTime().getTotalCount(), 600);
+		sa.assertEquals(result.getConcurrency(), 12);
+		sa.assertTrue(result.getGenerator().isMeasured(), "The workers' generator health is missing");
+		sa.assertTrue(result.getElapsedMillis() >= 1990 && result.getElapsedMillis() < 4000, "Elapsed " + result.getElapsedMillis() + "ms");
+
+		sa.assertTrue(intervals.size() >= 4, "Intervals " + intervals.size());
+		LoadSnapshot total = LoadSnapshot.merge(intervals);
+		sa.assertEquals(total.getRequests(), result.getRequests());
+		sa.assertEquals(total.getResponseTime(), result.getResponseTime());
+	}
+
+	//With a steady-state warm-up each worker would start measuring whenever its own windows agreed. Every merged interval
+	//but the leftover at the end must hold each worker's 50 requests of the same half second.
+	@Test(description = "Verify that distributed workers start together and measure the same periods, so each merged interval holds an equal share from every worker.")
+	public void alignsWorkerIntervals() {
+		List<LoadSnapshot> intervals = new CopyOnWriteArrayList<>();
+		Warmup warmup = new Warmup(Duration.ofMillis(200), Duration.ofMillis(600), Duration.ofMillis(100), 2, 0.5);
+		LoadResult result = new LoadCoordinator(2, 0, true, Duration.ofMillis(500), warmup).run("simulated",
+				SliceScenario.class, Collections.singletonMap("workers", "2"), 200, Duration.ofSeconds(2), 4, 200,
+				intervals::add);
+		System.out.println(result);
+
+		sa.assertEquals(result.getWarmupMillis(), 600, 100);
+		sa.assertTrue(intervals.size() >= 4, "Intervals " + intervals.size());
+		for (LoadSnapshot interval : intervals.subList(0, intervals.size() - 1)) {
+			long first = interval.getStatusCounts().getOrDefault(200, 0L);
+			long second = interval.getStatusCounts().getOrDefault(201, 0L);
+			sa.assertTrue(Math.abs(first - second) <= 10, "Workers out of step: " + interval.getStatusCounts());
+		}
+	}
+
+	@Test(description = "Verify that a worker that cannot load its scenario fails the run with the worker's reason.")
+	public void reportsWorkerFailure() {
+		try {
+			new LoadCoordinator(1, 0, true, Duration.ofMillis(500), Warmup.NONE).run("simulated", BrokenScenario.class,
+					Collections.emptyMap(), 10, Duration.ofSeconds(1), 1, 200, null);
+			sa.fail("The run should have failed");
+		} catch (IllegalStateException e) {
+			sa.assertTrue(e.getMessage().contains("no scenario here"), e.getMessage());
+		}
+	}
+
+	public static class BrokenScenario implements Scenario {
+
+		@Override
+		public Operation prepare(Map<String, String> parameters) {
+			throw new IllegalStateException("no scenario here");
+		}
+
+	}
+
+}
@@ -0,0 +1,522 @@
+package api.tests;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import load.AdaptiveThrottle;
+import load.AsyncOpenModelRunner;
+import load.CapacityResult;
+import load.CapacitySearch;
+import load.CapacityStep;
+import load.GeneratorHealth;
+import load.GeneratorLimits;
+import load.ClosedModelRunner;
+import load.LoadResult;
+import load.LoadSnapshot;
+import load.OpenModelRunner;
+import load.Operation;
+import load.RequestShed;
+import load.SoakInterval;
+import load.SoakResult;
+import load.SoakRunner;
+import load.SteadyStateDetector;
+import load.Warmup;
+import load.WorkloadMix;
+import load.WorkloadMixResult;
+
+//Runner checks that don't need a service, operations are simulated with a short sleep
+//Timing-sensitive, run with the other performance tests after the parallel functional tests
+@Test(groups = "performance")
+public class LoadRunnerTest {
+
+	private SoftAssert sa;
+
+	@BeforeMethod(alwaysRun = true)
+	public void setup() {
+		sa = new SoftAssert();
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that the closed-model runner keeps all simulated users busy at the same time and sends exactly the requested number of requests.")
+	public void closedModelRunsUsersConcurrently() {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+
+		LoadResult result = new ClosedModelRunner(10).run("simulated", 200, i -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			Thread.sleep(5);
+			inFlight.decrementAndGet();
+			return 201;
+		}, 201);
+
+		sa.assertEquals(result.getRequests(), 200);
+		sa.assertEquals(result.getSuccesses(), 200);
+		sa.assertEquals(maxInFlight.get(), 10);
+		sa.assertTrue(result.getThroughput() > 0);
+	}
+
+	@Test(description = "Verify that unexpected status codes and exceptions are reported separately from successful requests.")
+	public void closedModelCountsFailuresAndErrors() {
+		LoadResult result = new ClosedModelRunner(4).run("simulated", 90, i -> {
+			if (i % 3 == 0) {
+				throw new IllegalStateException("connection refused");
+			}
+			return i % 3 == 1 ? 201 : 500;
+		}, 201);
+
+		sa.assertEquals(result.getSuccesses(), 30);
+		sa.assertEquals(result.getFailures(), 30);
+		sa.assertEquals(result.getErrors(), 30);
+		sa.assertEquals(result.getStatusCounts().get(500), Long.valueOf(30));
+		sa.assertEquals(result.getFirstError().getMessage(), "connection refused");
+	}
+
+	@Test(description = "Verify that a time-boxed closed-model run stops sending once the duration is over.")
+	public void closedModelStopsAtDeadline() {
+		long start = System.currentTimeMillis();
+		LoadResult result = new ClosedModelRunner(5).runFor("simulated", Duration.ofMillis(300), i -> {
+			Thread.sleep(2);
+			return 200;
+		}, 200);
+		long took = System.currentTimeMillis() - start;
+
+		sa.assertTrue(result.getRequests() > 0);
+		sa.assertTrue(took < 2000, "Run took " + took + "ms");
+	}
+
+	@Test(description = "Verify that the open-model runner sends requests at the configured rate.")
+	public void openModelKeepsSchedule() {
+		LoadResult result = new OpenModelRunner(200, 10).run("simulated", Duration.ofSeconds(1), i -> {
+			Thread.sleep(1);
+			return 201;
+		}, 201);
+
+		sa.assertEquals(result.getRequests(), 200);
+		sa.assertEquals(result.getSuccesses(), 200);
+		sa.assertTrue(result.getElapsedMillis() >= 990 && result.getElapsedMillis() < 1500, "Elapsed " + result.getElapsedMillis() + "ms");
+	}
+
+	@Test(description = "Verify that the open-model runner reports interval snapshots that add up exactly to the final result.")
+	public void openModelReportsIntervals() {
+		List<LoadSnapshot> intervals = new CopyOnWriteArrayList<>();
+		LoadResult result = new OpenModelRunner(200, 10).run("simulated", Duration.ofMillis(1500), i -> {
+			Thread.sleep(1);
+			return i % 10 == 0 ? 500 : 201;
+		}, 201, Duration.ofMillis(500), intervals::add);
+
+		sa.assertTrue(intervals.size() >= 3 && intervals.size() <= 5, "Intervals " + intervals.size());
+		LoadSnapshot total = LoadSnapshot.merge(intervals);
+		sa.assertEquals(total.getRequests(), result.getRequests());
+		sa.assertEquals(total.getFailures(), 30);
+		sa.assertEquals(total.getStatusCounts(), result.getStatusCounts());
+		sa.assertEquals(total.getResponseTime(), result.getResponseTime());
+		for (int i = 1; i < intervals.size(); i++) {
+			sa.assertEquals(intervals.get(i).getStartNanos(), intervals.get(i - 1).getEndNanos());
+		}
+	}
+
+	//Two users at 20 ms each cover 100 of the 200 requests per second, the rest queue up in the harness
+	@Test(description = "Verify that the open-model runner measures its own schedule lag, queue, CPU and GC, and names the limits a run crossed.")
+	public void openModelReportsGeneratorHealth() {
+		GeneratorLimits limits = new GeneratorLimits(Duration.ofSeconds(1), 10, 1, 1);
+		LoadResult healthy = new OpenModelRunner(100, 10).run("simulated", Duration.ofMillis(500), i -> {
+			Thread.sleep(1);
+			return 201;
+		}, 201);
+		LoadResult queued = new OpenModelRunner(200, 2).run("simulated", Duration.ofSeconds(1), i -> {
+			Thread.sleep(20);
+			return 201;
+		}, 201);
+
+		sa.assertTrue(healthy.getGenerator().isMeasured());
+		sa.assertTrue(healthy.getGenerator().problems(limits).isEmpty(), healthy.getGenerator().toString());
+		sa.assertTrue(healthy.getGenerator().getCpu() >= 0, "CPU " + healthy.getGenerator().getCpu());
+		sa.assertTrue(queued.getGenerator().getMaxQueueDepth() > 50, queued.getGenerator().toString());
+		List<String> problems = queued.getGenerator().problems(limits);
+		sa.assertEquals(problems.size(), 1, problems.toString());
+		sa.assertTrue(problems.get(0).contains("waited for a free user"), problems.toString());
+		sa.assertTrue(queued.toString().contains("schedule lag"), queued.toString());
+		GeneratorHealth closed = new ClosedModelRunner(2).run("simulated", 10, i -> 201, 201).getGenerator();
+		sa.assertTrue(closed.isMeasured(), closed.toString());
+		sa.assertEquals(closed.getScheduleLagP99Millis(), -1.0);
+		sa.assertFalse(closed.toString().contains("schedule lag"), closed.toString());
+		sa.assertTrue(closed.problems(limits).isEmpty(), closed.toString());
+	}
+
+	//The one user is stuck on the first request for 500 ms while 5000 req/s are planned, the queue holds only MAX_QUEUED
+	@Test(description = "Verify that the open-model runner drops requests beyond its queue bound and reports them as missed.")
+	public void openModelReportsMissedRequests() {
+		LoadResult result = new OpenModelRunner(5000, 1).run("simulated", Duration.ofMillis(500), i -> {
+			if (i == 0) {
+				Thread.sleep(500);
+			}
+			return 201;
+		}, 201);
+
+		GeneratorHealth generator = result.getGenerator();
+		sa.assertTrue(generator.getMissed() > 500, generator.toString());
+		sa.assertTrue(generator.getMaxQueueDepth() <= OpenModelRunner.MAX_QUEUED, generator.toString());
+		sa.assertEquals(result.getRequests() + generator.getMissed(), 2500);
+		sa.assertTrue(generator.problems(new GeneratorLimits(Duration.ofSeconds(1), OpenModelRunner.MAX_QUEUED, 1, 1))
+				.stream().anyMatch(problem -> problem.contains("never sent")), generator.toString());
+	}
+
+	//The simulated service takes one request every 10 ms and answers 429 with Retry-After to anything sooner
+	@Test(description = "Verify that the adaptive throttle slows down to what a rate-limited service accepts and reports throttled and retried requests apart from errors.")
+	public void throttleBacksOffFromRateLimitedService() {
+		AdaptiveThrottle throttle = new AdaptiveThrottle("simulated", 400, 3, Duration.ofSeconds(1), 50, Duration.ofMillis(100));
+		long[] serviceNext = { System.nanoTime() };
+		LoadResult result = new ClosedModelRunner(4).runFor("simulated", Duration.ofMillis(1500), throttle.wrap((i, retryAfter) -> {
+			Thread.sleep(1);
+			synchronized (serviceNext) {
+				long now = System.nanoTime();
+				if (now - serviceNext[0] < 0) {
+					retryAfter.accept(Duration.ofMillis(20));
+					return AdaptiveThrottle.TOO_MANY_REQUESTS;
+				}
+				serviceNext[0] = now + TimeUnit.MILLISECONDS.toNanos(10);
+				return 201;
+			}
+		}), 201);
+
+		double accepted = result.getSuccesses() * 1e9 / result.getElapsedNanos();
+		sa.assertTrue(throttle.getThrottled() > 0, throttle.toString());
+		sa.assertTrue(throttle.getRetried() > 0, throttle.toString());
+		sa.assertTrue(throttle.getLowestRate() < 400, throttle.toString());
+		sa.assertEquals(throttle.getSent(), result.getRequests() + throttle.getRetried());
+		sa.assertEquals(result.getErrors(), 0L);
+		sa.assertTrue(accepted > 40 && accepted < 130, "Accepted " + accepted + " req/s, " + throttle);
+		sa.assertEquals(AdaptiveThrottle.parseRetryAfter("120"), Duration.ofMinutes(2));
+		sa.assertTrue(AdaptiveThrottle.parseRetryAfter("Wed, 21 Oct 2099 07:28:00 GMT").toDays() > 1000);
+		sa.assertEquals(AdaptiveThrottle.parseRetryAfter("soon"), Duration.ZERO);
+	}
+
+	//503 for the first 300 ms, then the service is back
+	@Test(description = "Verify that sustained 503s open the throttle's circuit, requests are shed rather than sent while it is open, and a probe closes it again.")
+	public void throttleOpensCircuitOnSustainedOverload() {
+		AdaptiveThrottle throttle = new AdaptiveThrottle("simulated", 200, 0, Duration.ofMillis(50), 5, Duration.ofMillis(200));
+		long start = System.nanoTime();
+		LoadResult result = new ClosedModelRunner(2).runFor("simulated", Duration.ofMillis(800), throttle.wrap((i, retryAfter) -> {
+			Thread.sleep(1);
+			return System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(300) ? AdaptiveThrottle.SERVICE_UNAVAILABLE : 201;
+		}), 201);
+
+		sa.assertTrue(throttle.getOpened() >= 1, throttle.toString());
+		sa.assertTrue(throttle.getShed() > 0, throttle.toString());
+		sa.assertFalse(throttle.isOpen(), throttle.toString());
+		sa.assertEquals(throttle.getSent(), result.getRequests());
+		sa.assertEquals(result.getStatusCounts().get(503), Long.valueOf(throttle.getThrottled()));
+		sa.assertTrue(result.getSuccesses() > 0);
+		sa.assertEquals(result.getErrors(), 0L);
+	}
+
+	//503 for the first 100 ms opens the circuit for longer than a request may wait, the users wait it out
+	@Test(description = "Verify that a fixed-count closed run still sends all its requests after the throttle's circuit opened, and its users wait out the cooldown instead of shedding in a loop.")
+	public void closedModelKeepsRequestCountWhileCircuitOpen() {
+		AdaptiveThrottle throttle = new AdaptiveThrottle("simulated", 200, 0, Duration.ofMillis(50), 3, Duration.ofMillis(300));
+		long start = System.nanoTime();
+		LoadResult result = new ClosedModelRunner(4).run("simulated", 100, throttle.wrap((i, retryAfter) -> {
+			Thread.sleep(1);
+			return System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100) ? AdaptiveThrottle.SERVICE_UNAVAILABLE : 201;
+		}), 201);
+
+		sa.assertEquals(result.getRequests(), 100L, throttle.toString());
+		sa.assertEquals(throttle.getSent(), result.getRequests());
+		sa.assertTrue(throttle.getOpened() >= 1, throttle.toString());
+		sa.assertTrue(result.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(300), result.toString());
+		sa.assertTrue(throttle.getShed() > 0 && throttle.getShed() <= 20, throttle.toString());
+		sa.assertTrue(result.getSuccesses() > 0);
+		sa.assertEquals(result.getErrors(), 0L);
+	}
+
+	//The 503 opens the circuit, so its retry can't go out and the 503 is the answer
+	@Test(description = "Verify that a retry the throttle sheds ends the request with the service's overload answer instead of dropping a request that was sent.")
+	public void throttleShedRetryKeepsOverloadAnswer() throws Exception {
+		AdaptiveThrottle throttle = new AdaptiveThrottle("simulated", 200, 1, Duration.ofMillis(10), 1, Duration.ofMillis(500));
+		Operation operation = throttle.wrap((i, retryAfter) -> AdaptiveThrottle.SERVICE_UNAVAILABLE);
+
+		sa.assertEquals(operation.execute(0), AdaptiveThrottle.SERVICE_UNAVAILABLE);
+		sa.assertEquals(throttle.getSent(), 1L);
+		sa.assertEquals(throttle.getShed(), 1L);
+		sa.assertEquals(throttle.getRetried(), 0L);
+		try {
+			operation.execute(1);
+			sa.fail("A first attempt shed by the open circuit should throw RequestShed");
+		} catch (RequestShed expected) {
+			sa.assertTrue(expected.getRetryAtNanos() - System.nanoTime() > TimeUnit.MILLISECONDS.toNanos(400),
+					"Retry at the end of the cooldown");
+		}
+		sa.assertEquals(throttle.getSent(), 1L);
+	}
+
+	//One 503 opens the circuit, the probe after the cooldown dies with an Error, the next probe gets through
+	@Test(description = "Verify that a probe that throws an Error reopens the throttle's circuit instead of holding it open for good.")
+	public void throttleProbeErrorReopensCircuit() throws Exception {
+		AdaptiveThrottle throttle = new AdaptiveThrottle("simulated", 200, 0, Duration.ofMillis(500), 1, Duration.ofMillis(50));
+		Operation operation = throttle.wrap((i, retryAfter) -> {
+			if (i == 1) {
+				throw new AssertionError("probe failed");
+			}
+			return i == 0 ? AdaptiveThrottle.SERVICE_UNAVAILABLE : 201;
+		});
+
+		sa.assertEquals(operation.execute(0), AdaptiveThrottle.SERVICE_UNAVAILABLE);
+		sa.assertTrue(throttle.isOpen(), throttle.toString());
+		try {
+			operation.execute(1);
+			sa.fail("The probe's Error should reach the caller");
+		} catch (AssertionError expected) {
+			sa.assertTrue(throttle.isOpen(), throttle.toString());
+		}
+		sa.assertEquals(operation.execute(2), 201);
+		sa.assertFalse(throttle.isOpen(), throttle.toString());
+		sa.assertEquals(throttle.getOpened(), 2);
+		sa.assertEquals(throttle.getShed(), 0L);
+	}
+
+	//Every exception message is different, so only the cap keeps the failure counts small
+	@Test(description = "Verify that a soak run keeps only its latest intervals, each with a resource sample, and caps the failures it keeps.")
+	public void soakKeepsBoundedIntervals() {
+		SoakResult result = new SoakRunner(new OpenModelRunner(200, 10), Duration.ofMillis(200), 3).run("simulated",
+				Duration.ofMillis(1500), i -> {
+					Thread.sleep(1);
+					if (i % 7 == 3) {
+						throw new IllegalStateException("timed out after " + i + "ms");
+					}
+					return i % 10 == 0 ? 500 : 201;
+				}, 201);
+
+		sa.assertEquals(result.getIntervals().size(), 3);
+		sa.assertTrue(result.getDroppedIntervals() >= 3, "Dropped " + result.getDroppedIntervals());
+		sa.assertTrue(result.getFirst().getEndNanos() < result.getIntervals().get(0).getStartNanos(),
+				"The first interval is kept apart from the latest ones");
+		long requests = result.getTotal().getRequests();
+		sa.assertEquals(result.getFailures().getTotal(), result.getTotal().getFailures() + result.getTotal().getErrors());
+		sa.assertEquals(result.getFailures().getCounts().size(), 21, result.getFailures().toString());
+		sa.assertTrue(result.getFailures().getCounts().containsKey("(other failures)"));
+		sa.assertEquals(result.getFailures().getExamples().size(), 10);
+		sa.assertTrue(requests >= 290, "Requests " + requests);
+		for (SoakInterval interval : result.getIntervals()) {
+			sa.assertTrue(interval.getResources().getHeapUsed() > 0);
+			sa.assertTrue(interval.getResources().getThreads() > 0);
+		}
+		sa.assertTrue(result.getMaxThreads() >= result.getLast().getResources().getThreads());
+	}
+
+	//Three simulated operations with their own expected status, the write fails on every seventh iteration
+	@Test(description = "Verify that a workload mix deals out requests by weight and reports each operation against its own expected status.")
+	public void workloadMixFollowsWeights() {
+		WorkloadMix mix = new WorkloadMix()
+				.add("read", 5, i -> 200, 200)
+				.add("write", 3, i -> i % 7 == 0 ? 500 : 201, 201)
+				.add("delete", 2, i -> 204, 204);
+		WorkloadMixResult result = mix.run("simulated", new OpenModelRunner(200, 4), Duration.ofSeconds(1));
+		System.out.println(result);
+
+		sa.assertEquals(result.getOperation("read").getRequests(), 100);
+		sa.assertEquals(result.getOperation("write").getRequests(), 60);
+		sa.assertEquals(result.getOperation("delete").getRequests(), 40);
+		sa.assertEquals(result.getOperation("read").getSuccesses(), 100);
+		sa.assertEquals(result.getOperation("delete").getSuccesses(), 40);
+		sa.assertTrue(result.getOperation("write").getFailures() > 0);
+		sa.assertEquals(result.getTotal().getRequests(), 200);
+		sa.assertEquals(result.getTotal().getFailures(), result.getOperation("write").getFailures());
+		sa.assertEquals(result.getTotal().getResponseTime().getTotalCount(), 200);
+		sa.assertEquals(result.getShare("read"), 0.5, 0.001);
+	}
+
+	//Two users that each think 30ms after a 1ms request manage at most about 65 req/s
+	@Test(description = "Verify that think time paces closed-model users without counting toward any request's latency.")
+	public void closedModelThinkTimePacesUsers() {
+		LoadResult result = new ClosedModelRunner(2, Warmup.NONE, Duration.ofMillis(30)).runFor("simulated",
+				Duration.ofSeconds(1), i -> {
+					Thread.sleep(1);
+					return 200;
+				}, 200);
+
+		sa.assertTrue(result.getRequests() >= 40 && result.getRequests() <= 70, "Requests " + result.getRequests());
+		sa.assertTrue(result.getResponseTimeMillis(99) < 20, "Response time p99 " + result.getResponseTimeMillis(99));
+	}
+
+	@Test(description = "Verify that a workload mix run by thinking closed-model users still deals out requests by weight.")
+	public void workloadMixRunsClosedModel() {
+		WorkloadMix mix = new WorkloadMix()
+				.add("read", 3, i -> 200, 200)
+				.add("write", 1, i -> 201, 201);
+		WorkloadMixResult result = mix.run("simulated", new ClosedModelRunner(4, Warmup.NONE, Duration.ofMillis(5)),
+				Duration.ofMillis(500));
+
+		sa.assertTrue(result.getTotal().getRequests() > 100, "Requests " + result.getTotal().getRequests());
+		sa.assertEquals(result.getTotal().getSuccesses(), result.getTotal().getRequests());
+		sa.assertEquals(result.getShare("read"), 0.75, 0.05);
+	}
+
+	//100 req/s for the first half second of schedule, then 300 req/s: about 50 + 150 requests in the second.
+	//The half second counts from the first request, the runner may start late when other tests keep the CPUs busy.
+	@Test(description = "Verify that an open-model runner given a rate supplier follows a new rate while it runs.")
+	public void openModelFollowsRateSupplier() {
+		AtomicLong first = new AtomicLong();
+		LoadResult result = new OpenModelRunner(
+				() -> first.get() == 0 || System.nanoTime() - first.get() < 500_000_000L ? 100 : 300, 4, Warmup.NONE)
+				.run("simulated", Duration.ofSeconds(1), i -> {
+					first.compareAndSet(0, System.nanoTime());
+					return 200;
+				}, 200);
+
+		sa.assertTrue(result.getRequests() >= 180 && result.getRequests() <= 220, "Requests " + result.getRequests());
+		sa.assertTrue(result.getElapsedMillis() < 1200, "Took " + result.getElapsedMillis() + "ms");
+	}
+
+	//A single 300ms stall on a one-thread generator delays every request planned during the stall.
+	//Service time only sees the one slow request, response time must show the whole backlog.
+	@Test(description = "Verify that open-model latency is measured from the planned send time, so a service stall shows up for every request that queued behind it.")
+	public void openModelCorrectsCoordinatedOmission() {
+		LoadResult result = new OpenModelRunner(100, 1).run("simulated", Duration.ofSeconds(1), i -> {
+			Thread.sleep(i == 10 ? 300 : 1);
+			return 200;
+		}, 200);
+
+		sa.assertEquals(result.getRequests(), 100);
+		sa.assertTrue(result.getServiceTimeMillis(90) < 50, "Service time p90 " + result.getServiceTimeMillis(90));
+		sa.assertTrue(result.getResponseTimeMillis(90) > 50, "Response time p90 " + result.getResponseTimeMillis(90));
+		sa.assertTrue(result.getResponseTime().getMaxValue() >= 290_000_000L);
+	}
+
+	//Every response takes 50ms and the issuing thread never waits, so at 400 req/s about 20 requests are outstanding at once
+	@Test(description = "Verify that the async open-model runner keeps many requests outstanding from one thread and counts every completion.")
+	public void asyncOpenModelKeepsRequestsOutstanding() {
+		LoadResult result = new AsyncOpenModelRunner(400).run("simulated", Duration.ofSeconds(1), i -> {
+			if (i % 10 == 0) {
+				return CompletableFuture.failedFuture(new IllegalStateException("connection refused"));
+			}
+			return CompletableFuture.supplyAsync(() -> 201, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+		}, 201);
+
+		sa.assertEquals(result.getRequests(), 400);
+		sa.assertEquals(result.getSuccesses(), 360);
+		sa.assertEquals(result.getErrors(), 40);
+		sa.assertTrue(result.getConcurrency() >= 10, "Outstanding " + result.getConcurrency());
+		sa.assertTrue(result.getServiceTimeMillis(50) >= 50, "Service time p50 " + result.getServiceTimeMillis(50));
+	}
+
+	@Test(description = "Verify that steady state needs every recent window to agree on throughput and latency.")
+	public void detectsSteadyState() {
+		SteadyStateDetector detector = new SteadyStateDetector(3, 0.2);
+		sa.assertFalse(detector.add(100, 5_000_000), "One window can't be steady");
+		sa.assertFalse(detector.add(300, 2_000_000));
+		sa.assertFalse(detector.add(500, 1_000_000), "Throughput still climbing");
+		sa.assertFalse(detector.add(520, 1_000_000));
+		sa.assertTrue(detector.add(510, 1_050_000));
+		sa.assertFalse(detector.add(0, 0), "A window without completions is not steady");
+	}
+
+	//The simulated service warms up over its first 400ms, requests go from 20ms down to 1ms and stay there.
+	//None of the slower requests may end up in the measured window.
+	@Test(description = "Verify that warm-up samples are discarded and measuring only starts once throughput and latency settle.")
+	public void closedModelDiscardsWarmup() {
+		long coldUntil = System.nanoTime() + 400_000_000L;
+		Warmup warmup = new Warmup(Duration.ZERO, Duration.ofSeconds(5), Duration.ofMillis(100), 3, 0.5);
+		LoadResult result = new ClosedModelRunner(4, warmup).run("simulated", 500, i -> {
+			long cold = Math.max(0, coldUntil - System.nanoTime());
+			Thread.sleep(1 + 19 * cold / 400_000_000L);
+			return 200;
+		}, 200);
+
+		sa.assertEquals(result.getRequests(), 500);
+		sa.assertTrue(result.isSteady(), "Run never settled");
+		sa.assertTrue(result.getWarmupMillis() >= 400, "Warm-up " + result.getWarmupMillis() + "ms");
+		sa.assertTrue(result.getServiceTimeMillis(100) < 15, "Cold sample measured, max " + result.getServiceTimeMillis(100));
+	}
+
+	@Test(description = "Verify that a run that never settles stops warming up at the maximum and says so.")
+	public void openModelWarmupStopsAtMaximum() {
+		Warmup warmup = new Warmup(Duration.ZERO, Duration.ofMillis(500), Duration.ofMillis(100), 3, 0.01);
+		// Latency keeps creeping up, so no two windows ever agree
+		LoadResult result = new OpenModelRunner(200, 8, warmup).run("simulated", Duration.ofMillis(500), i -> {
+			Thread.sleep(1 + i / 10);
+			return 201;
+		}, 201);
+
+		sa.assertEquals(result.getRequests(), 100);
+		sa.assertFalse(result.isSteady(), "A run that never settled was reported steady");
+		sa.assertTrue(result.getWarmupMillis() >= 500 && result.getWarmupMillis() < 700, "Warm-up " + result.getWarmupMillis() + "ms");
+	}
+
+	//A single-server simulated service taking 2ms per request saturates somewhere below 500 req/s,
+	//past that requests queue up and p99 grows without bound
+	@Test(description = "Verify that the capacity search finds the rate where a saturating service breaks its latency SLO and reports the curve it measured.")
+	public void capacitySearchFindsSaturation() {
+		Semaphore server = new Semaphore(1);
+		CapacitySearch search = new CapacitySearch(50, 0.01, Duration.ofSeconds(1), 0.1, 64, Warmup.NONE);
+		CapacityResult result = search.search("simulated", 50, 3200, i -> {
+			server.acquire();
+			try {
+				Thread.sleep(2);
+			} finally {
+				server.release();
+			}
+			return 200;
+		}, 200);
+		System.out.println(result);
+
+		sa.assertTrue(result.getMaxSustainableRate() >= 200 && result.getMaxSustainableRate() < 500,
+				"Max rate " + result.getMaxSustainableRate());
+		boolean maxPassed = false;
+		boolean aboveFailed = false;
+		for (CapacityStep step : result.getSteps()) {
+			maxPassed |= step.getRate() == result.getMaxSustainableRate() && step.isWithinSlo();
+			aboveFailed |= step.getRate() > result.getMaxSustainableRate() && !step.isWithinSlo();
+		}
+		sa.assertTrue(maxPassed, "The reported rate was never measured within the SLO");
+		sa.assertTrue(aboveFailed, "No rate above the reported one was measured over the SLO");
+		sa.assertEquals(result.getCurve().get(0).getRate(), 50.0);
+		sa.assertEquals(result.getSteps().size(), result.getCurve().size());
+	}
+
+	//One user at 5 ms covers 200 req/s, so the 400 req/s step queues past the limit and stops the search
+	@Test(description = "Verify that the capacity search stops at a step the load generator couldn't deliver and keeps the last valid rate.")
+	public void capacitySearchStopsWhenGeneratorLimited() {
+		GeneratorLimits limits = new GeneratorLimits(Duration.ofSeconds(1), 20, 1, 1);
+		CapacitySearch search = new CapacitySearch(1000, 0.01, Duration.ofMillis(500), 0.1, 1, Warmup.NONE, limits);
+		CapacityResult result = search.search("simulated", 100, 1600, i -> {
+			Thread.sleep(5);
+			return 200;
+		}, 200);
+		System.out.println(result);
+
+		CapacityStep last = result.getSteps().get(result.getSteps().size() - 1);
+		sa.assertTrue(result.isGeneratorLimited(), result.toString());
+		sa.assertFalse(last.isValid(), last.toString());
+		sa.assertTrue(last.getGeneratorProblems().get(0).contains("waited for a free user"), last.getGeneratorProblems().toString());
+		sa.assertTrue(result.getMaxSustainableRate() < last.getRate(), result.toString());
+		sa.assertTrue(result.getSteps().stream().noneMatch(step -> step.getRate() > last.getRate()), result.toString());
+	}
+
+	@Test(description = "Verify that steps whose error rate is above the threshold fail the SLO even when latency is fine.")
+	public void capacitySearchHonoursErrorThreshold() {
+		CapacitySearch search = new CapacitySearch(1000, 0.01, Duration.ofMillis(500), 0.5, 4, Warmup.NONE);
+		CapacityResult result = search.search("simulated", 100, 200, i -> i % 20 == 0 ? 500 : 200, 200);
+
+		sa.assertEquals(result.getMaxSustainableRate(), 0.0);
+		for (CapacityStep step : result.getSteps()) {
+			sa.assertFalse(step.isWithinSlo(), "Step " + step);
+			sa.assertTrue(step.getErrorRate() >= 0.05, "Step " + step);
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package api.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import dto.OrderBatch;
+import dto.OrderDTO;
+import dto.UserBatch;
+import dto.UserDTO;
+
+public class OrderBatchTest {
+
+	private static final String[] STATUSES = { "pending", "shipped", "delivered" };
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+
+	@AfterMethod
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	private static List<OrderDTO> orders(int count, int users) {
+		Random random = new Random(42);
+		List<OrderDTO> orders = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			orders.add(new OrderDTO(i + 1, random.nextInt(users) + 1, random.nextInt(100_000) / 100.0,
+					STATUSES[random.nextInt(STATUSES.length)]));
+		}
+		return orders;
+	}
+
+	private void assertSameOrder(OrderDTO actual, OrderDTO expected) {
+		sa.assertEquals(actual.getId(), expected.getId());
+		sa.assertEquals(actual.getUserId(), expected.getUserId(), "User of order " + expected.getId());
+		sa.assertEquals(actual.getTotalAmount(), expected.getTotalAmount(), "Amount of order " + expected.getId());
+		sa.assertEquals(actual.getStatus(), expected.getStatus(), "Status of order " + expected.getId());
+	}
+
+	@Test(description = "Verify that orders come back from a growing batch unchanged, on and off the heap.")
+	public void roundTripsWhileGrowing() {
+		List<OrderDTO> orders = orders(10_000, 50);
+		for (boolean offHeap : new boolean[] { false, true }) {
+			OrderBatch batch = new OrderBatch(1, offHeap);
+			batch.addAll(orders);
+			sa.assertEquals(batch.isOffHeap(), offHeap);
+			sa.assertEquals(batch.size(), orders.size());
+			sa.assertTrue(batch.getCapacityBytes() >= 17L * orders.size(), batch.toString());
+			List<OrderDTO> back = batch.toList();
+			for (int i = 0; i < orders.size(); i += 97) {
+				assertSameOrder(back.get(i), orders.get(i));
+			}
+			assertSameOrder(batch.get(orders.size() - 1), orders.get(orders.size() - 1));
+		}
+	}
+
+	@Test(description = "Verify that the counts by status and the sums per user match the ones computed over the DTOs.")
+	public void aggregatesLikeTheDtos() {
+		List<OrderDTO> orders = orders(50_000, 1_000);
+		Map<String, Long> counts = new HashMap<>();
+		Map<Integer, Double> sums = new HashMap<>();
+		double total = 0;
+		for (OrderDTO order : orders) {
+			counts.merge(order.getStatus(), 1L, Long::sum);
+			sums.merge(order.getUserId(), order.getTotalAmount(), Double::sum);
+			total += order.getTotalAmount();
+		}
+		OrderBatch batch = OrderBatch.of(orders);
+
+		sa.assertEquals(batch.countByStatus(), counts);
+		sa.assertEquals(new ArrayList<>(batch.countByStatus().keySet()), Arrays.asList(STATUSES),
+				"The fixed statuses come first");
+		Map<Integer, Double> byUser = batch.sumOfAmountsByUser();
+		sa.assertEquals(byUser.size(), sums.size());
+		for (Map.Entry<Integer, Double> sum : sums.entrySet()) {
+			sa.assertEquals(byUser.get(sum.getKey()), sum.getValue(), 1e-6, "Sum of user " + sum.getKey());
+		}
+		sa.assertEquals(batch.sumOfAmounts(), total, 1e-6);
+	}
+
+	@Test(description = "Verify that statuses outside the fixed ones get their own code and a missing status stays null.")
+	public void codesNewStatuses() {
+		OrderBatch batch = new OrderBatch();
+		batch.add(1, 7, 10, "pending").add(2, 7, 20, "cancelled").add(3, 8, 30, null).add(4, 8, 40, "cancelled");
+
+		sa.assertEquals(batch.getStatus(1), "cancelled");
+		sa.assertNull(batch.getStatus(2));
+		Map<String, Long> counts = batch.countByStatus();
+		sa.assertEquals(counts.get("pending"), Long.valueOf(1));
+		sa.assertEquals(counts.get("shipped"), Long.valueOf(0));
+		sa.assertEquals(counts.get("cancelled"), Long.valueOf(2));
+		sa.assertEquals(counts.get(null), Long.valueOf(1));
+		sa.assertEquals(batch.sumOfAmountsByUser().get(8), 70.0);
+
+		batch.clear();
+		sa.assertEquals(batch.size(), 0);
+		sa.assertEquals(batch.sumOfAmounts(), 0.0);
+	}
+
+	@Test(description = "Verify that users and their orders come back from a user batch unchanged.")
+	public void roundTripsUsers() {
+		List<OrderDTO> orders = orders(300, 1);
+		List<UserDTO> users = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			ArrayList<OrderDTO> own = i % 3 == 0 ? null : new ArrayList<>(orders.subList(0, i % 7));
+			users.add(new UserDTO(i + 1, "李四 " + i, "li.si." + i + "@example.com", i % 5 == 0 ? "inactive" : "active",
+					own));
+		}
+		users.add(new UserDTO(301, "No Status", "no.status@example.com", null, new ArrayList<>()));
+		UserBatch batch = new UserBatch(1, 1, true);
+		batch.addAll(users);
+
+		sa.assertEquals(batch.size(), users.size());
+		sa.assertTrue(batch.getOrderBatch().isOffHeap());
+		List<UserDTO> back = batch.toList();
+		for (int i = 0; i < users.size(); i++) {
+			UserDTO expected = users.get(i);
+			UserDTO actual = back.get(i);
+			sa.assertEquals(actual.getId(), expected.getId());
+			sa.assertEquals(actual.getName(), expected.getName());
+			sa.assertEquals(actual.getEmail(), expected.getEmail());
+			sa.assertEquals(actual.getStatus(), expected.getStatus(), "Status of user " + expected.getId());
+			if (expected.getOrders() == null) {
+				sa.assertNull(actual.getOrders(), "User " + expected.getId() + " had no order list");
+				continue;
+			}
+			sa.assertEquals(actual.getOrders().size(), expected.getOrders().size(), "Orders of user " + expected.getId());
+			sa.assertEquals(batch.getOrderCount(i), expected.getOrders().size());
+			double sum = 0;
+			for (int j = 0; j < expected.getOrders().size(); j++) {
+				assertSameOrder(actual.getOrders().get(j), expected.getOrders().get(j));
+				sum += expected.getOrders().get(j).getTotalAmount();
+			}
+			sa.assertEquals(batch.sumOfAmounts(i), sum, 1e-6);
+		}
+		sa.assertEquals(batch.countByStatus().get("inactive"), Long.valueOf(60));
+		sa.assertEquals(batch.countByStatus().get(null), Long.valueOf(1));
+	}
+
+}
@@ -1,31 +1,45 @@
 package api.tests;
 
+import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.asserts.SoftAssert;
 
-import io.restassured.response.Response;
+import codec.Decoded;
+import config.PropertiesFile;
+import dto.OrderDTO;
+import load.AdaptiveThrottle;
+import load.AsyncOpenModelRunner;
+import load.CapacityResult;
+import load.ClosedModelRunner;
+import load.LoadResult;
+import load.OpenModelRunner;
+import load.SoakResult;
+import metrics.Endpoint;
+import metrics.LatencySummary;
+import results.RegressionReport;
 
 public class OrderTest extends BaseApiTest {
 
-	private SoftAssert sa;
+	// One instance for every method, failures are collected per thread so methods can run in parallel
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
 
-	@BeforeMethod
+	@BeforeMethod(alwaysRun = true)
 	public void setup() {
 		startProcess("https://order-service");
-		sa = new SoftAssert();
 	}
 
-	@AfterMethod
+	@AfterMethod(alwaysRun = true)
 	public void tearDown() {
 		sa.assertAll();
 	}
 
 	@Test(description = "Verify that an existing order can be retrieved with correct authentication and that the response contains the correct details.")
 	public void retriveOrderByID() {
-		Response response = retrieveOrderById(456);
+		ApiResult<OrderDTO> response = retrieveOrderById(456);
 		sa.assertEquals(response.statusCode(), 200);
+		OrderDTO order = response.getValue();
 		sa.assertEquals(order.getId(), 456);
 		sa.assertTrue(order.getUserId() == 123);
 		sa.assertTrue(order.getTotalAmount() > 0);
@@ -35,45 +49,46 @@ public class OrderTest extends BaseApiTest {
 	//Boundry testing
 	@Test(description = "Verify that attempting to retrieve an order with ID 0 returns an \"Order Not Found\" error.")
 	public void retriveOrderByZero() {
-		Response response = retrieveOrderById(0);
+		ApiResult<OrderDTO> response = retrieveOrderById(0);
 		sa.assertEquals(response.statusCode(), 404);
-		sa.assertEquals("Order Not Found", error.getErrorMessage());
+		sa.assertEquals("Order Not Found", response.getError().getErrorMessage());
 	}
 	
 	@Test(description = "Verify that attempting to retrieve an order with a negative ID returns an \"Order Not Found\" error.")
 	public void retriveOrderByIdNegative() {
-		Response response = retrieveOrderById(-1);
+		ApiResult<OrderDTO> response = retrieveOrderById(-1);
 		sa.assertEquals(response.statusCode(), 404);
-		sa.assertEquals("Order Not Found", error.getErrorMessage());
+		sa.assertEquals("Order Not Found", response.getError().getErrorMessage());
 	}
 	
 	@Test(description = "Verify that attempting to retrieve an order with a non-existent ID (e.g., 123) returns an \"Order Not Found\" error.")
 	public void retriveOrderByIDNonExistingId() {
-		Response response = retrieveOrderById(123);
+		ApiResult<OrderDTO> response = retrieveOrderById(123);
 		sa.assertEquals(response.statusCode(), 404);
-		sa.assertEquals("Order Not Found", error.getErrorMessage());
+		sa.assertEquals("Order Not Found", response.getError().getErrorMessage());
 	}
 	
 	@Test(description = "Verify that attempting to retrieve an order with the wrong password returns an \"Authentication issue\" error.")
 	public void retriveOrderByIdUnauthorised() {
-		Response response = retrieveOrderByIdWithWrongCredentials(456);
+		ApiResult<OrderDTO> response = retrieveOrderByIdWithWrongCredentials(456);
 		sa.assertEquals(response.statusCode(), 401);
-		sa.assertEquals("Authentication issue", error.getErrorMessage());
+		sa.assertEquals("Authentication issue", response.getError().getErrorMessage());
 	}
 
 	//Security testing, retrieveOrderByIdWithoutAuth(123) request is not sending username and password
 	@Test(description = "Verify that attempting to retrieve order details without authentication returns an \"Authentication issue\" error.")
 	public void retriveOrderWithoutAuthentication() {
-	    Response response = retrieveOrderByIdWithoutAuth(123);
+	    ApiResult<OrderDTO> response = retrieveOrderByIdWithoutAuth(123);
 	    sa.assertEquals(response.statusCode(), 401);
-	    sa.assertEquals("Authentication issue", error.getErrorMessage());
+	    sa.assertEquals("Authentication issue", response.getError().getErrorMessage());
 	}
 
 	@Test(description = "Verify that an order can be placed with valid data and that the response contains the correct details.")
 	public void placeOrderSuccess() {
-		Response response = placeOrder(123, 576.23, "pending");
+		ApiResult<OrderDTO> response = placeOrder(123, 576.23, "pending");
 		sa.assertEquals(response.statusCode(), 201);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		OrderDTO order = response.getValue();
 		sa.assertTrue(order.getId() > 0);
 		sa.assertEquals(order.getUserId(), 123);
 		sa.assertEquals(order.getTotalAmount(), 576.23);
@@ -83,121 +98,208 @@ public class OrderTest extends BaseApiTest {
 	@Test(description = "Verify that an order status can be updated to next stage >> shipped.")
 	public void updateOrderStatus() {
 		String status = "shipped";
-		Response getResponse = retrieveOrderById(456);
+		int id = placeOrderToUpdate();
+		ApiResult<OrderDTO> getResponse = retrieveOrderById(id);
 		sa.assertEquals(getResponse.statusCode(), 200);
+		OrderDTO order = getResponse.getValue();
 		sa.assertEquals(order.getUserId(), 123);
 		
 		order.setStatus(status);
 		
-		Response putResponse = updateOrder(order);
+		ApiResult<OrderDTO> putResponse = updateOrder(order);
 		sa.assertEquals(putResponse.statusCode(), 200);
-		sa.assertEquals(newStatusFromResponse(putResponse),  "\"" + status + "\"");
+		sa.assertEquals(newStatusFromResponse(putResponse.getResponse()),  "\"" + status + "\"");
+	}
+
+	// The update test ships an order of its own, so retriveOrderByID() still finds order 456 pending when running in parallel
+	private int placeOrderToUpdate() {
+		ApiResult<OrderDTO> placed = placeOrder(123, 576.23, "pending");
+		Assert.assertEquals(placed.statusCode(), 201, "Could not place the order to update");
+		return placed.getValue().getId();
 	}
 	
 	//Stress testing
-	@Test(description = "Perform a stress test by placing 1000 orders and verify that all creations are successful and performance is within acceptable limits.")
+	@Test(groups = "performance", description = "Perform a stress test by placing 1000 orders and verify that all creations are successful and performance is within acceptable limits.")
 	public void stressTestPlacingOrders() {
-		Response response;
-		long startTime = System.currentTimeMillis();
-		int successfulCreations = 0;
-		
-	    for (int i = 0; i < 1000; i++) {
-	    	response = placeOrder(123, 576.23, "pending");
-	    	if(response.statusCode() == 201) {
-	    		successfulCreations++;
-	    	}else {
-	    		System.out.println("Failed placing order: " + i + " Response code: " + response.statusCode());
-	    	}
-	    }
-	    
-	    long endTime = System.currentTimeMillis();
-	    long duration = endTime - startTime;
+		LoadResult result = new ClosedModelRunner(stressUsers(), stressWarmup()).run("POST /orders", 1000,
+				i -> placeOrder(123, 576.23, "pending").statusCode(), 201);
 	    
-	    sa.assertEquals(successfulCreations, 1000, "Some orders failed");
-	    sa.assertTrue(duration < 60000, "Performance issue: Took longer than expected");  // just an example
-	    System.out.println("Duration for 1000 requests: " + duration + "ms");
+	    sa.assertEquals(result.getSuccesses(), 1000, "Some orders failed: " + result.getStatusCounts());
+	    sa.assertTrue(result.getElapsedMillis() < 60000, "Performance issue: Took longer than expected");  // just an example
+	    System.out.println(result);
+
+	    RegressionReport report = recordRun("OrderTest.stressTestPlacingOrders", Endpoint.CREATE_ORDER, result);
+	    sa.assertFalse(report.hasRegressions(), report.toString());
+	    System.out.println(report);
+
+	    sa.assertTrue(result.getResponseTimeMillis(99) < 1000, "Performance issue: p99 above 1s, " + result);  // just an example
+	    sa.assertTrue(result.getResponseTimeMillis(100) < 5000, "Performance issue: slowest request above 5s, " + result);
+	    // Every call of this JVM so far, functional tests and other runs included, printed for reference only
+	    LatencySummary latency = latencies.summary(Endpoint.CREATE_ORDER, 201);
+	    System.out.println(Endpoint.CREATE_ORDER + " 201 since the JVM started: " + latency);
+	}
+	
+	@Test(groups = "performance", description = "Perform a stress test by placing orders at a fixed rate and verify that all creations are successful and latency, measured from the planned send time, is within acceptable limits.")
+	public void stressTestPlacingOrdersAtFixedRate() {
+		LoadResult result = new OpenModelRunner(stressRate(), stressUsers(), stressWarmup()).run("POST /orders", stressDuration(),
+				i -> placeOrder(123, 576.23, "pending").statusCode(), 201);
+
+		sa.assertEquals(result.getSuccesses(), result.getRequests(), "Some orders failed: " + result.getStatusCounts());
+		sa.assertTrue(result.getResponseTimeMillis(99) < 1000, "Performance issue: p99 above 1s");  // just an example
+		System.out.println(result);
+
+		RegressionReport report = recordRun("OrderTest.stressTestPlacingOrdersAtFixedRate", Endpoint.CREATE_ORDER, result);
+		sa.assertFalse(report.hasRegressions(), report.toString());
+		System.out.println(report);
+	}
+	
+	@Test(groups = "performance", description = "Perform a stress test by placing orders at a fixed rate through the non-blocking client and verify that all creations are successful and latency is within acceptable limits.")
+	public void stressTestPlacingOrdersAsync() {
+		LoadResult result = new AsyncOpenModelRunner(stressRate(), stressWarmup()).run("POST /orders async", stressDuration(),
+				i -> placeOrderAsync(123, 576.23, "pending").thenApply(Decoded::getStatusCode), 201);
+
+		sa.assertEquals(result.getSuccesses(), result.getRequests(), "Some orders failed: " + result.getStatusCounts());
+		sa.assertTrue(result.getResponseTimeMillis(99) < 1000, "Performance issue: p99 above 1s");  // just an example
+		System.out.println(result);
+
+		RegressionReport report = recordRun("OrderTest.stressTestPlacingOrdersAsync", Endpoint.CREATE_ORDER, result);
+		sa.assertFalse(report.hasRegressions(), report.toString());
+		System.out.println(report);
+	}
+
+	//Sizing: how many orders per second the service takes while p99 stays under capacitySloP99Millis. When the generator
+	//runs out of steam first, e.g. on a small machine, the search stops there and the rate is a lower bound.
+	@Test(groups = "performance", description = "Search for the highest rate of order placements the service sustains within the latency SLO and error threshold.")
+	public void capacitySearchPlacingOrders() {
+		CapacityResult result = searchCapacity("POST /orders", i -> placeOrder(123, 576.23, "pending").statusCode(), 201);
+
+		sa.assertTrue(result.getMaxSustainableRate() > 0, "Not even the start rate met the SLO: " + result);
+		System.out.println(result);
+	}
+
+	//Against a rate-limited service: 429/503 slow the throttle down instead of counting as failures
+	@Test(groups = "performance", description = "Perform a stress test by placing 1000 orders through the adaptive throttle and verify that every order the service accepted succeeded and nothing failed for other reasons.")
+	public void stressTestPlacingOrdersWithBackpressure() {
+		AdaptiveThrottle throttle = throttle("POST /orders");
+		LoadResult result = new ClosedModelRunner(stressUsers()).run("POST /orders throttled", 1000,
+				throttled(throttle, i -> placeOrder(123, 576.23, "pending")), 201);
+
+		long overloaded = result.getStatusCounts().getOrDefault(AdaptiveThrottle.TOO_MANY_REQUESTS, 0L)
+				+ result.getStatusCounts().getOrDefault(AdaptiveThrottle.SERVICE_UNAVAILABLE, 0L);
+		sa.assertEquals(result.getSuccesses() + overloaded, result.getRequests(), "Some orders failed: " + result.getStatusCounts());
+		sa.assertEquals(result.getErrors(), 0L, "Some orders failed: " + result.getFirstError());
+		sa.assertEquals(result.getRequests(), 1000L, "Shed orders must not use up the run: " + throttle);
+		sa.assertEquals(throttle.getSent(), result.getRequests() + throttle.getRetried(), throttle.toString());
+		// A shed user waits for its next chance instead of asking again right away, so sheds stay well below the sends
+		sa.assertTrue(throttle.getShed() <= result.getRequests(), throttle.toString());
+		System.out.println(result);
+		System.out.println(throttle);
+	}
+
+	//Endurance: soakMinutes=240 for the real thing, by default it lasts as long as the other stress runs
+	@Test(groups = "performance", description = "Perform a soak test by placing orders at a fixed rate and verify that all creations are successful and the client's retained heap stays within its budget.")
+	public void soakTestPlacingOrders() {
+		SoakResult result = soak("OrderTest.soakTestPlacingOrders", i -> placeOrder(123, 576.23, "pending").statusCode(), 201);
+
+		sa.assertEquals(result.getFailures().getTotal(), 0L, "Some orders failed: " + result.getFailures());
+		sa.assertTrue(result.getHeapGrowthBytes() < (PropertiesFile.current().getSoakHeapBudgetMb() << 20),
+				"Client heap grew past its budget: " + result);
+		System.out.println(result);
+	}
+
+	@Test(description = "Verify that an order placed and read back through the non-blocking client has the correct details.")
+	public void placeOrderAsyncSuccess() {
+		Decoded<OrderDTO> placed = placeOrderAsync(123, 576.23, "pending").join();
+		sa.assertEquals(placed.getStatusCode(), 201);
+		sa.assertTrue(placed.getValue().getId() > 0);
+		sa.assertEquals(placed.getValue().getTotalAmount(), 576.23);
+
+		Decoded<OrderDTO> order = retrieveOrderByIdAsync(placed.getValue().getId()).join();
+		sa.assertEquals(order.getStatusCode(), 200);
+		sa.assertEquals(order.getValue().getUserId(), 123);
+		sa.assertEquals(order.getValue().getStatus(), "pending");
 	}
 	
 	//Similar scenario like with users, mocking data from postman, intentionaly userId: 2 is returning error
 	@Test(description = "Verify that attempting to place an order with the wrong password returns an \"Authentication issue\" error.")
 	public void placeOrderWrongPassword() {
-		Response response = placeOrderWithWrongPassword(2, 576.23, "pending");
+		ApiResult<OrderDTO> response = placeOrderWithWrongPassword(2, 576.23, "pending");
 		sa.assertEquals(response.statusCode(), 401);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Authentication issue", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Authentication issue", response.getError().getErrorMessage());
 	}
 
 	@Test(description = "Verify that attempting to place an order without authentication returns an \"Authentication issue\" error.")
 	public void placeOrderNoAuthentification() {
-		Response response = placeOrderWithNoAuthentification(123, 576.23, "pending");
+		ApiResult<OrderDTO> response = placeOrderWithNoAuthentification(123, 576.23, "pending");
 		sa.assertEquals(response.statusCode(), 401);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Authentication issue", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Authentication issue", response.getError().getErrorMessage());
 	}
 	
 	@Test(description = "Verify that attempting to place an order with a status not defined by the system returns an \"Unknown status of order\" error.")
 	public void placeOrderWithWrongStatus() {
-		Response response = placeOrder(123, 576.23, "peeeeending");
+		ApiResult<OrderDTO> response = placeOrder(123, 576.23, "peeeeending");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Unknown status of order", error.getErrorMessage()); 
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Unknown status of order", response.getError().getErrorMessage()); 
 	}
 	
 	//Pretty sure no one will ever place an order that is already shipped
 	@Test(description = "Verify that attempting to place an order with a status that is not allowed (e.g., \"shipped\") returns an \"Invalid status of order\" error.")
 	public void placeOrderWithStatusShipped() {
-		Response response = placeOrder(123, 576.23, "shipped");
+		ApiResult<OrderDTO> response = placeOrder(123, 576.23, "shipped");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Invalid status of order", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Invalid status of order", response.getError().getErrorMessage());
 	}
 	
 	@Test(description = "Verify that attempting to place an order with a total amount of 0 returns an \"Invalid total amount value\" error.")
 	public void placeOrderWithTotalAmountZero() {
-		Response response = placeOrder(123, 0, "pending");
+		ApiResult<OrderDTO> response = placeOrder(123, 0, "pending");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Invalid total amount value", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Invalid total amount value", response.getError().getErrorMessage());
 	}
 	
 	@Test(description = "Verify that attempting to place an order with a negative total amount returns an \"Invalid total amount value\" error.")
 	public void placeOrderWithTotalAmountNegative() {
-		Response response = placeOrder(123, -576.23, "pending");
+		ApiResult<OrderDTO> response = placeOrder(123, -576.23, "pending");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Invalid total amount value", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Invalid total amount value", response.getError().getErrorMessage());
 	}
 
 	@Test(description = "Verify that attempting to place an order with a non-existent user ID returns a \"User id does not exist\" error.")
 	public void placeOrderWithNonExistingUserId() {
-		Response response = placeOrder(1, 576.23, "pending");
+		ApiResult<OrderDTO> response = placeOrder(1, 576.23, "pending");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("User id does not exist", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("User id does not exist", response.getError().getErrorMessage());
 	}
 
 	@Test(description = "Verify that attempting to place an order without a status returns an \"Invalid status of order\" error.")
 	public void placeOrderWithMissingStatus() {
-		Response response = placeOrder(1, 576.23, "");
+		ApiResult<OrderDTO> response = placeOrder(1, 576.23, "");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Invalid status of order", error.getErrorMessage()); // OR order must start with pending
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Invalid status of order", response.getError().getErrorMessage()); // OR order must start with pending
 	}
 
 	@Test(description = "Verify that attempting to place an order with a malformed JSON request returns a \"Missing parameter: totalAmount\" error.")
 	public void placeOrderMalformedJson() {
-		Response response = placeOrderMalformedJson(1, "pending");
+		ApiResult<OrderDTO> response = placeOrderMalformedJson(1, "pending");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Missing parameter: totalAmount", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Missing parameter: totalAmount", response.getError().getErrorMessage());
 	}
 
 	//Request body in placeOrderInvalidDataType() is modified
 	@Test(description = "Verify that attempting to place an order with an invalid data type (e.g., userId as string) returns an \"Invalid data type provided\" error.")
 	public void placeOrderWithInvalidDataType() {
-		Response response = placeOrderInvalidDataType(123, 576.23, "pending");
+		ApiResult<OrderDTO> response = placeOrderInvalidDataType(123, 576.23, "pending");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Invalid data type provided", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Invalid data type provided", response.getError().getErrorMessage());
 	}
 }
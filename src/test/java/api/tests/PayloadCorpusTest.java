@@ -0,0 +1,143 @@
+package api.tests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import codec.DtoCodec;
+import corpus.CorpusGenerator;
+import corpus.PayloadCorpus;
+import dto.OrderDTO;
+import dto.UserDTO;
+
+public class PayloadCorpusTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+	private final ThreadLocal<Path> directory = new ThreadLocal<>();
+
+	@BeforeMethod
+	public void setup() throws IOException {
+		directory.set(Files.createTempDirectory("corpus"));
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.list(directory.get())) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory.get());
+		directory.remove();
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that the same seed writes the same corpus byte for byte and another seed a different one.")
+	public void seedReplaysTheSameBodies() throws IOException {
+		CorpusGenerator.users(directory.get().resolve("a.corpus"), 2000, 7);
+		CorpusGenerator.users(directory.get().resolve("b.corpus"), 2000, 7);
+		CorpusGenerator.users(directory.get().resolve("c.corpus"), 2000, 8);
+
+		byte[] a = Files.readAllBytes(directory.get().resolve("a.corpus"));
+		sa.assertTrue(Arrays.equals(a, Files.readAllBytes(directory.get().resolve("b.corpus"))), "Same seed, different corpus");
+		sa.assertFalse(Arrays.equals(a, Files.readAllBytes(directory.get().resolve("c.corpus"))), "Other seed, same corpus");
+		sa.assertEquals(PayloadCorpus.open(directory.get().resolve("c.corpus")).getSeed(), 8L);
+	}
+
+	@Test(description = "Verify that user bodies are valid UserDTO JSON with unique emails and include non-ASCII names.")
+	public void usersAreUniqueAndInternational() throws IOException {
+		Path file = directory.get().resolve("users.corpus");
+		CorpusGenerator.users(file, 5000, CorpusGenerator.DEFAULT_SEED);
+		PayloadCorpus corpus = PayloadCorpus.open(file);
+
+		sa.assertEquals(corpus.getKind(), PayloadCorpus.Kind.USERS);
+		sa.assertEquals(corpus.size(), 5000);
+		Set<String> emails = new HashSet<>();
+		int nonAscii = 0;
+		int chinese = 0;
+		int inactive = 0;
+		for (int i = 0; i < corpus.size(); i++) {
+			UserDTO user = DtoCodec.USER.readValue(corpus.bytes(i));
+			emails.add(user.getEmail());
+			sa.assertTrue(user.getEmail().matches("[a-z]+\\.[a-z]+\\." + i + "@[a-z.]+"), user.getEmail());
+			nonAscii += user.getName().chars().anyMatch(c -> c > 0x7F) ? 1 : 0;
+			chinese += user.getName().matches("\\p{IsHan}+") ? 1 : 0;
+			inactive += user.getStatus().equals("inactive") ? 1 : 0;
+			sa.assertTrue(user.getStatus().equals("active") || user.getStatus().equals("inactive"), user.getStatus());
+		}
+		sa.assertEquals(emails.size(), 5000, "Emails must be unique");
+		sa.assertTrue(nonAscii > 1000, nonAscii + " non-ASCII names");
+		sa.assertTrue(chinese > 500, chinese + " Chinese names");
+		sa.assertTrue(inactive > 300 && inactive < 700, inactive + " inactive users");
+	}
+
+	@Test(description = "Verify that order bodies are pending OrderDTO JSON for the given users with amounts in whole cents.")
+	public void ordersBelongToGivenUsers() throws IOException {
+		Path file = directory.get().resolve("orders.corpus");
+		CorpusGenerator.orders(file, 3000, CorpusGenerator.DEFAULT_SEED, new int[] { 123, 124 });
+		PayloadCorpus corpus = PayloadCorpus.open(file);
+
+		sa.assertEquals(corpus.getKind(), PayloadCorpus.Kind.ORDERS);
+		Set<Integer> userIds = new HashSet<>();
+		for (int i = 0; i < corpus.size(); i++) {
+			OrderDTO order = DtoCodec.ORDER.readValue(corpus.bytes(i));
+			userIds.add(order.getUserId());
+			sa.assertEquals(order.getStatus(), "pending");
+			sa.assertTrue(order.getTotalAmount() >= 1 && order.getTotalAmount() < 1000, "Amount " + order.getTotalAmount());
+			sa.assertEquals(Math.round(order.getTotalAmount() * 100) / 100.0, order.getTotalAmount());
+		}
+		sa.assertEquals(userIds, new HashSet<>(Arrays.asList(123, 124)));
+	}
+
+	@Test(description = "Verify that bodies are independent read-only views of the mapped file and iterations wrap around the corpus.")
+	public void bodiesAreViewsOfTheMapping() throws IOException {
+		Path file = directory.get().resolve("users.corpus");
+		CorpusGenerator.users(file, 100, 1);
+		PayloadCorpus corpus = PayloadCorpus.open(file);
+
+		ByteBuffer body = corpus.body(3);
+		sa.assertTrue(body.isDirect(), "Bodies must come from the mapping, not a heap copy");
+		sa.assertTrue(body.isReadOnly());
+		sa.assertEquals(body.position(), 0);
+		sa.assertTrue(new String(corpus.bytes(3), StandardCharsets.UTF_8).startsWith("{\"name\":"));
+		body.get(new byte[body.remaining()]);
+		sa.assertEquals(corpus.body(3).remaining(), corpus.bytes(3).length, "Reading one view must not move another");
+		sa.assertEquals(corpus.body(103), corpus.body(3));
+		sa.assertEquals(corpus.body(-97), corpus.body(3));
+		sa.assertNotEquals(corpus.body(4), corpus.body(3));
+	}
+
+	@Test(description = "Verify that files that aren't a complete corpus are refused instead of sending garbage.")
+	public void refusesOtherFiles() throws IOException {
+		Path text = directory.get().resolve("text.corpus");
+		Files.write(text, "{\"name\":\"John Doe\"}, not a corpus at all".getBytes(StandardCharsets.UTF_8));
+		Path truncated = directory.get().resolve("truncated.corpus");
+		CorpusGenerator.users(truncated, 100, 1);
+		byte[] bytes = Files.readAllBytes(truncated);
+		Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 10));
+
+		sa.assertTrue(failsToOpen(text), "A text file must not open as a corpus");
+		sa.assertTrue(failsToOpen(truncated), "A truncated corpus must not open");
+	}
+
+	private static boolean failsToOpen(Path file) {
+		try {
+			PayloadCorpus.open(file);
+			return false;
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+package api.tests;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import load.ClosedModelRunner;
+import load.LoadResult;
+import results.RegressionGate;
+import results.RegressionReport;
+import results.ResultsStore;
+import results.RunRecord;
+
+public class RegressionGateTest {
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+	private final ThreadLocal<Path> directory = new ThreadLocal<>();
+	private final RegressionGate gate = new RegressionGate(0.01, 0.1);
+
+	@BeforeMethod
+	public void setup() throws IOException {
+		directory.set(Files.createTempDirectory("axiom-results"));
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.list(directory.get())) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory.get());
+		directory.remove();
+		sa.assertAll();
+	}
+
+	@Test(description = "Verify that runs are appended with their histogram and the baseline is the latest runs of the same key and environment.")
+	public void storesRunsAndSelectsBaseline() throws IOException {
+		ResultsStore store = new ResultsStore(directory.get().resolve("results.jsonl"));
+		LoadResult result = new ClosedModelRunner(2).run("simulated", 50, i -> 201, 201);
+		for (int i = 0; i < 7; i++) {
+			store.append(RunRecord.of("OrderTest.stress", "POST /orders", result, "commit" + i, "laptop"));
+		}
+		store.append(RunRecord.of("OrderTest.stress", "POST /orders", result, "commit7", "ci"));
+		store.append(RunRecord.of("UserTest.stress", "POST /users", result, "commit8", "laptop"));
+
+		List<RunRecord> all = store.read();
+		sa.assertEquals(all.size(), 9);
+		sa.assertEquals(all.get(0).getCommit(), "commit0");
+		sa.assertEquals(all.get(0).decodeHistogram().getTotalCount(), 50);
+		sa.assertEquals(all.get(0).getRequests(), 50);
+
+		List<RunRecord> baseline = store.baseline("OrderTest.stress", "laptop", 5);
+		sa.assertEquals(baseline.size(), 5);
+		sa.assertEquals(baseline.get(0).getCommit(), "commit2");
+		sa.assertEquals(baseline.get(4).getCommit(), "commit6");
+	}
+
+	@Test(description = "Verify that a generator-limited run is stored and marked but kept out of the baseline.")
+	public void leavesGeneratorLimitedRunsOutOfBaseline() throws IOException {
+		ResultsStore store = new ResultsStore(directory.get().resolve("results.jsonl"));
+		LoadResult result = new ClosedModelRunner(2).run("simulated", 50, i -> 201, 201);
+		for (int i = 0; i < 3; i++) {
+			RunRecord record = RunRecord.of("OrderTest.stress", "POST /orders", result, "commit" + i, "laptop");
+			record.setGeneratorLimited(i == 1);
+			store.append(record);
+		}
+
+		sa.assertTrue(store.read().get(1).isGeneratorLimited());
+		sa.assertEquals(store.read().get(0).getGenerator(), result.getGenerator().toString());
+		List<RunRecord> baseline = store.baseline("OrderTest.stress", "laptop", 5);
+		sa.assertEquals(baseline.size(), 2);
+		sa.assertEquals(baseline.get(1).getCommit(), "commit2");
+	}
+
+	@Test(description = "Verify that a 30% slowdown against a steady baseline is reported as a regression of that metric only.")
+	public void flagsSignificantSlowdown() {
+		List<RunRecord> baseline = runs(new double[] { 500, 505, 495, 510, 490 }, new double[] { 10, 10.4, 9.7, 10.2, 9.9 });
+
+		RegressionReport report = gate.compare(run(498, 13, 40), baseline);
+		System.out.println(report);
+
+		sa.assertTrue(report.isJudged());
+		sa.assertTrue(report.hasRegressions(), report.toString());
+		sa.assertFalse(finding(report, "throughput req/s").isRegressed());
+		sa.assertTrue(finding(report, "p50 ms").isRegressed());
+		sa.assertEquals(finding(report, "p50 ms").getChange(), 0.3, 0.02);
+		sa.assertTrue(report.toString().contains("REGRESSED"));
+	}
+
+	@Test(description = "Verify that a throughput drop is a regression while a throughput rise or a faster run is not.")
+	public void judgesDirection() {
+		List<RunRecord> baseline = runs(new double[] { 500, 505, 495, 510, 490 }, new double[] { 10, 10.4, 9.7, 10.2, 9.9 });
+
+		sa.assertTrue(finding(gate.compare(run(350, 10, 40), baseline), "throughput req/s").isRegressed());
+		sa.assertFalse(gate.compare(run(700, 7, 25), baseline).hasRegressions());
+	}
+
+	@Test(description = "Verify that a change inside the baseline's own run-to-run noise is not a regression.")
+	public void toleratesNoise() {
+		List<RunRecord> baseline = runs(new double[] { 400, 600, 450, 550, 500 }, new double[] { 8, 12, 10, 14, 9 });
+
+		RegressionReport report = gate.compare(run(480, 13, 40), baseline);
+		sa.assertFalse(report.hasRegressions(), report.toString());
+		sa.assertTrue(finding(report, "p50 ms").getPValue() > 0.01);
+	}
+
+	@Test(description = "Verify that a run is stored but not judged until the baseline has enough runs.")
+	public void needsEnoughBaselineRuns() {
+		RegressionReport report = gate.compare(run(100, 50, 100), runs(new double[] { 500, 505 }, new double[] { 10, 10 }));
+
+		sa.assertFalse(report.isJudged());
+		sa.assertFalse(report.hasRegressions());
+		sa.assertTrue(report.toString().contains("2 of 3"), report.toString());
+	}
+
+	//A mix operation with 40 requests a run: its p99 is the slowest request, one slow request must not fail the build
+	@Test(description = "Verify that a latency percentile is not judged when a run holds too few requests for it.")
+	public void leavesPercentilesOfSmallRunsUnjudged() {
+		List<RunRecord> baseline = runs(new double[] { 500, 505, 495, 510, 490 }, new double[] { 10, 10.4, 9.7, 10.2, 9.9 });
+		for (RunRecord run : baseline) {
+			run.setRequests(40);
+		}
+		RunRecord small = run(498, 10.1, 42.63);
+		small.setRequests(40);
+
+		RegressionReport report = gate.compare(small, baseline);
+		System.out.println(report);
+
+		sa.assertFalse(report.hasRegressions(), report.toString());
+		sa.assertTrue(finding(report, "p50 ms").isJudged(), "40 requests are enough for the median");
+		sa.assertFalse(finding(report, "p99 ms").isJudged());
+		sa.assertTrue(report.toString().contains("not judged, too few samples, 40 of 1000 requests"), report.toString());
+
+		RunRecord large = run(498, 10.1, 42.63);
+		sa.assertFalse(finding(gate.compare(large, baseline), "p99 ms").isJudged(), "The baseline runs are too small");
+	}
+
+	private static List<RunRecord> runs(double[] throughputs, double[] p50s) {
+		List<RunRecord> runs = new ArrayList<>();
+		for (int i = 0; i < throughputs.length; i++) {
+			runs.add(run(throughputs[i], p50s[i], 40));
+		}
+		return runs;
+	}
+
+	private static RunRecord run(double throughput, double p50Millis, double p99Millis) {
+		RunRecord record = new RunRecord();
+		record.setKey("OrderTest.stress");
+		record.setEndpoint("POST /orders");
+		record.setEnvironment("laptop");
+		record.setRequests(5000);
+		record.setThroughput(throughput);
+		record.setP50Millis(p50Millis);
+		record.setP99Millis(p99Millis);
+		return record;
+	}
+
+	private static RegressionReport.Finding finding(RegressionReport report, String metric) {
+		for (RegressionReport.Finding finding : report.getFindings()) {
+			if (finding.getMetric().equals(metric)) {
+				return finding;
+			}
+		}
+		throw new AssertionError("No " + metric + " in " + report);
+	}
+
+}
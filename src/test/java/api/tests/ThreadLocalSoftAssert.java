@@ -0,0 +1,40 @@
+package api.tests;
+
+import org.testng.asserts.IAssert;
+import org.testng.asserts.SoftAssert;
+
+// A SoftAssert that collects failures per thread. With parallel="methods" every test method of an instance runs
+// on its own worker thread, while @BeforeMethod/@AfterMethod run on the same thread as the test, so one shared
+// instance keeps each test's failures apart and assertAll() reports only the calling test's failures.
+public class ThreadLocalSoftAssert extends SoftAssert {
+
+	private final ThreadLocal<Collector> current = ThreadLocal.withInitial(Collector::new);
+
+	@Override
+	protected void doAssert(IAssert<?> a) {
+		current.get().doAssert(a);
+	}
+
+	@Override
+	public void assertAll() {
+		assertAll(null);
+	}
+
+	// Throws the failures collected on this thread and starts over for the next test on it
+	@Override
+	public void assertAll(String message) {
+		Collector collector = current.get();
+		current.remove();
+		collector.assertAll(message);
+	}
+
+	private static class Collector extends SoftAssert {
+
+		@Override
+		public void doAssert(IAssert<?> a) {
+			super.doAssert(a);
+		}
+
+	}
+
+}
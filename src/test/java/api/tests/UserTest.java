@@ -1,23 +1,52 @@
 package api.tests;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.asserts.SoftAssert;
 
-import io.restassured.response.Response;
+import codec.Decoded;
+import codec.DtoCodec;
+import config.PropertiesFile;
+import corpus.PayloadCorpus;
+import dto.OrderDTO;
+import dto.UserDTO;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import load.AsyncOpenModelRunner;
+import load.ClosedModelRunner;
+import load.LoadResult;
+import load.LoadSnapshot;
+import load.OpenModelRunner;
+import metrics.Endpoint;
+import metrics.LatencySummary;
+import metrics.RequestEvent;
+import results.RegressionReport;
+import validation.ResponseCheck;
+import validation.ValidationPipeline;
+import validation.ValidationVerdict;
 
 public class UserTest extends BaseApiTest {
 
-	private SoftAssert sa;
+	// One instance for every method, failures are collected per thread so methods can run in parallel
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
 	
-	@BeforeMethod
+	@BeforeMethod(alwaysRun = true)
 	public void setup() {
 		startProcess("https://user-service");
-		sa = new SoftAssert();
 	}
 
-	@AfterMethod
+	@AfterMethod(alwaysRun = true)
 	public void tearDown() {
 		sa.assertAll();
 	}
@@ -25,8 +54,9 @@ public class UserTest extends BaseApiTest {
 	//Happy path scenario
 	@Test(description = "Verify that existing can be retrieved with correct authentication and that the response contains the correct details.")
 	public void accessUserByIdSuccess() {
-		Response response = getUserById(123);
+		ApiResult<UserDTO> response = getUserById(123);
 		sa.assertEquals(response.statusCode(), 200);
+		UserDTO user = response.getValue();
 		sa.assertEquals(user.getId(), 123);
 		sa.assertEquals(user.getName(), "John Doe");
 		sa.assertEquals(user.getEmail(), "john.doe@example.com");
@@ -36,162 +66,252 @@ public class UserTest extends BaseApiTest {
 	@Test(description = "Verify that the email of a existing user can be successfully updated.")
 	public void updateUserEmail() {
 		String newEmail = "jo.do@example.com";
-		Response getResponse = getUserById(123);
+		int id = createUserToUpdate();
+		ApiResult<UserDTO> getResponse = getUserById(id);
 		sa.assertEquals(getResponse.statusCode(), 200);
-		sa.assertEquals(user.getId(), 123);
+		UserDTO user = getResponse.getValue();
+		sa.assertEquals(user.getId(), id);
 		
 		user.setEmail(newEmail);
 		
-		Response putResponse = updateUser(user);
+		ApiResult<UserDTO> putResponse = updateUser(user);
 		sa.assertEquals(putResponse.statusCode(), 200);
-		sa.assertEquals(newEmailFromResponse(putResponse), "\"" + newEmail + "\"");
+		sa.assertEquals(newEmailFromResponse(putResponse.getResponse()), "\"" + newEmail + "\"");
 	}
 
 	@Test(description = "Verify that the status of a existing user can be successfully updated to inactive.")
 	public void updateUserStatus() {
 		String newStatus = "inactive";
-		Response getResponse = getUserById(123);
+		int id = createUserToUpdate();
+		ApiResult<UserDTO> getResponse = getUserById(id);
 		sa.assertEquals(getResponse.statusCode(), 200);
 		
-		System.out.println(getResponse.asPrettyString());
+		System.out.println(getResponse.getResponse().asPrettyString());
 		
-		sa.assertEquals(user.getId(), 123);
-		sa.assertTrue(!getResponse.asPrettyString().isEmpty());
+		UserDTO user = getResponse.getValue();
+		sa.assertEquals(user.getId(), id);
+		sa.assertTrue(!getResponse.getResponse().asPrettyString().isEmpty());
 		
-		user.setEmail(newStatus);
+		user.setStatus(newStatus);
 		
-		Response putResponse = updateUser(user);
+		ApiResult<UserDTO> putResponse = updateUser(user);
 		sa.assertEquals(putResponse.statusCode(), 200);
-		sa.assertEquals(newStatusFromResponse(putResponse), "\"" + newStatus + "\"");
-		System.out.println(putResponse.asPrettyString());
+		sa.assertEquals(newStatusFromResponse(putResponse.getResponse()), "\"" + newStatus + "\"");
+		System.out.println(putResponse.getResponse().asPrettyString());
+	}
+
+	// Update tests change a user of their own, so tests reading user 123 get the same answer when running in parallel
+	private int createUserToUpdate() {
+		ApiResult<UserDTO> created = createUser("John Doe", "john.doe@example.com", "active");
+		Assert.assertEquals(created.statusCode(), 201, "Could not create the user to update");
+		return created.getValue().getId();
 	}
 	
 	//Boundry testing
 	@Test(description = "Verify that attempting to retrieve a user with id 0 returns a \"User Not Found\" error.")
 	public void accessUserByIdZero() {
-	    Response response = getUserById(0);
+	    ApiResult<UserDTO> response = getUserById(0);
 	    sa.assertEquals(response.statusCode(), 404);
-	    sa.assertEquals("User Not Found", error.getErrorMessage()); // OR userId must be greater than 0
+	    sa.assertEquals("User Not Found", response.getError().getErrorMessage()); // OR userId must be greater than 0
 	}
 	
 	@Test(description = "Verify that attempting to retrieve a user with a negative id returns a \"User Not Found\" error.")
 	public void accessUserByIdNegative() {
-	    Response response = getUserById(-1);
+	    ApiResult<UserDTO> response = getUserById(-1);
 	    sa.assertEquals(response.statusCode(), 404);
-	    sa.assertEquals("User Not Found", error.getErrorMessage()); // OR userId must be greater than 0
+	    sa.assertEquals("User Not Found", response.getError().getErrorMessage()); // OR userId must be greater than 0
 	}
 	
 	//This test is searching for user with positive ID but not found
 	@Test(description = "Verify that attempting to retrieve a user with a non-existent id (e.g., 1) returns a \"User Not Found\" error.")
 	public void accessUserByIdNotFound() {
-		Response response = getUserById(1);
+		ApiResult<UserDTO> response = getUserById(1);
 		sa.assertEquals(response.statusCode(), 404);
-		sa.assertEquals("User Not Found", error.getErrorMessage());
+		sa.assertEquals("User Not Found", response.getError().getErrorMessage());
 	}
 	
 	//Here user is entering wrong password
 	@Test(description = "Verify that attempting to retrieve a user with the wrong password returns an \"Authentication issue\" error.")
 	public void accessByIdUnauthorised() {
-		Response response = getUserByIdWithWrongCredentials(2);
+		ApiResult<UserDTO> response = getUserByIdWithWrongCredentials(2);
 		sa.assertEquals(response.statusCode(), 401);
-		sa.assertEquals("Authentication issue", error.getErrorMessage());
+		sa.assertEquals("Authentication issue", response.getError().getErrorMessage());
 	}
 	
 	//Security testing, in request we are not sending username and password
 	@Test(description = "Verify that attempting to retrieve user details without authentication returns an \"Authentication issue\" error.")
 	public void accessUserWithoutAuthentication() {
-	    Response response = getUserByIdWithoutAuth(123);
+	    ApiResult<UserDTO> response = getUserByIdWithoutAuth(123);
 	    sa.assertEquals(response.statusCode(), 401);
-	    sa.assertEquals("Authentication issue", error.getErrorMessage());
+	    sa.assertEquals("Authentication issue", response.getError().getErrorMessage());
 	}
 	
 	@Test(description = "Verify that a user can be created with valid data and that the response contains the correct details.")
 	public void createUserSuccess() {
-		Response response = createUser("John Doe", "john.doe@example.com", "active");
+		ApiResult<UserDTO> response = createUser("John Doe", "john.doe@example.com", "active");
 		sa.assertEquals(response.statusCode(), 201);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("John Doe", user.getName());
-		sa.assertEquals("john.doe@example.com", user.getEmail());
-		sa.assertEquals("active", user.getStatus());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("John Doe", response.getValue().getName());
+		sa.assertEquals("john.doe@example.com", response.getValue().getEmail());
+		sa.assertEquals("active", response.getValue().getStatus());
 		}
 	
 	//Stress testing
-	@Test(description = "Perform a stress test by creating 1000 users and verify that all creations are successful and performance is within acceptable limits.")
+	@Test(groups = "performance", description = "Perform a stress test by creating 1000 users and verify that all creations are successful and performance is within acceptable limits.")
 	public void stressTestUserCreation() {
-		Response response;
-		long startTime = System.currentTimeMillis();
-		int successfulCreations = 0;
-		
-	    for (int i = 0; i < 1000; i++) {
-	    	response = createUser("John Doe" + i, "john.doe" + i + "@example.com", "active");
-	    	if(response.statusCode() == 201) {
-	    		successfulCreations++;
-	    	}else {
-	    		System.out.println("Failed creation for User" + i + ": " + response.statusCode());
-	    	}
-	    }
-	    
-	    long endTime = System.currentTimeMillis();
-	    long duration = endTime - startTime;
+		LoadResult result = new ClosedModelRunner(stressUsers(), stressWarmup()).run("POST /users", 1000,
+				i -> createUser("John Doe" + i, "john.doe" + i + "@example.com", "active").statusCode(), 201);
 	    
-	    sa.assertEquals(successfulCreations, 1000, "Some user creation failed");
-	    sa.assertTrue(duration < 60000, "Performance issue: Took longer than expected");  // just an example
-	    System.out.println("Duration for 1000 requests: " + duration + "ms");
+	    sa.assertEquals(result.getSuccesses(), 1000, "Some user creation failed: " + result.getStatusCounts());
+	    sa.assertTrue(result.getElapsedMillis() < 60000, "Performance issue: Took longer than expected");  // just an example
+	    System.out.println(result);
+
+	    RegressionReport report = recordRun("UserTest.stressTestUserCreation", Endpoint.CREATE_USER, result);
+	    sa.assertFalse(report.hasRegressions(), report.toString());
+	    System.out.println(report);
+
+	    sa.assertTrue(result.getResponseTimeMillis(99) < 1000, "Performance issue: p99 above 1s, " + result);  // just an example
+	    sa.assertTrue(result.getResponseTimeMillis(100) < 5000, "Performance issue: slowest request above 5s, " + result);
+	    // Every call of this JVM so far, functional tests and other runs included, printed for reference only
+	    LatencySummary latency = latencies.summary(Endpoint.CREATE_USER, 201);
+	    System.out.println(Endpoint.CREATE_USER + " 201 since the JVM started: " + latency);
+	}
+
+	@Test(groups = "performance", description = "Perform a stress test by creating users at a fixed rate and verify that all creations are successful and latency, measured from the planned send time, is within acceptable limits.")
+	public void stressTestUserCreationAtFixedRate() {
+		LoadResult result = new OpenModelRunner(stressRate(), stressUsers(), stressWarmup()).run("POST /users", stressDuration(),
+				i -> createUser("Jane Roe" + i, "jane.roe" + i + "@example.com", "active").statusCode(), 201);
+
+		sa.assertEquals(result.getSuccesses(), result.getRequests(), "Some user creation failed: " + result.getStatusCounts());
+		sa.assertTrue(result.getResponseTimeMillis(99) < 1000, "Performance issue: p99 above 1s");  // just an example
+		System.out.println(result);
+
+		RegressionReport report = recordRun("UserTest.stressTestUserCreationAtFixedRate", Endpoint.CREATE_USER, result);
+		sa.assertFalse(report.hasRegressions(), report.toString());
+		System.out.println(report);
+	}
+
+	//The request thread only hands the response over, decoding and checks run on the pipeline's consumers
+	@Test(groups = "performance", description = "Perform a stress test by creating users at a fixed rate with every response checked off the request thread and verify that all creations are successful, the checks pass and latency is within acceptable limits.")
+	public void stressTestUserCreationWithValidation() {
+		ValidationPipeline validation = validationPipeline("POST /users");
+		LoadResult result = new OpenModelRunner(stressRate(), stressUsers(), stressWarmup()).run("POST /users validated",
+				stressDuration(), i -> {
+					String email = "jane.roe" + i + "@example.com";
+					return validate(validation, i, createUser("Jane Roe" + i, email, "active"), createdWith(email));
+				}, 201);
+		ValidationVerdict verdict = validation.finish(Duration.ofSeconds(30));
+
+		sa.assertEquals(result.getSuccesses(), result.getRequests(), "Some user creation failed: " + result.getStatusCounts());
+		sa.assertTrue(result.getResponseTimeMillis(99) < 1000, "Performance issue: p99 above 1s");  // just an example
+		sa.assertTrue(verdict.isPassed(), verdict.toString());
+		sa.assertTrue(verdict.getValidated() > 0, "Nothing was validated: " + verdict);
+		System.out.println(result);
+		System.out.println(verdict);
+	}
+
+	// The service answers with the new id, and echoes the user when it sends more than that
+	private static ResponseCheck createdWith(String email) {
+		return ResponseCheck.<UserDTO>decoded(DtoCodec.USER, created -> {
+			Assert.assertEquals(created.getStatusCode(), 201,
+					"User not created: " + (created.getError() == null ? null : created.getError().getErrorMessage()));
+			Assert.assertTrue(created.getValue().getId() > 0, "New user without an id");
+			if (created.getValue().getEmail() != null) {
+				Assert.assertEquals(created.getValue().getEmail(), email, "Email of the new user");
+			}
+		});
+	}
+
+	//Bodies come from the memory-mapped corpus, so the generator spends its CPU on sending and every run sends the same users
+	@Test(groups = "performance", description = "Perform a stress test by creating users from the pre-generated payload corpus at a fixed rate and verify that all creations are successful and latency is within acceptable limits.")
+	public void stressTestUserCreationFromCorpus() {
+		PayloadCorpus corpus = corpus(PayloadCorpus.Kind.USERS);
+		LoadResult result = new AsyncOpenModelRunner(stressRate(), stressWarmup()).run("POST /users corpus", stressDuration(),
+				i -> createUserAsync(corpus.body(i)).thenApply(Decoded::getStatusCode), 201);
+
+		sa.assertEquals(result.getSuccesses(), result.getRequests(), "Some user creation failed: " + result.getStatusCounts());
+		sa.assertTrue(result.getResponseTimeMillis(99) < 1000, "Performance issue: p99 above 1s");  // just an example
+		System.out.println(corpus);
+		System.out.println(result);
+
+		RegressionReport report = recordRun("UserTest.stressTestUserCreationFromCorpus", Endpoint.CREATE_USER, result);
+		sa.assertFalse(report.hasRegressions(), report.toString());
+		System.out.println(report);
+	}
+
+	//Checks that nothing is lost in the merge rather than the service's latency: worker JVMs start cold and, on a small
+	//machine, compete with each other for CPU while they compile, so their generator health is reported but not judged
+	@Test(groups = "performance", description = "Perform a stress test by creating users at a fixed rate from several worker JVMs and verify that the merged result covers every request and all creations are successful.")
+	public void distributedStressTestUserCreation() {
+		List<LoadSnapshot> intervals = new CopyOnWriteArrayList<>();
+		LoadResult result = distribute("POST /users distributed", CreateUserScenario.class, 201, intervals::add);
+
+		sa.assertEquals(result.getSuccesses(), result.getRequests(), "Some user creation failed: " + result.getStatusCounts());
+		// Each worker rounds its share of the requests down
+		long planned = (long) (stressRate() * stressDuration().getSeconds());
+		sa.assertTrue(planned - result.getRequests() <= PropertiesFile.current().getWorkers() && result.getRequests() <= planned,
+				"Planned " + planned + " requests, ran " + result.getRequests());
+		sa.assertEquals(result.getResponseTime().getTotalCount(), result.getRequests());
+		sa.assertEquals(LoadSnapshot.merge(intervals).getResponseTime(), result.getResponseTime());
+		sa.assertTrue(result.getGenerator().isMeasured(), "The workers' generator health is missing");
+		intervals.forEach(System.out::println);
+		System.out.println(result);
 	}
 
 	//I am mocking data from postman for easier writing of tests
 	//when I put inactive as status, it is simulating "wrong" password to get correct response
 	@Test(description = "Verify that attempting to create a user with the wrong password returns an \"Authentication issue\" error.")
 	public void createUserUnauthorised() {
-		Response response = createUserWithWrongPassword("John Doe", "john.doe@example.com", "inactive");
+		ApiResult<UserDTO> response = createUserWithWrongPassword("John Doe", "john.doe@example.com", "inactive");
 		sa.assertEquals(response.statusCode(), 401);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Authentication issue", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Authentication issue", response.getError().getErrorMessage());
 	}
 	
 	//Localisation
 	//We want to make sure that system is handling different character sets if needed
 	@Test(description = "Verify that a user can be created with international characters in the name.")
 	public void createUserWithInternationalCharacters() {
-	    Response response = createUser("李四", "li.si@example.com", "active");
+	    ApiResult<UserDTO> response = createUser("李四", "li.si@example.com", "active");
 	    sa.assertEquals(response.statusCode(), 201);
-	    sa.assertEquals(response.jsonPath().getString("name"), "李四");
+	    sa.assertEquals(response.getResponse().jsonPath().getString("name"), "李四");
 	}
 	
 	@Test(description = "Verify that attempting to create a user with an invalid email format returns an \"Invalid request body: email\" error.")
 	public void createUserWithInvalidEmail() {
-	    Response response = createUser("John Doe", "john.doe@", "active");
+	    ApiResult<UserDTO> response = createUser("John Doe", "john.doe@", "active");
 	    sa.assertEquals(response.statusCode(), 400);
-	    sa.assertEquals("Invalid request body: email", error.getErrorMessage());
+	    sa.assertEquals("Invalid request body: email", response.getError().getErrorMessage());
 	}
 
 	@Test(description = "Verify that attempting to create a user without a name returns an \"Invalid request body: name\" error.")
 	public void createUserWithoutName() {
-		Response response = createUser("", "john.doe@example.com", "active");
+		ApiResult<UserDTO> response = createUser("", "john.doe@example.com", "active");
 		sa.assertEquals(response.statusCode(), 400);
-		sa.assertTrue(!response.asPrettyString().isEmpty());
-		sa.assertEquals("Invalid request body: name", error.getErrorMessage());
+		sa.assertTrue(!response.getResponse().asPrettyString().isEmpty());
+		sa.assertEquals("Invalid request body: name", response.getError().getErrorMessage());
 	}
 	
 	@Test(description = "Verify that attempting to create a user using an invalid endpoint returns an \"Endpoint not found\" error.")
 	public void invalidEndpointTest() {
-	    Response response = invalidEndpointCall("John Doe", "john.doe@example.com", "active");
+	    ApiResult<UserDTO> response = invalidEndpointCall("John Doe", "john.doe@example.com", "active");
 	    sa.assertEquals(response.statusCode(), 404);
-	    sa.assertEquals("Endpoint not found", error.getErrorMessage());
+	    sa.assertEquals("Endpoint not found", response.getError().getErrorMessage());
 	}
 
 	@Test(description = "Verify that attempting to create a user with a malformed JSON request returns a \"Malformed JSON\" or \"Bad Request\" error.")
 	public void malformedJsonRequest() {
-	    Response response = createUserMalformedJson("John Doe", "john.doe@example.com", "active");
+	    ApiResult<UserDTO> response = createUserMalformedJson("John Doe", "john.doe@example.com", "active");
 	    sa.assertEquals(response.statusCode(), 400);
-	    sa.assertEquals("Malformed JSON", error.getErrorMessage()); // Or Bad Request message
+	    sa.assertEquals("Malformed JSON", response.getError().getErrorMessage()); // Or Bad Request message
 	}
 
 	//Precondition for this test would be placeOrderSuccess() test
 	@Test(description = "Verify that the orders of a existing user can be successfully retrieved and contain the correct details.")
 	public void getUserOrdersByUserId() {
-		Response response = getUserOrders(123);
+		ApiResult<List<OrderDTO>> response = getUserOrders(123);
 		sa.assertEquals(response.statusCode(), 200);
+		List<OrderDTO> orders = response.getValue();
 		for (int i = 0; i < orders.size(); i++) {
 			sa.assertTrue(orders.get(i).getUserId() == 123);
 			sa.assertTrue(orders.get(i).getTotalAmount() > 0);
@@ -199,12 +319,88 @@ public class UserTest extends BaseApiTest {
 		}
 	}
 
+	@Test(description = "Verify that the orders of a user can be streamed one at a time and contain the correct details.")
+	public void streamUserOrdersByUserId() {
+		ApiResult<UserDTO> created = createUser("Jane Roe", "jane.roe.orders@example.com", "active");
+		Assert.assertEquals(created.statusCode(), 201, "Could not create the user to stream orders for");
+		int id = created.getValue().getId();
+		for (int i = 1; i <= 25; i++) {
+			Assert.assertEquals(placeOrder(id, i, "pending").statusCode(), 201, "Could not place order " + i);
+		}
+
+		List<OrderDTO> orders = new ArrayList<>();
+		Decoded<UserDTO> user = streamUserOrders(id, orders::add);
+		sa.assertEquals(user.getStatusCode(), 200);
+		sa.assertEquals(user.getValue().getId(), id);
+		sa.assertEquals(user.getValue().getName(), "Jane Roe");
+		sa.assertNull(user.getValue().getOrders(), "Orders go to the callback, not into the user");
+		sa.assertEquals(orders.size(), 25);
+		double total = 0;
+		for (OrderDTO order : orders) {
+			sa.assertEquals(order.getUserId(), id);
+			sa.assertEquals(order.getStatus(), "pending");
+			total += order.getTotalAmount();
+		}
+		sa.assertEquals(total, 25 * 26 / 2.0);
+	}
+
+	@Test(description = "Verify that streaming the orders of a non-existent user returns a \"User Not Found\" error.")
+	public void streamNonExistingUserOrders() {
+		Decoded<UserDTO> user = streamUserOrders(2, order -> sa.fail("No orders expected, got " + order.getId()));
+		sa.assertEquals(user.getStatusCode(), 404);
+		sa.assertEquals(user.getError().getErrorMessage(), "User Not Found");
+	}
+
+	//Only the events of this test's thread count, methods running in parallel record into the same recording
+	@Test(description = "Verify that requests emit a JFR event with their endpoint, status, sizes and credentials only while a recording has the event enabled.")
+	public void requestsAreRecordedAsJfrEvents() throws IOException {
+		String thread = Thread.currentThread().getName();
+		Path file = Files.createTempFile("requests", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(RequestEvent.NAME);
+			recording.start();
+			sa.assertEquals(createUser("Jfr Doe", "jfr.doe@example.com", "active").statusCode(), 201);
+			sa.assertEquals(getUserByIdWithoutAuth(123).statusCode(), 401);
+			recording.disable(RequestEvent.NAME);
+			sa.assertEquals(getUserById(123).statusCode(), 200);
+			recording.stop();
+			recording.dump(file);
+		}
+		List<RecordedEvent> events = new ArrayList<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+			if (event.getEventType().getName().equals(RequestEvent.NAME) && event.getThread() != null
+					&& thread.equals(event.getThread().getJavaName())) {
+				events.add(event);
+			}
+		}
+		Files.delete(file);
+		events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+
+		Assert.assertEquals(events.size(), 2, "Only the requests made while the event was enabled");
+		RecordedEvent created = events.get(0);
+		sa.assertEquals(created.getString("method"), "POST");
+		sa.assertEquals(created.getString("endpoint"), "/users");
+		sa.assertEquals(created.getInt("statusCode"), 201);
+		sa.assertEquals(created.getString("credentials"), "VALID");
+		sa.assertTrue(created.getLong("requestBytes") > 0, "Request size");
+		sa.assertTrue(created.getLong("responseBytes") > 0, "Response size");
+		sa.assertTrue(created.getDuration("latency").toNanos() > 0, "Latency");
+		sa.assertTrue(created.getDuration().compareTo(created.getDuration("latency")) >= 0,
+				"The event spans the request it measured");
+		RecordedEvent unauthorised = events.get(1);
+		sa.assertEquals(unauthorised.getString("method"), "GET");
+		sa.assertEquals(unauthorised.getString("endpoint"), "/users/{id}");
+		sa.assertEquals(unauthorised.getInt("statusCode"), 401);
+		sa.assertEquals(unauthorised.getString("credentials"), "NONE");
+		sa.assertEquals(unauthorised.getLong("requestBytes"), 0);
+	}
+
 	@Test(description = "Verify that attempting to retrieve orders for a non-existent user returns a \"User Not Found\" error.")
 	public void getNonExistingUserOrdersByUserId() {
-		Response response = getUserOrders(2);
-		System.out.println(response.asPrettyString());
+		ApiResult<List<OrderDTO>> response = getUserOrders(2);
+		System.out.println(response.getResponse().asPrettyString());
 		sa.assertEquals(response.statusCode(), 404);
-		sa.assertEquals("User Not Found", error.getErrorMessage());
+		sa.assertEquals("User Not Found", response.getError().getErrorMessage());
 	}
 	
 	
@@ -0,0 +1,144 @@
+package api.tests;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import codec.DtoCodec;
+import dto.UserDTO;
+import validation.ResponseCheck;
+import validation.ValidationPipeline;
+import validation.ValidationVerdict;
+
+public class ValidationPipelineTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+	private static final byte[] USER = "{\"id\":7,\"name\":\"李四\",\"email\":\"li.si@example.com\",\"status\":\"active\"}"
+			.getBytes(StandardCharsets.UTF_8);
+	private static final byte[] NOT_FOUND = "{\"errorMessage\":\"User Not Found\"}".getBytes(StandardCharsets.UTF_8);
+
+	private final SoftAssert sa = new ThreadLocalSoftAssert();
+
+	@AfterMethod
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	private static final ResponseCheck ACTIVE_USER = ResponseCheck.<UserDTO>decoded(DtoCodec.USER, user -> {
+		Assert.assertEquals(user.getStatusCode(), 200, "Status code");
+		Assert.assertEquals(user.getValue().getStatus(), "active", "User status");
+	});
+
+	@Test(description = "Verify that every response is decoded and checked and failures are grouped by message with examples.")
+	public void aggregatesFailures() {
+		ValidationPipeline pipeline = new ValidationPipeline("users", 64, 2, 1);
+		for (int i = 0; i < 30; i++) {
+			pipeline.submit(i, i % 10 == 0 ? 404 : 200, 1_500_000, i % 10 == 0 ? NOT_FOUND : USER, ACTIVE_USER);
+		}
+		pipeline.submit(30, 200, 1_500_000, "{\"id\":".getBytes(StandardCharsets.UTF_8), ACTIVE_USER);
+		ValidationVerdict verdict = pipeline.finish(TIMEOUT);
+
+		sa.assertFalse(verdict.isPassed());
+		sa.assertEquals(verdict.getSubmitted(), 31);
+		sa.assertEquals(verdict.getValidated(), 31);
+		sa.assertEquals(verdict.getFailed(), 4);
+		sa.assertEquals(verdict.getUnchecked(), 0);
+		sa.assertEquals(verdict.getFailures().get("Status code expected [200] but found [404]"), Long.valueOf(3),
+				verdict.toString());
+		sa.assertTrue(verdict.getFailures().keySet().stream().anyMatch(message -> message.startsWith("JsonEOFException")),
+				verdict.toString());
+		sa.assertEquals(verdict.getExamples().size(), 4);
+		sa.assertTrue(verdict.getExamples().get(0).contains("status 404 after 1.50 ms"), verdict.getExamples().get(0));
+		sa.assertSame(pipeline.finish(TIMEOUT), verdict, "A finished pipeline keeps its verdict");
+	}
+
+	@Test(description = "Verify that sampling checks the configured share of iterations, spread evenly.")
+	public void samplesEvenly() {
+		List<Long> checked = new ArrayList<>();
+		ValidationPipeline pipeline = new ValidationPipeline("sampled", 64, 1, 0.25);
+		for (int i = 0; i < 100; i++) {
+			long iteration = i;
+			pipeline.submit(i, 200, 0, USER, (status, body) -> {
+				synchronized (checked) {
+					checked.add(iteration);
+				}
+			});
+		}
+		ValidationVerdict verdict = pipeline.finish(TIMEOUT);
+
+		sa.assertTrue(verdict.isPassed(), verdict.toString());
+		sa.assertEquals(verdict.getValidated(), 25);
+		sa.assertEquals(verdict.getSkipped(), 75);
+		for (int i = 1; i < checked.size(); i++) {
+			sa.assertEquals(checked.get(i) - checked.get(i - 1), 4L, "Gap before " + checked.get(i));
+		}
+	}
+
+	@Test(description = "Verify that a full ring drops responses instead of blocking the request thread, and a check still running at the deadline fails the verdict.")
+	public void fullRingDrops() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ValidationPipeline pipeline = new ValidationPipeline("slow", 4, 1, 1);
+		pipeline.submit(0, 200, 0, USER, (status, body) -> {
+			started.countDown();
+			release.await();
+		});
+		Assert.assertTrue(started.await(10, TimeUnit.SECONDS), "The consumer never took the first response");
+
+		int accepted = 0;
+		for (int i = 1; i <= 10; i++) {
+			accepted += pipeline.submit(i, 200, 0, USER, ACTIVE_USER) ? 1 : 0;
+		}
+		ValidationVerdict verdict = pipeline.finish(Duration.ofMillis(200));
+		release.countDown();
+
+		sa.assertEquals(accepted, 4, "The ring holds 4 responses while the consumer is busy");
+		sa.assertEquals(verdict.getDropped(), 6);
+		sa.assertEquals(verdict.getUnchecked(), 5, verdict.toString());
+		sa.assertFalse(verdict.isPassed(), "Unchecked responses can't pass");
+	}
+
+	@Test(description = "Verify that responses submitted from many threads at once are each checked exactly once.")
+	public void concurrentProducersLoseNothing() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 20_000;
+		AtomicLong sum = new AtomicLong();
+		ConcurrentHashMap<Long, Boolean> seen = new ConcurrentHashMap<>();
+		ValidationPipeline pipeline = new ValidationPipeline("concurrent", 1 << 17, 2, 1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					long iteration = (long) producer * perProducer + i;
+					pipeline.submit(iteration, 200, 0, USER, (status, body) -> {
+						sum.addAndGet(iteration);
+						Assert.assertNull(seen.put(iteration, Boolean.TRUE), "Checked twice");
+					});
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		ValidationVerdict verdict = pipeline.finish(TIMEOUT);
+
+		long total = (long) producers * perProducer;
+		sa.assertTrue(verdict.isPassed(), verdict.toString());
+		sa.assertEquals(verdict.getDropped(), 0);
+		sa.assertEquals(verdict.getValidated(), total);
+		sa.assertEquals(sum.get(), total * (total - 1) / 2);
+	}
+
+}
@@ -0,0 +1,77 @@
+package api.tests;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import config.Config;
+import config.PropertiesFile;
+import load.ClosedModelRunner;
+import load.LoadResult;
+import load.OpenModelRunner;
+import load.WorkloadMix;
+import load.WorkloadMixResult;
+import metrics.IntervalReporter;
+import results.RegressionGate;
+import results.RegressionReport;
+
+public class WorkloadMixTest extends BaseApiTest {
+
+	private SoftAssert sa;
+
+	@BeforeMethod(alwaysRun = true)
+	public void setup() {
+		sa = new SoftAssert();
+		startProcess("https://user-service");
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() {
+		sa.assertAll();
+	}
+
+	//Reads and writes share the service, a slow write path shows up in the read latencies too.
+	//With thinkTimeMillis set the mix runs closed-model: stressUsers users that each pause between requests.
+	@Test(groups = "performance", description = "Run the configured mix of user and order operations at a fixed total rate and verify that every operation keeps its share, succeeds and stays within acceptable latency.")
+	public void stressTestWorkloadMix() throws IOException {
+		Config config = PropertiesFile.current();
+		WorkloadMix mix = workloadMix(config.getWorkloadMix());
+		WorkloadMixResult result;
+		IntervalReporter intervals = reportIntervals("WorkloadMixTest.stressTestWorkloadMix");
+		try {
+			result = config.getThinkTime().isZero()
+					? mix.run("workload mix", new OpenModelRunner(stressRate(), stressUsers(), stressWarmup()), stressDuration())
+					: mix.run("workload mix", new ClosedModelRunner(stressUsers(), stressWarmup(), config.getThinkTime()),
+							stressDuration());
+		} finally {
+			intervals.close();
+		}
+		System.out.println(result);
+
+		int weightSum = config.getWorkloadMix().values().stream().mapToInt(Integer::intValue).sum();
+		for (Map.Entry<String, LoadResult> operation : result.getOperations().entrySet()) {
+			String name = operation.getKey();
+			LoadResult measured = operation.getValue();
+			sa.assertEquals(measured.getSuccesses(), measured.getRequests(), name + " failed: " + measured.getStatusCounts());
+			sa.assertEquals(result.getShare(name), (double) config.getWorkloadMix().get(name) / weightSum, 0.01, name + " share");
+
+			// An operation with a small share runs too few requests for a stable p99 or rate of its own, it is only
+			// gated once it runs enough of them; the total below covers it either way
+			if (measured.getRequests() >= RegressionGate.minRequests(99)) {
+				RegressionReport report = recordRun("WorkloadMixTest.stressTestWorkloadMix." + name, MIX_OPERATIONS.get(name),
+						measured);
+				sa.assertFalse(report.hasRegressions(), report.toString());
+				System.out.println(report);
+			}
+		}
+		RegressionReport report = recordRun("WorkloadMixTest.stressTestWorkloadMix", "workload mix", result.getTotal());
+		sa.assertFalse(report.hasRegressions(), report.toString());
+		System.out.println(report);
+		sa.assertTrue(result.getTotal().getResponseTimeMillis(99) < 1000, "Performance issue: p99 above 1s");  // just an example
+	}
+
+}